@@ -1,15 +1,15 @@
 package it.unicas.project.template.address;
 
-import it.unicas.project.template.address.model.Hold;
-import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.diagnostics.Diagnostics;
+import it.unicas.project.template.address.model.ExpiredHoldCleanup;
 import it.unicas.project.template.address.model.User;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.HoldDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.UserDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
 import it.unicas.project.template.address.view.*;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
@@ -24,6 +24,8 @@ import java.time.ZoneId;
 
 
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.logging.Logger;
 
 /**
  * Main application class for the Library Management System.
@@ -36,6 +38,8 @@ import java.io.IOException;
  */
 public class MainApp extends Application {
 
+    private static final Logger logger = Logger.getLogger(MainApp.class.getName());
+
     private Stage primaryStage; // Primary stage for the main application window
     private User loggedUser; // Stores the currently logged-in user object
 
@@ -68,6 +72,29 @@ public class MainApp extends Application {
         this.primaryStage.setWidth(800);
         this.primaryStage.setHeight(520);
 
+        // Report JavaFX thread tasks longer than a frame to Flight Recorder, and stalls to the watchdog
+        // (-Dlibrary.fx.watchdog=true); idle unless one of them is on
+        FxTaskMonitor.start();
+        // Lets the DAO profiler (-Dlibrary.dao.profile=true) end an action once its JavaFX event is handled
+        Diagnostics.setFxExecutor(Platform::runLater);
+
+        // Select the persistence backend: --dao=memory on the command line, or -Dlibrary.dao=memory
+        String backend = getParameters().getNamed().get("dao");
+        if (backend != null) {
+            DAOFactory.setBackend(DAOFactory.Backend.parse(backend));
+        }
+
+        // Open the first pooled database connections up front, so the cleanup below and
+        // the login query do not each pay the connection handshake.
+        if (!DAOFactory.isMemory()) {
+            try {
+                DAOMySQLSettings.warmUpPool();
+            } catch (SQLException e) {
+                // Not fatal: the pool retries on the first real query, which reports its own error
+                logger.warning("Could not warm up the connection pool: " + e.getMessage());
+            }
+        }
+
         // Clean up expired holds before showing login. This way each time the app starts,
         // expired holds are removed from the database.
         try {
@@ -98,7 +125,23 @@ public class MainApp extends Application {
     }
 
     /**
-     * Erases holds that have expired (older than 24 hours) from the database.
+     * Called by the JavaFX runtime when the application exits.
+     * Closes every pooled database connection so no session is left open on the server
+     * (nothing to close with the in-memory backend).
+     *
+     * Access Keyword Explanation: {@code public} - This method overrides
+     * {@code javafx.application.Application.stop()} and is called by the JavaFX runtime.
+     */
+    @Override
+    public void stop() {
+        if (!DAOFactory.isMemory()) {
+            DAOMySQLSettings.shutdownPool();
+        }
+    }
+
+    /**
+     * Erases holds that have expired (older than 24 hours) from the database and sets
+     * their materials back to 'available', in one set-based transaction.
      *
      * Access Keyword Explanation: {@code private} - This is a utility method used only
      * internally by the {@code start()} method for application maintenance. It does not
@@ -109,39 +152,10 @@ public class MainApp extends Application {
     private void cleanupExpiredHolds() throws DAOException {
         LocalDateTime now = LocalDateTime.now(ZoneId.of("Europe/Rome")); // Current hour in Europe/Rome timezone
         LocalDateTime cutoffDate = now.minusHours(24); // We define a cut-off date of 24 hours
-        System.out.println("CutoffDate for expired holds: " + cutoffDate);
-
-        // Fetch all current holds from the database:
-        List<Hold> allHolds = HoldDAOMySQLImpl.getInstance().select(new Hold());
-
-        for (Hold hold : allHolds) {
-            if (hold.getHold_date() != null) {
-                // Adjust the hold date to Rome timezone if necessary
-                LocalDateTime holdAdjusted = hold.getHold_date();
-                System.out.println("Checking hold " + hold.getIdHold() + " with date " + holdAdjusted);
-
-                if (holdAdjusted.isBefore(cutoffDate)) {
-                    System.out.println("Deleting hold: " + hold.getIdHold() + " with date: " + holdAdjusted);
-
-                    // Update material status to "available"
-                    Material material = new Material();
-                    material.setIdMaterial(hold.getIdMaterial()); // We set the material ID from the hold data
-                    material = MaterialDAOMySQLImpl.getInstance().select(material).stream().findFirst().orElse(null); // And we fetch the full material record
+        logger.fine("Cutoff date for expired holds: " + cutoffDate);
 
-                    if (material != null) {
-                        material.setMaterial_status("available"); // Set status to available
-                        MaterialDAOMySQLImpl.getInstance().update(material); // Update in DB
-                        System.out.println("Material '" + material.getTitle() + "' (Author: " + material.getAuthor() + ") set to available after a hold on this material expired.");
-                    }
-
-                    // Erase expired hold
-                    HoldDAOMySQLImpl.getInstance().delete(hold);
-
-                } else {
-                    System.out.println("Hold " + hold.getIdHold() + " is not expired yet.");
-                }
-            }
-        }
+        ExpiredHoldCleanup result = DAOFactory.getHoldDAO().deleteExpiredHolds(cutoffDate);
+        logger.info("Expired hold cleanup: " + result);
     }
 
     /**
@@ -187,7 +201,7 @@ public class MainApp extends Application {
                 String username = controller.getUsername();
 
                 // Fetch user data and initialize lists
-                loggedUser = UserDAOMySQLImpl.getInstance().getByUsername(username);
+                loggedUser = DAOFactory.getUserDAO().getByUsername(username);
 
                 // Depending on the role, set the correct scene on the primaryStage (which is still hidden)
                 if (loggedUser.getIdRole() == 1) { // Admin Role
@@ -0,0 +1,189 @@
+package it.unicas.project.template.address.diagnostics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Helpers shared by the opt-in diagnostics (the DAO query profiler, the JavaFX task monitor and stall watchdog):
+ * telling application frames from JavaFX dispatch frames, recognizing the JavaFX thread, and writing a report file.
+ * <p>
+ * This class does not depend on JavaFX, so that the DAOs can use it outside the application (scripts, tests): the
+ * JavaFX thread is recognized by its name, and the application hands in {@link #setFxExecutor(Executor)} to run
+ * code on it.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Used by the diagnostics of the DAO and view packages.
+ */
+public final class Diagnostics {
+
+    /** Package of the application classes, followed by a dot. */
+    public static final String APP_PACKAGE = "it.unicas.project.template.address.";
+
+    /** Package of the DAOs, followed by a dot. */
+    public static final String DAO_PACKAGE = APP_PACKAGE + "model.dao.";
+
+    // Frames through which JavaFX (or reflection) dispatches into the application: a task starts right above them
+    private static final String[] DISPATCH_PACKAGES =
+            {"javafx.", "com.sun.javafx.", "com.sun.glass.", "java.lang.reflect.", "jdk.internal.reflect."};
+
+    private static final String FX_THREAD = "JavaFX Application Thread";
+
+    private static volatile Executor fxExecutor;
+
+    private Diagnostics() {
+    }
+
+    /**
+     * Returns whether a frame belongs to the JavaFX (or reflection) code dispatching events into the application.
+     *
+     * @param className The class of the frame.
+     * @return true for a dispatch frame.
+     */
+    public static boolean isDispatch(String className) {
+        for (String prefix : DISPATCH_PACKAGES) {
+            if (className.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the short name of an application method, e.g. {@code UserCatalogController.handleFilter}.
+     *
+     * @param className The class of the method.
+     * @param methodName The method name.
+     * @return The simple class name and the method name.
+     */
+    public static String methodOf(String className, String methodName) {
+        return className.substring(className.lastIndexOf('.') + 1) + "." + methodName;
+    }
+
+    /**
+     * Returns whether the current thread is the JavaFX application thread.
+     * <p>
+     * Checks the thread name rather than {@code Platform.isFxApplicationThread()}, which would start the JavaFX
+     * toolkit when called outside the application.
+     * </p>
+     *
+     * @return true on the JavaFX thread.
+     */
+    public static boolean isFxThread() {
+        return FX_THREAD.equals(Thread.currentThread().getName());
+    }
+
+    /**
+     * Sets how to run code on the JavaFX thread once it has handled its current event (i.e.
+     * {@code Platform::runLater}).
+     *
+     * Access Keyword Explanation: {@code public static} - Called by {@code MainApp.start()}.
+     *
+     * @param executor The executor posting to the JavaFX thread.
+     */
+    public static void setFxExecutor(Executor executor) {
+        fxExecutor = executor;
+    }
+
+    /**
+     * Returns whether {@link #runOnFxThread(Runnable)} can be called, i.e. the application has set up the JavaFX
+     * thread.
+     *
+     * @return true once {@link #setFxExecutor(Executor)} has been called.
+     */
+    public static boolean canRunOnFxThread() {
+        return fxExecutor != null;
+    }
+
+    /**
+     * Runs some code on the JavaFX thread once it has handled its current event.
+     *
+     * @param task The code to run.
+     * @throws IllegalStateException If the JavaFX thread was not set up (see {@link #canRunOnFxThread()}).
+     */
+    public static void runOnFxThread(Runnable task) {
+        Executor executor = fxExecutor;
+        if (executor == null) throw new IllegalStateException("No JavaFX thread to run on");
+        executor.execute(task);
+    }
+
+    /**
+     * Formats a duration, e.g. {@code 12.345 ms}.
+     *
+     * @param nanos The duration, in nanoseconds.
+     * @return The duration in milliseconds.
+     */
+    public static String millis(long nanos) {
+        return String.format("%.3f ms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * A report file, written at most every few seconds while there is news, and when the application exits.
+     */
+    public static final class ReportFile {
+
+        private static final long WRITE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+        private static final Logger logger = Logger.getLogger(ReportFile.class.getName());
+
+        private final String description;
+        private final Path path;
+        private final Supplier<String> content;
+        private long lastWriteNanos = System.nanoTime() - WRITE_INTERVAL_NANOS;
+
+        /**
+         * Creates a report file, written when the application exits.
+         *
+         * @param description What the report is, for the log, e.g. {@code "DAO profile report"}.
+         * @param path The file to write.
+         * @param content Returns the report, as text.
+         * @param beforeExit Run when the application exits, before the report is written (e.g. to record what is
+         *                   still in progress).
+         */
+        public ReportFile(String description, Path path, Supplier<String> content, Runnable beforeExit) {
+            this.description = description;
+            this.path = path;
+            this.content = content;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                beforeExit.run();
+                write();
+            }, description.toLowerCase().replace(' ', '-')));
+        }
+
+        /**
+         * Returns the file written.
+         *
+         * @return The path of the report.
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * Writes the report, unless it was written less than a few seconds ago.
+         */
+        public void writeIfDue() {
+            synchronized (this) {
+                if (System.nanoTime() - lastWriteNanos < WRITE_INTERVAL_NANOS) return;
+            }
+            write();
+        }
+
+        /**
+         * Writes the report now; a failure is logged.
+         */
+        public void write() {
+            synchronized (this) {
+                lastWriteNanos = System.nanoTime();
+            }
+            try {
+                Files.writeString(path, content.get(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.warning("Could not write the " + description + ": " + e.getMessage());
+            }
+        }
+    }
+}
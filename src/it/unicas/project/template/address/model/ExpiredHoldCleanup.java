@@ -0,0 +1,51 @@
+package it.unicas.project.template.address.model;
+
+/**
+ * Data Transfer Object (DTO) that reports the outcome of the bulk removal of expired holds.
+ * <p>
+ * Returned by {@code HoldDAOMySQLImpl.deleteExpiredHolds} so that the caller can log
+ * how many rows were changed without loading the holds themselves.
+ * </p>
+ */
+public class ExpiredHoldCleanup {
+
+    /** Number of materials set back to 'available' */
+    private final int materialsReleased;
+
+    /** Number of expired holds deleted */
+    private final int holdsDeleted;
+
+    /**
+     * Constructs an {@code ExpiredHoldCleanup} instance.
+     *
+     * @param materialsReleased the number of materials set back to 'available'
+     * @param holdsDeleted the number of expired holds deleted
+     */
+    public ExpiredHoldCleanup(int materialsReleased, int holdsDeleted) {
+        this.materialsReleased = materialsReleased;
+        this.holdsDeleted = holdsDeleted;
+    }
+
+    /**
+     * Returns the number of materials set back to 'available'.
+     *
+     * @return released materials count
+     */
+    public int getMaterialsReleased() {
+        return materialsReleased;
+    }
+
+    /**
+     * Returns the number of expired holds deleted.
+     *
+     * @return deleted holds count
+     */
+    public int getHoldsDeleted() {
+        return holdsDeleted;
+    }
+
+    @Override
+    public String toString() {
+        return holdsDeleted + " expired holds deleted, " + materialsReleased + " materials set to available";
+    }
+}
@@ -10,6 +10,12 @@ import java.time.LocalDateTime;
  */
 public class LoanRow {
 
+    /** Shown in place of a missing title, author, ISBN or due date. */
+    public static final String MISSING = "—";
+
+    /** Shown as the type of a material of no known type. */
+    public static final String UNKNOWN_TYPE = "Unknown";
+
     private final int idLoan;                     // Unique identifier for the loan
     private final SimpleStringProperty materialType; // Type of material (e.g., Book, CD)
     private final SimpleStringProperty title;        // Title of the material
@@ -76,7 +82,7 @@ public class LoanRow {
      * @return LocalDateTime representation of the due date, or MAX if invalid
      */
     public LocalDateTime getDueDateAsLocalDate() {
-        if (dueDate.get() == null || dueDate.get().equals("—")) return LocalDateTime.MAX;
+        if (dueDate.get() == null || dueDate.get().equals(MISSING)) return LocalDateTime.MAX;
         return LocalDateTime.parse(dueDate.get() + "T00:00:00");
     }
 }
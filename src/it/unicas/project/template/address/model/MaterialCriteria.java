@@ -0,0 +1,163 @@
+package it.unicas.project.template.address.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Criteria object describing a filtered (and optionally paged) selection of materials.
+ * <p>
+ * It is translated by {@code MaterialDAOMySQLImpl.selectByCriteria} into a parameterized WHERE clause
+ * (IN lists, BETWEEN for years, EXISTS on {@code materials_genres}) plus LIMIT/OFFSET, so that the catalog
+ * screens only pull the matching rows from the server.
+ * </p>
+ * <p>
+ * Every filter is optional: a {@code null} set means "do not filter on this attribute". When a set is given,
+ * a material matches if its value is in the set, or if it has no value at all and the corresponding
+ * {@code includeWithout...} flag is set.
+ * </p>
+ */
+public class MaterialCriteria {
+
+    /** Material type IDs to keep ({@code null} = any type) */
+    private Set<Integer> typeIds;
+
+    /** Whether materials without a known type also match the type filter */
+    private boolean includeWithoutType;
+
+    /** Statuses to keep, compared case-sensitively ({@code null} = any status) */
+    private Set<String> statuses;
+
+    /** Whether materials with a null or empty status also match the status filter */
+    private boolean includeWithoutStatus;
+
+    /** Genre IDs of which a material must have at least one ({@code null} = any genre) */
+    private Set<Integer> genreIds;
+
+    /** Whether materials without any genre also match the genre filter */
+    private boolean includeWithoutGenre;
+
+    /** Inclusive lower bound of the publication year ({@code null} = unbounded) */
+    private Integer yearFrom;
+
+    /** Inclusive upper bound of the publication year ({@code null} = unbounded) */
+    private Integer yearTo;
+
+    /**
+     * Lower-case search words that must all occur in the title, author, ISBN or status (ignoring periods).
+     * This is a coarse pre-filter: the prioritized word matching of {@code SearchService} is applied afterwards.
+     */
+    private final List<String> searchWords = new ArrayList<>();
+
+    /** Whether only the first copy of each title is kept, see {@link #setOnePerTitle(boolean)} */
+    private boolean onePerTitle;
+
+    /** Number of matching rows to skip */
+    private int offset = 0;
+
+    /** Maximum number of rows to return (negative = no limit) */
+    private int limit = -1;
+
+    /**
+     * Restricts the selection to the given material types.
+     *
+     * @param typeIds The type IDs to keep (may be empty).
+     * @param includeWithoutType Whether materials without a known type also match.
+     */
+    public void setTypes(Set<Integer> typeIds, boolean includeWithoutType) {
+        this.typeIds = new LinkedHashSet<>(typeIds);
+        this.includeWithoutType = includeWithoutType;
+    }
+
+    /**
+     * Restricts the selection to the given statuses.
+     *
+     * @param statuses The statuses to keep (may be empty).
+     * @param includeWithoutStatus Whether materials with a null or empty status also match.
+     */
+    public void setStatuses(Set<String> statuses, boolean includeWithoutStatus) {
+        this.statuses = new LinkedHashSet<>(statuses);
+        this.includeWithoutStatus = includeWithoutStatus;
+    }
+
+    /**
+     * Restricts the selection to materials having at least one of the given genres.
+     *
+     * @param genreIds The genre IDs to keep (may be empty).
+     * @param includeWithoutGenre Whether materials without any genre also match.
+     */
+    public void setGenres(Set<Integer> genreIds, boolean includeWithoutGenre) {
+        this.genreIds = new LinkedHashSet<>(genreIds);
+        this.includeWithoutGenre = includeWithoutGenre;
+    }
+
+    /**
+     * Restricts the selection to an inclusive range of publication years.
+     *
+     * @param yearFrom The lower bound, or {@code null} for none.
+     * @param yearTo The upper bound, or {@code null} for none.
+     */
+    public void setYearRange(Integer yearFrom, Integer yearTo) {
+        this.yearFrom = yearFrom;
+        this.yearTo = yearTo;
+    }
+
+    /**
+     * Adds a search word that must occur in the title, author, ISBN or status.
+     *
+     * @param word The search word (stored in lower case).
+     */
+    public void addSearchWord(String word) {
+        searchWords.add(word.toLowerCase());
+    }
+
+    /**
+     * Keeps only the first copy (the one with the lowest ID) of each title, i.e. of each group of copies with the
+     * same title, author, year and ISBN (compared case-sensitively, a blank ISBN and a missing year counting as
+     * none), as the user catalog groups them. The other filters apply to that copy, not to the other ones.
+     *
+     * @param onePerTitle Whether to keep one row per title.
+     */
+    public void setOnePerTitle(boolean onePerTitle) {
+        this.onePerTitle = onePerTitle;
+    }
+
+    /**
+     * Selects one page of the matching rows.
+     *
+     * @param offset Number of matching rows to skip.
+     * @param limit Maximum number of rows to return (negative = no limit).
+     */
+    public void setPage(int offset, int limit) {
+        this.offset = Math.max(0, offset);
+        this.limit = limit;
+    }
+
+    public Set<Integer> getTypeIds() { return typeIds; }
+
+    public boolean isIncludeWithoutType() { return includeWithoutType; }
+
+    public Set<String> getStatuses() { return statuses; }
+
+    public boolean isIncludeWithoutStatus() { return includeWithoutStatus; }
+
+    public Set<Integer> getGenreIds() { return genreIds; }
+
+    public boolean isIncludeWithoutGenre() { return includeWithoutGenre; }
+
+    public Integer getYearFrom() { return yearFrom; }
+
+    public Integer getYearTo() { return yearTo; }
+
+    public List<String> getSearchWords() { return searchWords; }
+
+    public boolean isOnePerTitle() { return onePerTitle; }
+
+    public int getOffset() { return offset; }
+
+    public int getLimit() { return limit; }
+
+    /** @return true if a page (LIMIT/OFFSET) was requested. */
+    public boolean isPaged() { return limit >= 0 || offset > 0; }
+}
@@ -1,6 +1,9 @@
 package it.unicas.project.template.address.model.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * The Data Access Object (DAO) Interface defines the standard contract
@@ -76,4 +79,79 @@ public interface DAO<T> {
      * @throws DAOException if a database error occurs.
      */
     List<T> selectAll() throws DAOException;
+
+    /**
+     * Retrieves several objects of type T by primary key in bulk.
+     * <p>
+     * Replaces one {@code select} per ID (the "N+1 queries" pattern) with a few {@code IN (...)} queries.
+     * The default implementation reports the operation as unsupported.
+     * </p>
+     *
+     * @param ids The primary keys to look up; {@code null}, -1 and duplicates are ignored.
+     * @return The found objects keyed by ID, in the order the IDs were requested. Missing IDs are absent.
+     * @throws DAOException if a database error occurs or the DAO does not support bulk lookups.
+     */
+    default Map<Integer, T> selectByIds(Collection<Integer> ids) throws DAOException {
+        throw new DAOException("selectByIds() is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Retrieves the objects of type T matching the criteria as a stream, for callers that process large
+     * result sets one object at a time (grouping, export, index building).
+     * <p>
+     * Implementations backed by a database may read from an open cursor and hold a connection until the
+     * stream is closed, so the stream must always be closed (e.g., with try-with-resources).
+     * The default implementation simply streams the result of {@link #select(Object)}.
+     * </p>
+     *
+     * @param a The object containing the criteria (template) for the selection.
+     * @return A stream of the objects matching the criteria.
+     * @throws DAOException if a database error occurs.
+     */
+    default Stream<T> selectStream(T a) throws DAOException {
+        return select(a).stream();
+    }
+
+    /**
+     * Inserts several objects of type T as one batch.
+     * <p>
+     * Implementations backed by a database send the rows as a JDBC batch inside a single transaction
+     * (all rows are inserted or none is). As with {@link #insert(Object)}, auto-generated keys are set
+     * on the objects, in list order. The default implementation simply calls {@code insert} for each object.
+     * </p>
+     *
+     * @param items The objects to be persisted.
+     * @throws DAOException if a database error occurs or any object is invalid.
+     */
+    default void insertAll(List<T> items) throws DAOException {
+        for (T item : items) insert(item);
+    }
+
+    /**
+     * Updates several existing objects of type T as one batch.
+     * <p>
+     * Every object must contain a valid ID. The default implementation simply calls {@code update}
+     * for each object.
+     * </p>
+     *
+     * @param items The objects containing the updated data.
+     * @throws DAOException if a database error occurs or any object is invalid.
+     */
+    default void updateAll(List<T> items) throws DAOException {
+        for (T item : items) update(item);
+    }
+
+    /**
+     * Deletes several objects of type T as one batch.
+     * <p>
+     * Every object must contain a valid ID. The default implementation simply calls {@code delete}
+     * for each object.
+     * </p>
+     *
+     * @param items The objects to be deleted.
+     * @throws DAOException if a database error occurs or any ID is missing.
+     */
+    default void deleteAll(List<T> items) throws DAOException {
+        for (T item : items) delete(item);
+    }
 }
\ No newline at end of file
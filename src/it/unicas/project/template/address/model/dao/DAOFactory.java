@@ -0,0 +1,133 @@
+package it.unicas.project.template.address.model.dao;
+
+import it.unicas.project.template.address.model.dao.memory.MemoryDatabase;
+import it.unicas.project.template.address.model.dao.mysql.ConnectionTransaction;
+import it.unicas.project.template.address.model.dao.mysql.GenreDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.HoldDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.LoanDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.MaterialGenreDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.MaterialTypeDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.mysql.UserDAOMySQLImpl;
+
+/**
+ * Single access point to the DAOs of the persistence backend selected at startup.
+ * <p>
+ * Services and controllers obtain their DAOs here instead of calling the {@code getInstance()} of a
+ * particular implementation, so the whole application can run either against MySQL (the default) or
+ * against the in-memory backend ({@link MemoryDatabase}), e.g. for benchmarks or a single-desk
+ * deployment without a database server.
+ * </p>
+ * <p>
+ * The backend is read once from the {@value #BACKEND_PROPERTY} system property ({@code mysql} or
+ * {@code memory}) unless {@link #setBackend(Backend)} is called first (see {@code MainApp}).
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Used by the service and view layers.
+ */
+public final class DAOFactory {
+
+    /** System property selecting the backend: {@code mysql} (default) or {@code memory}. */
+    public static final String BACKEND_PROPERTY = "library.dao";
+
+    /**
+     * The available persistence backends.
+     */
+    public enum Backend {
+        /** The MySQL database configured in {@code DAOMySQLSettings}. */
+        MYSQL,
+        /** The process-local, indexed in-memory database ({@link MemoryDatabase#getShared()}). */
+        MEMORY;
+
+        /**
+         * Parses a backend name, case-insensitively.
+         *
+         * @param name The backend name ({@code null} or blank means MySQL).
+         * @return The matching backend.
+         * @throws IllegalArgumentException if the name is unknown.
+         */
+        public static Backend parse(String name) {
+            if (name == null || name.isBlank()) return MYSQL;
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    private static Backend backend = null; // Resolved lazily from the system property
+
+    /**
+     * Private constructor: static utility class.
+     */
+    private DAOFactory() {}
+
+    /**
+     * Selects the backend used by every subsequent DAO lookup.
+     * Must be called at startup, before any DAO is used.
+     *
+     * @param selected The backend to use.
+     */
+    public static synchronized void setBackend(Backend selected) {
+        backend = selected;
+    }
+
+    /**
+     * Returns the selected backend, reading the {@value #BACKEND_PROPERTY} system property on first use.
+     *
+     * @return The selected backend.
+     */
+    public static synchronized Backend getBackend() {
+        if (backend == null) {
+            backend = Backend.parse(System.getProperty(BACKEND_PROPERTY));
+        }
+        return backend;
+    }
+
+    /** @return true if the in-memory backend is selected. */
+    public static boolean isMemory() {
+        return getBackend() == Backend.MEMORY;
+    }
+
+    /**
+     * Begins a transaction of the selected backend on the current thread, for a {@link UnitOfWork}.
+     *
+     * @return The transaction.
+     * @throws DAOException if the transaction cannot be begun (e.g. no connection can be obtained).
+     */
+    static Transaction beginTransaction() throws DAOException {
+        return isMemory() ? MemoryDatabase.getShared().openTransaction() : ConnectionTransaction.begin();
+    }
+
+    /** @return The Material DAO of the selected backend. */
+    public static MaterialDAO getMaterialDAO() {
+        return isMemory() ? MemoryDatabase.getShared().getMaterialDAO() : MaterialDAOMySQLImpl.getInstance();
+    }
+
+    /** @return The Loan DAO of the selected backend. */
+    public static LoanDAO getLoanDAO() {
+        return isMemory() ? MemoryDatabase.getShared().getLoanDAO() : LoanDAOMySQLImpl.getInstance();
+    }
+
+    /** @return The Hold DAO of the selected backend. */
+    public static HoldDAO getHoldDAO() {
+        return isMemory() ? MemoryDatabase.getShared().getHoldDAO() : HoldDAOMySQLImpl.getInstance();
+    }
+
+    /** @return The MaterialGenre DAO of the selected backend. */
+    public static MaterialGenreDAO getMaterialGenreDAO() {
+        return isMemory() ? MemoryDatabase.getShared().getMaterialGenreDAO() : MaterialGenreDAOMySQLImpl.getInstance();
+    }
+
+    /** @return The Genre DAO of the selected backend. */
+    public static GenreDAO getGenreDAO() {
+        return isMemory() ? MemoryDatabase.getShared().getGenreDAO() : GenreDAOMySQLImpl.getInstance();
+    }
+
+    /** @return The MaterialType DAO of the selected backend. */
+    public static MaterialTypeDAO getMaterialTypeDAO() {
+        return isMemory() ? MemoryDatabase.getShared().getMaterialTypeDAO() : MaterialTypeDAOMySQLImpl.getInstance();
+    }
+
+    /** @return The User DAO of the selected backend. */
+    public static UserDAO getUserDAO() {
+        return isMemory() ? MemoryDatabase.getShared().getUserDAO() : UserDAOMySQLImpl.getInstance();
+    }
+}
@@ -0,0 +1,40 @@
+package it.unicas.project.template.address.model.dao;
+
+import it.unicas.project.template.address.model.ExpiredHoldCleanup;
+import it.unicas.project.template.address.model.ExpiringHoldInfo;
+import it.unicas.project.template.address.model.Hold;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The Data Access Object (DAO) Interface for the Hold entity.
+ * <p>
+ * Extends the generic {@link DAO} contract with the notification query and the bulk
+ * removal of expired holds run at startup.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO interface.
+ */
+public interface HoldDAO extends DAO<Hold> {
+
+    /**
+     * Retrieves the holds of a user that are still within their pickup window,
+     * with their material's title and author and their expiration date.
+     *
+     * @param userId The ID of the user.
+     * @return The user's active holds.
+     * @throws DAOException if a database error occurs.
+     */
+    List<ExpiringHoldInfo> getExpiringHoldsForUser(int userId) throws DAOException;
+
+    /**
+     * Deletes every hold placed before {@code cutoff} and sets the held materials back to 'available',
+     * atomically.
+     *
+     * @param cutoff Holds placed strictly before this instant are expired.
+     * @return How many materials were released and how many holds were deleted.
+     * @throws DAOException if a database error occurs (nothing is changed).
+     */
+    ExpiredHoldCleanup deleteExpiredHolds(LocalDateTime cutoff) throws DAOException;
+}
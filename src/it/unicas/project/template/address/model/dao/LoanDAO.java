@@ -0,0 +1,54 @@
+package it.unicas.project.template.address.model.dao;
+
+import it.unicas.project.template.address.model.Loan;
+import it.unicas.project.template.address.model.LoanRow;
+import it.unicas.project.template.address.model.OverdueLoan;
+
+import java.util.List;
+
+/**
+ * The Data Access Object (DAO) Interface for the Loan entity.
+ * <p>
+ * Extends the generic {@link DAO} contract with the per-user and return-desk queries
+ * used by the services and controllers.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO interface.
+ */
+public interface LoanDAO extends DAO<Loan> {
+
+    /**
+     * Counts the active loans (not yet returned) of a user.
+     *
+     * @param userId The ID of the user.
+     * @return The number of active loans.
+     * @throws DAOException if a database error occurs.
+     */
+    int countActiveLoansByUserId(int userId) throws DAOException;
+
+    /**
+     * Retrieves the active loans of a user whose due date has passed, with their material's title and author.
+     *
+     * @param userId The ID of the user.
+     * @return The user's overdue loans.
+     * @throws DAOException if a database error occurs.
+     */
+    List<OverdueLoan> getOverdueLoansForUser(int userId) throws DAOException;
+
+    /**
+     * Deletes every loan (active or returned) of a user.
+     *
+     * @param idUser The ID of the user.
+     * @throws DAOException if a database error occurs.
+     */
+    void deleteAllLoansByUserId(Integer idUser) throws DAOException;
+
+    /**
+     * Retrieves the display rows of every active loan, joined with its material and user,
+     * ordered by due date (loans without a due date last).
+     *
+     * @return The active loan rows.
+     * @throws DAOException if a database error occurs.
+     */
+    List<LoanRow> selectActiveLoanRows() throws DAOException;
+}
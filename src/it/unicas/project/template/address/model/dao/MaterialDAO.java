@@ -0,0 +1,96 @@
+package it.unicas.project.template.address.model.dao;
+
+import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.MaterialCriteria;
+import it.unicas.project.template.address.model.MaterialInventory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Data Access Object (DAO) Interface for the Material entity.
+ * <p>
+ * Extends the generic {@link DAO} contract with the inventory and catalog queries that
+ * have no generic equivalent, so that the service and view layers do not depend on a
+ * particular persistence backend (MySQL or in-memory, see {@link DAOFactory}).
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO interface.
+ */
+public interface MaterialDAO extends DAO<Material> {
+
+    /**
+     * Retrieves all material inventory records: the materials grouped by their descriptive
+     * attributes (title, author, year, ISBN, type) with their copy and status counts.
+     *
+     * @return A list of {@code MaterialInventory} objects representing the entire catalog, ordered by title.
+     * @throws DAOException if a database error occurs.
+     */
+    List<MaterialInventory> selectAllInventory() throws DAOException;
+
+    /**
+     * Updates the descriptive fields (title, author, year, ISBN) of every copy in a material group.
+     *
+     * @param updatedMaterial The Material object containing the new group values.
+     * @param originalGroup The group before the update, used to find its copies.
+     * @throws DAOException if the ISBN is missing for a book group or a database error occurs.
+     */
+    void updateMaterialGroup(Material updatedMaterial, MaterialInventory originalGroup) throws DAOException;
+
+    /**
+     * Selects the materials matching a {@link MaterialCriteria}, ordered by title (then ID).
+     *
+     * @param c The selection criteria.
+     * @return The matching materials (only the requested page, if any).
+     * @throws DAOException if a database error occurs.
+     */
+    List<Material> selectByCriteria(MaterialCriteria c) throws DAOException;
+
+    /**
+     * Counts the materials matching a {@link MaterialCriteria}, ignoring its page.
+     *
+     * @param c The selection criteria.
+     * @return The total number of matching materials.
+     * @throws DAOException if a database error occurs.
+     */
+    int countByCriteria(MaterialCriteria c) throws DAOException;
+
+    /**
+     * Counts the materials matching a {@link MaterialCriteria} by type, for the live counts of the catalog filters.
+     *
+     * @param c The selection criteria (its page is ignored).
+     * @return The number of matching materials by type ID; the {@code null} key counts those without a known type.
+     * @throws DAOException if a database error occurs.
+     */
+    Map<Integer, Integer> countByType(MaterialCriteria c) throws DAOException;
+
+    /**
+     * Counts the materials matching a {@link MaterialCriteria} by status (compared case-sensitively).
+     *
+     * @param c The selection criteria (its page is ignored).
+     * @return The number of matching materials by status; the {@code null} key counts those with a null or empty
+     *         status.
+     * @throws DAOException if a database error occurs.
+     */
+    Map<String, Integer> countByStatus(MaterialCriteria c) throws DAOException;
+
+    /**
+     * Counts the materials matching a {@link MaterialCriteria} by genre; a material counts once for each of its
+     * genres.
+     *
+     * @param c The selection criteria (its page is ignored).
+     * @return The number of matching materials by genre ID; the {@code null} key counts those without any genre.
+     * @throws DAOException if a database error occurs.
+     */
+    Map<Integer, Integer> countByGenre(MaterialCriteria c) throws DAOException;
+
+    /**
+     * Selects every copy of some titles, given by their first copies (see {@link MaterialCriteria#setOnePerTitle}).
+     *
+     * @param firstCopyIds The IDs of the first copies of the titles.
+     * @return The copies of each title, ordered by ID, keyed by the ID of its first copy.
+     * @throws DAOException if a database error occurs.
+     */
+    Map<Integer, List<Material>> selectCopies(Collection<Integer> firstCopyIds) throws DAOException;
+}
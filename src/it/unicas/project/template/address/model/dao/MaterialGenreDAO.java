@@ -0,0 +1,32 @@
+package it.unicas.project.template.address.model.dao;
+
+import it.unicas.project.template.address.model.MaterialGenre;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Data Access Object (DAO) Interface for the MaterialGenre association (materials_genres).
+ *
+ * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO interface.
+ */
+public interface MaterialGenreDAO extends DAO<MaterialGenre> {
+
+    /**
+     * Deletes every genre association of a material.
+     *
+     * @param materialId The ID of the material.
+     * @throws DAOException if the ID is missing or a database error occurs.
+     */
+    void deleteAllByMaterialId(Integer materialId) throws DAOException;
+
+    /**
+     * Reads the genres of some materials at once, e.g. of the rows of a catalog page.
+     *
+     * @param materialIds The material IDs; {@code null}, -1 and duplicate IDs are ignored.
+     * @return The genre IDs of each material having at least one genre, by material ID.
+     * @throws DAOException if a database error occurs.
+     */
+    Map<Integer, Set<Integer>> selectGenreIds(Collection<Integer> materialIds) throws DAOException;
+}
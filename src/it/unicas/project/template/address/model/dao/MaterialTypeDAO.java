@@ -0,0 +1,20 @@
+package it.unicas.project.template.address.model.dao;
+
+import it.unicas.project.template.address.model.MaterialType;
+
+import java.util.List;
+
+/**
+ * The Data Access Object (DAO) Interface for the MaterialType lookup table.
+ *
+ * Access Keyword Explanation: {@code public} - Allows the service and view layers to interact with this DAO interface.
+ */
+public interface MaterialTypeDAO {
+
+    /**
+     * Retrieves all material types, ordered by name.
+     *
+     * @return A list containing all {@code MaterialType} objects.
+     */
+    List<MaterialType> selectAll();
+}
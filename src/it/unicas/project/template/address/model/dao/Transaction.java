@@ -0,0 +1,38 @@
+package it.unicas.project.template.address.model.dao;
+
+/**
+ * A transaction of the selected persistence backend, owned by the outermost {@link UnitOfWork} of a thread.
+ * <p>
+ * Each backend provides its own (a pooled MySQL connection, or a {@code MemoryDatabase} transaction), begun by
+ * {@link DAOFactory#beginTransaction()}; the unit of work adds the joining of nested units and the rollback-only
+ * semantics on top of it.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Implemented by the backends, in their own packages.
+ */
+public interface Transaction {
+
+    /**
+     * Makes the changes of the transaction permanent.
+     *
+     * @throws DAOException if the commit fails (the transaction is then ended without commit).
+     */
+    void commit() throws DAOException;
+
+    /**
+     * Ends the transaction, rolling it back unless it was committed, and releases what it holds.
+     *
+     * @param committed Whether {@link #commit()} succeeded.
+     * @throws DAOException if the rollback fails.
+     */
+    void end(boolean committed) throws DAOException;
+
+    /**
+     * Returns whether a DAO asked the backend to roll back the transaction, so that it must not be committed.
+     *
+     * @return true if only a rollback is possible.
+     */
+    default boolean isRollbackOnly() {
+        return false;
+    }
+}
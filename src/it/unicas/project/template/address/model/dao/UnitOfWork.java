@@ -0,0 +1,129 @@
+package it.unicas.project.template.address.model.dao;
+
+/**
+ * A database transaction spanning several DAO calls (a "unit of work").
+ * <p>
+ * While a unit of work is open on the current thread, the DAOs of the selected backend run in its
+ * {@link Transaction}: with MySQL, every {@code *DAOMySQLImpl} gets the same pooled connection instead of borrowing
+ * a new one; with the in-memory backend, the changes are journaled under the database's write lock. So all the DAO
+ * calls of one business operation are committed (or rolled back) together, and the DAOs need no change.
+ * </p>
+ * <pre>
+ * try (UnitOfWork uow = UnitOfWork.begin()) {
+ *     materialDAO.update(material);
+ *     holdDAO.insert(hold);
+ *     uow.commit();
+ * } // closed without commit() = rolled back
+ * </pre>
+ * <p>
+ * Beginning a unit of work while another one is open on the same thread joins the outer one: only the
+ * outermost {@code commit()} is effective, and a rollback anywhere makes the whole unit of work roll back.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Services and controllers group their DAO calls with it.
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    /**
+     * A block of DAO calls executed inside a unit of work by {@link #run(Work)}.
+     */
+    @FunctionalInterface
+    public interface Work {
+        void run() throws DAOException;
+    }
+
+    // The unit of work open on each thread, if any
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final UnitOfWork outer;          // The unit of work this one joined, or null if it owns the transaction
+    private final Transaction transaction;   // The backend transaction, shared with the units that joined
+    private boolean rollbackOnly = false;
+    private boolean committed = false;
+    private boolean closed = false;
+
+    private UnitOfWork(UnitOfWork outer, Transaction transaction) {
+        this.outer = outer;
+        this.transaction = transaction;
+    }
+
+    /**
+     * Begins a unit of work on the current thread, or joins the one already open.
+     *
+     * Access Keyword Explanation: {@code public static} - Entry point used by services and controllers.
+     *
+     * @return The unit of work, to be used in a try-with-resources block.
+     * @throws DAOException if the transaction cannot be begun (e.g. no connection can be obtained).
+     */
+    public static UnitOfWork begin() throws DAOException {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            return new UnitOfWork(current, current.transaction);
+        }
+
+        UnitOfWork uow = new UnitOfWork(null, DAOFactory.beginTransaction());
+        CURRENT.set(uow);
+        return uow;
+    }
+
+    /**
+     * Runs a block of DAO calls in a unit of work, committing it if the block completes normally and
+     * rolling it back if it throws.
+     *
+     * Access Keyword Explanation: {@code public static} - Convenience entry point for services.
+     *
+     * @param work The DAO calls to execute atomically.
+     * @throws DAOException if a DAO call fails or the commit fails (nothing is changed).
+     */
+    public static void run(Work work) throws DAOException {
+        try (UnitOfWork uow = begin()) {
+            work.run();
+            uow.commit();
+        }
+    }
+
+    /**
+     * Commits the unit of work. When joined to an outer unit of work, the commit is deferred to the outer one.
+     *
+     * @throws DAOException if the unit of work was marked for rollback or the commit fails.
+     */
+    public void commit() throws DAOException {
+        if (closed) throw new DAOException("In UnitOfWork.commit(): already closed");
+        if (rollbackOnly || transaction.isRollbackOnly()) {
+            throw new DAOException("In UnitOfWork.commit(): a previous operation failed, rolling back");
+        }
+        committed = true;
+        if (outer != null) return;
+
+        try {
+            transaction.commit();
+        } catch (DAOException e) {
+            committed = false;
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the unit of work so that it is rolled back when the outermost unit of work ends.
+     */
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+        if (outer != null) outer.setRollbackOnly();
+    }
+
+    /**
+     * Ends the unit of work. If it was not committed, it is rolled back. The owner then ends the backend
+     * transaction (e.g. returning the connection to the pool).
+     *
+     * @throws DAOException if the rollback fails.
+     */
+    @Override
+    public void close() throws DAOException {
+        if (closed) return;
+        closed = true;
+        if (!committed) setRollbackOnly();
+        if (outer != null) return;
+
+        CURRENT.remove();
+        transaction.end(committed);
+    }
+}
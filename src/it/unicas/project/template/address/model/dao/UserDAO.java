@@ -0,0 +1,71 @@
+package it.unicas.project.template.address.model.dao;
+
+import it.unicas.project.template.address.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Data Access Object (DAO) Interface for the User entity.
+ * <p>
+ * Users have no {@code selectAll()} (use {@code select(null)}), so this interface does not extend the generic
+ * {@link DAO} contract.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO interface.
+ */
+public interface UserDAO {
+
+    /**
+     * Retrieves a user by username.
+     *
+     * @param username The username to look up.
+     * @return The matching user, or {@code null} if there is none.
+     * @throws DAOException if a database error occurs.
+     */
+    User getByUsername(String username) throws DAOException;
+
+    /**
+     * Retrieves the users matching the non-default fields of the template: ID, role and national ID
+     * are compared exactly, name, surname and username by prefix, email by substring.
+     *
+     * @param u The template ({@code null} selects every user).
+     * @return The matching users.
+     * @throws DAOException if a database error occurs.
+     */
+    List<User> select(User u) throws DAOException;
+
+    /**
+     * Inserts a new user and sets its generated ID.
+     *
+     * @param u The user to insert.
+     * @throws DAOException if a database error occurs or the user is null.
+     */
+    void insert(User u) throws DAOException;
+
+    /**
+     * Updates an existing user, identified by its ID.
+     *
+     * @param u The user with the updated data.
+     * @throws DAOException if a database error occurs or the user is null.
+     */
+    void update(User u) throws DAOException;
+
+    /**
+     * Deletes a user, identified by its ID.
+     *
+     * @param u The user to delete.
+     * @throws DAOException if a database error occurs or the ID is missing.
+     */
+    void delete(User u) throws DAOException;
+
+    /**
+     * Retrieves several users by ID in bulk.
+     *
+     * @param ids The user IDs to look up; {@code null}, -1 and duplicates are ignored.
+     * @return The found users keyed by ID, in the order the IDs were requested.
+     * @throws DAOException if a database error occurs.
+     */
+    Map<Integer, User> selectByIds(Collection<Integer> ids) throws DAOException;
+}
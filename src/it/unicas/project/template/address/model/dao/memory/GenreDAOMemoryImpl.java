@@ -0,0 +1,68 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.Genre;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.GenreDAO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory implementation of the Genre DAO, backed by the {@code genre} table of a {@link MemoryDatabase}.
+ * Genres are listed from the by-name index, in the order of {@code GenreDAOMySQLImpl}'s {@code ORDER BY genre}.
+ *
+ * Access Keyword Explanation: package-private - Obtained through {@link MemoryDatabase#getGenreDAO()}.
+ */
+class GenreDAOMemoryImpl implements GenreDAO {
+
+    private final MemoryDatabase db;
+
+    /**
+     * Creates the DAO of a database.
+     *
+     * @param db The database holding the genres.
+     */
+    GenreDAOMemoryImpl(MemoryDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public List<Genre> selectAll() {
+        try {
+            return db.read(() -> {
+                List<Genre> genres = new ArrayList<>();
+                for (Genre row : db.genres.ordered(db.genresByName)) genres.add(MemoryDatabase.copy(row));
+                return genres;
+            });
+        } catch (DAOException e) {
+            return new ArrayList<>(); // Reads of the in-memory tables do not fail
+        }
+    }
+
+    @Override
+    public Integer findIdByName(String name) {
+        try {
+            return db.read(() -> {
+                // Like genre=? with the case-insensitive collation; the lowest ID wins on duplicates
+                Integer id = null;
+                for (Genre row : db.genres.peekAll()) {
+                    if (row.getGenre() != null && row.getGenre().equalsIgnoreCase(name)
+                            && (id == null || row.getIdGenre() < id)) {
+                        id = row.getIdGenre();
+                    }
+                }
+                return id;
+            });
+        } catch (DAOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void insert(Genre g) throws DAOException {
+        if (g == null || g.getGenre() == null) {
+            throw new DAOException("In insert(): genre cannot be null");
+        }
+        db.write(() -> db.genres.put(new Genre(db.genres.nextId(), g.getGenre())));
+    }
+}
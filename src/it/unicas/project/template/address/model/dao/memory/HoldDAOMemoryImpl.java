@@ -0,0 +1,228 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.ExpiredHoldCleanup;
+import it.unicas.project.template.address.model.ExpiringHoldInfo;
+import it.unicas.project.template.address.model.Hold;
+import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.HoldDAO;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory implementation of the Hold DAO, backed by the {@code holds} table of a {@link MemoryDatabase}.
+ *
+ * Access Keyword Explanation: package-private - Obtained through {@link MemoryDatabase#getHoldDAO()}.
+ */
+class HoldDAOMemoryImpl implements HoldDAO {
+
+    /** Number of days a hold stays valid, as in {@code HoldDAOMySQLImpl}. */
+    private static final int HOLD_VALIDITY_DAYS = 1;
+
+    private final MemoryDatabase db;
+
+    /**
+     * Creates the DAO of a database.
+     *
+     * @param db The database holding the holds.
+     */
+    HoldDAOMemoryImpl(MemoryDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public List<Hold> select(Hold h) throws DAOException {
+        Hold t = h != null ? h : new Hold(); // all -1
+        return db.read(() -> {
+            List<Hold> candidates;
+            if (t.getIdHold() != -1) {
+                Hold row = db.holds.peek(t.getIdHold());
+                candidates = row != null ? List.of(row) : List.of();
+            } else if (t.getIdUser() != -1) {
+                candidates = db.holds.lookup(db.holdsByUser, t.getIdUser());
+            } else if (t.getIdMaterial() != -1) {
+                candidates = db.holds.lookup(db.holdsByMaterial, t.getIdMaterial());
+            } else {
+                candidates = new ArrayList<>(db.holds.peekAll());
+            }
+
+            List<Hold> list = new ArrayList<>();
+            for (Hold row : candidates) {
+                if (t.getIdUser() != -1 && row.getIdUser() != t.getIdUser()) continue;
+                if (t.getIdMaterial() != -1 && row.getIdMaterial() != t.getIdMaterial()) continue;
+                if (t.getHold_date() != null && !t.getHold_date().equals(row.getHold_date())) continue;
+                list.add(MemoryDatabase.copy(row));
+            }
+            list.sort(Comparator.comparingInt(Hold::getIdHold));
+            return list;
+        });
+    }
+
+    @Override
+    public List<Hold> selectAll() throws DAOException {
+        return select(null);
+    }
+
+    @Override
+    public void insert(Hold h) throws DAOException {
+        verifyObject(h);
+        db.write(() -> {
+            insertRow(h);
+            return null;
+        });
+    }
+
+    @Override
+    public void update(Hold h) throws DAOException {
+        verifyObject(h);
+        db.write(() -> {
+            updateRow(h);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(Hold h) throws DAOException {
+        if (h == null || h.getIdHold() == -1) {
+            throw new DAOException("In delete: idHold cannot be null");
+        }
+        db.write(() -> db.holds.remove(h.getIdHold()));
+    }
+
+    @Override
+    public void insertAll(List<Hold> holds) throws DAOException {
+        for (Hold h : holds) verifyObject(h);
+        db.write(() -> {
+            for (Hold h : holds) insertRow(h);
+            return null;
+        });
+    }
+
+    @Override
+    public void updateAll(List<Hold> holds) throws DAOException {
+        for (Hold h : holds) verifyObject(h);
+        db.write(() -> {
+            for (Hold h : holds) updateRow(h);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAll(List<Hold> holds) throws DAOException {
+        for (Hold h : holds) {
+            if (h == null || h.getIdHold() == -1) {
+                throw new DAOException("In deleteAll: idHold cannot be null");
+            }
+        }
+        db.write(() -> {
+            for (Hold h : holds) db.holds.remove(h.getIdHold());
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Integer, Hold> selectByIds(Collection<Integer> ids) throws DAOException {
+        return db.read(() -> {
+            Map<Integer, Hold> result = new LinkedHashMap<>();
+            if (ids == null) return result;
+            for (Integer id : ids) {
+                if (id == null || id == -1 || result.containsKey(id)) continue;
+                Hold row = db.holds.get(id);
+                if (row != null) result.put(id, row);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public List<ExpiringHoldInfo> getExpiringHoldsForUser(int userId) throws DAOException {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        return db.read(() -> {
+            List<Hold> rows = new ArrayList<>(db.holds.lookup(db.holdsByUser, userId));
+            rows.sort(Comparator.comparingInt(Hold::getIdHold));
+
+            List<ExpiringHoldInfo> expiringHolds = new ArrayList<>();
+            for (Hold row : rows) {
+                // DATE_ADD(hold_date, INTERVAL n DAY) > CURDATE()
+                if (!row.getHold_date().plusDays(HOLD_VALIDITY_DAYS).isAfter(today)) continue;
+                Material m = db.materials.peek(row.getIdMaterial());
+                if (m == null) continue; // inner JOIN materials
+                expiringHolds.add(new ExpiringHoldInfo(row.getIdHold(), m.getTitle(), m.getAuthor(),
+                        row.getHold_date().toLocalDate().plusDays(HOLD_VALIDITY_DAYS)));
+            }
+            return expiringHolds;
+        });
+    }
+
+    @Override
+    public ExpiredHoldCleanup deleteExpiredHolds(LocalDateTime cutoff) throws DAOException {
+        return db.write(() -> {
+            List<Hold> expired = new ArrayList<>();
+            Set<Integer> materialIds = new LinkedHashSet<>();
+            for (Hold row : db.holds.peekAll()) {
+                if (row.getHold_date().isBefore(cutoff)) {
+                    expired.add(row);
+                    materialIds.add(row.getIdMaterial());
+                }
+            }
+
+            // Release the materials first, then delete the holds (same statements as the SQL version)
+            int materialsReleased = 0;
+            for (Integer idMaterial : materialIds) {
+                Material m = db.materials.get(idMaterial);
+                if (m == null) continue;
+                // MySQL counts changed rows only
+                if (!"available".equals(m.getMaterial_status())) {
+                    m.setMaterial_status("available");
+                    db.materials.put(m);
+                    materialsReleased++;
+                }
+            }
+            for (Hold row : expired) db.holds.remove(row.getIdHold());
+            return new ExpiredHoldCleanup(materialsReleased, expired.size());
+        });
+    }
+
+    /**
+     * Inserts a hold with a generated ID, checking its foreign keys as the schema does.
+     */
+    private void insertRow(Hold h) throws DAOException {
+        checkReferences(h);
+        h.setIdHold(db.holds.nextId());
+        db.holds.put(h);
+    }
+
+    /**
+     * Replaces an existing hold; an unknown ID changes nothing, like an UPDATE matching no row.
+     */
+    private void updateRow(Hold h) throws DAOException {
+        if (!db.holds.contains(h.getIdHold())) return;
+        checkReferences(h);
+        db.holds.put(h);
+    }
+
+    private void checkReferences(Hold h) throws DAOException {
+        if (!db.users.contains(h.getIdUser()) || !db.materials.contains(h.getIdMaterial())) {
+            throw new DAOException("In insert(): hold references an unknown user or material");
+        }
+    }
+
+    /**
+     * Same validation as {@code HoldDAOMySQLImpl.verifyObject}.
+     */
+    private void verifyObject(Hold h) throws DAOException {
+        if (h == null || h.getIdUser() == -1 ||
+                h.getIdMaterial() == -1 || h.getHold_date() == null) {
+            throw new DAOException("In verifyObject: all fields must be non-null or valid");
+        }
+    }
+}
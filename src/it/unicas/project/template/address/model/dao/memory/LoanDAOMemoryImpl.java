@@ -0,0 +1,256 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.Loan;
+import it.unicas.project.template.address.model.LoanRow;
+import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.OverdueLoan;
+import it.unicas.project.template.address.model.User;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.LoanDAO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory implementation of the Loan DAO, backed by the {@code loans} table of a {@link MemoryDatabase}.
+ * <p>
+ * Loans are looked up through the by-user and by-material indexes; the return desk's list of active loans is read
+ * from the by-due-date index, so it comes back in the same order as the joined query of {@code LoanDAOMySQLImpl}.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Obtained through {@link MemoryDatabase#getLoanDAO()}.
+ */
+class LoanDAOMemoryImpl implements LoanDAO {
+
+    private final MemoryDatabase db;
+
+    /**
+     * Creates the DAO of a database.
+     *
+     * @param db The database holding the loans.
+     */
+    LoanDAOMemoryImpl(MemoryDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public List<Loan> select(Loan l) throws DAOException {
+        Loan t = l != null ? l : new Loan(null, null, null, null, null, null);
+        return db.read(() -> {
+            List<Loan> candidates;
+            if (t.getIdLoan() != -1) {
+                Loan row = db.loans.peek(t.getIdLoan());
+                candidates = row != null ? List.of(row) : List.of();
+            } else if (t.getIdUser() != -1) {
+                candidates = db.loans.lookup(db.loansByUser, t.getIdUser());
+            } else if (t.getIdMaterial() != -1) {
+                candidates = db.loans.lookup(db.loansByMaterial, t.getIdMaterial());
+            } else {
+                candidates = new ArrayList<>(db.loans.peekAll());
+            }
+
+            // start_date LIKE 'yyyy-MM-dd HH:mm:ss%' matches to the second
+            LocalDateTime start = MemoryDatabase.toSeconds(t.getStart_date());
+            List<Loan> list = new ArrayList<>();
+            for (Loan row : candidates) {
+                if (t.getIdUser() != -1 && !row.getIdUser().equals(t.getIdUser())) continue;
+                if (t.getIdMaterial() != -1 && !row.getIdMaterial().equals(t.getIdMaterial())) continue;
+                if (start != null && !start.equals(MemoryDatabase.toSeconds(row.getStart_date()))) continue;
+                list.add(MemoryDatabase.copy(row));
+            }
+            list.sort(Comparator.comparing(Loan::getIdLoan));
+            return list;
+        });
+    }
+
+    /**
+     * Returns every loan. Unlike {@code LoanDAOMySQLImpl.selectAll()}, which returns an empty list,
+     * the table is small enough in memory to be returned as a whole.
+     */
+    @Override
+    public List<Loan> selectAll() throws DAOException {
+        return select(null);
+    }
+
+    @Override
+    public void insert(Loan l) throws DAOException {
+        verifyObject(l);
+        db.write(() -> {
+            insertRow(l);
+            return null;
+        });
+    }
+
+    @Override
+    public void update(Loan l) throws DAOException {
+        verifyObject(l);
+        db.write(() -> {
+            updateRow(l);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(Loan l) throws DAOException {
+        if (l == null || l.getIdLoan() == -1) {
+            throw new DAOException("In delete: idLoan cannot be null");
+        }
+        db.write(() -> db.loans.remove(l.getIdLoan()));
+    }
+
+    @Override
+    public void insertAll(List<Loan> loans) throws DAOException {
+        for (Loan l : loans) verifyObject(l);
+        db.write(() -> {
+            for (Loan l : loans) insertRow(l);
+            return null;
+        });
+    }
+
+    @Override
+    public void updateAll(List<Loan> loans) throws DAOException {
+        for (Loan l : loans) verifyObject(l);
+        db.write(() -> {
+            for (Loan l : loans) updateRow(l);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAll(List<Loan> loans) throws DAOException {
+        for (Loan l : loans) {
+            if (l == null || l.getIdLoan() == -1) {
+                throw new DAOException("In deleteAll: idLoan cannot be null");
+            }
+        }
+        db.write(() -> {
+            for (Loan l : loans) db.loans.remove(l.getIdLoan());
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Integer, Loan> selectByIds(Collection<Integer> ids) throws DAOException {
+        return db.read(() -> {
+            Map<Integer, Loan> result = new LinkedHashMap<>();
+            if (ids == null) return result;
+            for (Integer id : ids) {
+                if (id == null || id == -1 || result.containsKey(id)) continue;
+                Loan row = db.loans.get(id);
+                if (row != null) result.put(id, row);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public int countActiveLoansByUserId(int userId) throws DAOException {
+        return db.read(() -> {
+            int count = 0;
+            for (Loan row : db.loans.lookup(db.loansByUser, userId)) {
+                if (row.getReturn_date() == null) count++;
+            }
+            return count;
+        });
+    }
+
+    @Override
+    public List<OverdueLoan> getOverdueLoansForUser(int userId) throws DAOException {
+        LocalDateTime now = LocalDateTime.now();
+        return db.read(() -> {
+            List<Loan> rows = new ArrayList<>(db.loans.lookup(db.loansByUser, userId));
+            rows.sort(Comparator.comparing(Loan::getIdLoan));
+
+            List<OverdueLoan> overdueItems = new ArrayList<>();
+            for (Loan row : rows) {
+                if (row.getReturn_date() != null || row.getDue_date() == null || !row.getDue_date().isBefore(now)) continue;
+                Material m = db.materials.peek(row.getIdMaterial());
+                if (m == null) continue; // inner JOIN materials
+                overdueItems.add(new OverdueLoan(row.getIdLoan(), m.getTitle(), m.getAuthor(),
+                        row.getDue_date().toLocalDate()));
+            }
+            return overdueItems;
+        });
+    }
+
+    @Override
+    public void deleteAllLoansByUserId(Integer idUser) throws DAOException {
+        db.write(() -> {
+            for (Loan row : db.loans.lookup(db.loansByUser, idUser)) {
+                db.loans.remove(row.getIdLoan());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<LoanRow> selectActiveLoanRows() throws DAOException {
+        LocalDateTime now = LocalDateTime.now();
+        return db.read(() -> {
+            List<LoanRow> rows = new ArrayList<>();
+            for (Loan loan : db.loans.ordered(db.loansByDueDate)) {
+                if (loan.getReturn_date() != null) continue;
+                Material m = db.materials.peek(loan.getIdMaterial());
+                User u = db.users.peek(loan.getIdUser());
+                if (m == null || u == null) continue; // inner JOINs
+
+                String materialType = switch (m.getIdMaterialType()) {
+                    case 1 -> "Book";
+                    case 2 -> "CD";
+                    case 3 -> "Movie";
+                    case 4 -> "Magazine";
+                    default -> LoanRow.UNKNOWN_TYPE;
+                };
+                String userName = Objects.toString(u.getName(), "") + " " + Objects.toString(u.getSurname(), "");
+                LocalDateTime due = loan.getDue_date();
+                String dueDate = due != null ? due.toLocalDate().toString() : LoanRow.MISSING;
+                boolean delayed = due != null && due.isBefore(now);
+
+                rows.add(new LoanRow(loan.getIdLoan(), materialType, Objects.toString(m.getTitle(), LoanRow.MISSING),
+                        Objects.toString(m.getAuthor(), LoanRow.MISSING), Objects.toString(m.getISBN(), LoanRow.MISSING), userName,
+                        dueDate, delayed ? "Yes" : "No"));
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Inserts a loan with a generated ID, checking its foreign keys as the schema does.
+     */
+    private void insertRow(Loan l) throws DAOException {
+        checkReferences(l);
+        l.setIdLoan(db.loans.nextId());
+        db.loans.put(l);
+    }
+
+    /**
+     * Replaces an existing loan; an unknown ID changes nothing, like an UPDATE matching no row.
+     */
+    private void updateRow(Loan l) throws DAOException {
+        if (!db.loans.contains(l.getIdLoan())) return;
+        checkReferences(l);
+        db.loans.put(l);
+    }
+
+    private void checkReferences(Loan l) throws DAOException {
+        if (!db.users.contains(l.getIdUser()) || !db.materials.contains(l.getIdMaterial())) {
+            throw new DAOException("In insert(): loan references an unknown user or material");
+        }
+    }
+
+    /**
+     * Same validation as {@code LoanDAOMySQLImpl.verifyObject}.
+     */
+    private void verifyObject(Loan l) throws DAOException {
+        if (l == null || l.getIdUser() == -1 || l.getIdMaterial() == -1 ||
+                l.getStart_date() == null || l.getDue_date() == null) {
+            throw new DAOException("In verifyObject: required fields must be non-null or valid");
+        }
+    }
+}
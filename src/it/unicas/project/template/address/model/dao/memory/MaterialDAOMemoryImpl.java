@@ -0,0 +1,449 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.MaterialCriteria;
+import it.unicas.project.template.address.model.MaterialGenre;
+import it.unicas.project.template.address.model.MaterialInventory;
+import it.unicas.project.template.address.model.MaterialType;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.MaterialDAO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory implementation of the Material DAO, backed by the {@code materials} table of a {@link MemoryDatabase}.
+ * <p>
+ * Lookups by ID use the primary key, lookups by type the type index; every other selection scans the title index,
+ * so results come back ordered by title (then ID) without sorting, as from {@code MaterialDAOMySQLImpl}.
+ * Text filters follow MySQL's case-insensitive {@code LIKE} semantics.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Obtained through {@link MemoryDatabase#getMaterialDAO()}.
+ */
+class MaterialDAOMemoryImpl implements MaterialDAO {
+
+    private final MemoryDatabase db;
+
+    /**
+     * Creates the DAO of a database.
+     *
+     * @param db The database holding the materials.
+     */
+    MaterialDAOMemoryImpl(MemoryDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public List<Material> select(Material m) throws DAOException {
+        return db.read(() -> {
+            if (m == null) return copies(db.materials.ordered(db.materialsByTitle));
+
+            // Same criteria as MaterialDAOMySQLImpl.select: exact ID/type/status, substring title/author/ISBN
+            boolean hasTitle = m.getTitle() != null && !m.getTitle().isEmpty();
+            boolean hasAuthor = m.getAuthor() != null && !m.getAuthor().isEmpty();
+            boolean hasISBN = m.getISBN() != null && !m.getISBN().isEmpty();
+            boolean hasType = m.getIdMaterialType() != null && m.getIdMaterialType() != 0;
+            boolean hasStatus = m.getMaterial_status() != null && !m.getMaterial_status().isEmpty();
+
+            Predicate<Material> matches = row ->
+                    (!hasTitle || MemoryDatabase.containsIgnoreCase(row.getTitle(), m.getTitle()))
+                            && (!hasAuthor || MemoryDatabase.containsIgnoreCase(row.getAuthor(), m.getAuthor()))
+                            && (!hasISBN || MemoryDatabase.containsIgnoreCase(row.getISBN(), m.getISBN()))
+                            && (!hasType || row.getIdMaterialType().equals(m.getIdMaterialType()))
+                            && (!hasStatus || m.getMaterial_status().equalsIgnoreCase(row.getMaterial_status()));
+
+            // Pick the most selective index
+            if (m.getIdMaterial() != -1) {
+                Material row = db.materials.peek(m.getIdMaterial());
+                return row != null && matches.test(row) ? List.of(MemoryDatabase.copy(row)) : new ArrayList<>();
+            }
+            if (hasType) {
+                List<Material> rows = db.materials.lookup(db.materialsByType, m.getIdMaterialType());
+                TreeSet<Material> ordered = new TreeSet<>(db.materials.ordered(db.materialsByTitle).comparator());
+                for (Material row : rows) {
+                    if (matches.test(row)) ordered.add(row);
+                }
+                return copies(ordered);
+            }
+            List<Material> list = new ArrayList<>();
+            for (Material row : db.materials.ordered(db.materialsByTitle)) {
+                if (matches.test(row)) list.add(MemoryDatabase.copy(row));
+            }
+            return list;
+        });
+    }
+
+    @Override
+    public List<Material> selectAll() throws DAOException {
+        return select(null);
+    }
+
+    @Override
+    public void insert(Material m) throws DAOException {
+        verifyObject(m);
+        db.write(() -> {
+            m.setIdMaterial(db.materials.nextId());
+            db.materials.put(m);
+            return null;
+        });
+    }
+
+    @Override
+    public void update(Material m) throws DAOException {
+        verifyObject(m);
+        db.write(() -> {
+            // Like an UPDATE ... WHERE idMaterial=?, an unknown ID changes nothing
+            if (db.materials.contains(m.getIdMaterial())) db.materials.put(m);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(Material m) throws DAOException {
+        if (m == null || m.getIdMaterial() == -1) {
+            throw new DAOException("In delete: idMaterial cannot be null");
+        }
+        db.write(() -> {
+            deleteRow(m.getIdMaterial());
+            return null;
+        });
+    }
+
+    @Override
+    public void insertAll(List<Material> materials) throws DAOException {
+        for (Material m : materials) verifyObject(m);
+        db.write(() -> {
+            for (Material m : materials) {
+                m.setIdMaterial(db.materials.nextId());
+                db.materials.put(m);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void updateAll(List<Material> materials) throws DAOException {
+        for (Material m : materials) verifyObject(m);
+        db.write(() -> {
+            for (Material m : materials) {
+                if (db.materials.contains(m.getIdMaterial())) db.materials.put(m);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAll(List<Material> materials) throws DAOException {
+        for (Material m : materials) {
+            if (m == null || m.getIdMaterial() == -1) {
+                throw new DAOException("In deleteAll: idMaterial cannot be null");
+            }
+        }
+        db.write(() -> {
+            for (Material m : materials) deleteRow(m.getIdMaterial());
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Integer, Material> selectByIds(Collection<Integer> ids) throws DAOException {
+        return db.read(() -> {
+            Map<Integer, Material> result = new LinkedHashMap<>();
+            if (ids == null) return result;
+            for (Integer id : ids) {
+                if (id == null || id == -1 || result.containsKey(id)) continue;
+                Material row = db.materials.get(id);
+                if (row != null) result.put(id, row);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public List<MaterialInventory> selectAllInventory() throws DAOException {
+        return db.read(() -> {
+            // GROUP BY title, author, year, ISBN, type over the title index: groups come out ordered by title
+            Map<List<Object>, List<Material>> groups = new LinkedHashMap<>();
+            for (Material row : db.materials.ordered(db.materialsByTitle)) {
+                if (!db.materialTypes.contains(row.getIdMaterialType())) continue; // inner JOIN material_type
+                List<Object> key = List.of(Objects.toString(row.getTitle(), ""), Objects.toString(row.getAuthor(), ""),
+                        row.getYear(), Objects.toString(row.getISBN(), ""), row.getIdMaterialType());
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+            }
+
+            List<MaterialInventory> list = new ArrayList<>();
+            for (List<Material> copies : groups.values()) {
+                Material first = copies.get(0);
+                int minId = Integer.MAX_VALUE;
+                Set<String> statuses = new TreeSet<>();
+                int available = 0, onHold = 0, loaned = 0;
+                for (Material copy : copies) {
+                    minId = Math.min(minId, copy.getIdMaterial());
+                    String status = copy.getMaterial_status();
+                    if (status != null) statuses.add(status);
+                    if ("available".equalsIgnoreCase(status)) available++;
+                    if ("holded".equalsIgnoreCase(status)) onHold++;
+                    if ("loaned".equalsIgnoreCase(status)) loaned++;
+                }
+
+                Material base = new Material(minId, first.getTitle(), first.getAuthor(), first.getYear(),
+                        first.getISBN(), first.getIdMaterialType(), String.join(", ", statuses));
+                MaterialInventory mi = new MaterialInventory(base, copies.size());
+                MaterialType type = db.materialTypes.peek(first.getIdMaterialType());
+                mi.setMaterialTypeName(type.getMaterial_type());
+                mi.setAvailableCount(available);
+                mi.setOnHoldCount(onHold);
+                mi.setLoanedCount(loaned);
+                list.add(mi);
+            }
+            return list;
+        });
+    }
+
+    @Override
+    public void updateMaterialGroup(Material updatedMaterial, MaterialInventory originalGroup) throws DAOException {
+        Integer materialType = originalGroup.getIdMaterialType();
+        String originalISBN = originalGroup.getISBN();
+
+        // Books are grouped by ISBN, other materials by title, author and year
+        if (materialType == 1 && (originalISBN == null || originalISBN.isEmpty())) {
+            throw new DAOException("Cannot update book group: Original ISBN is missing.");
+        }
+        Predicate<Material> inGroup = materialType == 1
+                ? row -> originalISBN.equalsIgnoreCase(row.getISBN())
+                : row -> originalGroup.getTitle() != null && originalGroup.getTitle().equalsIgnoreCase(row.getTitle())
+                        && originalGroup.getAuthor() != null && originalGroup.getAuthor().equalsIgnoreCase(row.getAuthor())
+                        && Objects.equals(originalGroup.getYear(), row.getYear());
+
+        db.write(() -> {
+            for (Material row : new ArrayList<>(db.materials.lookup(db.materialsByType, materialType))) {
+                if (!inGroup.test(row)) continue;
+                Material changed = MemoryDatabase.copy(row);
+                changed.setTitle(updatedMaterial.getTitle());
+                changed.setAuthor(updatedMaterial.getAuthor());
+                changed.setYear(updatedMaterial.getYear());
+                changed.setISBN(updatedMaterial.getISBN());
+                db.materials.put(changed);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<Material> selectByCriteria(MaterialCriteria c) throws DAOException {
+        return db.read(() -> {
+            List<Material> list = new ArrayList<>();
+            int skip = c.getOffset();
+            int limit = c.getLimit() >= 0 ? c.getLimit() : Integer.MAX_VALUE;
+            Set<Integer> firstCopies = firstCopiesFor(c);
+            for (Material row : db.materials.ordered(db.materialsByTitle)) {
+                if (list.size() >= limit) break;
+                if (!matches(row, c, firstCopies)) continue;
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                list.add(MemoryDatabase.copy(row));
+            }
+            return list;
+        });
+    }
+
+    @Override
+    public int countByCriteria(MaterialCriteria c) throws DAOException {
+        return db.read(() -> {
+            int count = 0;
+            Set<Integer> firstCopies = firstCopiesFor(c);
+            for (Material row : db.materials.peekAll()) {
+                if (matches(row, c, firstCopies)) count++;
+            }
+            return count;
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> countByType(MaterialCriteria c) throws DAOException {
+        return countGrouped(c, row -> Collections.singleton(
+                db.materialTypes.contains(row.getIdMaterialType()) ? row.getIdMaterialType() : null));
+    }
+
+    @Override
+    public Map<String, Integer> countByStatus(MaterialCriteria c) throws DAOException {
+        return countGrouped(c, row -> {
+            String status = row.getMaterial_status();
+            return Collections.singleton(status == null || status.isEmpty() ? null : status);
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> countByGenre(MaterialCriteria c) throws DAOException {
+        return countGrouped(c, row -> {
+            Set<Integer> genres = new TreeSet<>();
+            for (MaterialGenre link : db.materialGenres.lookup(db.linksByMaterial, row.getIdMaterial())) {
+                genres.add(link.getIdGenre());
+            }
+            return genres.isEmpty() ? Collections.singleton(null) : genres;
+        });
+    }
+
+    /**
+     * Counts the rows matching the criteria by key, with the semantics of
+     * {@code MaterialDAOMySQLImpl.countGrouped}: a row counts once under each of its keys.
+     */
+    private <K> Map<K, Integer> countGrouped(MaterialCriteria c, Function<Material, Collection<K>> keysOf)
+            throws DAOException {
+        return db.read(() -> {
+            Map<K, Integer> counts = new HashMap<>();
+            Set<Integer> firstCopies = firstCopiesFor(c);
+            for (Material row : db.materials.peekAll()) {
+                if (!matches(row, c, firstCopies)) continue;
+                for (K key : keysOf.apply(row)) {
+                    counts.merge(key, 1, Integer::sum);
+                }
+            }
+            return counts;
+        });
+    }
+
+    @Override
+    public Map<Integer, List<Material>> selectCopies(Collection<Integer> firstCopyIds) throws DAOException {
+        return db.read(() -> {
+            Map<List<Object>, Integer> firstByTitle = new HashMap<>();
+            for (Integer id : firstCopyIds) {
+                Material first = id == null ? null : db.materials.peek(id);
+                if (first != null) firstByTitle.put(titleKey(first), id);
+            }
+
+            Map<Integer, List<Material>> copies = new HashMap<>();
+            for (Material row : db.materials.peekAll()) {
+                Integer first = firstByTitle.get(titleKey(row));
+                if (first != null) copies.computeIfAbsent(first, id -> new ArrayList<>()).add(MemoryDatabase.copy(row));
+            }
+            copies.values().forEach(list -> list.sort(Comparator.comparing(Material::getIdMaterial)));
+            return copies;
+        });
+    }
+
+    /**
+     * Returns the IDs of the first copy of every title, if the criteria keep one row per title, else {@code null}.
+     */
+    private Set<Integer> firstCopiesFor(MaterialCriteria c) {
+        if (!c.isOnePerTitle()) return null;
+        Map<List<Object>, Integer> firstByTitle = new HashMap<>();
+        for (Material row : db.materials.peekAll()) {
+            firstByTitle.merge(titleKey(row), row.getIdMaterial(), Math::min);
+        }
+        return new HashSet<>(firstByTitle.values());
+    }
+
+    /**
+     * Returns the key grouping the copies of a title, with the semantics of {@code MaterialDAOMySQLImpl.titleKey}:
+     * case-sensitive title, author, year and ISBN, a blank ISBN and a missing year counting as none.
+     */
+    private static List<Object> titleKey(Material row) {
+        String isbn = row.getISBN() == null || row.getISBN().trim().isEmpty() ? "" : row.getISBN();
+        return Arrays.asList(row.getTitle(), row.getAuthor(), row.getYear() == null ? 0 : row.getYear(), isbn);
+    }
+
+    /**
+     * Evaluates a {@link MaterialCriteria} on one row, with the semantics of
+     * {@code MaterialDAOMySQLImpl.appendCriteria}.
+     *
+     * @param firstCopies The first copies of the titles, from {@link #firstCopiesFor}.
+     */
+    private boolean matches(Material row, MaterialCriteria c, Set<Integer> firstCopies) {
+        if (firstCopies != null && !firstCopies.contains(row.getIdMaterial())) return false;
+
+        if (c.getTypeIds() != null) {
+            boolean knownType = db.materialTypes.contains(row.getIdMaterialType());
+            boolean ok = (knownType && c.getTypeIds().contains(row.getIdMaterialType()))
+                    || (!knownType && c.isIncludeWithoutType());
+            if (!ok) return false;
+        }
+
+        if (c.getStatuses() != null) {
+            String status = row.getMaterial_status();
+            boolean without = status == null || status.isEmpty();
+            // Case-sensitive, like the binary comparison of the SQL version
+            if (!(c.getStatuses().contains(status) || (without && c.isIncludeWithoutStatus()))) return false;
+        }
+
+        if (c.getGenreIds() != null) {
+            List<MaterialGenre> links = db.materialGenres.lookup(db.linksByMaterial, row.getIdMaterial());
+            boolean ok = links.isEmpty() && c.isIncludeWithoutGenre();
+            for (MaterialGenre link : links) {
+                if (c.getGenreIds().contains(link.getIdGenre())) {
+                    ok = true;
+                    break;
+                }
+            }
+            if (!ok) return false;
+        }
+
+        if (c.getYearFrom() != null && row.getYear() < c.getYearFrom()) return false;
+        if (c.getYearTo() != null && row.getYear() > c.getYearTo()) return false;
+
+        if (!c.getSearchWords().isEmpty()) {
+            // CONCAT_WS skips NULLs; periods are ignored on both sides
+            String text = String.join(" ", nonNull(row.getTitle(), row.getAuthor(), row.getISBN(),
+                    row.getMaterial_status())).toLowerCase().replace(".", "");
+            for (String word : c.getSearchWords()) {
+                if (!text.contains(word.replace(".", ""))) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deletes a material, cascading to its genre links and refusing if a loan or hold still references it.
+     */
+    private void deleteRow(int idMaterial) throws DAOException {
+        if (!db.loans.lookup(db.loansByMaterial, idMaterial).isEmpty()
+                || !db.holds.lookup(db.holdsByMaterial, idMaterial).isEmpty()) {
+            throw new DAOException("In delete(): material " + idMaterial + " is referenced by a loan or hold");
+        }
+        for (MaterialGenre link : db.materialGenres.lookup(db.linksByMaterial, idMaterial)) {
+            db.materialGenres.remove(new MemoryDatabase.GenreLink(link.getIdMaterial(), link.getIdGenre()));
+        }
+        db.materials.remove(idMaterial);
+    }
+
+    /**
+     * Same validation as {@code MaterialDAOMySQLImpl.verifyObject}.
+     */
+    private void verifyObject(Material m) throws DAOException {
+        if (m == null || m.getTitle() == null || m.getTitle().isEmpty()
+                || m.getIdMaterialType() == null
+                || m.getMaterial_status() == null || m.getMaterial_status().isEmpty()) {
+            throw new DAOException("In verifyObject: all fields must be non-null");
+        }
+    }
+
+    private static List<String> nonNull(String... values) {
+        List<String> list = new ArrayList<>();
+        for (String value : values) {
+            if (value != null) list.add(value);
+        }
+        return list;
+    }
+
+    private static List<Material> copies(Collection<Material> rows) {
+        List<Material> list = new ArrayList<>(rows.size());
+        for (Material row : rows) list.add(MemoryDatabase.copy(row));
+        return list;
+    }
+}
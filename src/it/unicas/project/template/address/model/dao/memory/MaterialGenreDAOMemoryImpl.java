@@ -0,0 +1,171 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.MaterialGenre;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.MaterialGenreDAO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory implementation of the MaterialGenre DAO, backed by the {@code materials_genres} table of a
+ * {@link MemoryDatabase} and its by-material and by-genre indexes.
+ *
+ * Access Keyword Explanation: package-private - Obtained through {@link MemoryDatabase#getMaterialGenreDAO()}.
+ */
+class MaterialGenreDAOMemoryImpl implements MaterialGenreDAO {
+
+    private static final Comparator<MaterialGenre> ORDER =
+            Comparator.comparing(MaterialGenre::getIdMaterial).thenComparing(MaterialGenre::getIdGenre);
+
+    private final MemoryDatabase db;
+
+    /**
+     * Creates the DAO of a database.
+     *
+     * @param db The database holding the genre links.
+     */
+    MaterialGenreDAOMemoryImpl(MemoryDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public List<MaterialGenre> select(MaterialGenre mg) throws DAOException {
+        int idMaterial = mg != null ? mg.getIdMaterial() : -1;
+        int idGenre = mg != null ? mg.getIdGenre() : -1;
+        return db.read(() -> {
+            List<MaterialGenre> candidates;
+            if (idMaterial != -1) {
+                candidates = db.materialGenres.lookup(db.linksByMaterial, idMaterial);
+            } else if (idGenre != -1) {
+                candidates = db.materialGenres.lookup(db.linksByGenre, idGenre);
+            } else {
+                candidates = new ArrayList<>(db.materialGenres.peekAll());
+            }
+
+            List<MaterialGenre> list = new ArrayList<>();
+            for (MaterialGenre row : candidates) {
+                if (idGenre != -1 && row.getIdGenre() != idGenre) continue;
+                list.add(MemoryDatabase.copy(row));
+            }
+            list.sort(ORDER);
+            return list;
+        });
+    }
+
+    /**
+     * Returns every genre link. Unlike {@code MaterialGenreDAOMySQLImpl.selectAll()}, which returns an empty
+     * list, the table is small enough in memory to be returned as a whole.
+     */
+    @Override
+    public List<MaterialGenre> selectAll() throws DAOException {
+        return select(null);
+    }
+
+    @Override
+    public void insert(MaterialGenre mg) throws DAOException {
+        verifyObject(mg);
+        db.write(() -> {
+            insertRow(mg);
+            return null;
+        });
+    }
+
+    @Override
+    public void update(MaterialGenre mg) throws DAOException {
+        // The table has only a composite primary key: nothing can be updated
+        throw new DAOException("Update no soportado para MaterialGenre (PK compuesta)");
+    }
+
+    @Override
+    public void delete(MaterialGenre mg) throws DAOException {
+        if (mg == null || mg.getIdMaterial() == -1 || mg.getIdGenre() == -1) {
+            throw new DAOException("In delete: idMaterial y idGenre no pueden ser nulos");
+        }
+        db.write(() -> db.materialGenres.remove(new MemoryDatabase.GenreLink(mg.getIdMaterial(), mg.getIdGenre())));
+    }
+
+    @Override
+    public void deleteAllByMaterialId(Integer materialId) throws DAOException {
+        if (materialId == null || materialId == -1) {
+            throw new DAOException("In deleteAllByMaterialId: idMaterial cannot be null");
+        }
+        db.write(() -> {
+            for (MaterialGenre row : db.materialGenres.lookup(db.linksByMaterial, materialId)) {
+                db.materialGenres.remove(new MemoryDatabase.GenreLink(row.getIdMaterial(), row.getIdGenre()));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Integer, Set<Integer>> selectGenreIds(Collection<Integer> materialIds) throws DAOException {
+        return db.read(() -> {
+            Map<Integer, Set<Integer>> genres = new HashMap<>();
+            for (Integer idMaterial : materialIds) {
+                if (idMaterial == null || idMaterial == -1) continue;
+                for (MaterialGenre link : db.materialGenres.lookup(db.linksByMaterial, idMaterial)) {
+                    genres.computeIfAbsent(idMaterial, id -> new TreeSet<>()).add(link.getIdGenre());
+                }
+            }
+            return genres;
+        });
+    }
+
+    @Override
+    public void insertAll(List<MaterialGenre> links) throws DAOException {
+        for (MaterialGenre mg : links) verifyObject(mg);
+        db.write(() -> {
+            for (MaterialGenre mg : links) insertRow(mg);
+            return null;
+        });
+    }
+
+    @Override
+    public void updateAll(List<MaterialGenre> links) throws DAOException {
+        throw new DAOException("Update no soportado para MaterialGenre (PK compuesta)");
+    }
+
+    @Override
+    public void deleteAll(List<MaterialGenre> links) throws DAOException {
+        for (MaterialGenre mg : links) {
+            if (mg == null || mg.getIdMaterial() == -1 || mg.getIdGenre() == -1) {
+                throw new DAOException("In deleteAll: idMaterial y idGenre no pueden ser nulos");
+            }
+        }
+        db.write(() -> {
+            for (MaterialGenre mg : links) {
+                db.materialGenres.remove(new MemoryDatabase.GenreLink(mg.getIdMaterial(), mg.getIdGenre()));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Inserts a link, enforcing the composite primary key and both foreign keys as the schema does.
+     */
+    private void insertRow(MaterialGenre mg) throws DAOException {
+        if (db.materialGenres.contains(new MemoryDatabase.GenreLink(mg.getIdMaterial(), mg.getIdGenre()))) {
+            throw new DAOException("In insert(): duplicate entry '" + mg.getIdMaterial() + "-" + mg.getIdGenre() + "'");
+        }
+        if (!db.materials.contains(mg.getIdMaterial()) || !db.genres.contains(mg.getIdGenre())) {
+            throw new DAOException("In insert(): link references an unknown material or genre");
+        }
+        db.materialGenres.put(mg);
+    }
+
+    /**
+     * Same validation as {@code MaterialGenreDAOMySQLImpl.verifyObject}.
+     */
+    private void verifyObject(MaterialGenre mg) throws DAOException {
+        if (mg == null || mg.getIdMaterial() == -1 || mg.getIdGenre() == -1) {
+            throw new DAOException("In verifyObject: idMaterial y idGenre deben ser válidos");
+        }
+    }
+}
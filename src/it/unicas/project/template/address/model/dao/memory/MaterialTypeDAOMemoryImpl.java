@@ -0,0 +1,41 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.MaterialType;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.MaterialTypeDAO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory implementation of the MaterialType DAO, backed by the {@code material_type} table of a
+ * {@link MemoryDatabase}. Types are listed from the by-name index, as {@code ORDER BY material_type} does.
+ *
+ * Access Keyword Explanation: package-private - Obtained through {@link MemoryDatabase#getMaterialTypeDAO()}.
+ */
+class MaterialTypeDAOMemoryImpl implements MaterialTypeDAO {
+
+    private final MemoryDatabase db;
+
+    /**
+     * Creates the DAO of a database.
+     *
+     * @param db The database holding the material types.
+     */
+    MaterialTypeDAOMemoryImpl(MemoryDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public List<MaterialType> selectAll() {
+        try {
+            return db.read(() -> {
+                List<MaterialType> list = new ArrayList<>();
+                for (MaterialType row : db.materialTypes.ordered(db.typesByName)) list.add(MemoryDatabase.copy(row));
+                return list;
+            });
+        } catch (DAOException e) {
+            return new ArrayList<>(); // Reads of the in-memory tables do not fail
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.Genre;
+import it.unicas.project.template.address.model.Hold;
+import it.unicas.project.template.address.model.Loan;
+import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.MaterialGenre;
+import it.unicas.project.template.address.model.MaterialType;
+import it.unicas.project.template.address.model.User;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.GenreDAO;
+import it.unicas.project.template.address.model.dao.HoldDAO;
+import it.unicas.project.template.address.model.dao.LoanDAO;
+import it.unicas.project.template.address.model.dao.MaterialDAO;
+import it.unicas.project.template.address.model.dao.MaterialGenreDAO;
+import it.unicas.project.template.address.model.dao.MaterialTypeDAO;
+import it.unicas.project.template.address.model.dao.Transaction;
+import it.unicas.project.template.address.model.dao.UserDAO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * In-memory implementation of the library database, used as an alternative backend to MySQL
+ * (see {@code DAOFactory}): for benchmarking the service layer without network jitter, for tests, and for a
+ * single-desk deployment without a database server.
+ * <p>
+ * Each table is a {@link MemoryTable} with a hash index on its primary key, hash indexes on its foreign keys
+ * (loans and holds by user and by material, genre links by material and by genre, materials by type, users by
+ * username and national ID) and sorted indexes for the orders the DAOs return (materials by title, active loans
+ * by due date, genres and types by name).
+ * </p>
+ * <p>
+ * Concurrency: reads run under a shared read lock, writes under an exclusive write lock. Each write statement is
+ * atomic: if it fails, its partial changes are undone from a journal. A transaction ({@link #beginTransaction()},
+ * used by {@code UnitOfWork}) keeps the write lock and the journal open across several statements, so a business
+ * operation is isolated from other threads and can be rolled back as a whole.
+ * </p>
+ * <p>
+ * As in the MySQL schema, deleting a material also deletes its genre links (ON DELETE CASCADE), and deleting a
+ * material or user still referenced by a loan or hold is rejected.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Created by {@code DAOFactory}, tests and benchmarks.
+ */
+public final class MemoryDatabase {
+
+    /** Composite primary key of the {@code materials_genres} table. */
+    record GenreLink(int idMaterial, int idGenre) {}
+
+    private static final Logger logger = Logger.getLogger(MemoryDatabase.class.getName());
+
+    private static MemoryDatabase shared = null; // The database behind DAOFactory's in-memory backend
+
+    // --- Concurrency control ---
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Deque<Runnable> journal = null;  // Undo actions, newest first; non-null only under the write lock
+    private int transactionDepth = 0;        // Open transactions of the write-lock holder
+
+    // --- Tables and indexes (used by the DAOs of this package) ---
+    final MemoryTable<Integer, Material> materials =
+            new MemoryTable<>(this, "materials", Material::getIdMaterial, MemoryDatabase::copy);
+    final MemoryTable<Integer, Material>.HashIndex<Integer> materialsByType =
+            materials.hashIndex(Material::getIdMaterialType);
+    final MemoryTable<Integer, Material>.SortedIndex materialsByTitle = materials.sortedIndex(
+            Comparator.comparing(Material::getTitle, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(Material::getIdMaterial));
+
+    final MemoryTable<Integer, Loan> loans =
+            new MemoryTable<>(this, "loans", Loan::getIdLoan, MemoryDatabase::copy);
+    final MemoryTable<Integer, Loan>.HashIndex<Integer> loansByUser = loans.hashIndex(Loan::getIdUser);
+    final MemoryTable<Integer, Loan>.HashIndex<Integer> loansByMaterial = loans.hashIndex(Loan::getIdMaterial);
+    final MemoryTable<Integer, Loan>.SortedIndex loansByDueDate = loans.sortedIndex(
+            Comparator.comparing((Loan l) -> l.getDue_date() == null)
+                    .thenComparing(l -> l.getDue_date() != null ? l.getDue_date().toLocalDate() : null,
+                            Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(Loan::getIdLoan));
+
+    final MemoryTable<Integer, Hold> holds =
+            new MemoryTable<>(this, "holds", Hold::getIdHold, MemoryDatabase::copy);
+    final MemoryTable<Integer, Hold>.HashIndex<Integer> holdsByUser = holds.hashIndex(Hold::getIdUser);
+    final MemoryTable<Integer, Hold>.HashIndex<Integer> holdsByMaterial = holds.hashIndex(Hold::getIdMaterial);
+
+    final MemoryTable<GenreLink, MaterialGenre> materialGenres = new MemoryTable<>(this, "materials_genres",
+            mg -> new GenreLink(mg.getIdMaterial(), mg.getIdGenre()), MemoryDatabase::copy);
+    final MemoryTable<GenreLink, MaterialGenre>.HashIndex<Integer> linksByMaterial =
+            materialGenres.hashIndex(MaterialGenre::getIdMaterial);
+    final MemoryTable<GenreLink, MaterialGenre>.HashIndex<Integer> linksByGenre =
+            materialGenres.hashIndex(MaterialGenre::getIdGenre);
+
+    final MemoryTable<Integer, Genre> genres =
+            new MemoryTable<>(this, "genre", Genre::getIdGenre, MemoryDatabase::copy);
+    final MemoryTable<Integer, Genre>.SortedIndex genresByName = genres.sortedIndex(
+            Comparator.comparing(Genre::getGenre, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(Genre::getIdGenre));
+
+    final MemoryTable<Integer, MaterialType> materialTypes =
+            new MemoryTable<>(this, "material_type", MaterialType::getIdMaterialType, MemoryDatabase::copy);
+    final MemoryTable<Integer, MaterialType>.SortedIndex typesByName = materialTypes.sortedIndex(
+            Comparator.comparing(MaterialType::getMaterial_type, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(MaterialType::getIdMaterialType));
+
+    final MemoryTable<Integer, User> users =
+            new MemoryTable<>(this, "users", User::getIdUser, MemoryDatabase::copy);
+    final MemoryTable<Integer, User>.HashIndex<String> usersByUsername =
+            users.hashIndex(u -> fold(u.getUsername()));
+    final MemoryTable<Integer, User>.HashIndex<String> usersByNationalID =
+            users.hashIndex(u -> fold(u.getNationalID()));
+
+    // --- DAOs ---
+    private final MaterialDAOMemoryImpl materialDAO = new MaterialDAOMemoryImpl(this);
+    private final LoanDAOMemoryImpl loanDAO = new LoanDAOMemoryImpl(this);
+    private final HoldDAOMemoryImpl holdDAO = new HoldDAOMemoryImpl(this);
+    private final MaterialGenreDAOMemoryImpl materialGenreDAO = new MaterialGenreDAOMemoryImpl(this);
+    private final GenreDAOMemoryImpl genreDAO = new GenreDAOMemoryImpl(this);
+    private final MaterialTypeDAOMemoryImpl materialTypeDAO = new MaterialTypeDAOMemoryImpl(this);
+    private final UserDAOMemoryImpl userDAO = new UserDAOMemoryImpl(this);
+
+    /**
+     * A statement run against the database under its lock.
+     *
+     * @param <R> The result type.
+     */
+    @FunctionalInterface
+    interface Statement<R> {
+        R run() throws DAOException;
+    }
+
+    /**
+     * Creates an empty database (no rows, not even the lookup tables).
+     *
+     * Access Keyword Explanation: {@code public} - Tests and benchmarks create private instances.
+     */
+    public MemoryDatabase() {}
+
+    /**
+     * Returns the database used by the in-memory backend of {@code DAOFactory}, creating it on first use and
+     * loading the initial data with {@link MemorySeed#loadDefault(MemoryDatabase)}.
+     *
+     * Access Keyword Explanation: {@code public static} - Global access point, like the MySQL DAO singletons.
+     *
+     * @return The shared database.
+     */
+    public static synchronized MemoryDatabase getShared() {
+        if (shared == null) {
+            shared = new MemoryDatabase();
+            MemorySeed.loadDefault(shared);
+        }
+        return shared;
+    }
+
+    // --- DAO accessors ---
+
+    public MaterialDAO getMaterialDAO() { return materialDAO; }
+
+    public LoanDAO getLoanDAO() { return loanDAO; }
+
+    public HoldDAO getHoldDAO() { return holdDAO; }
+
+    public MaterialGenreDAO getMaterialGenreDAO() { return materialGenreDAO; }
+
+    public GenreDAO getGenreDAO() { return genreDAO; }
+
+    public MaterialTypeDAO getMaterialTypeDAO() { return materialTypeDAO; }
+
+    public UserDAO getUserDAO() { return userDAO; }
+
+    /**
+     * Adds a material type (lookup tables have no insert in their DAO).
+     *
+     * @param type The material type to add.
+     */
+    public void addMaterialType(MaterialType type) {
+        lock.writeLock().lock();
+        try {
+            materialTypes.put(type);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every row of every table.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (MemoryTable<?, ?> table : new MemoryTable<?, ?>[]{
+                    materials, loans, holds, materialGenres, genres, materialTypes, users}) {
+                table.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Transactions ---
+
+    /**
+     * Begins a transaction on the calling thread: the write lock is held until {@link #commitTransaction()} or
+     * {@link #rollbackTransaction()}, and every change is journaled so it can be rolled back.
+     *
+     * Access Keyword Explanation: {@code public} - Used by {@link #openTransaction()}, and by tests.
+     */
+    public void beginTransaction() {
+        lock.writeLock().lock();
+        if (transactionDepth++ == 0) {
+            journal = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Begins a transaction on the calling thread (see {@link #beginTransaction()}), for a {@code UnitOfWork}.
+     *
+     * Access Keyword Explanation: {@code public} - Called by {@code DAOFactory} when the in-memory backend is selected.
+     *
+     * @return The transaction, to be committed and ended on the same thread.
+     */
+    public Transaction openTransaction() {
+        beginTransaction();
+        return new Transaction() {
+            @Override
+            public void commit() {
+                commitTransaction();
+            }
+
+            @Override
+            public void end(boolean committed) {
+                // A committed transaction has already ended
+                if (!committed) rollbackTransaction();
+            }
+        };
+    }
+
+    /**
+     * Commits the transaction begun by the calling thread, keeping its changes.
+     *
+     * @throws IllegalStateException if the calling thread has no open transaction.
+     */
+    public void commitTransaction() {
+        endTransaction(false);
+    }
+
+    /**
+     * Rolls back the transaction begun by the calling thread, undoing its changes.
+     *
+     * @throws IllegalStateException if the calling thread has no open transaction.
+     */
+    public void rollbackTransaction() {
+        endTransaction(true);
+    }
+
+    private void endTransaction(boolean rollback) {
+        if (!lock.isWriteLockedByCurrentThread() || transactionDepth == 0) {
+            throw new IllegalStateException("No transaction is open on this thread");
+        }
+        try {
+            if (--transactionDepth == 0) {
+                if (rollback) undoTo(0);
+                journal = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Statement execution (used by the DAOs) ---
+
+    /**
+     * Runs a read-only statement under the shared read lock.
+     */
+    <R> R read(Statement<R> statement) throws DAOException {
+        lock.readLock().lock();
+        try {
+            return statement.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a write statement under the exclusive write lock. If it fails, its own changes are undone; inside a
+     * transaction, its successful changes stay journaled until the transaction ends.
+     */
+    <R> R write(Statement<R> statement) throws DAOException {
+        lock.writeLock().lock();
+        boolean autoCommit = journal == null;
+        if (autoCommit) journal = new ArrayDeque<>();
+        int mark = journal.size();
+        try {
+            return statement.run();
+        } catch (DAOException | RuntimeException e) {
+            undoTo(mark);
+            throw e;
+        } finally {
+            if (autoCommit) journal = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records how to undo a change. Called by the tables, always under the write lock.
+     */
+    void journal(Runnable undo) {
+        if (journal != null) journal.push(undo);
+    }
+
+    private void undoTo(int mark) {
+        int undone = 0;
+        while (journal.size() > mark) {
+            journal.pop().run();
+            undone++;
+        }
+        if (undone > 0) logger.info("Rolled back " + undone + " in-memory changes");
+    }
+
+    // --- Helpers shared by the DAOs ---
+
+    /**
+     * Folds a string for case-insensitive comparisons, as MySQL's default collation does.
+     */
+    static String fold(String s) {
+        return s == null ? null : s.toLowerCase();
+    }
+
+    /**
+     * MySQL {@code LIKE '%part%'} with the default case-insensitive collation.
+     */
+    static boolean containsIgnoreCase(String value, String part) {
+        return value != null && value.toLowerCase().contains(part.toLowerCase());
+    }
+
+    /**
+     * MySQL {@code LIKE 'prefix%'} with the default case-insensitive collation.
+     */
+    static boolean startsWithIgnoreCase(String value, String prefix) {
+        return value != null && value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    /**
+     * Truncates a timestamp to whole seconds, the precision of the {@code start_date LIKE} filter.
+     */
+    static LocalDateTime toSeconds(LocalDateTime t) {
+        return t == null ? null : t.withNano(0);
+    }
+
+    // --- Row copies (rows are never shared with callers) ---
+
+    static Material copy(Material m) {
+        return new Material(m.getIdMaterial(), m.getTitle(), m.getAuthor(), m.getYear(), m.getISBN(),
+                m.getIdMaterialType(), m.getMaterial_status());
+    }
+
+    static Loan copy(Loan l) {
+        return new Loan(l.getIdLoan(), l.getIdUser(), l.getIdMaterial(),
+                l.getStart_date(), l.getDue_date(), l.getReturn_date());
+    }
+
+    static Hold copy(Hold h) {
+        return new Hold(h.getIdHold(), h.getIdUser(), h.getIdMaterial(), h.getHold_date());
+    }
+
+    static MaterialGenre copy(MaterialGenre mg) {
+        return new MaterialGenre(mg.getIdMaterial(), mg.getIdGenre());
+    }
+
+    static Genre copy(Genre g) {
+        return new Genre(g.getIdGenre(), g.getGenre());
+    }
+
+    static MaterialType copy(MaterialType t) {
+        return new MaterialType(t.getIdMaterialType(), t.getMaterial_type());
+    }
+
+    static User copy(User u) {
+        return new User(u.getIdUser(), u.getName(), u.getSurname(), u.getUsername(), u.getNationalID(),
+                u.getBirthdate(), u.getPassword(), u.getEmail(), u.getIdRole());
+    }
+}
@@ -0,0 +1,238 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.Genre;
+import it.unicas.project.template.address.model.Hold;
+import it.unicas.project.template.address.model.Loan;
+import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.MaterialGenre;
+import it.unicas.project.template.address.model.MaterialType;
+import it.unicas.project.template.address.model.User;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Loads the initial rows of a {@link MemoryDatabase} from a MySQL dump such as {@code dls_schema.sql}.
+ * <p>
+ * Only the {@code INSERT INTO `table` VALUES (...),(...);} statements are read, with the values in the column
+ * order of the schema; the DDL and the tables without an in-memory counterpart (e.g. {@code roles}) are skipped.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Tests and benchmarks load their own data sets.
+ */
+public final class MemorySeed {
+
+    /** System property with the path of the dump loaded into the shared database. */
+    public static final String SEED_PROPERTY = "library.memory.seed";
+
+    /** Dump loaded when the property is not set (relative to the working directory). */
+    private static final String DEFAULT_SEED = "dls_schema.sql";
+
+    private static final Logger logger = Logger.getLogger(MemorySeed.class.getName());
+
+    private static final Pattern INSERT = Pattern.compile("INSERT INTO `?(\\w+)`? VALUES\\s*", Pattern.CASE_INSENSITIVE);
+
+    // MySQL DATETIME literals, with or without fractional seconds
+    private static final DateTimeFormatter DATETIME = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .toFormatter();
+
+    /**
+     * Private constructor: static utility class.
+     */
+    private MemorySeed() {}
+
+    /**
+     * Loads the dump named by {@value #SEED_PROPERTY} (default {@code dls_schema.sql}) into a database,
+     * if the file exists. A missing or unreadable file leaves the database empty.
+     *
+     * @param db The database to fill.
+     */
+    static void loadDefault(MemoryDatabase db) {
+        Path path = Path.of(System.getProperty(SEED_PROPERTY, DEFAULT_SEED));
+        if (!Files.isRegularFile(path)) {
+            logger.warning("In-memory database seed not found: " + path.toAbsolutePath());
+            return;
+        }
+        try {
+            load(db, path);
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not load in-memory database seed " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the content of a database with the rows of a MySQL dump.
+     *
+     * @param db The database to fill.
+     * @param dump The dump file.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if an INSERT statement cannot be parsed.
+     */
+    public static void load(MemoryDatabase db, Path dump) throws IOException {
+        String sql = Files.readString(dump, StandardCharsets.UTF_8);
+        db.clear();
+
+        int loaded = 0;
+        db.beginTransaction();
+        try {
+            Matcher m = INSERT.matcher(sql);
+            int from = 0;
+            while (m.find(from)) {
+                Parser parser = new Parser(sql, m.end());
+                List<List<Object>> tuples = parser.tuples();
+                for (List<Object> tuple : tuples) {
+                    if (insert(db, m.group(1).toLowerCase(), tuple)) loaded++;
+                }
+                from = parser.pos;
+            }
+        } finally {
+            db.commitTransaction();
+        }
+        logger.info("Loaded " + loaded + " rows into the in-memory database from " + dump);
+    }
+
+    /**
+     * Stores one tuple in the matching table.
+     *
+     * @return true if the table exists in memory.
+     */
+    private static boolean insert(MemoryDatabase db, String table, List<Object> v) {
+        switch (table) {
+            case "genre" -> db.genres.put(new Genre(integer(v.get(0)), string(v.get(1))));
+            case "material_type" -> db.materialTypes.put(new MaterialType(integer(v.get(0)), string(v.get(1))));
+            case "materials" -> db.materials.put(new Material(integer(v.get(0)), string(v.get(1)), string(v.get(2)),
+                    integer(v.get(3)), string(v.get(4)), integer(v.get(5)), string(v.get(6))));
+            case "materials_genres" -> db.materialGenres.put(new MaterialGenre(integer(v.get(0)), integer(v.get(1))));
+            case "users" -> db.users.put(new User(integer(v.get(0)), string(v.get(1)), string(v.get(2)),
+                    string(v.get(3)), string(v.get(4)), date(v.get(5)), string(v.get(6)), string(v.get(7)),
+                    integer(v.get(8))));
+            case "loans" -> db.loans.put(new Loan(integer(v.get(0)), integer(v.get(1)), integer(v.get(2)),
+                    dateTime(v.get(3)), dateTime(v.get(4)), dateTime(v.get(5))));
+            case "holds" -> db.holds.put(new Hold(integer(v.get(0)), integer(v.get(1)), integer(v.get(2)),
+                    dateTime(v.get(3))));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Integer integer(Object value) {
+        return value == null ? null : Integer.valueOf(value.toString());
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static LocalDate date(Object value) {
+        return value == null ? null : LocalDate.parse(value.toString());
+    }
+
+    private static LocalDateTime dateTime(Object value) {
+        return value == null ? null : LocalDateTime.parse(value.toString(), DATETIME);
+    }
+
+    /**
+     * Parser of the value list of one INSERT statement: {@code (v, ...),(v, ...);} where each value is a
+     * quoted string (with backslash escapes), a number or {@code NULL}.
+     */
+    private static final class Parser {
+        private final String sql;
+        private int pos;
+
+        Parser(String sql, int pos) {
+            this.sql = sql;
+            this.pos = pos;
+        }
+
+        List<List<Object>> tuples() {
+            List<List<Object>> tuples = new ArrayList<>();
+            while (true) {
+                skipSpaces();
+                expect('(');
+                List<Object> tuple = new ArrayList<>();
+                do {
+                    skipSpaces();
+                    tuple.add(value());
+                    skipSpaces();
+                } while (accept(','));
+                expect(')');
+                tuples.add(tuple);
+                skipSpaces();
+                if (accept(';')) return tuples;
+                expect(',');
+            }
+        }
+
+        private Object value() {
+            if (accept('\'')) {
+                StringBuilder sb = new StringBuilder();
+                while (true) {
+                    char c = next();
+                    if (c == '\\') {
+                        char e = next();
+                        sb.append(switch (e) {
+                            case 'n' -> '\n';
+                            case 'r' -> '\r';
+                            case 't' -> '\t';
+                            case '0' -> '\0';
+                            default -> e;
+                        });
+                    } else if (c == '\'') {
+                        if (!accept('\'')) return sb.toString(); // '' is an escaped quote
+                        sb.append('\'');
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+            int start = pos;
+            while (pos < sql.length() && ",)".indexOf(sql.charAt(pos)) < 0 && !Character.isWhitespace(sql.charAt(pos))) {
+                pos++;
+            }
+            String token = sql.substring(start, pos);
+            if (token.isEmpty()) throw error("value");
+            return token.equalsIgnoreCase("NULL") ? null : token;
+        }
+
+        private void skipSpaces() {
+            while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) pos++;
+        }
+
+        private boolean accept(char c) {
+            if (pos < sql.length() && sql.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) throw error("'" + c + "'");
+        }
+
+        private char next() {
+            if (pos >= sql.length()) throw error("end of string");
+            return sql.charAt(pos++);
+        }
+
+        private IllegalArgumentException error(String expected) {
+            return new IllegalArgumentException("Expected " + expected + " at offset " + pos + " of the dump");
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * One table of the {@link MemoryDatabase}: rows keyed by primary key, plus secondary indexes.
+ * <p>
+ * Rows are stored as private copies, so changing an object returned by (or passed to) a DAO never changes the
+ * table behind its back; every index is therefore maintained only by {@link #put} and {@link #remove}.
+ * Two kinds of secondary index are supported:
+ * </p>
+ * <ul>
+ *     <li>{@link HashIndex}: equality lookups on a foreign key or other column (e.g. loans by user).</li>
+ *     <li>{@link SortedIndex}: the rows kept in a fixed order (e.g. materials by title), for ordered scans and
+ *     range queries without sorting.</li>
+ * </ul>
+ * <p>
+ * The table is not thread-safe by itself: the owning {@link MemoryDatabase} serializes writers and lets readers
+ * share a read lock. Every change is recorded in the database's undo journal so a failed statement or a rolled
+ * back unit of work can be undone.
+ * </p>
+ *
+ * @param <K> The primary key type.
+ * @param <T> The row (domain object) type.
+ *
+ * Access Keyword Explanation: package-private - Internal storage of the in-memory DAOs.
+ */
+final class MemoryTable<K, T> {
+
+    private final MemoryDatabase db;
+    private final String name;
+    private final Function<T, K> keyOf;
+    private final UnaryOperator<T> copier;
+
+    private final Map<K, T> rows = new HashMap<>();
+    private int lastId = 0; // Highest integer key seen, for AUTO_INCREMENT-like key generation
+    private final List<HashIndex<?>> hashIndexes = new ArrayList<>();
+    private final List<SortedIndex> sortedIndexes = new ArrayList<>();
+
+    /**
+     * Creates an empty table.
+     *
+     * @param db The owning database (for the undo journal).
+     * @param name The table name, used in error messages.
+     * @param keyOf Extracts the primary key of a row.
+     * @param copier Returns a detached copy of a row.
+     */
+    MemoryTable(MemoryDatabase db, String name, Function<T, K> keyOf, UnaryOperator<T> copier) {
+        this.db = db;
+        this.name = name;
+        this.keyOf = keyOf;
+        this.copier = copier;
+    }
+
+    /**
+     * Adds an equality index on a column.
+     *
+     * @param column Extracts the indexed value of a row (may return {@code null}).
+     * @param <V> The indexed value type.
+     * @return The index, to be passed to {@link #lookup(HashIndex, Object)}.
+     */
+    <V> HashIndex<V> hashIndex(Function<T, V> column) {
+        HashIndex<V> index = new HashIndex<>(column);
+        rows.values().forEach(index::add);
+        hashIndexes.add(index);
+        return index;
+    }
+
+    /**
+     * Adds an ordered index. The comparator must be a total order (break ties on the primary key).
+     *
+     * @param order The order of the index.
+     * @return The index, to be passed to {@link #ordered(SortedIndex)}.
+     */
+    SortedIndex sortedIndex(Comparator<T> order) {
+        SortedIndex index = new SortedIndex(order);
+        index.rows.addAll(rows.values());
+        sortedIndexes.add(index);
+        return index;
+    }
+
+    /** @return The table name. */
+    String name() {
+        return name;
+    }
+
+    /** @return The number of rows. */
+    int size() {
+        return rows.size();
+    }
+
+    /**
+     * Returns a copy of the row with the given key.
+     *
+     * @param key The primary key.
+     * @return A copy of the row, or {@code null} if there is none.
+     */
+    T get(K key) {
+        T row = rows.get(key);
+        return row != null ? copier.apply(row) : null;
+    }
+
+    /**
+     * Returns the stored row with the given key, without copying it. The caller must not modify it.
+     */
+    T peek(K key) {
+        return rows.get(key);
+    }
+
+    /** @return true if a row with the given key exists. */
+    boolean contains(K key) {
+        return rows.containsKey(key);
+    }
+
+    /**
+     * Returns the stored rows, in no particular order, without copying them. The caller must not modify them.
+     */
+    Collection<T> peekAll() {
+        return rows.values();
+    }
+
+    /**
+     * Returns the stored rows having {@code value} in an indexed column, without copying them.
+     *
+     * @param index A hash index of this table.
+     * @param value The value to look up.
+     * @param <V> The indexed value type.
+     * @return The matching rows (possibly empty), in no particular order.
+     */
+    <V> List<T> lookup(HashIndex<V> index, V value) {
+        Set<K> keys = index.keys.get(value);
+        List<T> result = new ArrayList<>();
+        if (keys != null) {
+            for (K key : keys) result.add(rows.get(key));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the stored rows in the order of a sorted index, without copying them.
+     *
+     * @param index A sorted index of this table.
+     * @return A live, read-only view of the rows in index order.
+     */
+    NavigableSet<T> ordered(SortedIndex index) {
+        return Collections.unmodifiableNavigableSet(index.rows);
+    }
+
+    /**
+     * Inserts or replaces a row (stored as a copy) and updates every index.
+     *
+     * @param row The row to store.
+     * @return The replaced row (no longer stored; the caller must not modify it), or {@code null} if the key was new.
+     */
+    T put(T row) {
+        T stored = copier.apply(row);
+        K key = keyOf.apply(stored);
+        if (key instanceof Integer id && id > lastId) lastId = id;
+        T previous = rows.put(key, stored);
+        if (previous != null) unindex(previous);
+        index(stored);
+        db.journal(previous != null ? () -> restore(previous) : () -> discard(key));
+        return previous;
+    }
+
+    /**
+     * Removes a row and updates every index.
+     *
+     * @param key The primary key.
+     * @return The removed row, or {@code null} if there was none.
+     */
+    T remove(K key) {
+        T previous = rows.remove(key);
+        if (previous != null) {
+            unindex(previous);
+            db.journal(() -> restore(previous));
+        }
+        return previous;
+    }
+
+    /**
+     * Generates the next integer primary key, like MySQL's AUTO_INCREMENT: one more than the highest key
+     * ever stored. As in MySQL, generated keys are not reused after a rollback.
+     *
+     * @return A new, unused key.
+     */
+    int nextId() {
+        return ++lastId;
+    }
+
+    /**
+     * Removes every row without journaling (used when (re)loading the database).
+     */
+    void clear() {
+        rows.clear();
+        lastId = 0;
+        for (HashIndex<?> index : hashIndexes) index.keys.clear();
+        for (SortedIndex index : sortedIndexes) index.rows.clear();
+    }
+
+    // --- Undo actions (run by the database while rolling back) ---
+
+    private void restore(T row) {
+        T current = rows.put(keyOf.apply(row), row);
+        if (current != null) unindex(current);
+        index(row);
+    }
+
+    private void discard(K key) {
+        T current = rows.remove(key);
+        if (current != null) unindex(current);
+    }
+
+    private void index(T row) {
+        for (HashIndex<?> index : hashIndexes) index.add(row);
+        for (SortedIndex index : sortedIndexes) index.rows.add(row);
+    }
+
+    private void unindex(T row) {
+        for (HashIndex<?> index : hashIndexes) index.remove(row);
+        for (SortedIndex index : sortedIndexes) index.rows.remove(row);
+    }
+
+    /**
+     * Equality index: indexed value to the primary keys of the rows having it.
+     *
+     * @param <V> The indexed value type.
+     */
+    final class HashIndex<V> {
+        private final Function<T, V> column;
+        private final Map<V, Set<K>> keys = new HashMap<>();
+
+        private HashIndex(Function<T, V> column) {
+            this.column = column;
+        }
+
+        private void add(T row) {
+            keys.computeIfAbsent(column.apply(row), v -> new LinkedHashSet<>()).add(keyOf.apply(row));
+        }
+
+        private void remove(T row) {
+            V value = column.apply(row);
+            Set<K> set = keys.get(value);
+            if (set != null && set.remove(keyOf.apply(row)) && set.isEmpty()) keys.remove(value);
+        }
+    }
+
+    /**
+     * Ordered index: the rows themselves, kept sorted by a total order.
+     */
+    final class SortedIndex {
+        private final NavigableSet<T> rows;
+
+        private SortedIndex(Comparator<T> order) {
+            this.rows = new TreeSet<>(Objects.requireNonNull(order));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package it.unicas.project.template.address.model.dao.memory;
+
+import it.unicas.project.template.address.model.User;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.UserDAO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory implementation of the User DAO, backed by the {@code users} table of a {@link MemoryDatabase}.
+ * Logins look users up through the (case-insensitive) username index.
+ *
+ * Access Keyword Explanation: package-private - Obtained through {@link MemoryDatabase#getUserDAO()}.
+ */
+class UserDAOMemoryImpl implements UserDAO {
+
+    private final MemoryDatabase db;
+
+    /**
+     * Creates the DAO of a database.
+     *
+     * @param db The database holding the users.
+     */
+    UserDAOMemoryImpl(MemoryDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public User getByUsername(String username) throws DAOException {
+        return db.read(() -> {
+            User found = null;
+            for (User row : db.users.lookup(db.usersByUsername, MemoryDatabase.fold(username))) {
+                if (found == null || row.getIdUser() < found.getIdUser()) found = row;
+            }
+            return found != null ? MemoryDatabase.copy(found) : null;
+        });
+    }
+
+    @Override
+    public List<User> select(User u) throws DAOException {
+        User t = u != null ? u : new User(null, "", "", "", "", null, "", "", -1);
+        boolean hasName = t.getName() != null && !t.getName().isEmpty();
+        boolean hasSurname = t.getSurname() != null && !t.getSurname().isEmpty();
+        boolean hasUsername = t.getUsername() != null && !t.getUsername().isEmpty();
+        boolean hasNationalID = t.getNationalID() != null && !t.getNationalID().isEmpty();
+        boolean hasEmail = t.getEmail() != null && !t.getEmail().isEmpty();
+        boolean hasRole = t.getIdRole() != null && t.getIdRole() != -1;
+
+        return db.read(() -> {
+            List<User> candidates;
+            if (t.getIdUser() != -1) {
+                User row = db.users.peek(t.getIdUser());
+                candidates = row != null ? List.of(row) : List.of();
+            } else if (hasNationalID) {
+                candidates = db.users.lookup(db.usersByNationalID, MemoryDatabase.fold(t.getNationalID()));
+            } else {
+                candidates = new ArrayList<>(db.users.peekAll());
+            }
+
+            // Prefix match on name, surname and username, substring match on email (as the LIKE patterns do)
+            List<User> list = new ArrayList<>();
+            for (User row : candidates) {
+                if (hasName && !MemoryDatabase.startsWithIgnoreCase(row.getName(), t.getName())) continue;
+                if (hasSurname && !MemoryDatabase.startsWithIgnoreCase(row.getSurname(), t.getSurname())) continue;
+                if (hasUsername && !MemoryDatabase.startsWithIgnoreCase(row.getUsername(), t.getUsername())) continue;
+                if (hasNationalID && !t.getNationalID().equalsIgnoreCase(row.getNationalID())) continue;
+                if (hasEmail && !MemoryDatabase.containsIgnoreCase(row.getEmail(), t.getEmail())) continue;
+                if (hasRole && !t.getIdRole().equals(row.getIdRole())) continue;
+                list.add(MemoryDatabase.copy(row));
+            }
+            list.sort(Comparator.comparing(User::getIdUser));
+            return list;
+        });
+    }
+
+    @Override
+    public void insert(User u) throws DAOException {
+        if (u == null) throw new DAOException("User cannot be null");
+        db.write(() -> {
+            u.setIdUser(db.users.nextId());
+            db.users.put(u);
+            return null;
+        });
+    }
+
+    @Override
+    public void update(User u) throws DAOException {
+        if (u == null) throw new DAOException("User cannot be null");
+        db.write(() -> {
+            // Like an UPDATE ... WHERE idUser=?, an unknown ID changes nothing
+            if (db.users.contains(u.getIdUser())) db.users.put(u);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(User u) throws DAOException {
+        if (u == null || u.getIdUser() == -1) throw new DAOException("idUser cannot be null");
+        db.write(() -> {
+            // Foreign keys from loans and holds
+            if (!db.loans.lookup(db.loansByUser, u.getIdUser()).isEmpty()
+                    || !db.holds.lookup(db.holdsByUser, u.getIdUser()).isEmpty()) {
+                throw new DAOException("In delete(): user " + u.getIdUser() + " is referenced by a loan or hold");
+            }
+            return db.users.remove(u.getIdUser());
+        });
+    }
+
+    @Override
+    public Map<Integer, User> selectByIds(Collection<Integer> ids) throws DAOException {
+        return db.read(() -> {
+            Map<Integer, User> result = new LinkedHashMap<>();
+            if (ids == null) return result;
+            for (Integer id : ids) {
+                if (id == null || id == -1 || result.containsKey(id)) continue;
+                User row = db.users.get(id);
+                if (row != null) result.put(id, row);
+            }
+            return result;
+        });
+    }
+}
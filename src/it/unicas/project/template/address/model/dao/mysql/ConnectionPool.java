@@ -0,0 +1,383 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of physical MySQL connections used behind {@link DAOMySQLSettings#getConnection()}.
+ * <p>
+ * Callers receive a lightweight proxy around a pooled physical connection. Calling {@code close()}
+ * on the proxy (as every DAO already does through try-with-resources) hands the physical connection
+ * back to the pool instead of tearing down the TCP/authentication session. Connections are validated
+ * when borrowed after having been idle, retired once they exceed their maximum lifetime, and the
+ * pool keeps counters for active/idle connections and time spent waiting for one.
+ * </p>
+ * <p>
+ * Statements created on a borrowed connection are measured by {@link DAOMetrics}, which also records how
+ * long each borrow took, and reported to Flight Recorder as {@link DAOQueryEvent}s.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - The pool statistics are read by diagnostics code
+ * outside this package; creation and borrowing remain controlled by {@code DAOMySQLSettings}.
+ */
+public class ConnectionPool {
+
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+
+    // --- Configuration ---
+    private final String url;
+    private final String userName;
+    private final String pwd;
+    private final int maxSize;                 // Hard upper bound of physical connections
+    private final int minIdle;                 // Connections opened by warmUp()
+    private final long maxLifetimeMillis;      // Physical connections older than this are retired
+    private final long borrowTimeoutMillis;    // Maximum time a caller waits for a free connection
+    private final long validationIdleMillis;   // Idle time after which a connection is pinged before reuse
+    private final int validationTimeoutSeconds;
+
+    // --- State ---
+    private final Semaphore permits;           // One permit per connection that may be handed out
+    private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+    private volatile boolean shutdown = false;
+
+    // --- Metrics ---
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong retiredCount = new AtomicLong();
+
+    /**
+     * Creates a new, empty pool. No connection is opened until {@link #warmUp()} or the first borrow.
+     *
+     * @param url The full JDBC URL.
+     * @param userName The database user.
+     * @param pwd The database password.
+     * @param maxSize The maximum number of physical connections.
+     * @param minIdle The number of connections opened eagerly by {@link #warmUp()}.
+     * @param maxLifetimeMillis The maximum lifetime of a physical connection, in milliseconds.
+     * @param borrowTimeoutMillis The maximum time to wait for a free connection, in milliseconds.
+     * @param validationIdleMillis The idle time after which a connection is validated before reuse.
+     * @param validationTimeoutSeconds The timeout passed to {@link Connection#isValid(int)}.
+     */
+    ConnectionPool(String url, String userName, String pwd, int maxSize, int minIdle,
+                   long maxLifetimeMillis, long borrowTimeoutMillis,
+                   long validationIdleMillis, int validationTimeoutSeconds) {
+        this.url = url;
+        this.userName = userName;
+        this.pwd = pwd;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationIdleMillis = validationIdleMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Opens connections until {@code minIdle} physical connections are idle in the pool.
+     * <p>
+     * Called once at application startup so the first screen does not pay the connection handshake.
+     * </p>
+     *
+     * @throws SQLException if a connection cannot be opened.
+     */
+    void warmUp() throws SQLException {
+        while (!shutdown && idle.size() + active.get() < minIdle) {
+            idle.offerLast(open());
+        }
+        logger.info("Connection pool warmed up: " + this);
+    }
+
+    /**
+     * Borrows a connection, waiting at most {@code borrowTimeoutMillis} for one to become free.
+     *
+     * @return A pooled connection; closing it returns it to the pool.
+     * @throws SQLException if the pool is shut down, the wait times out, or a connection cannot be opened.
+     */
+    Connection borrow() throws SQLException {
+        if (shutdown) throw new SQLException("Connection pool has been shut down");
+
+        long start = System.nanoTime();
+        try {
+            return acquire(start);
+        } finally {
+            DAOMetrics.recordConnectionAcquire(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Body of {@link #borrow()}: waits for a permit, then reuses an idle connection or opens a new one.
+     */
+    private Connection acquire(long start) throws SQLException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection");
+        }
+        recordWait(System.nanoTime() - start);
+
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLException("Timed out after " + borrowTimeoutMillis
+                    + " ms waiting for a database connection (" + this + ")");
+        }
+
+        try {
+            PhysicalConnection pc;
+            // Most recently returned connections first: they are the least likely to be stale
+            while ((pc = idle.pollFirst()) != null) {
+                if (isReusable(pc)) break;
+                retire(pc);
+            }
+            if (pc == null) pc = open();
+
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return pc.lease(System.nanoTime() - start);
+        } catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection and refuses further borrows.
+     * Connections still in use are closed as soon as they are returned.
+     */
+    void shutdown() {
+        shutdown = true;
+        PhysicalConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            retire(pc);
+        }
+        logger.info("Connection pool shut down: " + this);
+    }
+
+    // --- Metrics accessors ---
+
+    /** @return The number of connections currently borrowed. */
+    public int getActiveCount() { return active.get(); }
+
+    /** @return The number of open connections waiting in the pool. */
+    public int getIdleCount() { return idle.size(); }
+
+    /** @return The configured maximum number of physical connections. */
+    public int getMaxSize() { return maxSize; }
+
+    /** @return The total number of successful borrows since startup. */
+    public long getBorrowCount() { return borrowCount.get(); }
+
+    /** @return The number of borrows that gave up after {@code borrowTimeoutMillis}. */
+    public long getTimeoutCount() { return timeoutCount.get(); }
+
+    /** @return The number of physical connections opened since startup. */
+    public long getCreatedCount() { return createdCount.get(); }
+
+    /** @return The number of physical connections closed because they were stale, broken or expired. */
+    public long getRetiredCount() { return retiredCount.get(); }
+
+    /** @return The cumulative time callers spent waiting for a connection, in milliseconds. */
+    public double getTotalWaitMillis() { return totalWaitNanos.get() / 1_000_000.0; }
+
+    /** @return The longest single wait for a connection, in milliseconds. */
+    public double getMaxWaitMillis() { return maxWaitNanos.get() / 1_000_000.0; }
+
+    /** @return The mean wait per borrow, in milliseconds. */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get() + timeoutCount.get();
+        return borrows == 0 ? 0 : getTotalWaitMillis() / borrows;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, max=%d, borrows=%d, avgWait=%.3fms, maxWait=%.3fms, timeouts=%d",
+                getActiveCount(), getIdleCount(), maxSize, getBorrowCount(),
+                getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount());
+    }
+
+    /**
+     * Records that {@code sql} is being prepared on the physical connection behind {@code conn}.
+     * <p>
+     * Used by {@link QueryShape} to count statement cache hits: physical connections live across borrows,
+     * so the driver keeps their server-side prepared statements between DAO calls.
+     * </p>
+     *
+     * @param conn A connection borrowed from a pool.
+     * @param sql The SQL text being prepared.
+     * @return true if the same physical connection had already prepared this SQL, false otherwise
+     *         (including for connections that do not come from a pool).
+     */
+    static boolean recordPrepare(Connection conn, String sql) {
+        conn = ConnectionTransaction.unwrap(conn);
+        if (!Proxy.isProxyClass(conn.getClass())
+                || !(Proxy.getInvocationHandler(conn) instanceof ConnectionPool.Lease lease)) {
+            return false;
+        }
+        return !lease.pc.preparedSql.add(sql);
+    }
+
+    // --- Internal helpers ---
+
+    private PhysicalConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, userName, pwd);
+        createdCount.incrementAndGet();
+        return new PhysicalConnection(physical);
+    }
+
+    private boolean isReusable(PhysicalConnection pc) {
+        long now = System.currentTimeMillis();
+        if (pc.broken || now - pc.createdAt >= maxLifetimeMillis) return false;
+        if (now - pc.lastReturnedAt < validationIdleMillis) return true;
+        try {
+            return pc.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void retire(PhysicalConnection pc) {
+        retiredCount.incrementAndGet();
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            logger.fine("Error closing retired connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes a connection back from a lease. Any transaction left open by the borrower is rolled back
+     * so the next borrower always starts from a clean auto-commit connection.
+     */
+    private void giveBack(PhysicalConnection pc) {
+        active.decrementAndGet();
+        try {
+            if (!pc.broken && !pc.physical.isClosed() && !pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            pc.broken = true;
+        }
+
+        if (shutdown || pc.broken || System.currentTimeMillis() - pc.createdAt >= maxLifetimeMillis) {
+            retire(pc);
+        } else {
+            pc.lastReturnedAt = System.currentTimeMillis();
+            idle.offerFirst(pc);
+        }
+        permits.release();
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * A physical JDBC connection owned by the pool, plus the bookkeeping needed to decide whether it can be reused.
+     */
+    private final class PhysicalConnection {
+        private final Connection physical;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastReturnedAt = createdAt;
+        private volatile boolean broken = false;
+        // SQL texts already prepared on this connection (and therefore held in the driver's statement cache)
+        private final Set<String> preparedSql = ConcurrentHashMap.newKeySet();
+
+        private PhysicalConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Wraps the physical connection in a proxy valid for a single borrow.
+         *
+         * @param waitNanos The time the borrower waited for this connection.
+         */
+        private Connection lease(long waitNanos) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(this, waitNanos));
+        }
+    }
+
+    /**
+     * Invocation handler behind every borrowed connection: delegates to the physical connection
+     * and turns {@code close()} into a return to the pool.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PhysicalConnection pc;
+        private boolean returned = false;
+        private long waitNanos;  // Reported with the first statement created on this lease
+
+        private Lease(PhysicalConnection pc, long waitNanos) {
+            this.pc = pc;
+            this.waitNanos = waitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    if (returned) return true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pc.physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned) throw new SQLException("Connection has already been returned to the pool");
+
+            try {
+                Object result = method.invoke(pc.physical, args);
+                // prepareStatement, prepareCall and createStatement: measure the statement's executions
+                if (result instanceof Statement statement && DAOMetrics.isMetering()) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                    long wait = waitNanos;
+                    waitNanos = 0;
+                    return DAOMetrics.meter(statement, method.getReturnType(), sql, wait);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState class 08 = connection exception: never hand this connection out again
+                if (cause instanceof SQLException sqlException
+                        && sqlException.getSQLState() != null && sqlException.getSQLState().startsWith("08")) {
+                    pc.broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.Transaction;
+import it.unicas.project.template.address.model.dao.UnitOfWork;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The MySQL {@link Transaction} behind a {@link UnitOfWork}: one pooled connection, out of auto-commit.
+ * <p>
+ * While it is open on the current thread, {@link DAOMySQLSettings#getConnection()} hands every
+ * {@code *DAOMySQLImpl} the same connection instead of borrowing a new one. Closing that shared connection, or
+ * calling {@code setAutoCommit}/{@code commit} on it (as the batch operations do), is ignored until the transaction
+ * ends; a {@code rollback} makes the unit of work roll back.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Begun by {@code DAOFactory} when MySQL is selected.
+ */
+public final class ConnectionTransaction implements Transaction {
+
+    // The transaction open on each thread, if any
+    private static final ThreadLocal<ConnectionTransaction> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;  // The pooled connection
+    private final Connection shared;      // The handle given to DAOs: close/commit/autocommit changes are ignored
+    private boolean rollbackOnly = false;
+    private boolean ended = false;
+
+    private ConnectionTransaction(Connection connection) {
+        this.connection = connection;
+        this.shared = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new SharedHandler());
+    }
+
+    /**
+     * Borrows a connection and begins a transaction on it, for the current thread.
+     *
+     * Access Keyword Explanation: {@code public static} - Called by {@code DAOFactory.beginTransaction()}.
+     *
+     * @return The transaction.
+     * @throws DAOException if no connection can be obtained.
+     */
+    public static ConnectionTransaction begin() throws DAOException {
+        try {
+            Connection conn = DAOMySQLSettings.getPool().borrow();
+            try {
+                conn.setAutoCommit(false);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            ConnectionTransaction transaction = new ConnectionTransaction(conn);
+            CURRENT.set(transaction);
+            return transaction;
+        } catch (SQLException e) {
+            throw new DAOException("In UnitOfWork.begin(): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the connection of the transaction open on the current thread, or {@code null} if there is none.
+     *
+     * @return The shared connection handle, or {@code null}.
+     */
+    static Connection currentConnection() {
+        ConnectionTransaction current = CURRENT.get();
+        return current != null ? current.shared : null;
+    }
+
+    /**
+     * Returns the pooled connection behind a shared handle, or the connection itself if it is not one.
+     *
+     * @param conn A connection obtained from {@link DAOMySQLSettings#getConnection()}.
+     * @return The underlying pooled connection.
+     */
+    static Connection unwrap(Connection conn) {
+        if (Proxy.isProxyClass(conn.getClass())
+                && Proxy.getInvocationHandler(conn) instanceof ConnectionTransaction.SharedHandler handler) {
+            return handler.owner().connection;
+        }
+        return conn;
+    }
+
+    @Override
+    public void commit() throws DAOException {
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            throw new DAOException("In UnitOfWork.commit(): " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * Rolls back unless committed, then restores auto-commit and returns the connection to the pool.
+     */
+    @Override
+    public void end(boolean committed) throws DAOException {
+        if (ended) return;
+        ended = true;
+        CURRENT.remove();
+        try {
+            if (!committed) connection.rollback();
+        } catch (SQLException e) {
+            throw new DAOException("In UnitOfWork.close(): rollback failed: " + e.getMessage());
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // The pool restores auto-commit when the connection is returned
+            }
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Closing a pooled connection only returns it to the pool
+            }
+        }
+    }
+
+    /**
+     * Handler of the shared connection handle given to the DAOs. Transaction boundaries are owned by the unit of
+     * work, so the DAOs' {@code close}, {@code commit} and {@code setAutoCommit} calls are ignored and a
+     * {@code rollback} marks the whole unit of work for rollback.
+     */
+    private final class SharedHandler implements InvocationHandler {
+
+        ConnectionTransaction owner() {
+            return ConnectionTransaction.this;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close", "commit", "setAutoCommit":
+                    if (ended) throw new SQLException("Unit of work has already ended");
+                    return null;
+                case "rollback":
+                    if (args == null) { // rollback to a savepoint is delegated
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "getAutoCommit":
+                    return false;
+                case "isClosed":
+                    return ended;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "UnitOfWork[" + connection + "]";
+                default:
+                    break;
+            }
+
+            if (ended) throw new SQLException("Unit of work has already ended");
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
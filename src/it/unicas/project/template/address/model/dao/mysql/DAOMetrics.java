@@ -0,0 +1,212 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Registry of the per-statement metrics of the MySQL DAOs, exposed over JMX.
+ * <p>
+ * Every statement prepared on a pooled connection is wrapped by {@link MeteredStatement}, so every method of
+ * every {@code *DAOMySQLImpl} is measured without changing the DAOs: executions, errors, rows and latency
+ * percentiles, keyed by DAO class and query shape. The time spent acquiring a connection from the
+ * {@link ConnectionPool} is measured as well. Open {@code it.unicas.library} in JConsole or VisualVM to watch
+ * which screen's queries degrade as the tables grow; {@code reset()} starts a new measurement window.
+ * </p>
+ * <p>
+ * The metrics are on by default; start the application with {@code -Dlibrary.dao.metrics=false} to turn them off
+ * (statements are still measured when the {@link QueryProfiler} is on).
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Read by diagnostics code and exposed over JMX.
+ */
+public final class DAOMetrics implements DAOMetricsMXBean {
+
+    /** System property turning the metrics off when set to {@code false}. */
+    public static final String METRICS_PROPERTY = "library.dao.metrics";
+
+    /** JMX domain of the MBeans. */
+    public static final String JMX_DOMAIN = "it.unicas.library";
+
+    private static final Logger logger = Logger.getLogger(DAOMetrics.class.getName());
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(METRICS_PROPERTY));
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final DAOMetrics INSTANCE = new DAOMetrics();
+
+    private final Map<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+    private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+    private volatile boolean jmxAvailable = true;
+
+    /**
+     * Creates the registry and registers it over JMX.
+     */
+    private DAOMetrics() {
+        if (ENABLED) register(JMX_DOMAIN + ":type=DAOMetrics", this);
+    }
+
+    /**
+     * Returns the registry.
+     *
+     * Access Keyword Explanation: {@code public static} - Global access point for diagnostics code.
+     *
+     * @return The single registry.
+     */
+    public static DAOMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /** @return true unless the metrics were turned off with {@value #METRICS_PROPERTY}. */
+    static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns whether new statements must be wrapped: for the metrics, the {@link QueryProfiler}, or a Flight
+     * Recorder recording of {@link DAOQueryEvent}s.
+     *
+     * @return true if statements must be measured.
+     */
+    static boolean isMetering() {
+        return ENABLED || QueryProfiler.isEnabled() || new DAOQueryEvent().isEnabled();
+    }
+
+    /**
+     * Wraps a statement just created on a pooled connection so that its executions are measured.
+     * <p>
+     * The statement is attributed to the nearest {@code *DAOMySQLImpl} method on the call stack, and named after
+     * its {@link QueryShape} when the SQL is a registered shape. When the {@link QueryProfiler} is on, it is also
+     * tagged with the UI action that prepared it.
+     * </p>
+     *
+     * @param statement The statement returned by the driver.
+     * @param type The JDBC interface to expose ({@code Statement}, {@code PreparedStatement}, ...).
+     * @param sql The SQL text it was prepared with, or {@code null} for a plain statement.
+     * @param connectionWait The time spent borrowing the connection, if this is its first statement (else 0).
+     * @return The measured statement.
+     */
+    static Statement meter(Statement statement, Class<?> type, String sql, long connectionWait) {
+        StatementMetrics metrics = INSTANCE.forCaller(sql);
+        QueryProfiler.Trace trace = QueryProfiler.isEnabled()
+                ? QueryProfiler.trace(metrics.getDao() + " / " + metrics.getStatement()) : null;
+        return MeteredStatement.wrap(statement, type, metrics, trace, sql, connectionWait);
+    }
+
+    /**
+     * Records the time taken to acquire a connection from the pool (successfully or not).
+     *
+     * @param nanos The acquisition time.
+     */
+    static void recordConnectionAcquire(long nanos) {
+        if (ENABLED) INSTANCE.connectionAcquire.record(nanos);
+    }
+
+    /**
+     * Returns the metrics of every statement measured so far, slowest p99 first.
+     *
+     * @return A snapshot of the statement metrics.
+     */
+    public List<StatementMetrics> getStatements() {
+        List<StatementMetrics> list = new ArrayList<>(statements.values());
+        list.sort(Comparator.comparingDouble(StatementMetrics::getP99Millis).reversed()
+                .thenComparing(StatementMetrics::getDao).thenComparing(StatementMetrics::getStatement));
+        return list;
+    }
+
+    @Override
+    public int getStatementCount() { return statements.size(); }
+
+    @Override
+    public long getTotalCalls() {
+        long calls = 0;
+        for (StatementMetrics m : statements.values()) calls += m.getCalls();
+        return calls;
+    }
+
+    @Override
+    public long getTotalErrors() {
+        long errors = 0;
+        for (StatementMetrics m : statements.values()) errors += m.getErrors();
+        return errors;
+    }
+
+    @Override
+    public long getConnectionAcquireCount() { return connectionAcquire.count(); }
+
+    @Override
+    public double getConnectionAcquireP50Millis() { return connectionAcquire.percentileMillis(0.50); }
+
+    @Override
+    public double getConnectionAcquireP99Millis() { return connectionAcquire.percentileMillis(0.99); }
+
+    @Override
+    public double getConnectionAcquireP999Millis() { return connectionAcquire.percentileMillis(0.999); }
+
+    @Override
+    public double getConnectionAcquireMaxMillis() { return connectionAcquire.maxMillis(); }
+
+    @Override
+    public String[] getReport() {
+        return getStatements().stream().map(StatementMetrics::toString).toArray(String[]::new);
+    }
+
+    @Override
+    public void reset() {
+        for (StatementMetrics m : statements.values()) m.reset();
+        connectionAcquire.reset();
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * Finds (or creates) the metrics of the statement being prepared by the calling DAO method.
+     */
+    private StatementMetrics forCaller(String sql) {
+        StackWalker.StackFrame frame = WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().endsWith("DAOMySQLImpl"))
+                .findFirst()).orElse(null);
+
+        String dao = frame != null ? frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1) : "Other";
+        String shape = sql != null ? QueryShape.nameOf(sql) : null;
+        String statement = shape != null ? shape : frame != null ? methodName(frame) : "adhoc";
+
+        return statements.computeIfAbsent(dao + " / " + statement, key -> {
+            StatementMetrics metrics = new StatementMetrics(dao, statement);
+            register(JMX_DOMAIN + ":type=DAOStatement,dao=" + dao + ",statement=" + ObjectName.quote(statement), metrics);
+            return metrics;
+        });
+    }
+
+    /**
+     * Returns the DAO method of a frame, mapping lambda bodies ({@code lambda$select$0}) to their method.
+     */
+    private static String methodName(StackWalker.StackFrame frame) {
+        String name = frame.getMethodName();
+        if (name.startsWith("lambda$")) {
+            int end = name.indexOf('$', 7);
+            if (end > 7) return name.substring(7, end);
+        }
+        return name;
+    }
+
+    private void register(String name, Object mbean) {
+        if (!jmxAvailable) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) server.registerMBean(mbean, objectName);
+        } catch (JMException | RuntimeException e) {
+            // Metrics keep being collected; they are only not visible over JMX
+            jmxAvailable = false;
+            logger.warning("Could not register DAO metrics over JMX: " + e.getMessage());
+        }
+    }
+}
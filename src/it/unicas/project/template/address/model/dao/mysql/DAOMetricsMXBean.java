@@ -0,0 +1,36 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+/**
+ * JMX view of the DAO metrics as a whole (see {@link DAOMetrics}), registered as
+ * {@code it.unicas.library:type=DAOMetrics}.
+ *
+ * Access Keyword Explanation: {@code public} - JMX requires MXBean interfaces to be public.
+ */
+public interface DAOMetricsMXBean {
+
+    /** @return The number of distinct statements measured so far. */
+    int getStatementCount();
+
+    /** @return The executions of all statements. */
+    long getTotalCalls();
+
+    /** @return The failed executions of all statements. */
+    long getTotalErrors();
+
+    /** @return The number of connections acquired by the DAOs (including failed attempts). */
+    long getConnectionAcquireCount();
+
+    double getConnectionAcquireP50Millis();
+
+    double getConnectionAcquireP99Millis();
+
+    double getConnectionAcquireP999Millis();
+
+    double getConnectionAcquireMaxMillis();
+
+    /** @return One line per statement, slowest p99 first. */
+    String[] getReport();
+
+    /** Clears every statement's metrics and the connection-acquire times. */
+    void reset();
+}
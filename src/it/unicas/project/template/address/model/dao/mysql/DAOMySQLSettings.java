@@ -1,14 +1,15 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.logging.Logger;
 
 /**
  * Utility class to hold all MySQL connection settings and provide static methods
  * for establishing and closing database connections and statements.
  * It implements a basic Singleton pattern for managing the current configuration.
+ * Connections are served from a bounded {@link ConnectionPool}, so closing them returns
+ * them to the pool rather than ending the database session.
  *
  * Access Keyword Explanation: {@code public} - This class must be public because it is
  * an essential configuration and utility class accessed by all DAO implementations.
@@ -21,11 +22,24 @@ public class DAOMySQLSettings {
     public final static String USERNAME = "mar";                       // Default database user
     public final static String PWD = "ProjectSE1234";                  // Default database password
     public final static String SCHEMA = "dls_schema";                  // Default database name (schema)
-    public final static String PARAMETERS = "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=Europe/Madrid"; // Essential connection parameters for modern MySQL/Java
+    public final static String PARAMETERS = "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=Europe/Madrid" // Essential connection parameters for modern MySQL/Java
+            + "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=256&prepStmtCacheSqlLimit=2048" // Server-side prepared statements, cached per pooled connection (see QueryShape)
+            + "&rewriteBatchedStatements=true" // Batched INSERTs are sent as multi-row statements (see JdbcBatch)
+            + "&useCursorFetch=true"; // Statements with a fetch size read through a server-side cursor (see MaterialDAOMySQLImpl.selectStream)
+
+    // --- Connection Pool Configuration ---
+    public final static int POOL_MAX_SIZE = 10;                        // Upper bound of open connections
+    public final static int POOL_MIN_IDLE = 2;                         // Connections opened at startup by warmUpPool()
+    public final static long POOL_MAX_LIFETIME_MS = 30 * 60 * 1000L;   // Retire connections after 30 minutes
+    public final static long POOL_BORROW_TIMEOUT_MS = 10 * 1000L;      // Fail a borrow after waiting 10 seconds
+    public final static long POOL_VALIDATION_IDLE_MS = 500L;           // Ping connections idle longer than this before reuse
+    public final static int POOL_VALIDATION_TIMEOUT_S = 2;             // Timeout for the validation ping
     // Access Keyword Explanation: {@code public final static} - These are constants
     // used as the default settings for the application. They are public so they can
     // be referenced by other classes (e.g., if dynamically setting up the DB).
 
+    private static final Logger logger = Logger.getLogger(DAOMySQLSettings.class.getName());
+
     // --- Instance Fields (Current Configuration) ---
     private String host = "localhost";
     private String userName = "mar";
@@ -53,6 +67,9 @@ public class DAOMySQLSettings {
     private static DAOMySQLSettings currentDAOMySQLSettings = null;
     // This private static field holds the single, globally accessible configuration instance (the Singleton).
 
+    private static ConnectionPool pool = null;
+    // The pool serving getConnection(). Created lazily from the current settings.
+
     /**
      * <p>Creates and returns a new DAOMySQLSettings instance populated with the static default constants.</p>
      *
@@ -76,25 +93,77 @@ public class DAOMySQLSettings {
 
 
     /**
-     * <p>Establishes and returns a new Connection to the MySQL database
-     * using the current DAOMySQLSettings configuration.</p>
+     * <p>Borrows a Connection to the MySQL database from the connection pool,
+     * creating the pool from the current DAOMySQLSettings configuration on first use.</p>
+     * <p>Callers must close the connection (typically with try-with-resources) to return it to the pool.</p>
+     * <p>If a {@link ConnectionTransaction} (of a {@code UnitOfWork}) is open on the calling thread, its connection
+     * is returned instead, so the DAO call joins that transaction; closing it then has no effect until the unit of
+     * work ends.</p>
      *
      * Access Keyword Explanation: {@code public static} - This is a core utility
      * method for obtaining database connections, accessible without an instance.
      *
-     * @return A new Connection object to the database.
-     * @throws SQLException if a database access error occurs.
+     * @return A pooled Connection object to the database.
+     * @throws SQLException if a database access error occurs or no connection becomes free in time.
      */
     public static Connection getConnection() throws SQLException {
-        if (currentDAOMySQLSettings == null) {
-            currentDAOMySQLSettings = getDefaultDAOSettings(); // Ensure settings are loaded before attempting connection
+        Connection joined = ConnectionTransaction.currentConnection();
+        if (joined != null) return joined;
+        return getPool().borrow();
+    }
+
+    /**
+     * <p>Returns the connection pool, creating it on first use.</p>
+     *
+     * Access Keyword Explanation: {@code public static} - Exposes pool metrics (active, idle, wait time)
+     * to diagnostics code without giving access to the pool's borrowing methods.
+     *
+     * @return The pool serving {@link #getConnection()}.
+     */
+    public static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            if (currentDAOMySQLSettings == null) {
+                currentDAOMySQLSettings = getDefaultDAOSettings(); // Ensure settings are loaded before attempting connection
+            }
+            // Build the full JDBC URL string using the current settings
+            pool = new ConnectionPool(
+                    "jdbc:mysql://" + currentDAOMySQLSettings.host + "/" + currentDAOMySQLSettings.schema + PARAMETERS,
+                    currentDAOMySQLSettings.userName,
+                    currentDAOMySQLSettings.pwd,
+                    POOL_MAX_SIZE,
+                    POOL_MIN_IDLE,
+                    POOL_MAX_LIFETIME_MS,
+                    POOL_BORROW_TIMEOUT_MS,
+                    POOL_VALIDATION_IDLE_MS,
+                    POOL_VALIDATION_TIMEOUT_S
+            );
+        }
+        return pool;
+    }
+
+    /**
+     * <p>Opens the minimum number of idle connections so the first queries do not pay the connection handshake.</p>
+     *
+     * Access Keyword Explanation: {@code public static} - Called by {@code MainApp} at startup.
+     *
+     * @throws SQLException if the database cannot be reached.
+     */
+    public static void warmUpPool() throws SQLException {
+        getPool().warmUp();
+    }
+
+    /**
+     * <p>Closes all pooled connections. Connections still borrowed are closed as soon as they are returned.</p>
+     *
+     * Access Keyword Explanation: {@code public static} - Called by {@code MainApp} when the application stops.
+     */
+    public static synchronized void shutdownPool() {
+        if (pool != null) {
+            for (QueryShape shape : QueryShape.getRegisteredShapes()) {
+                logger.info("Statement cache: " + shape);
+            }
+            pool.shutdown();
+            pool = null;
         }
-        // Build the full JDBC URL string using the current settings and
-        // establish the connection using the driver manager and credentials
-        return DriverManager.getConnection(
-                "jdbc:mysql://" + currentDAOMySQLSettings.host + "/" + currentDAOMySQLSettings.schema + PARAMETERS,
-                currentDAOMySQLSettings.userName,
-                currentDAOMySQLSettings.pwd
-        );
     }
 }
@@ -0,0 +1,50 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event emitted for every statement executed by a MySQL DAO.
+ * <p>
+ * The event covers the execution of the statement and, for queries, the reading of the result set until it is
+ * closed; {@code executionTime} is the execution alone. The connection wait is the time spent borrowing the
+ * connection from the {@link ConnectionPool}, reported on the first statement run on that connection.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Emitted only by {@link MeteredStatement}.
+ */
+@Name("it.unicas.library.DAOQuery")
+@Label("DAO Query")
+@Category({"Library", "DAO"})
+@Description("A statement executed by a MySQL DAO")
+final class DAOQueryEvent extends Event {
+
+    @Label("DAO")
+    String dao;
+
+    @Label("Statement")
+    @Description("Query shape name, or DAO method for SQL that is not a registered shape")
+    String statement;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows")
+    @Description("Rows read from the result set (queries) or affected (updates)")
+    long rows;
+
+    @Label("Execution Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long executionTime;
+
+    @Label("Connection Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionWait;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,42 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+/**
+ * JMX view of the metrics of one DAO statement (see {@link StatementMetrics}).
+ * <p>
+ * Registered as {@code it.unicas.library:type=DAOStatement,dao=<DAO class>,statement=<query shape or method>}.
+ * Latencies are in milliseconds and cover the execution of the statement on the server, not the fetching of
+ * the rows it returns.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - JMX requires MXBean interfaces to be public.
+ */
+public interface DAOStatementMetricsMXBean {
+
+    /** @return The DAO class running the statement, e.g. {@code LoanDAOMySQLImpl}. */
+    String getDao();
+
+    /** @return The query shape name, or the DAO method for SQL that is not a registered shape. */
+    String getStatement();
+
+    /** @return The number of executions. */
+    long getCalls();
+
+    /** @return The number of executions that threw an {@code SQLException}. */
+    long getErrors();
+
+    /** @return The rows returned (queries) or affected (updates) by all executions. */
+    long getRows();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    /** Clears the metrics of this statement. */
+    void reset();
+}
@@ -1,33 +1,36 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
 import it.unicas.project.template.address.model.Hold;
-import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.HoldDAO;
 import it.unicas.project.template.address.model.ExpiringHoldInfo;
+import it.unicas.project.template.address.model.ExpiredHoldCleanup;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
  * MySQL implementation for the Hold data access object (DAO).
  * <p>
  * This class handles all CRUD operations and specific queries (like finding expiring holds)
- * related to the 'holds' table in the database. It implements the generic {@code DAO<Hold>} interface.
+ * related to the 'holds' table in the database. It implements the {@code HoldDAO} interface.
  * </p>
  *
  * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this specific DAO implementation.
  */
-public class HoldDAOMySQLImpl implements DAO<Hold> {
+public class HoldDAOMySQLImpl implements HoldDAO {
 
     // --- Singleton Fields ---
-    // The single instance of this DAO (Singleton pattern). It is declared as the interface type DAO<Hold>
+    // The single instance of this DAO (Singleton pattern). It is declared as the interface type HoldDAO
     // to promote programming to the interface.
-    private static DAO<Hold> dao = null;
+    private static HoldDAO dao = null;
     private static Logger logger = null; // Logger for error reporting
     // Formatter used to convert LocalDateTime objects into the string format required by MySQL
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -50,9 +53,9 @@ public class HoldDAOMySQLImpl implements DAO<Hold> {
      *
      * Access Keyword Explanation: {@code public static} - Provides global, class-level access.
      *
-     * @return The single instance of the HoldDAOMySQLImpl, cast to the generic DAO interface.
+     * @return The single instance of the HoldDAOMySQLImpl, as its HoldDAO interface.
      */
-    public static DAO<Hold> getInstance() {
+    public static HoldDAO getInstance() {
         if (dao == null) {
             // Initialization happens only on the first call
             dao = new HoldDAOMySQLImpl();
@@ -90,6 +93,30 @@ public class HoldDAOMySQLImpl implements DAO<Hold> {
                     // Only condition needed: The hold's expiration date (hold_date + X days) is in the future.
                     "AND DATE_ADD(h.hold_date, INTERVAL " + HOLD_VALIDITY_DAYS + " DAY) > CURDATE()";
 
+    /**
+     * Sets every material with a hold placed before the cut-off back to 'available'.
+     */
+    private static final QueryShape RELEASE_EXPIRED_MATERIALS = QueryShape.of("hold.releaseExpiredMaterials",
+            "UPDATE materials SET material_status = 'available' " +
+                    "WHERE idMaterial IN (SELECT idMaterial FROM holds WHERE hold_date < ?)");
+
+    /**
+     * Deletes every hold placed before the cut-off.
+     */
+    private static final QueryShape DELETE_EXPIRED_HOLDS = QueryShape.of("hold.deleteExpired",
+            "DELETE FROM holds WHERE hold_date < ?");
+
+    /**
+     * Query shapes of {@link #select(Hold)}: one canonical SQL text per combination of template fields.
+     * 'WHERE 1=1' is a common pattern to easily chain AND clauses.
+     */
+    private static final QueryShapeSet SELECT_SHAPES = new QueryShapeSet(
+            "hold.select", "SELECT * FROM holds WHERE 1=1", "")
+            .filter("id", " AND idHold = ?")
+            .filter("user", " AND idUser = ?")
+            .filter("material", " AND idMaterial = ?")
+            .filter("date", " AND hold_date = ?");
+
     /**
      * Selects Hold records based on criteria specified in the input Hold object (h).
      * <p>
@@ -108,16 +135,13 @@ public class HoldDAOMySQLImpl implements DAO<Hold> {
             // If null is passed, treat it as a request to fetch all records (all IDs are -1)
             h = new Hold(); // all -1
         }
-        // Start of dynamic query. 'WHERE 1=1' is a common pattern to easily chain AND clauses.
-        StringBuilder sql = new StringBuilder("SELECT * FROM holds WHERE 1=1");
-        if (h.getIdHold() != -1) sql.append(" AND idHold = ?");
-        if (h.getIdUser() != -1) sql.append(" AND idUser = ?");
-        if (h.getIdMaterial() != -1) sql.append(" AND idMaterial = ?");
-        if (h.getHold_date() != null) sql.append(" AND hold_date = ?");
+        // Pick the canonical query shape for the combination of fields set in the template
+        QueryShape shape = SELECT_SHAPES.shape(SELECT_SHAPES.mask(
+                h.getIdHold() != -1, h.getIdUser() != -1, h.getIdMaterial() != -1, h.getHold_date() != null));
 
         // Use try-with-resources to ensure database resources are closed
         try (Connection conn = DAOMySQLSettings.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+             PreparedStatement ps = shape.prepare(conn)) {
 
             // Dynamically bind parameters to the SQL placeholders (?) based on which clauses were added
             int index = 1;
@@ -130,15 +154,7 @@ public class HoldDAOMySQLImpl implements DAO<Hold> {
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    // Map database columns to a new Hold object
-                    Hold hold = new Hold(
-                            rs.getInt("idHold"),
-                            rs.getInt("idUser"),
-                            rs.getInt("idMaterial"),
-                            // Convert Timestamp from DB to modern Java LocalDateTime object
-                            rs.getTimestamp("hold_date") != null ? rs.getTimestamp("hold_date").toLocalDateTime() : null
-                    );
-                    list.add(hold);
+                    list.add(mapRow(rs)); // Map database columns to a new Hold object
                 }
             }
         } catch (SQLException e) {
@@ -160,6 +176,7 @@ public class HoldDAOMySQLImpl implements DAO<Hold> {
      * @return A list of ExpiringHoldInfo objects.
      * @throws DAOException if a database error occurs.
      */
+    @Override
     public List<ExpiringHoldInfo> getExpiringHoldsForUser(int userId) throws DAOException {
         List<ExpiringHoldInfo> expiringHolds = new ArrayList<>();
 
@@ -323,4 +340,138 @@ public class HoldDAOMySQLImpl implements DAO<Hold> {
             throw new DAOException("In verifyObject: all fields must be non-null or valid");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Inserts several holds as one JDBC batch in a single transaction.
+     * <p>
+     * The generated {@code idHold} keys are set on the objects in list order.
+     * </p>
+     *
+     * @param holds The holds to insert.
+     * @throws DAOException if validation fails or a database error occurs (nothing is inserted).
+     */
+    @Override
+    public void insertAll(List<Hold> holds) throws DAOException {
+        for (Hold h : holds) verifyObject(h);
+        String sql = "INSERT INTO holds (idUser, idMaterial, hold_date) VALUES (?, ?, ?)";
+
+        List<Integer> keys = JdbcBatch.<Hold>execute("insertAll", sql, holds, true, (ps, h) -> {
+            ps.setInt(1, h.getIdUser());
+            ps.setInt(2, h.getIdMaterial());
+            ps.setTimestamp(3, Timestamp.valueOf(h.getHold_date()));
+        }, logger);
+
+        // Update the original Hold objects with their new IDs
+        for (int i = 0; i < keys.size(); i++) holds.get(i).setIdHold(keys.get(i));
+    }
+
+    /**
+     * Updates several holds as one JDBC batch in a single transaction.
+     *
+     * @param holds The holds to update (each with a valid ID).
+     * @throws DAOException if validation fails or a database error occurs (nothing is updated).
+     */
+    @Override
+    public void updateAll(List<Hold> holds) throws DAOException {
+        for (Hold h : holds) verifyObject(h);
+        String sql = "UPDATE holds SET idUser=?, idMaterial=?, hold_date=? WHERE idHold=?";
+
+        JdbcBatch.<Hold>execute("updateAll", sql, holds, false, (ps, h) -> {
+            ps.setInt(1, h.getIdUser());
+            ps.setInt(2, h.getIdMaterial());
+            ps.setString(3, h.getHold_date().format(FORMATTER));
+            ps.setInt(4, h.getIdHold()); // Use ID for the WHERE clause
+        }, logger);
+    }
+
+    /**
+     * Deletes several holds as one JDBC batch in a single transaction.
+     *
+     * @param holds The holds to delete (each with a valid ID).
+     * @throws DAOException if an ID is missing or a database error occurs (nothing is deleted).
+     */
+    @Override
+    public void deleteAll(List<Hold> holds) throws DAOException {
+        for (Hold h : holds) {
+            if (h == null || h.getIdHold() == -1) {
+                throw new DAOException("In deleteAll: idHold cannot be null");
+            }
+        }
+        String sql = "DELETE FROM holds WHERE idHold=?";
+
+        JdbcBatch.<Hold>execute("deleteAll", sql, holds, false,
+                (ps, h) -> ps.setInt(1, h.getIdHold()), logger);
+    }
+
+    /**
+     * Retrieves several holds by ID with a few chunked {@code IN (...)} queries.
+     *
+     * @param ids The hold IDs to look up.
+     * @return The found holds keyed by ID, in request order.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<Integer, Hold> selectByIds(Collection<Integer> ids) throws DAOException {
+        return IdLookup.select("hold.selectByIds", "SELECT * FROM holds WHERE idHold IN ",
+                ids, this::mapRow, Hold::getIdHold, logger);
+    }
+
+    /**
+     * Maps the current row of a {@code holds} result set to a Hold object.
+     *
+     * @param rs The result set positioned on a row.
+     * @return The mapped hold.
+     * @throws SQLException if a column cannot be read.
+     */
+    private Hold mapRow(ResultSet rs) throws SQLException {
+        return new Hold(
+                rs.getInt("idHold"),
+                rs.getInt("idUser"),
+                rs.getInt("idMaterial"),
+                // Convert Timestamp from DB to modern Java LocalDateTime object
+                rs.getTimestamp("hold_date") != null ? rs.getTimestamp("hold_date").toLocalDateTime() : null
+        );
+    }
+
+    /**
+     * Removes all holds placed before {@code cutoff} and sets their materials back to 'available'.
+     * <p>
+     * Both steps are set-based statements executed in a single transaction on one connection, so the cost
+     * does not depend on how many holds are outstanding and either both changes are applied or neither is.
+     * </p>
+     *
+     * @param cutoff Holds with a {@code hold_date} strictly before this instant are expired.
+     * @return How many materials were released and how many holds were deleted.
+     * @throws DAOException if a database error occurs (nothing is changed).
+     */
+    @Override
+    public ExpiredHoldCleanup deleteExpiredHolds(LocalDateTime cutoff) throws DAOException {
+        Timestamp cutoffTs = Timestamp.valueOf(cutoff);
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement release = RELEASE_EXPIRED_MATERIALS.prepare(conn);
+                 PreparedStatement delete = DELETE_EXPIRED_HOLDS.prepare(conn)) {
+
+                // Release the materials first: the subquery needs the holds that are about to be deleted
+                release.setTimestamp(1, cutoffTs);
+                logger.info("SQL: " + release);
+                int materialsReleased = release.executeUpdate();
+
+                delete.setTimestamp(1, cutoffTs);
+                logger.info("SQL: " + delete);
+                int holdsDeleted = delete.executeUpdate();
+
+                conn.commit();
+                return new ExpiredHoldCleanup(materialsReleased, holdsDeleted);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("In deleteExpiredHolds(): " + e.getMessage());
+        }
+    }
+}
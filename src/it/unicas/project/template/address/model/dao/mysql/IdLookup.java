@@ -0,0 +1,168 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Shared implementation of the bulk {@code selectByIds} lookups of the MySQL DAOs, and of the other queries reading
+ * the rows of many IDs at once.
+ * <p>
+ * The requested IDs are split into chunks, and each chunk is fetched with a single
+ * {@code ... WHERE id IN (?, ?, ...)} query on one pooled connection. To keep the number of distinct SQL texts
+ * (and therefore of cached server-side statements, see {@link QueryShape}) small, every chunk is padded up to a
+ * fixed bucket size by repeating its last ID.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Only the MySQL DAO implementations use it.
+ */
+final class IdLookup {
+
+    /** Maximum number of IDs bound in one {@code IN (...)} list. */
+    static final int CHUNK_SIZE = 500;
+
+    // Allowed IN-list lengths; a chunk uses the smallest bucket that fits it
+    private static final int[] BUCKETS = {1, 4, 16, 64, 256, CHUNK_SIZE};
+
+    /**
+     * Maps the current row of a result set to a domain object.
+     *
+     * @param <T> The type of the domain model object.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Handles the current row of a result set.
+     */
+    @FunctionalInterface
+    interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Private constructor: static utility class.
+     */
+    private IdLookup() {}
+
+    /**
+     * Fetches the rows whose primary key is in {@code ids}.
+     *
+     * @param name The shape name prefix, e.g. "material.selectByIds".
+     * @param sqlPrefix The query up to and including the {@code IN} keyword,
+     *                  e.g. {@code "SELECT * FROM loans WHERE idLoan IN "}.
+     * @param ids The requested IDs; {@code null}, -1 and duplicate IDs are ignored.
+     * @param mapper Maps one row to a domain object.
+     * @param idOf Extracts the primary key from a mapped object.
+     * @param logger The calling DAO's logger.
+     * @param <T> The type of the domain model object.
+     * @return The found objects keyed by ID, in the order the IDs were requested. Missing IDs are absent.
+     * @throws DAOException if a database error occurs.
+     */
+    static <T> Map<Integer, T> select(String name, String sqlPrefix, Collection<Integer> ids,
+                                      RowMapper<T> mapper, ToIntFunction<T> idOf, Logger logger) throws DAOException {
+        Map<Integer, T> found = new HashMap<>();
+        List<Integer> idList = forEachRow(name, sqlPrefix, ids, rs -> {
+            T item = mapper.map(rs);
+            found.put(idOf.applyAsInt(item), item);
+        }, logger);
+
+        // Preserve the order in which the IDs were requested
+        Map<Integer, T> result = new LinkedHashMap<>();
+        for (Integer id : idList) {
+            T item = found.get(id);
+            if (item != null) result.put(id, item);
+        }
+        return result;
+    }
+
+    /**
+     * Runs a query on chunks of IDs and hands over every row it returns, e.g. the rows of a join table for some of
+     * its keys. Padding a chunk with its last ID returns no extra row, as {@code IN} ignores repeated values, and
+     * the chunks hold distinct IDs, so each row is handed over once.
+     *
+     * @param name The shape name prefix, e.g. "materialGenre.selectGenreIds"; its last part names the method in
+     *             error messages.
+     * @param sqlPrefix The query up to and including the {@code IN} keyword.
+     * @param ids The requested IDs; {@code null}, -1 and duplicate IDs are ignored.
+     * @param handler Handles one row.
+     * @param logger The calling DAO's logger.
+     * @return The distinct IDs queried, in the order they were requested.
+     * @throws DAOException if a database error occurs.
+     */
+    static List<Integer> forEachRow(String name, String sqlPrefix, Collection<Integer> ids,
+                                    RowHandler handler, Logger logger) throws DAOException {
+        LinkedHashSet<Integer> wanted = new LinkedHashSet<>();
+        if (ids != null) {
+            for (Integer id : ids) {
+                if (id != null && id != -1) wanted.add(id);
+            }
+        }
+        if (wanted.isEmpty()) return List.of();
+
+        List<Integer> idList = new ArrayList<>(wanted);
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            for (int from = 0; from < idList.size(); from += CHUNK_SIZE) {
+                List<Integer> chunk = idList.subList(from, Math.min(from + CHUNK_SIZE, idList.size()));
+                int bucket = bucketFor(chunk.size());
+
+                try (PreparedStatement ps = shape(name, sqlPrefix, bucket).prepare(conn)) {
+                    // Bind the chunk, padding the remaining placeholders with its last ID
+                    for (int i = 0; i < bucket; i++) {
+                        ps.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    logger.info("SQL: " + ps);
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            handler.handle(rs);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DAOException("In " + name.substring(name.lastIndexOf('.') + 1) + "(): " + e.getMessage());
+        }
+        return idList;
+    }
+
+    /**
+     * Returns the smallest bucket size that can hold {@code size} values, or beyond {@link #CHUNK_SIZE} the next
+     * multiple of it. Also used to pad the other dynamic lists of the MySQL DAOs (e.g. the filters of
+     * {@code MaterialDAOMySQLImpl.selectByCriteria}) to a few lengths.
+     *
+     * @param size The number of values.
+     * @return The padded length.
+     */
+    static int bucketFor(int size) {
+        for (int bucket : BUCKETS) {
+            if (size <= bucket) return bucket;
+        }
+        return (size + CHUNK_SIZE - 1) / CHUNK_SIZE * CHUNK_SIZE;
+    }
+
+    /**
+     * Returns the canonical query shape for an IN list of the given length.
+     */
+    private static QueryShape shape(String name, String sqlPrefix, int bucket) {
+        StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+        for (int i = 0; i < bucket; i++) placeholders.add("?");
+        return QueryShape.of(name + "[" + bucket + "]", sqlPrefix + placeholders);
+    }
+}
@@ -0,0 +1,103 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Shared implementation of the batch write operations ({@code insertAll}, {@code updateAll}, {@code deleteAll})
+ * of the MySQL DAOs.
+ * <p>
+ * All rows are bound to a single {@link PreparedStatement} and sent with {@code executeBatch()} on one pooled
+ * connection, inside one transaction: either every row is written or none is. With
+ * {@code rewriteBatchedStatements=true} (see {@link DAOMySQLSettings#PARAMETERS}) the driver folds a batch of
+ * INSERTs into multi-row {@code INSERT ... VALUES (...), (...)} statements, so a batch costs a few round trips
+ * instead of one per row.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Only the MySQL DAO implementations use it.
+ */
+final class JdbcBatch {
+
+    /**
+     * Maximum number of rows sent in one {@code executeBatch()} call, keeping each rewritten statement
+     * well below the server's {@code max_allowed_packet}.
+     */
+    static final int MAX_BATCH_SIZE = 500;
+
+    /**
+     * Binds the parameters of one row of the batch.
+     *
+     * @param <T> The type of the domain model object.
+     */
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    /**
+     * Private constructor: static utility class.
+     */
+    private JdbcBatch() {}
+
+    /**
+     * Executes {@code sql} once per item as a JDBC batch inside a single transaction.
+     *
+     * @param method The calling DAO method name, used in log and error messages (e.g. "insertAll").
+     * @param sql The parameterized statement executed for every item.
+     * @param items The items to write, in order.
+     * @param returnKeys Whether the auto-generated keys should be retrieved.
+     * @param binder Binds the parameters of one item.
+     * @param logger The calling DAO's logger.
+     * @param <T> The type of the domain model object.
+     * @return The generated keys in the same order as {@code items} when {@code returnKeys} is true,
+     *         otherwise an empty list.
+     * @throws DAOException if a database error occurs; the whole batch is rolled back.
+     */
+    static <T> List<Integer> execute(String method, String sql, List<? extends T> items, boolean returnKeys,
+                                     Binder<T> binder, Logger logger) throws DAOException {
+        List<Integer> keys = new ArrayList<>();
+        if (items == null || items.isEmpty()) return keys;
+
+        try (Connection conn = DAOMySQLSettings.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = returnKeys
+                    ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : conn.prepareStatement(sql)) {
+
+                for (int from = 0; from < items.size(); from += MAX_BATCH_SIZE) {
+                    int to = Math.min(from + MAX_BATCH_SIZE, items.size());
+                    for (T item : items.subList(from, to)) {
+                        binder.bind(ps, item);
+                        ps.addBatch();
+                    }
+                    logger.info("SQL (" + method + ", " + (to - from) + " rows): " + sql);
+                    ps.executeBatch();
+
+                    // Keys of a rewritten multi-row INSERT come back in row order
+                    if (returnKeys) {
+                        try (ResultSet rs = ps.getGeneratedKeys()) {
+                            while (rs.next()) keys.add(rs.getInt(1));
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("In " + method + "(): " + e.getMessage());
+        }
+        return keys;
+    }
+}
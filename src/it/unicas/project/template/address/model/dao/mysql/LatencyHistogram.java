@@ -0,0 +1,102 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, used by the DAO metrics.
+ * <p>
+ * Every power of two of nanoseconds is split into {@value #SUB_BUCKETS} equal buckets, so a percentile is
+ * reported with a relative error below 12.5% whatever the magnitude (microseconds for a cached lookup, seconds
+ * for a stalled query), in a fixed ~4 KB of counters. Recording is one atomic increment and needs no lock, so
+ * the histogram can be updated from every thread running a DAO call.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Internal to the DAO metrics of this package.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one measurement.
+     *
+     * @param nanos The measured duration, in nanoseconds (negative values count as 0).
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        sumNanos.addAndGet(value);
+        maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    /** @return The number of recorded measurements. */
+    long count() {
+        return total.get();
+    }
+
+    /** @return The mean of the recorded measurements, in milliseconds (0 if there are none). */
+    double meanMillis() {
+        long n = total.get();
+        return n == 0 ? 0 : sumNanos.get() / (double) n / 1_000_000.0;
+    }
+
+    /** @return The largest recorded measurement, in milliseconds. */
+    double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Returns the value below which the given fraction of the measurements fall.
+     *
+     * @param quantile The quantile, e.g. 0.99 for p99.
+     * @return The upper bound of the bucket holding the quantile, in milliseconds (0 if there are no
+     *         measurements), never more than the recorded maximum.
+     */
+    double percentileMillis(double quantile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos.get()) / 1_000_000.0;
+            }
+        }
+        return maxMillis(); // Only reachable while a concurrent record() is half done
+    }
+
+    /**
+     * Clears every measurement. Measurements recorded concurrently with the reset may be partly kept.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        sumNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
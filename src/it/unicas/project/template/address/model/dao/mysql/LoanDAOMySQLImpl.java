@@ -1,16 +1,20 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
 import it.unicas.project.template.address.model.Loan;
-import it.unicas.project.template.address.model.dao.DAO;
+import it.unicas.project.template.address.model.LoanRow;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.LoanDAO;
 
 import java.sql.*;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import it.unicas.project.template.address.model.OverdueLoan;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * MySQL implementation for the Loan data access object (DAO).
@@ -21,10 +25,10 @@ import java.time.LocalDate;
  *
  * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO.
  */
-public class LoanDAOMySQLImpl implements DAO<Loan> {
+public class LoanDAOMySQLImpl implements LoanDAO {
 
     // --- Singleton Fields ---
-    private static DAO<Loan> dao = null; // The single instance of this DAO (Singleton pattern)
+    private static LoanDAO dao = null; // The single instance of this DAO (Singleton pattern)
     private static Logger logger = null; // Logger for error reporting
     // Formatter used to convert LocalDateTime objects into the string format required by MySQL
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -55,6 +59,29 @@ public class LoanDAOMySQLImpl implements DAO<Loan> {
                     "AND l.due_date < NOW() " +    // Checks if the due date is before the current time
                     "AND l.return_date IS NULL";   // Ensures the loan is still active
 
+    /**
+     * Query of {@link #selectActiveLoanRows()}: active loans joined with their material and user, sorted by
+     * due date. Loans without a due date are listed last, as in the previous in-memory sort.
+     */
+    private static final QueryShape ACTIVE_LOAN_ROWS = QueryShape.of("loan.selectActiveLoanRows",
+            "SELECT l.idLoan, l.due_date, m.idMaterialType, m.title, m.author, m.ISBN, u.name, u.surname "
+                    + "FROM loans l "
+                    + "JOIN materials m ON m.idMaterial = l.idMaterial "
+                    + "JOIN users u ON u.idUser = l.idUser "
+                    + "WHERE l.return_date IS NULL "
+                    + "ORDER BY l.due_date IS NULL, DATE(l.due_date), l.idLoan");
+
+    /**
+     * Query shapes of {@link #select(Loan)}: one canonical SQL text per combination of template fields.
+     * 'WHERE 1=1' is a common pattern to easily chain AND clauses.
+     */
+    private static final QueryShapeSet SELECT_SHAPES = new QueryShapeSet(
+            "loan.select", "SELECT * FROM loans WHERE 1=1", "")
+            .filter("id", " AND idLoan=?")
+            .filter("user", " AND idUser=?")
+            .filter("material", " AND idMaterial=?")
+            .filter("start", " AND start_date LIKE ?");
+
     /**
      * Protected constructor to enforce the Singleton pattern.
      * <p>
@@ -73,9 +100,9 @@ public class LoanDAOMySQLImpl implements DAO<Loan> {
      *
      * Access Keyword Explanation: {@code public static} - Provides global, class-level access.
      *
-     * @return The single instance of the LoanDAOMySQLImpl, cast to the generic DAO interface.
+     * @return The single instance of the LoanDAOMySQLImpl, as its LoanDAO interface.
      */
-    public static DAO<Loan> getInstance() {
+    public static LoanDAO getInstance() {
         // Initialization happens only on the first call
         if (dao == null) {
             dao = new LoanDAOMySQLImpl();
@@ -100,16 +127,13 @@ public class LoanDAOMySQLImpl implements DAO<Loan> {
         List<Loan> list = new ArrayList<>();
         if (l == null) l = new Loan(null, null, null, null, null, null);
 
-        // Start of dynamic query. 'WHERE 1=1' is a common pattern to easily chain AND clauses.
-        String sql = "SELECT * FROM loans WHERE 1=1";
-        if (l.getIdLoan() != -1) sql += " AND idLoan=?";
-        if (l.getIdUser() != -1) sql += " AND idUser=?";
-        if (l.getIdMaterial() != -1) sql += " AND idMaterial=?";
-        if (l.getStart_date() != null) sql += " AND start_date LIKE ?";
+        // Pick the canonical query shape for the combination of fields set in the template
+        QueryShape shape = SELECT_SHAPES.shape(SELECT_SHAPES.mask(
+                l.getIdLoan() != -1, l.getIdUser() != -1, l.getIdMaterial() != -1, l.getStart_date() != null));
 
         // Use try-with-resources to ensure database resources are closed
         try (Connection conn = DAOMySQLSettings.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = shape.prepare(conn)) {
 
             int index = 1;
             // Dynamically bind parameters to the SQL placeholders (?)
@@ -123,20 +147,7 @@ public class LoanDAOMySQLImpl implements DAO<Loan> {
             // Execute query and process results
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    // Handle potential NULL values from the database for foreign keys gracefully
-                    Integer idUser = (Integer) rs.getObject("idUser");
-                    Integer idMaterial = (Integer) rs.getObject("idMaterial");
-
-                    // Map database columns to a new Loan object
-                    Loan loan = new Loan(
-                            rs.getInt("idLoan"),
-                            idUser != null ? idUser : -1,
-                            idMaterial != null ? idMaterial : -1,
-                            rs.getTimestamp("start_date") != null ? rs.getTimestamp("start_date").toLocalDateTime() : null,
-                            rs.getTimestamp("due_date") != null ? rs.getTimestamp("due_date").toLocalDateTime() : null,
-                            rs.getTimestamp("return_date") != null ? rs.getTimestamp("return_date").toLocalDateTime() : null
-                    );
-                    list.add(loan);
+                    list.add(mapRow(rs)); // Map database columns to a new Loan object
                 }
             }
         } catch (SQLException e) {
@@ -295,6 +306,7 @@ public class LoanDAOMySQLImpl implements DAO<Loan> {
      * @return The count of active loans.
      * @throws DAOException if a database error occurs.
      */
+    @Override
     public int countActiveLoansByUserId(int userId) throws DAOException {
         String sql = "SELECT COUNT(*) FROM loans WHERE idUser = ? AND return_date IS NULL";
         int count = 0;
@@ -328,6 +340,7 @@ public class LoanDAOMySQLImpl implements DAO<Loan> {
      * @return A List of OverdueLoan objects, or an empty list if none are found.
      * @throws DAOException if a database error occurs.
      */
+    @Override
     public List<OverdueLoan> getOverdueLoansForUser(int userId) throws DAOException {
         List<OverdueLoan> overdueItems = new ArrayList<>();
 
@@ -368,6 +381,7 @@ public class LoanDAOMySQLImpl implements DAO<Loan> {
      * @param idUser The ID of the user whose loans to delete.
      * @throws DAOException if a database error occurs.
      */
+    @Override
     public void deleteAllLoansByUserId(Integer idUser) throws DAOException {
         String sql = "DELETE FROM loans WHERE idUser=?";
         logger.info("Executing DELETE SQL: " + sql + " for idUser: " + idUser);
@@ -384,5 +398,167 @@ public class LoanDAOMySQLImpl implements DAO<Loan> {
             throw new DAOException("Error deleting all loans by user ID: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * Inserts several loans as one JDBC batch in a single transaction.
+     * <p>
+     * The generated {@code idLoan} keys are set on the objects in list order.
+     * </p>
+     *
+     * @param loans The loans to insert.
+     * @throws DAOException if validation fails or a database error occurs (nothing is inserted).
+     */
+    @Override
+    public void insertAll(List<Loan> loans) throws DAOException {
+        for (Loan l : loans) verifyObject(l);
+        String sql = "INSERT INTO loans (idUser, idMaterial, start_date, due_date, return_date) VALUES (?, ?, ?, ?, ?)";
+
+        List<Integer> keys = JdbcBatch.<Loan>execute("insertAll", sql, loans, true, this::bindLoan, logger);
+
+        // Update the original Loan objects with their new IDs
+        for (int i = 0; i < keys.size(); i++) loans.get(i).setIdLoan(keys.get(i));
+    }
+
+    /**
+     * Updates several loans (e.g., returning many at once) as one JDBC batch in a single transaction.
+     *
+     * @param loans The loans to update (each with a valid ID).
+     * @throws DAOException if validation fails or a database error occurs (nothing is updated).
+     */
+    @Override
+    public void updateAll(List<Loan> loans) throws DAOException {
+        for (Loan l : loans) verifyObject(l);
+        String sql = "UPDATE loans SET idUser=?, idMaterial=?, start_date=?, due_date=?, return_date=? WHERE idLoan=?";
+
+        JdbcBatch.<Loan>execute("updateAll", sql, loans, false, (ps, l) -> {
+            bindLoan(ps, l);
+            ps.setInt(6, l.getIdLoan()); // Use ID for the WHERE clause
+        }, logger);
+    }
+
+    /**
+     * Deletes several loans as one JDBC batch in a single transaction.
+     *
+     * @param loans The loans to delete (each with a valid ID).
+     * @throws DAOException if an ID is missing or a database error occurs (nothing is deleted).
+     */
+    @Override
+    public void deleteAll(List<Loan> loans) throws DAOException {
+        for (Loan l : loans) {
+            if (l == null || l.getIdLoan() == -1) {
+                throw new DAOException("In deleteAll: idLoan cannot be null");
+            }
+        }
+        String sql = "DELETE FROM loans WHERE idLoan=?";
+
+        JdbcBatch.<Loan>execute("deleteAll", sql, loans, false,
+                (ps, l) -> ps.setInt(1, l.getIdLoan()), logger);
+    }
+
+    /**
+     * Binds the five data columns of a loan (idUser, idMaterial, start_date, due_date, return_date)
+     * to parameters 1-5 of a batch INSERT or UPDATE.
+     *
+     * @param ps The statement being batched.
+     * @param l The loan providing the values.
+     * @throws SQLException if a parameter cannot be bound.
+     */
+    private void bindLoan(PreparedStatement ps, Loan l) throws SQLException {
+        ps.setInt(1, l.getIdUser());
+        ps.setInt(2, l.getIdMaterial());
+        ps.setTimestamp(3, Timestamp.valueOf(l.getStart_date()));
+        ps.setTimestamp(4, Timestamp.valueOf(l.getDue_date()));
+        // Conditional handling for the optional return_date field
+        if (l.getReturn_date() != null) {
+            ps.setTimestamp(5, Timestamp.valueOf(l.getReturn_date()));
+        } else {
+            ps.setNull(5, Types.TIMESTAMP);
+        }
+    }
+
+    /**
+     * Retrieves several loans by ID with a few chunked {@code IN (...)} queries.
+     *
+     * @param ids The loan IDs to look up.
+     * @return The found loans keyed by ID, in request order.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<Integer, Loan> selectByIds(Collection<Integer> ids) throws DAOException {
+        return IdLookup.select("loan.selectByIds", "SELECT * FROM loans WHERE idLoan IN ",
+                ids, this::mapRow, Loan::getIdLoan, logger);
+    }
+
+    /**
+     * Maps the current row of a {@code loans} result set to a Loan object.
+     *
+     * @param rs The result set positioned on a row.
+     * @return The mapped loan.
+     * @throws SQLException if a column cannot be read.
+     */
+    private Loan mapRow(ResultSet rs) throws SQLException {
+        // Handle potential NULL values from the database for foreign keys gracefully
+        Integer idUser = (Integer) rs.getObject("idUser");
+        Integer idMaterial = (Integer) rs.getObject("idMaterial");
+
+        return new Loan(
+                rs.getInt("idLoan"),
+                idUser != null ? idUser : -1,
+                idMaterial != null ? idMaterial : -1,
+                rs.getTimestamp("start_date") != null ? rs.getTimestamp("start_date").toLocalDateTime() : null,
+                rs.getTimestamp("due_date") != null ? rs.getTimestamp("due_date").toLocalDateTime() : null,
+                rs.getTimestamp("return_date") != null ? rs.getTimestamp("return_date").toLocalDateTime() : null
+        );
+    }
+
+    /**
+     * Retrieves every active (not yet returned) loan joined with its material and user, ready for display
+     * at the return desk.
+     * <p>
+     * Filtering ({@code return_date IS NULL}), the joins and the ordering by due date are all done by the
+     * database, so the whole table is loaded in one round trip regardless of how many loans have ever been
+     * recorded. Loans whose material or user no longer exists are skipped, as before.
+     * </p>
+     *
+     * @return The active loans as {@code LoanRow}s, sorted by due date (oldest first).
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public List<LoanRow> selectActiveLoanRows() throws DAOException {
+        List<LoanRow> rows = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = ACTIVE_LOAN_ROWS.prepare(conn)) {
+
+            logger.info("SQL: " + ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String materialType = switch (rs.getInt("idMaterialType")) {
+                        case 1 -> "Book";
+                        case 2 -> "CD";
+                        case 3 -> "Movie";
+                        case 4 -> "Magazine";
+                        default -> LoanRow.UNKNOWN_TYPE;
+                    };
+                    String title = rs.getString("title") != null ? rs.getString("title") : LoanRow.MISSING;
+                    String author = rs.getString("author") != null ? rs.getString("author") : LoanRow.MISSING;
+                    String isbn = rs.getString("ISBN") != null ? rs.getString("ISBN") : LoanRow.MISSING;
+                    String userName = (rs.getString("name") != null ? rs.getString("name") : "") + " "
+                            + (rs.getString("surname") != null ? rs.getString("surname") : "");
+
+                    Timestamp dueTs = rs.getTimestamp("due_date");
+                    LocalDateTime due = dueTs != null ? dueTs.toLocalDateTime() : null;
+                    String dueDate = due != null ? due.toLocalDate().toString() : LoanRow.MISSING;
+                    boolean delayed = due != null && due.isBefore(now);
+
+                    rows.add(new LoanRow(rs.getInt("idLoan"), materialType, title, author, isbn, userName,
+                            dueDate, delayed ? "Yes" : "No"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DAOException("In selectActiveLoanRows(): " + e.getMessage());
+        }
+        return rows;
+    }
+}
@@ -1,29 +1,40 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
 import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.MaterialCriteria;
 import it.unicas.project.template.address.model.MaterialInventory;
-import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.MaterialDAO;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * MySQL implementation for the Material data access object (DAO).
  * <p>
  * This class handles CRUD operations for individual {@code Material} records, as well as complex
  * queries needed to aggregate materials into a simplified inventory view (MaterialInventory).
- * It implements the generic {@code DAO<Material>} interface.
+ * It implements the {@code MaterialDAO} interface.
  * </p>
  *
  * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO.
  */
-public class MaterialDAOMySQLImpl implements DAO<Material> {
+public class MaterialDAOMySQLImpl implements MaterialDAO {
 
     // --- Singleton Fields ---
-    private static DAO<Material> dao = null; // The single instance of this DAO (Singleton pattern)
+    private static MaterialDAO dao = null; // The single instance of this DAO (Singleton pattern)
     private static Logger logger = null; // Logger for error reporting
 
     /**
@@ -44,9 +55,9 @@ public class MaterialDAOMySQLImpl implements DAO<Material> {
      *
      * Access Keyword Explanation: {@code public static} - Provides global, class-level access.
      *
-     * @return The single instance of the MaterialDAOMySQLImpl, cast to the generic DAO interface.
+     * @return The single instance of the MaterialDAOMySQLImpl, as its MaterialDAO interface.
      */
-    public static DAO<Material> getInstance() {
+    public static MaterialDAO getInstance() {
         if (dao == null) {
             // Initialization happens only on the first call
             dao = new MaterialDAOMySQLImpl();
@@ -143,6 +154,7 @@ public class MaterialDAOMySQLImpl implements DAO<Material> {
      * @return A list of {@code MaterialInventory} objects representing the entire catalog.
      * @throws DAOException if a database error occurs.
      */
+    @Override
     public List<MaterialInventory> selectAllInventory() throws DAOException {
         String sql = INVENTORY_SELECT_BASE_SQL + INVENTORY_GROUP_BY_SQL;
         List<MaterialInventory> list = new ArrayList<>();
@@ -162,6 +174,33 @@ public class MaterialDAOMySQLImpl implements DAO<Material> {
         return list;
     }
 
+    /**
+     * Rows fetched per round trip by {@link #selectStream(Material)}: with a server-side cursor, only that many rows
+     * of a large result are held in memory at once.
+     */
+    public static final int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Query shapes of {@link #select(Material)}: one canonical SQL text per combination of criteria fields.
+     * <p>
+     * A LEFT JOIN with {@code material_type} retrieves the type name; the filters are declared in the
+     * same order as the flags passed to {@code mask(...)} in {@code select}.
+     * </p>
+     */
+    private static final QueryShapeSet SELECT_SHAPES = new QueryShapeSet(
+            "material.select",
+            "SELECT m.*, mt.material_type " +
+                    "FROM materials m " +
+                    "LEFT JOIN material_type mt ON m.idMaterialType = mt.idMaterialType " +
+                    "WHERE 1=1",
+            " ORDER BY m.title, m.idMaterial")
+            .filter("id", " AND m.idMaterial=?")
+            .filter("title", " AND m.title LIKE ?")
+            .filter("author", " AND m.author LIKE ?")
+            .filter("isbn", " AND m.ISBN LIKE ?")
+            .filter("type", " AND m.idMaterialType=?")
+            .filter("status", " AND m.material_status=?");
+
     /**
      * Selects individual {@code Material} records based on criteria specified in the input object (m).
      * <p>
@@ -176,68 +215,128 @@ public class MaterialDAOMySQLImpl implements DAO<Material> {
     @Override
     public List<Material> select(Material m) throws DAOException {
         List<Material> list = new ArrayList<>();
-        if (m == null) m = new Material("", "", null, "", null, "");
-
-        String sql = "SELECT m.*, mt.material_type " +
-                "FROM materials m " +
-                "LEFT JOIN material_type mt ON m.idMaterialType = mt.idMaterialType " +
-                "WHERE 1=1";
-
-        // Dynamically append AND clauses based on non-default fields in the criteria object (m)
-        if (m.getIdMaterial() != -1)
-            sql += " AND m.idMaterial=?";
-        if (m.getTitle() != null && !m.getTitle().isEmpty())
-            sql += " AND m.title LIKE ?";
-        if (m.getAuthor() != null && !m.getAuthor().isEmpty())
-            sql += " AND m.author LIKE ?";
-        if (m.getISBN() != null && !m.getISBN().isEmpty())
-            sql += " AND m.ISBN LIKE ?";
-        if (m.getIdMaterialType() != null && m.getIdMaterialType() != 0)
-            sql += " AND m.idMaterialType=?";
-        if (m.getMaterial_status() != null && !m.getMaterial_status().isEmpty())
-            sql += " AND m.material_status=?";
-
-        sql += " ORDER BY m.title";
 
         try (Connection conn = DAOMySQLSettings.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = prepareSelect(conn, m)) {
+
+            logger.info("SQL: " + ps);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs)); // Map results to individual Material objects
+                }
+            }
+        } catch (SQLException e) {
+            throw new DAOException("In select(): " + e.getMessage());
+        }
+        return list;
+    }
 
+    /**
+     * Streams individual {@code Material} records matching the criteria, reading them from a forward-only
+     * server-side cursor instead of loading the whole result into a list.
+     * <p>
+     * Rows are fetched {@link #STREAM_FETCH_SIZE} at a time (Connector/J {@code useCursorFetch}, see
+     * {@link DAOMySQLSettings#PARAMETERS}), so grouping, exporting or indexing a very large catalog runs in
+     * constant memory. The stream holds a pooled connection until it is closed: always consume it in a
+     * try-with-resources block. A database error while iterating is thrown as an {@link IllegalStateException}
+     * whose cause is the {@code SQLException}.
+     * </p>
+     *
+     * @param m A Material object used as a search template (same criteria as {@link #select(Material)}).
+     * @return A lazily populated stream of matching materials, ordered by title.
+     * @throws DAOException if the query cannot be started.
+     */
+    @Override
+    public Stream<Material> selectStream(Material m) throws DAOException {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = DAOMySQLSettings.getConnection();
+            ps = prepareSelect(conn, m);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            logger.info("SQL (stream): " + ps);
+            ResultSet rs = ps.executeQuery();
+
+            Spliterator<Material> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Material> action) {
+                    try {
+                        if (!rs.next()) return false;
+                        action.accept(mapRow(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("In selectStream(): " + e.getMessage(), e);
+                    }
+                }
+            };
+
+            Connection openConn = conn;
+            PreparedStatement openPs = ps;
+            return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(rs, openPs, openConn));
+        } catch (SQLException e) {
+            closeQuietly(null, ps, conn);
+            throw new DAOException("In selectStream(): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prepares and binds the {@link #select(Material)} query for the given criteria.
+     *
+     * @param conn The connection to prepare the statement on.
+     * @param m A Material object used as a search template ({@code null} selects every material).
+     * @return The prepared statement, with all parameters bound.
+     * @throws SQLException if the statement cannot be prepared or bound.
+     */
+    private PreparedStatement prepareSelect(Connection conn, Material m) throws SQLException {
+        if (m == null) m = new Material("", "", null, "", null, "");
+
+        // Pick the canonical query shape for the combination of fields set in the criteria object (m)
+        boolean hasTitle = m.getTitle() != null && !m.getTitle().isEmpty();
+        boolean hasAuthor = m.getAuthor() != null && !m.getAuthor().isEmpty();
+        boolean hasISBN = m.getISBN() != null && !m.getISBN().isEmpty();
+        boolean hasType = m.getIdMaterialType() != null && m.getIdMaterialType() != 0;
+        boolean hasStatus = m.getMaterial_status() != null && !m.getMaterial_status().isEmpty();
+        QueryShape shape = SELECT_SHAPES.shape(SELECT_SHAPES.mask(
+                m.getIdMaterial() != -1, hasTitle, hasAuthor, hasISBN, hasType, hasStatus));
+
+        PreparedStatement ps = shape.prepare(conn);
+        try {
             // Bind parameters dynamically
             int index = 1;
             if (m.getIdMaterial() != -1)
                 ps.setInt(index++, m.getIdMaterial());
-            if (m.getTitle() != null && !m.getTitle().isEmpty())
+            if (hasTitle)
                 ps.setString(index++, "%" + m.getTitle() + "%");
-            if (m.getAuthor() != null && !m.getAuthor().isEmpty())
+            if (hasAuthor)
                 ps.setString(index++, "%" + m.getAuthor() + "%");
-            if (m.getISBN() != null && !m.getISBN().isEmpty())
+            if (hasISBN)
                 ps.setString(index++, "%" + m.getISBN() + "%");
-            if (m.getIdMaterialType() != null && m.getIdMaterialType() != 0)
+            if (hasType)
                 ps.setInt(index++, m.getIdMaterialType());
-            if (m.getMaterial_status() != null && !m.getMaterial_status().isEmpty())
+            if (hasStatus)
                 ps.setString(index++, m.getMaterial_status());
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+        return ps;
+    }
 
-            logger.info("SQL: " + ps);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    // Map results to individual Material objects
-                    Material mat = new Material(
-                            rs.getInt("idMaterial"),
-                            rs.getString("title"),
-                            rs.getString("author"),
-                            rs.getInt("year"),
-                            rs.getString("ISBN"),
-                            rs.getInt("idMaterialType"),
-                            rs.getString("material_status")
-                    );
-                    list.add(mat);
-                }
+    /**
+     * Closes the resources held by a material stream, ignoring errors (the rows have already been consumed).
+     */
+    private void closeQuietly(ResultSet rs, PreparedStatement ps, Connection conn) {
+        for (AutoCloseable resource : new AutoCloseable[]{rs, ps, conn}) {
+            if (resource == null) continue;
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.warning("In selectStream(): could not close " + resource.getClass().getSimpleName()
+                        + ": " + e.getMessage());
             }
-        } catch (SQLException e) {
-            throw new DAOException("In select(): " + e.getMessage());
         }
-        return list;
     }
 
     /**
@@ -249,6 +348,7 @@ public class MaterialDAOMySQLImpl implements DAO<Material> {
      * @return A list of all individual {@code Material} objects.
      * @throws DAOException if a database error occurs.
      */
+    @Override
     public List<Material> selectAll() throws DAOException {
         return select(null);
     }
@@ -305,6 +405,7 @@ public class MaterialDAOMySQLImpl implements DAO<Material> {
      * @param originalGroup The MaterialInventory object representing the material group before the update, used for the WHERE clause.
      * @throws DAOException if the ISBN is missing for a book group update or a database error occurs.
      */
+    @Override
     public void updateMaterialGroup(Material updatedMaterial, MaterialInventory originalGroup) throws DAOException {
         // Keys used to identify the group in the database before the update
         String originalGroupingKeyTitle = originalGroup.getTitle();
@@ -439,4 +540,437 @@ public class MaterialDAOMySQLImpl implements DAO<Material> {
             throw new DAOException("In verifyObject: all fields must be non-null");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Inserts several materials (e.g., many copies of a title) as one JDBC batch in a single transaction.
+     * <p>
+     * The generated {@code idMaterial} keys are set on the objects in list order.
+     * </p>
+     *
+     * @param materials The materials to insert.
+     * @throws DAOException if validation fails or a database error occurs (nothing is inserted).
+     */
+    @Override
+    public void insertAll(List<Material> materials) throws DAOException {
+        for (Material m : materials) verifyObject(m);
+        String sql = "INSERT INTO materials (title, author, year, ISBN, idMaterialType, material_status) VALUES (?, ?, ?, ?, ?, ?)";
+
+        List<Integer> keys = JdbcBatch.<Material>execute("insertAll", sql, materials, true, (ps, m) -> {
+            ps.setString(1, m.getTitle());
+            ps.setString(2, m.getAuthor());
+            ps.setInt(3, m.getYear());
+            ps.setString(4, m.getISBN());
+            ps.setInt(5, m.getIdMaterialType());
+            ps.setString(6, m.getMaterial_status());
+        }, logger);
+
+        // Update the original Material objects with their new IDs
+        for (int i = 0; i < keys.size(); i++) materials.get(i).setIdMaterial(keys.get(i));
+    }
+
+    /**
+     * Updates several materials as one JDBC batch in a single transaction.
+     *
+     * @param materials The materials to update (each with a valid ID).
+     * @throws DAOException if validation fails or a database error occurs (nothing is updated).
+     */
+    @Override
+    public void updateAll(List<Material> materials) throws DAOException {
+        for (Material m : materials) verifyObject(m);
+        String sql = "UPDATE materials SET title=?, author=?, year=?, ISBN=?, idMaterialType=?, material_status=? WHERE idMaterial=?";
+
+        JdbcBatch.<Material>execute("updateAll", sql, materials, false, (ps, m) -> {
+            ps.setString(1, m.getTitle());
+            ps.setString(2, m.getAuthor());
+            ps.setInt(3, m.getYear());
+            ps.setString(4, m.getISBN());
+            ps.setInt(5, m.getIdMaterialType());
+            ps.setString(6, m.getMaterial_status());
+            ps.setInt(7, m.getIdMaterial()); // ID for the WHERE clause
+        }, logger);
+    }
+
+    /**
+     * Deletes several materials as one JDBC batch in a single transaction.
+     *
+     * @param materials The materials to delete (each with a valid ID).
+     * @throws DAOException if an ID is missing or a database error occurs (nothing is deleted).
+     */
+    @Override
+    public void deleteAll(List<Material> materials) throws DAOException {
+        for (Material m : materials) {
+            if (m == null || m.getIdMaterial() == -1) {
+                throw new DAOException("In deleteAll: idMaterial cannot be null");
+            }
+        }
+        String sql = "DELETE FROM materials WHERE idMaterial=?";
+
+        JdbcBatch.<Material>execute("deleteAll", sql, materials, false,
+                (ps, m) -> ps.setInt(1, m.getIdMaterial()), logger);
+    }
+
+    /**
+     * Retrieves several materials by ID with a few chunked {@code IN (...)} queries.
+     *
+     * @param ids The material IDs to look up.
+     * @return The found materials keyed by ID, in request order.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<Integer, Material> selectByIds(Collection<Integer> ids) throws DAOException {
+        return IdLookup.select("material.selectByIds",
+                "SELECT m.*, mt.material_type FROM materials m "
+                        + "LEFT JOIN material_type mt ON m.idMaterialType = mt.idMaterialType WHERE m.idMaterial IN ",
+                ids, this::mapRow, Material::getIdMaterial, logger);
+    }
+
+    /**
+     * Maps the current row of a {@code materials} result set to a Material object.
+     *
+     * @param rs The result set positioned on a row.
+     * @return The mapped material.
+     * @throws SQLException if a column cannot be read.
+     */
+    private Material mapRow(ResultSet rs) throws SQLException {
+        return new Material(
+                rs.getInt("idMaterial"),
+                rs.getString("title"),
+                rs.getString("author"),
+                rs.getInt("year"),
+                rs.getString("ISBN"),
+                rs.getInt("idMaterialType"),
+                rs.getString("material_status")
+        );
+    }
+
+    /**
+     * Selects the materials matching a {@link MaterialCriteria}, translated into a parameterized WHERE clause.
+     * <p>
+     * Type and status sets become {@code IN} lists, the year range a {@code BETWEEN} (or a single bound), the
+     * genre set an {@code EXISTS} subquery on {@code materials_genres}, and the page {@code LIMIT/OFFSET}.
+     * Rows are ordered by title (then ID), as in {@link #select(Material)}. The lists are padded so that the
+     * query has one of a few shapes (see {@link #appendCriteria}).
+     * </p>
+     *
+     * @param c The selection criteria.
+     * @return The matching materials (only the requested page, if any).
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public List<Material> selectByCriteria(MaterialCriteria c) throws DAOException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT m.*, mt.material_type FROM materials m "
+                + "LEFT JOIN material_type mt ON m.idMaterialType = mt.idMaterialType WHERE 1=1");
+        String shape = appendCriteria(sql, params, c);
+        sql.append(" ORDER BY m.title, m.idMaterial");
+        if (c.isPaged()) {
+            sql.append(" LIMIT ? OFFSET ?");
+            params.add(c.getLimit() >= 0 ? c.getLimit() : Integer.MAX_VALUE);
+            params.add(c.getOffset());
+            shape += "[page]";
+        }
+
+        List<Material> list = new ArrayList<>();
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = QueryShape.of("material.selectByCriteria" + shape, sql.toString()).prepare(conn)) {
+
+            bindAll(ps, params);
+            logger.info("SQL: " + ps);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DAOException("In selectByCriteria(): " + e.getMessage());
+        }
+        return list;
+    }
+
+    /**
+     * Counts the materials matching a {@link MaterialCriteria}, ignoring its page.
+     *
+     * @param c The selection criteria.
+     * @return The total number of matching materials.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public int countByCriteria(MaterialCriteria c) throws DAOException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM materials m "
+                + "LEFT JOIN material_type mt ON m.idMaterialType = mt.idMaterialType WHERE 1=1");
+        String shape = appendCriteria(sql, params, c);
+
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = QueryShape.of("material.countByCriteria" + shape, sql.toString()).prepare(conn)) {
+
+            bindAll(ps, params);
+            logger.info("SQL: " + ps);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DAOException("In countByCriteria(): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Counts the materials matching a {@link MaterialCriteria} by type, grouping on the LEFT JOIN with
+     * {@code material_type} so that unknown types fall under the {@code null} key.
+     *
+     * @param c The selection criteria (its page is ignored).
+     * @return The number of matching materials by type ID.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<Integer, Integer> countByType(MaterialCriteria c) throws DAOException {
+        return countGrouped("countByType", "mt.idMaterialType", "", "mt.idMaterialType", c, Integer.class);
+    }
+
+    /**
+     * Counts the materials matching a {@link MaterialCriteria} by status, grouped as binary strings to keep the
+     * case-sensitive semantics of the catalog filters; empty statuses fall under the {@code null} key.
+     *
+     * @param c The selection criteria (its page is ignored).
+     * @return The number of matching materials by status.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<String, Integer> countByStatus(MaterialCriteria c) throws DAOException {
+        return countGrouped("countByStatus", "MIN(NULLIF(m.material_status, ''))", "",
+                "CAST(NULLIF(m.material_status, '') AS BINARY)", c, String.class);
+    }
+
+    /**
+     * Counts the materials matching a {@link MaterialCriteria} by genre, through a LEFT JOIN with
+     * {@code materials_genres}: materials without a genre fall under the {@code null} key.
+     *
+     * @param c The selection criteria (its page is ignored).
+     * @return The number of matching materials by genre ID.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<Integer, Integer> countByGenre(MaterialCriteria c) throws DAOException {
+        return countGrouped("countByGenre", "g.idGenre",
+                " LEFT JOIN materials_genres g ON g.idMaterial = m.idMaterial", "g.idGenre", c, Integer.class);
+    }
+
+    /**
+     * Selects every copy of some titles with a few chunked queries joining each first copy to the copies that share
+     * its title key (see {@link #titleKey(String)}).
+     *
+     * @param firstCopyIds The IDs of the first copies of the titles.
+     * @return The copies of each title, ordered by ID, keyed by the ID of its first copy.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<Integer, List<Material>> selectCopies(Collection<Integer> firstCopyIds) throws DAOException {
+        String[] first = titleKey("f");
+        String[] copy = titleKey("m");
+        StringBuilder join = new StringBuilder();
+        for (int i = 0; i < first.length; i++) {
+            join.append(i == 0 ? " ON " : " AND ").append(copy[i]).append(" <=> ").append(first[i]);
+        }
+
+        Map<Integer, List<Material>> copies = new HashMap<>();
+        IdLookup.forEachRow("material.selectCopies",
+                "SELECT f.idMaterial AS idFirst, m.*, mt.material_type FROM materials f JOIN materials m" + join
+                        + " LEFT JOIN material_type mt ON m.idMaterialType = mt.idMaterialType"
+                        + " WHERE f.idMaterial IN ", firstCopyIds,
+                rs -> copies.computeIfAbsent(rs.getInt("idFirst"), id -> new ArrayList<>()).add(mapRow(rs)),
+                logger);
+        copies.values().forEach(list -> list.sort(Comparator.comparing(Material::getIdMaterial)));
+        return copies;
+    }
+
+    /**
+     * Returns the expressions grouping the copies of a title, for a {@code materials} alias: its title, author,
+     * year and ISBN, compared case-sensitively, with a blank ISBN and a missing year counting as none (as
+     * {@code mapRow} reads a missing year as 0).
+     */
+    private static String[] titleKey(String alias) {
+        return new String[]{
+                "CAST(" + alias + ".title AS BINARY)",
+                "CAST(" + alias + ".author AS BINARY)",
+                "IFNULL(" + alias + ".year, 0)",
+                "CAST(IF(TRIM(IFNULL(" + alias + ".ISBN, '')) = '', '', " + alias + ".ISBN) AS BINARY)"
+        };
+    }
+
+    /**
+     * Runs a {@code GROUP BY} count of the materials matching the criteria.
+     *
+     * @param method The calling method, for error messages.
+     * @param key The grouping value selected.
+     * @param join An extra join, or an empty string.
+     * @param groupBy The grouping expression.
+     * @param c The selection criteria.
+     * @param keyType The Java type of the grouping value.
+     * @return The number of distinct materials by grouping value.
+     */
+    private <K> Map<K, Integer> countGrouped(String method, String key, String join, String groupBy,
+                                             MaterialCriteria c, Class<K> keyType) throws DAOException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT " + key + ", COUNT(DISTINCT m.idMaterial) FROM materials m "
+                + "LEFT JOIN material_type mt ON m.idMaterialType = mt.idMaterialType" + join + " WHERE 1=1");
+        String shape = appendCriteria(sql, params, c);
+        sql.append(" GROUP BY ").append(groupBy);
+
+        Map<K, Integer> counts = new HashMap<>();
+        try (Connection conn = DAOMySQLSettings.getConnection();
+             PreparedStatement ps = QueryShape.of("material." + method + shape, sql.toString()).prepare(conn)) {
+
+            bindAll(ps, params);
+            logger.info("SQL: " + ps);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    counts.merge(rs.getObject(1, keyType), rs.getInt(2), Integer::sum);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DAOException("In " + method + "(): " + e.getMessage());
+        }
+        return counts;
+    }
+
+    /**
+     * Appends the AND clauses for the filters set in the criteria, collecting their parameters in order.
+     * <p>
+     * Like the chunks of {@link IdLookup}, the {@code IN} lists and the search words are padded up to a bucket
+     * size by repeating their last value, which changes neither the rows matched nor their count. So the clauses
+     * only take a few distinct SQL texts, named by the returned shape key, and the prepared statements are reused.
+     * </p>
+     *
+     * @param sql The query being built (ending with a WHERE clause).
+     * @param params The parameter values, in placeholder order.
+     * @param c The selection criteria.
+     * @return The shape key naming the clauses appended, e.g. {@code [type4+null][year<>][words1]}.
+     */
+    private String appendCriteria(StringBuilder sql, List<Object> params, MaterialCriteria c) {
+        StringBuilder shape = new StringBuilder();
+
+        // Type: a LEFT JOIN miss on material_type means "no known type"
+        if (c.getTypeIds() != null) {
+            List<String> alternatives = new ArrayList<>();
+            int n = addPadded(params, c.getTypeIds());
+            if (n > 0) alternatives.add("m.idMaterialType IN " + placeholders(n));
+            if (c.isIncludeWithoutType()) alternatives.add("mt.idMaterialType IS NULL");
+            sql.append(" AND ").append(anyOf(alternatives));
+            shape.append("[type").append(n).append(c.isIncludeWithoutType() ? "+null]" : "]");
+        }
+
+        // Status: compared as binary strings to keep the case-sensitive semantics of the catalog filters
+        if (c.getStatuses() != null) {
+            List<String> alternatives = new ArrayList<>();
+            int n = addPadded(params, c.getStatuses());
+            if (n > 0) alternatives.add("CAST(m.material_status AS BINARY) IN " + placeholders(n));
+            if (c.isIncludeWithoutStatus()) alternatives.add("m.material_status IS NULL OR m.material_status = ''");
+            sql.append(" AND ").append(anyOf(alternatives));
+            shape.append("[status").append(n).append(c.isIncludeWithoutStatus() ? "+null]" : "]");
+        }
+
+        // Genre: at least one of the selected genres, or no genre at all
+        if (c.getGenreIds() != null) {
+            List<String> alternatives = new ArrayList<>();
+            int n = addPadded(params, c.getGenreIds());
+            if (n > 0) {
+                alternatives.add("EXISTS (SELECT 1 FROM materials_genres mg WHERE mg.idMaterial = m.idMaterial "
+                        + "AND mg.idGenre IN " + placeholders(n) + ")");
+            }
+            if (c.isIncludeWithoutGenre()) {
+                alternatives.add("NOT EXISTS (SELECT 1 FROM materials_genres mg WHERE mg.idMaterial = m.idMaterial)");
+            }
+            sql.append(" AND ").append(anyOf(alternatives));
+            shape.append("[genre").append(n).append(c.isIncludeWithoutGenre() ? "+null]" : "]");
+        }
+
+        // Year range
+        if (c.getYearFrom() != null && c.getYearTo() != null) {
+            sql.append(" AND m.year BETWEEN ? AND ?");
+            params.add(c.getYearFrom());
+            params.add(c.getYearTo());
+            shape.append("[year<>]");
+        } else if (c.getYearFrom() != null) {
+            sql.append(" AND m.year >= ?");
+            params.add(c.getYearFrom());
+            shape.append("[year>]");
+        } else if (c.getYearTo() != null) {
+            sql.append(" AND m.year <= ?");
+            params.add(c.getYearTo());
+            shape.append("[year<]");
+        }
+
+        // One row per title: the first copy of each group of copies
+        if (c.isOnePerTitle()) {
+            sql.append(" AND m.idMaterial IN (SELECT MIN(f.idMaterial) FROM materials f GROUP BY ")
+                    .append(String.join(", ", titleKey("f"))).append(")");
+            shape.append("[perTitle]");
+        }
+
+        // Search words: each must occur somewhere in the searchable text, ignoring case and periods
+        List<String> patterns = new ArrayList<>();
+        for (String word : c.getSearchWords()) {
+            String escaped = word.replace(".", "")
+                    .replace("!", "!!").replace("%", "!%").replace("_", "!_");
+            patterns.add("%" + escaped + "%");
+        }
+        int words = addPadded(params, patterns);
+        for (int i = 0; i < words; i++) {
+            sql.append(" AND LOWER(REPLACE(CONCAT_WS(' ', m.title, m.author, m.ISBN, m.material_status), '.', ''))"
+                    + " LIKE ? ESCAPE '!'");
+        }
+        if (words > 0) shape.append("[words").append(words).append("]");
+
+        return shape.toString();
+    }
+
+    /**
+     * Adds the values of a list to the parameters, padded up to an {@link IdLookup#bucketFor(int) IdLookup bucket}
+     * by repeating the last one.
+     *
+     * @return The padded length, or 0 if there are no values.
+     */
+    private static int addPadded(List<Object> params, Collection<?> values) {
+        if (values.isEmpty()) return 0;
+        int bucket = IdLookup.bucketFor(values.size());
+        Object last = null;
+        for (Object value : values) {
+            params.add(value);
+            last = value;
+        }
+        for (int i = values.size(); i < bucket; i++) params.add(last);
+        return bucket;
+    }
+
+    /**
+     * Returns a parenthesized list of {@code n} placeholders, e.g. {@code (?, ?, ?)}.
+     */
+    private static String placeholders(int n) {
+        return "(" + String.join(", ", Collections.nCopies(n, "?")) + ")";
+    }
+
+    /**
+     * Combines SQL conditions with OR; an empty list of alternatives matches nothing.
+     */
+    private static String anyOf(List<String> alternatives) {
+        if (alternatives.isEmpty()) return "1=0";
+        return "(" + String.join(" OR ", alternatives) + ")";
+    }
+
+    /**
+     * Binds positional parameters of type Integer or String.
+     */
+    private static void bindAll(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object value = params.get(i);
+            if (value instanceof Integer n) {
+                ps.setInt(i + 1, n);
+            } else {
+                ps.setString(i + 1, (String) value);
+            }
+        }
+    }
+}
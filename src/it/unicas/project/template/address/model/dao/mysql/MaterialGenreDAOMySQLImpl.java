@@ -1,12 +1,17 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
 import it.unicas.project.template.address.model.MaterialGenre;
-import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.MaterialGenreDAO;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.logging.Logger;
 
 /**
@@ -19,10 +24,10 @@ import java.util.logging.Logger;
  *
  * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO.
  */
-public class MaterialGenreDAOMySQLImpl implements DAO<MaterialGenre> {
+public class MaterialGenreDAOMySQLImpl implements MaterialGenreDAO {
 
     // --- Singleton Fields ---
-    private static DAO<MaterialGenre> dao = null; // The single instance of this DAO (Singleton pattern)
+    private static MaterialGenreDAO dao = null; // The single instance of this DAO (Singleton pattern)
     private static Logger logger = null; // Logger for error reporting
 
     /**
@@ -43,9 +48,9 @@ public class MaterialGenreDAOMySQLImpl implements DAO<MaterialGenre> {
      *
      * Access Keyword Explanation: {@code public static} - Provides global, class-level access.
      *
-     * @return The single instance of the MaterialGenreDAOMySQLImpl, cast to the generic DAO interface.
+     * @return The single instance of the MaterialGenreDAOMySQLImpl, as its MaterialGenreDAO interface.
      */
-    public static DAO<MaterialGenre> getInstance() {
+    public static MaterialGenreDAO getInstance() {
         if (dao == null) {
             // Initialization happens only on the first call
             dao = new MaterialGenreDAOMySQLImpl();
@@ -193,6 +198,7 @@ public class MaterialGenreDAOMySQLImpl implements DAO<MaterialGenre> {
      * @param materialId The ID of the representative material.
      * @throws DAOException If a database error occurs.
      */
+    @Override
     public void deleteAllByMaterialId(Integer materialId) throws DAOException {
         if (materialId == null || materialId == -1) {
             throw new DAOException("In deleteAllByMaterialId: idMaterial cannot be null");
@@ -211,6 +217,23 @@ public class MaterialGenreDAOMySQLImpl implements DAO<MaterialGenre> {
         }
     }
 
+    /**
+     * Reads the genres of some materials with chunked {@code IN} queries (see {@link IdLookup}).
+     *
+     * @param materialIds The material IDs; {@code null}, -1 and duplicate IDs are ignored.
+     * @return The genre IDs of each material having at least one genre, by material ID.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<Integer, Set<Integer>> selectGenreIds(Collection<Integer> materialIds) throws DAOException {
+        Map<Integer, Set<Integer>> genres = new HashMap<>();
+        IdLookup.forEachRow("materialGenre.selectGenreIds",
+                "SELECT idMaterial, idGenre FROM materials_genres WHERE idMaterial IN ", materialIds,
+                rs -> genres.computeIfAbsent(rs.getInt("idMaterial"), id -> new TreeSet<>()).add(rs.getInt("idGenre")),
+                logger);
+        return genres;
+    }
+
     /**
      * Selects all MaterialGenre records.
      * <p>
@@ -241,4 +264,57 @@ public class MaterialGenreDAOMySQLImpl implements DAO<MaterialGenre> {
             throw new DAOException("In verifyObject: idMaterial y idGenre deben ser válidos");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Inserts several Material-Genre associations as one JDBC batch in a single transaction.
+     * <p>
+     * Used when a material is created or retagged with many genres, and when many materials are
+     * retagged at once: the rows are sent as multi-row INSERTs instead of one statement per link.
+     * </p>
+     *
+     * @param links The MaterialGenre objects containing the IDs to link.
+     * @throws DAOException if validation fails or a database error occurs (nothing is inserted).
+     */
+    @Override
+    public void insertAll(List<MaterialGenre> links) throws DAOException {
+        for (MaterialGenre mg : links) verifyObject(mg);
+        String sql = "INSERT INTO materials_genres (idMaterial, idGenre) VALUES (?, ?)";
+
+        JdbcBatch.<MaterialGenre>execute("insertAll", sql, links, false, (ps, mg) -> {
+            ps.setInt(1, mg.getIdMaterial());
+            ps.setInt(2, mg.getIdGenre());
+        }, logger);
+    }
+
+    /**
+     * Updates are not supported for the MaterialGenre association table (see {@link #update(MaterialGenre)}).
+     *
+     * @param links The MaterialGenre objects.
+     * @throws DAOException Always throws an exception to indicate the operation is unsupported.
+     */
+    @Override
+    public void updateAll(List<MaterialGenre> links) throws DAOException {
+        throw new DAOException("Update no soportado para MaterialGenre (PK compuesta)");
+    }
+
+    /**
+     * Deletes several Material-Genre associations as one JDBC batch in a single transaction.
+     *
+     * @param links The MaterialGenre objects containing the IDs to delete.
+     * @throws DAOException if the required IDs are missing or a database error occurs (nothing is deleted).
+     */
+    @Override
+    public void deleteAll(List<MaterialGenre> links) throws DAOException {
+        for (MaterialGenre mg : links) {
+            if (mg == null || mg.getIdMaterial() == -1 || mg.getIdGenre() == -1) {
+                throw new DAOException("In deleteAll: idMaterial y idGenre no pueden ser nulos");
+            }
+        }
+        String sql = "DELETE FROM materials_genres WHERE idMaterial=? AND idGenre=?";
+
+        JdbcBatch.<MaterialGenre>execute("deleteAll", sql, links, false, (ps, mg) -> {
+            ps.setInt(1, mg.getIdMaterial());
+            ps.setInt(2, mg.getIdGenre());
+        }, logger);
+    }
+}
@@ -1,6 +1,7 @@
 package it.unicas.project.template.address.model.dao.mysql;
 
 import it.unicas.project.template.address.model.MaterialType;
+import it.unicas.project.template.address.model.dao.MaterialTypeDAO;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -15,7 +16,7 @@ import java.util.List;
  *
  * Access Keyword Explanation: {@code public} - Allows the service layer to access this DAO.
  */
-public class MaterialTypeDAOMySQLImpl {
+public class MaterialTypeDAOMySQLImpl implements MaterialTypeDAO {
 
     // --- Singleton Field ---
     private static MaterialTypeDAOMySQLImpl instance; // The single instance of this class (Singleton pattern)
@@ -56,6 +57,7 @@ public class MaterialTypeDAOMySQLImpl {
      *
      * @return A list containing all {@code MaterialType} objects, or an empty list if none are found or an error occurs.
      */
+    @Override
     public List<MaterialType> selectAll() {
         List<MaterialType> list = new ArrayList<>();
         // SQL query to fetch all material types, ordered alphabetically for presentation
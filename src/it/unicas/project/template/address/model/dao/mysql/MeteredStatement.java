@@ -0,0 +1,175 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Invocation handler of the statements measured by {@link DAOMetrics}.
+ * <p>
+ * The {@code execute*} methods are timed and counted (as errors when they throw an {@code SQLException}); the
+ * rows affected by updates and batches are added to the statement's row count, and the result sets of queries
+ * are wrapped so that the rows actually read by the DAO are counted. Every other call is delegated unchanged,
+ * including {@code toString()}, which the DAOs log.
+ * </p>
+ * <p>
+ * While a Flight Recorder recording is running, every execution also emits a {@link DAOQueryEvent}; the event of a
+ * query is committed when its result set (or the statement) is closed, so that it carries the rows read.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Created only by {@link DAOMetrics#meter}.
+ */
+final class MeteredStatement implements InvocationHandler {
+
+    private final Statement target;
+    private final StatementMetrics metrics;
+    private final QueryProfiler.Trace trace;
+    private final String sql;
+    private long connectionWait;       // Reported by the first execution only
+    private DAOQueryEvent openQuery;   // Event of the query whose result set is still being read
+
+    private MeteredStatement(Statement target, StatementMetrics metrics, QueryProfiler.Trace trace,
+                             String sql, long connectionWait) {
+        this.target = target;
+        this.metrics = metrics;
+        this.trace = trace;
+        this.sql = sql;
+        this.connectionWait = connectionWait;
+    }
+
+    /**
+     * Wraps a statement.
+     *
+     * @param target The statement returned by the driver.
+     * @param type The JDBC interface to expose.
+     * @param metrics The metrics to update.
+     * @param trace The profiler trace to report executions to, or {@code null} when the profiler is off.
+     * @param sql The SQL text the statement was prepared with, or {@code null}.
+     * @param connectionWait The time spent borrowing the connection, if this is its first statement (else 0).
+     * @return A proxy implementing {@code type}.
+     */
+    static Statement wrap(Statement target, Class<?> type, StatementMetrics metrics, QueryProfiler.Trace trace,
+                          String sql, long connectionWait) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{type}, new MeteredStatement(target, metrics, trace, sql, connectionWait));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        if (!name.startsWith("execute")) {
+            Object result = delegate(method, args);
+            if ("close".equals(name)) endQuery(openQuery);
+            return "getResultSet".equals(name) && result instanceof ResultSet rs ? countRows(rs, null) : result;
+        }
+
+        // A new execution closes the result set of the previous one
+        endQuery(openQuery);
+
+        DAOQueryEvent event = new DAOQueryEvent();
+        boolean recording = event.isEnabled();
+        if (recording) event.begin();
+
+        long start = System.nanoTime();
+        boolean failed = false;
+        long rows = 0;
+        Object result;
+        try {
+            result = delegate(method, args);
+            if (result instanceof Integer count && name.startsWith("executeUpdate")) rows = count;
+            if (result instanceof Long count) rows = count;
+            if (result instanceof int[] counts) {
+                for (int count : counts) rows += Math.max(0, count);
+            }
+            if (result instanceof long[] counts) {
+                for (long count : counts) rows += Math.max(0, count);
+            }
+            metrics.addRows(rows);
+        } catch (SQLException e) {
+            failed = true;
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            metrics.recordExecution(nanos, failed);
+            if (trace != null) trace.record(nanos);
+            if (recording) {
+                event.dao = metrics.getDao();
+                event.statement = metrics.getStatement();
+                event.sql = sql;
+                event.executionTime = nanos;
+                event.connectionWait = connectionWait;
+                event.failed = failed;
+                event.rows = rows;
+            }
+            connectionWait = 0;
+        }
+
+        if (result instanceof ResultSet rs) {
+            if (recording) openQuery = event;
+            return countRows(rs, recording ? event : null);
+        }
+        if (recording) event.commit();
+        return result;
+    }
+
+    private Object delegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Commits the event of a query once its result set has been read, unless it was already committed.
+     */
+    private void endQuery(DAOQueryEvent event) {
+        if (event != null && event == openQuery) {
+            openQuery = null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Wraps a result set so that every row read with {@code next()} is counted, and the query's event is
+     * committed when it is closed.
+     */
+    private ResultSet countRows(ResultSet rs, DAOQueryEvent event) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                        metrics.addRows(1);
+                        if (event != null) event.rows++;
+                    } else if ("close".equals(method.getName())) {
+                        endQuery(event);
+                    }
+                    return result;
+                });
+    }
+}
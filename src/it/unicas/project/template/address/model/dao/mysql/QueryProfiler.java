@@ -0,0 +1,397 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import it.unicas.project.template.address.diagnostics.Diagnostics;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Opt-in detector of N+1 query loops and slow UI actions in the MySQL DAOs.
+ * <p>
+ * When the application is started with {@code -Dlibrary.dao.profile=true}, every statement executed by a DAO is
+ * tagged with the action that started it: the outermost application method reached from JavaFX or from the
+ * thread's entry point, e.g. {@code UserCatalogController.handleFilter}, a table cell's
+ * {@code UserCatalogController$3.updateItem} or {@code MainApp.start}. On the JavaFX thread an action lasts until
+ * the current event or pulse has been handled; on other threads, until the thread starts another action or stays
+ * idle for a second.
+ * </p>
+ * <p>
+ * When an action ends it is flagged if it executed the same statement more than
+ * {@code -Dlibrary.dao.profile.maxRepeats} times (default 5), or spent more than
+ * {@code -Dlibrary.dao.profile.budgetMillis} milliseconds (default 100) executing statements. Offenses are
+ * aggregated by action and statement, ranked by the database time they cost, and written with their call sites to
+ * {@code -Dlibrary.dao.profile.report} (default {@code dao-profile-report.txt}) every few seconds while new
+ * offenses appear, and when the application exits.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Diagnostics code may check {@link #isEnabled()} and force a
+ * {@link #writeReport()}; tracing itself is driven by {@link DAOMetrics} inside this package.
+ */
+public final class QueryProfiler {
+
+    /** System property turning the profiler on when set to {@code true}. */
+    public static final String PROFILE_PROPERTY = "library.dao.profile";
+
+    /** System property with the number of executions of one statement an action may run before being flagged. */
+    public static final String MAX_REPEATS_PROPERTY = "library.dao.profile.maxRepeats";
+
+    /** System property with the database time, in milliseconds, an action may spend before being flagged. */
+    public static final String BUDGET_PROPERTY = "library.dao.profile.budgetMillis";
+
+    /** System property with the path of the report file. */
+    public static final String REPORT_PROPERTY = "library.dao.profile.report";
+
+    private static final Logger logger = Logger.getLogger(QueryProfiler.class.getName());
+
+    private static final boolean ENABLED = Boolean.getBoolean(PROFILE_PROPERTY);
+    private static final int MAX_REPEATS = Integer.getInteger(MAX_REPEATS_PROPERTY, 5);
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong(BUDGET_PROPERTY, 100));
+    private static final Path REPORT = Path.of(System.getProperty(REPORT_PROPERTY, "dao-profile-report.txt"));
+
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    // Actions open on each thread, by name, and on all threads (to close idle ones and flush on exit)
+    private static final ThreadLocal<Map<String, Action>> CURRENT = ThreadLocal.withInitial(HashMap::new);
+    private static final Set<Action> OPEN = ConcurrentHashMap.newKeySet();
+    private static final Map<String, Offense> OFFENSES = new ConcurrentHashMap<>();
+
+    // Written while new offenses appear, and on exit after ending the open actions
+    private static final Diagnostics.ReportFile REPORT_FILE = ENABLED
+            ? new Diagnostics.ReportFile("DAO profile report", REPORT, QueryProfiler::report, QueryProfiler::closeAll)
+            : null;
+
+    static {
+        if (ENABLED) {
+            logger.info("DAO query profiler on: more than " + MAX_REPEATS + " executions of a statement or "
+                    + TimeUnit.NANOSECONDS.toMillis(BUDGET_NANOS) + " ms per action are reported to "
+                    + REPORT.toAbsolutePath());
+        }
+    }
+
+    private QueryProfiler() {
+    }
+
+    /**
+     * Returns whether the profiler is on.
+     *
+     * Access Keyword Explanation: {@code public static} - Read by the connection pool and by diagnostics code.
+     *
+     * @return true if the application was started with {@value #PROFILE_PROPERTY}{@code =true}.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Ends every open action and writes the ranked report of the offenses found so far.
+     * <p>
+     * Called automatically when the JVM exits.
+     * </p>
+     *
+     * Access Keyword Explanation: {@code public static} - May be triggered by diagnostics code.
+     */
+    public static void writeReport() {
+        if (!ENABLED) return;
+        closeAll();
+        REPORT_FILE.write();
+    }
+
+    /**
+     * Tags a statement being prepared with the current action and the application method calling the DAO.
+     *
+     * @param statement The statement name ({@code "<DAO class> / <query shape or method>"}).
+     * @return The trace that {@link MeteredStatement} reports the statement's executions to.
+     */
+    static Trace trace(String statement) {
+        StackWalker.StackFrame[] frames = WALKER.walk(QueryProfiler::callerFrames);
+        String site = frames != null ? siteOf(frames[0]) : "unknown";
+        String name = frames != null ? actionOf(frames[1]) : "<" + Thread.currentThread().getName() + ">";
+
+        Map<String, Action> current = CURRENT.get();
+        Action action = current.get(name);
+        if (action == null || action.isClosed()) {
+            // Without the application's JavaFX thread set up, actions end as on other threads
+            boolean fx = Diagnostics.isFxThread() && Diagnostics.canRunOnFxThread();
+            if (!fx) {
+                // Another action started on this thread: the previous ones are over
+                for (Action previous : current.values()) previous.close();
+                current.clear();
+            } else if (current.isEmpty()) {
+                // First query of this event or pulse: end its actions once it has been handled
+                Diagnostics.runOnFxThread(QueryProfiler::endFxEvent);
+            }
+            closeIdle();
+            action = new Action(name, fx);
+            current.put(name, action);
+            OPEN.add(action);
+        }
+        return new Trace(action, statement, site);
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * Returns the application frame calling into the DAOs and the outermost application frame above it (the
+     * action), or {@code null} if the DAO was not called by the application.
+     */
+    private static StackWalker.StackFrame[] callerFrames(Stream<StackWalker.StackFrame> frames) {
+        StackWalker.StackFrame site = null;
+        StackWalker.StackFrame action = null;
+        for (Iterator<StackWalker.StackFrame> it = frames.iterator(); it.hasNext(); ) {
+            StackWalker.StackFrame frame = it.next();
+            String className = frame.getClassName();
+            if (site == null) {
+                if (className.startsWith(Diagnostics.APP_PACKAGE) && !className.startsWith(Diagnostics.DAO_PACKAGE)) {
+                    site = action = frame;
+                }
+                continue;
+            }
+            if (Diagnostics.isDispatch(className)) break;
+            if (className.startsWith(Diagnostics.APP_PACKAGE)) action = frame;
+        }
+        return site == null ? null : new StackWalker.StackFrame[]{site, action};
+    }
+
+    /** e.g. {@code view.UserCatalogController$3.updateItem(UserCatalogController.java:440)} */
+    private static String siteOf(StackWalker.StackFrame frame) {
+        return frame.toStackTraceElement().toString().substring(Diagnostics.APP_PACKAGE.length());
+    }
+
+    /** e.g. {@code UserCatalogController.handleFilter} */
+    private static String actionOf(StackWalker.StackFrame frame) {
+        return Diagnostics.methodOf(frame.getClassName(), frame.getMethodName());
+    }
+
+    /**
+     * Ends the actions of the JavaFX event or pulse that has just been handled.
+     */
+    private static void endFxEvent() {
+        Map<String, Action> current = CURRENT.get();
+        for (Action action : current.values()) action.close();
+        current.clear();
+    }
+
+    /**
+     * Ends every open action, e.g. before the application exits.
+     */
+    private static void closeAll() {
+        for (Action action : OPEN) action.close();
+    }
+
+    /**
+     * Ends the actions of other threads that have not run a statement for a while.
+     */
+    private static void closeIdle() {
+        long now = System.nanoTime();
+        for (Action action : OPEN) {
+            if (!action.fx) action.closeIfIdle(now);
+        }
+    }
+
+    /**
+     * Checks an ended action against the thresholds and records its offenses.
+     */
+    private static void evaluate(Action action) {
+        boolean flagged = false;
+        for (Map.Entry<String, Usage> entry : action.statements.entrySet()) {
+            if (entry.getValue().calls > MAX_REPEATS) {
+                offense(Offense.Kind.REPEATED, action.name, entry.getKey()).record(action);
+                flagged = true;
+            }
+        }
+        if (action.totalNanos > BUDGET_NANOS) {
+            offense(Offense.Kind.SLOW, action.name, null).record(action);
+            flagged = true;
+        }
+        if (flagged) {
+            REPORT_FILE.writeIfDue();
+        }
+    }
+
+    private static Offense offense(Offense.Kind kind, String action, String statement) {
+        return OFFENSES.computeIfAbsent(kind + " " + action + " " + statement, key -> {
+            logger.warning("DAO profile: " + action + (kind == Offense.Kind.REPEATED
+                    ? " runs " + statement + " more than " + MAX_REPEATS + " times"
+                    : " spends more than " + TimeUnit.NANOSECONDS.toMillis(BUDGET_NANOS) + " ms in queries"));
+            return new Offense(kind, action, statement);
+        });
+    }
+
+    /**
+     * Returns the report of the offenses, costliest first.
+     */
+    private static String report() {
+        List<Offense> ranked = new ArrayList<>(OFFENSES.values());
+        ranked.sort(Comparator.comparingLong(Offense::totalNanos).reversed());
+
+        List<String> lines = new ArrayList<>();
+        lines.add("DAO query profile - " + LocalDateTime.now());
+        lines.add("Flagged: an action running the same statement more than " + MAX_REPEATS + " times, or spending more than "
+                + TimeUnit.NANOSECONDS.toMillis(BUDGET_NANOS) + " ms in queries. Ranked by the database time spent.");
+        if (ranked.isEmpty()) lines.add("No offending action.");
+        for (int i = 0; i < ranked.size(); i++) {
+            lines.add("");
+            ranked.get(i).describe(i + 1, lines);
+        }
+        return String.join(System.lineSeparator(), lines) + System.lineSeparator();
+    }
+
+    /**
+     * Handed to {@link MeteredStatement}: reports the executions of one statement to the action that prepared it.
+     */
+    static final class Trace {
+        private final Action action;
+        private final String statement;
+        private final String site;
+
+        private Trace(Action action, String statement, String site) {
+            this.action = action;
+            this.statement = statement;
+            this.site = site;
+        }
+
+        /**
+         * Records one execution of the statement.
+         *
+         * @param nanos The execution time.
+         */
+        void record(long nanos) {
+            action.record(statement, site, nanos);
+        }
+    }
+
+    /**
+     * The statements executed by one run of an action.
+     */
+    private static final class Action {
+        private final String name;
+        private final boolean fx;
+        private final Map<String, Usage> statements = new LinkedHashMap<>();
+        private long totalNanos;
+        private long lastNanos = System.nanoTime();
+        private boolean closed;
+
+        private Action(String name, boolean fx) {
+            this.name = name;
+            this.fx = fx;
+        }
+
+        synchronized void record(String statement, String site, long nanos) {
+            if (closed) return;
+            statements.computeIfAbsent(statement, key -> new Usage()).add(site, nanos);
+            totalNanos += nanos;
+            lastNanos = System.nanoTime();
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void closeIfIdle(long now) {
+            if (now - lastNanos > IDLE_NANOS) close();
+        }
+
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            OPEN.remove(this);
+            evaluate(this);
+        }
+    }
+
+    /**
+     * Executions of one statement within an action, by call site.
+     */
+    private static final class Usage {
+        private long calls;
+        private long nanos;
+        private final Map<String, long[]> sites = new LinkedHashMap<>();
+
+        void add(String site, long nanos) {
+            calls++;
+            this.nanos += nanos;
+            long[] counters = sites.computeIfAbsent(site, key -> new long[2]);
+            counters[0]++;
+            counters[1] += nanos;
+        }
+    }
+
+    /**
+     * A flagged (action, statement) pair, or a slow action, aggregated over every run that was flagged.
+     */
+    private static final class Offense {
+        enum Kind { REPEATED, SLOW }
+
+        private static final int MAX_SITES = 5;
+
+        private final Kind kind;
+        private final String action;
+        private final String statement; // null for SLOW: every statement of the action
+        private final Map<String, long[]> sites = new HashMap<>();
+        private int runs;
+        private long maxCalls;
+        private long totalCalls;
+        private long maxNanos;
+        private long totalNanos;
+
+        private Offense(Kind kind, String action, String statement) {
+            this.kind = kind;
+            this.action = action;
+            this.statement = statement;
+        }
+
+        synchronized void record(Action run) {
+            long calls = 0;
+            long nanos = 0;
+            for (Map.Entry<String, Usage> entry : run.statements.entrySet()) {
+                if (statement != null && !statement.equals(entry.getKey())) continue;
+                Usage usage = entry.getValue();
+                calls += usage.calls;
+                nanos += usage.nanos;
+                for (Map.Entry<String, long[]> site : usage.sites.entrySet()) {
+                    String key = statement != null ? site.getKey() : entry.getKey() + " at " + site.getKey();
+                    long[] counters = sites.computeIfAbsent(key, k -> new long[2]);
+                    counters[0] += site.getValue()[0];
+                    counters[1] += site.getValue()[1];
+                }
+            }
+            runs++;
+            totalCalls += calls;
+            totalNanos += nanos;
+            maxCalls = Math.max(maxCalls, calls);
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        synchronized long totalNanos() {
+            return totalNanos;
+        }
+
+        synchronized void describe(int rank, List<String> lines) {
+            lines.add("#" + rank + " " + kind + "  " + action + (statement != null ? " -> " + statement : ""));
+            lines.add("   " + runs + " flagged run(s), up to " + maxCalls + " executions per run (" + totalCalls
+                    + " total), " + Diagnostics.millis(totalNanos) + " total, worst run " + Diagnostics.millis(maxNanos));
+
+            List<Map.Entry<String, long[]>> ranked = new ArrayList<>(sites.entrySet());
+            ranked.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[1]).reversed());
+            for (Map.Entry<String, long[]> site : ranked.subList(0, Math.min(MAX_SITES, ranked.size()))) {
+                lines.add(String.format("   %6d x %12s  %s",
+                        site.getValue()[0], Diagnostics.millis(site.getValue()[1]), site.getKey()));
+            }
+            if (ranked.size() > MAX_SITES) lines.add("   ... " + (ranked.size() - MAX_SITES) + " more call site(s)");
+        }
+    }
+}
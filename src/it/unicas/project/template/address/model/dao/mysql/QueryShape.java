@@ -0,0 +1,116 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One canonical SQL text used by a DAO, identified by a stable name (e.g. {@code material.select[id]}).
+ * <p>
+ * Dynamic DAO queries are reduced to a small, fixed set of shapes (see {@link QueryShapeSet}) so that the
+ * driver's per-connection prepared statement cache ({@code cachePrepStmts}/{@code useServerPrepStmts} in
+ * {@link DAOMySQLSettings#PARAMETERS}) sees the same SQL text every time and can reuse the server-side
+ * prepared statement instead of parsing and planning again. Each shape counts how often it was
+ * prepared on a pooled connection that had already prepared it (hit) or not (miss).
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - The counters are read by diagnostics code outside this package.
+ */
+public class QueryShape {
+
+    // Registry of every shape created so far, keyed by name
+    private static final Map<String, QueryShape> REGISTRY = new ConcurrentHashMap<>();
+    // The same shapes keyed by SQL text, to name the statements measured by DAOMetrics
+    private static final Map<String, QueryShape> BY_SQL = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String sql;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a shape. Use {@link #of(String, String)} so that shapes are registered exactly once.
+     */
+    private QueryShape(String name, String sql) {
+        this.name = name;
+        this.sql = sql;
+    }
+
+    /**
+     * Returns the registered shape with the given name, registering it on first use.
+     *
+     * @param name The stable shape name.
+     * @param sql The canonical SQL text for the shape.
+     * @return The registered shape.
+     */
+    static QueryShape of(String name, String sql) {
+        return REGISTRY.computeIfAbsent(name, n -> {
+            QueryShape shape = new QueryShape(n, sql);
+            BY_SQL.putIfAbsent(sql, shape);
+            return shape;
+        });
+    }
+
+    /**
+     * Returns the name of the registered shape with the given SQL text.
+     *
+     * @param sql A SQL text.
+     * @return The shape name, or {@code null} if the SQL is not a registered shape.
+     */
+    static String nameOf(String sql) {
+        QueryShape shape = BY_SQL.get(sql);
+        return shape != null ? shape.name : null;
+    }
+
+    /**
+     * Prepares this shape's SQL on the given connection and records a cache hit or miss.
+     *
+     * @param conn A connection obtained from {@link DAOMySQLSettings#getConnection()}.
+     * @return The prepared statement (served from the driver's statement cache when possible).
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    PreparedStatement prepare(Connection conn) throws SQLException {
+        if (ConnectionPool.recordPrepare(conn, sql)) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return conn.prepareStatement(sql);
+    }
+
+    /** @return The stable name of this shape. */
+    public String getName() { return name; }
+
+    /** @return The canonical SQL text of this shape. */
+    public String getSql() { return sql; }
+
+    /** @return How many times this shape was prepared on a connection that had already prepared it. */
+    public long getHits() { return hits.get(); }
+
+    /** @return How many times this shape had to be prepared for the first time on a connection. */
+    public long getMisses() { return misses.get(); }
+
+    @Override
+    public String toString() {
+        return name + " hits=" + hits.get() + " misses=" + misses.get();
+    }
+
+    /**
+     * Returns a snapshot of all shapes used so far, sorted by name.
+     *
+     * Access Keyword Explanation: {@code public static} - Read-only view for diagnostics and logging.
+     *
+     * @return The registered shapes.
+     */
+    public static List<QueryShape> getRegisteredShapes() {
+        List<QueryShape> shapes = new ArrayList<>(REGISTRY.values());
+        shapes.sort(Comparator.comparing(QueryShape::getName));
+        return shapes;
+    }
+}
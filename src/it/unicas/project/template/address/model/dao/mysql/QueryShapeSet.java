@@ -0,0 +1,91 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * The finite family of {@link QueryShape}s produced by one dynamic "template" query such as
+ * {@code MaterialDAOMySQLImpl.select(Material)}.
+ * <p>
+ * Each optional filter is one bit of a mask; a mask always maps to the same SQL text, built once and cached.
+ * This replaces per-call string concatenation and guarantees that the driver's statement cache only ever
+ * sees at most 2<sup>n</sup> distinct statements for a query with n optional filters.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Only the MySQL DAO implementations build query shapes.
+ */
+final class QueryShapeSet {
+
+    private final String name;       // Prefix of every shape name, e.g. "material.select"
+    private final String prefix;     // SQL up to and including "WHERE 1=1"
+    private final String suffix;     // Trailing clauses appended after the filters (e.g. ORDER BY)
+    private final List<String> filterNames = new ArrayList<>();
+    private final List<String> filterClauses = new ArrayList<>();
+    private QueryShape[] shapes;     // Lazily filled, indexed by mask
+
+    /**
+     * Starts a shape set. Filters are then declared in bit order with {@link #filter(String, String)}.
+     *
+     * @param name The shape set name, used as prefix of every shape name.
+     * @param prefix The SQL preceding the optional filter clauses.
+     * @param suffix The SQL following the optional filter clauses (may be empty).
+     */
+    QueryShapeSet(String name, String prefix, String suffix) {
+        this.name = name;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Declares the next optional filter. The first declared filter is bit 0 of the mask.
+     *
+     * @param filterName A short name used in the shape name (e.g. "title").
+     * @param clause The SQL fragment appended when the filter is active (e.g. " AND m.title LIKE ?").
+     * @return this set, for chaining in a static initializer.
+     */
+    QueryShapeSet filter(String filterName, String clause) {
+        filterNames.add(filterName);
+        filterClauses.add(clause);
+        shapes = new QueryShape[1 << filterNames.size()];
+        return this;
+    }
+
+    /**
+     * Builds a mask from the active flags, given in the same order the filters were declared.
+     *
+     * @param active One flag per declared filter.
+     * @return The mask selecting the matching shape.
+     */
+    int mask(boolean... active) {
+        int mask = 0;
+        for (int i = 0; i < active.length; i++) {
+            if (active[i]) mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the canonical shape for a mask, building its SQL on first use.
+     *
+     * @param mask The mask obtained from {@link #mask(boolean...)}.
+     * @return The query shape.
+     */
+    synchronized QueryShape shape(int mask) {
+        QueryShape shape = shapes[mask];
+        if (shape == null) {
+            StringBuilder sql = new StringBuilder(prefix);
+            StringJoiner label = new StringJoiner(",", name + "[", "]");
+            for (int i = 0; i < filterClauses.size(); i++) {
+                if ((mask & (1 << i)) != 0) {
+                    sql.append(filterClauses.get(i));
+                    label.add(filterNames.get(i));
+                }
+            }
+            sql.append(suffix);
+            shape = QueryShape.of(label.toString(), sql.toString());
+            shapes[mask] = shape;
+        }
+        return shape;
+    }
+}
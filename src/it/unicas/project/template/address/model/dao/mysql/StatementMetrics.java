@@ -0,0 +1,97 @@
+package it.unicas.project.template.address.model.dao.mysql;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one DAO statement: executions, errors, rows and a latency histogram.
+ * <p>
+ * A statement is identified by its DAO class and its {@link QueryShape} name, or by the DAO method for SQL that
+ * is not a registered shape (e.g. {@code LoanDAOMySQLImpl / insert}). Instances are created and updated by
+ * {@link DAOMetrics}; each one is also registered as an MXBean.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Read by diagnostics code and exposed over JMX.
+ */
+public final class StatementMetrics implements DAOStatementMetricsMXBean {
+
+    private final String dao;
+    private final String statement;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Creates empty metrics for a statement.
+     *
+     * @param dao The DAO class name.
+     * @param statement The query shape name or DAO method.
+     */
+    StatementMetrics(String dao, String statement) {
+        this.dao = dao;
+        this.statement = statement;
+    }
+
+    /**
+     * Records one execution.
+     *
+     * @param nanos The execution time.
+     * @param failed true if the execution threw an {@code SQLException}.
+     */
+    void recordExecution(long nanos, boolean failed) {
+        latency.record(nanos);
+        if (failed) errors.increment();
+    }
+
+    /**
+     * Adds rows returned or affected by an execution.
+     *
+     * @param count The number of rows.
+     */
+    void addRows(long count) {
+        if (count > 0) rows.add(count);
+    }
+
+    @Override
+    public String getDao() { return dao; }
+
+    @Override
+    public String getStatement() { return statement; }
+
+    @Override
+    public long getCalls() { return latency.count(); }
+
+    @Override
+    public long getErrors() { return errors.sum(); }
+
+    @Override
+    public long getRows() { return rows.sum(); }
+
+    @Override
+    public double getMeanMillis() { return latency.meanMillis(); }
+
+    @Override
+    public double getP50Millis() { return latency.percentileMillis(0.50); }
+
+    @Override
+    public double getP99Millis() { return latency.percentileMillis(0.99); }
+
+    @Override
+    public double getP999Millis() { return latency.percentileMillis(0.999); }
+
+    @Override
+    public double getMaxMillis() { return latency.maxMillis(); }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        rows.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s / %s calls=%d errors=%d rows=%d p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+                dao, statement, getCalls(), getErrors(), getRows(),
+                getP50Millis(), getP99Millis(), getP999Millis(), getMaxMillis());
+    }
+}
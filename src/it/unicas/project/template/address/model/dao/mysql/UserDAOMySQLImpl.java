@@ -2,10 +2,13 @@ package it.unicas.project.template.address.model.dao.mysql;
 
 import it.unicas.project.template.address.model.User;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.UserDAO;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -17,7 +20,7 @@ import java.util.logging.Logger;
  *
  * Access Keyword Explanation: {@code public} - Allows the service layer to interact with this DAO.
  */
-public class UserDAOMySQLImpl {
+public class UserDAOMySQLImpl implements UserDAO {
 
     // --- Singleton Fields ---
     private static UserDAOMySQLImpl instance = null; // The single instance of this class (Singleton pattern)
@@ -52,6 +55,21 @@ public class UserDAOMySQLImpl {
         return instance;
     }
 
+    /**
+     * Query shapes of {@link #select(User)}: one canonical SQL text per combination of filter fields.
+     * LIKE is used for partial matching on name, surname, username and email; exact match (=) for
+     * National ID as it is assumed to be a unique identifier.
+     */
+    private static final QueryShapeSet SELECT_SHAPES = new QueryShapeSet(
+            "user.select", "SELECT * FROM users WHERE 1=1", "")
+            .filter("id", " AND idUser=?")
+            .filter("name", " AND name LIKE ?")
+            .filter("surname", " AND surname LIKE ?")
+            .filter("username", " AND username LIKE ?")
+            .filter("nationalID", " AND nationalID = ?")
+            .filter("email", " AND email LIKE ?")
+            .filter("role", " AND idRole = ?");
+
     /**
      * Retrieves a single {@code User} record from the database using their unique username.
      * <p>
@@ -62,6 +80,7 @@ public class UserDAOMySQLImpl {
      * @return The matching {@code User} object, or {@code null} if no user is found.
      * @throws DAOException if a database error occurs.
      */
+    @Override
     public User getByUsername(String username) throws DAOException {
         String sql = "SELECT * FROM users WHERE username = ?";
 
@@ -104,54 +123,41 @@ public class UserDAOMySQLImpl {
      * @return A list of users matching the criteria.
      * @throws DAOException if a database error occurs.
      */
+    @Override
     public List<User> select(User u) throws DAOException {
         List<User> list = new ArrayList<>();
         // If null is passed, create a default User object to ensure the dynamic query builder works
         if (u == null) u = new User(null, "", "", "", "", null, "", "", -1);
 
-        // Start of dynamic query. 'WHERE 1=1' is a common pattern to easily chain AND clauses.
-        String sql = "SELECT * FROM users WHERE 1=1";
-        if (u.getIdUser() != -1) sql += " AND idUser=?";
-        // Using LIKE for partial matching on name, surname, username, and email
-        if (u.getName() != null && !u.getName().isEmpty()) sql += " AND name LIKE ?";
-        if (u.getSurname() != null && !u.getSurname().isEmpty()) sql += " AND surname LIKE ?";
-        if (u.getUsername() != null && !u.getUsername().isEmpty()) sql += " AND username LIKE ?";
-        // Using exact match (=) for National ID as it is assumed to be a unique identifier
-        if (u.getNationalID() != null && !u.getNationalID().isEmpty()) sql += " AND nationalID = ?";
-        if (u.getEmail() != null && !u.getEmail().isEmpty()) sql += " AND email LIKE ?";
-        if (u.getIdRole() != null && u.getIdRole() != -1) sql += " AND idRole = ?";
+        // Pick the canonical query shape for the combination of fields set in the filter object
+        boolean hasName = u.getName() != null && !u.getName().isEmpty();
+        boolean hasSurname = u.getSurname() != null && !u.getSurname().isEmpty();
+        boolean hasUsername = u.getUsername() != null && !u.getUsername().isEmpty();
+        boolean hasNationalID = u.getNationalID() != null && !u.getNationalID().isEmpty();
+        boolean hasEmail = u.getEmail() != null && !u.getEmail().isEmpty();
+        boolean hasRole = u.getIdRole() != null && u.getIdRole() != -1;
+        QueryShape shape = SELECT_SHAPES.shape(SELECT_SHAPES.mask(
+                u.getIdUser() != -1, hasName, hasSurname, hasUsername, hasNationalID, hasEmail, hasRole));
 
         try (Connection conn = DAOMySQLSettings.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = shape.prepare(conn)) {
 
             // Dynamically bind parameters to the SQL placeholders (?)
             int index = 1;
             if (u.getIdUser() != -1) ps.setInt(index++, u.getIdUser());
             // Bind LIKE patterns (prefix matching for name, surname, username, substring matching for email)
-            if (u.getName() != null && !u.getName().isEmpty()) ps.setString(index++, u.getName() + "%");
-            if (u.getSurname() != null && !u.getSurname().isEmpty()) ps.setString(index++, u.getSurname() + "%");
-            if (u.getUsername() != null && !u.getUsername().isEmpty()) ps.setString(index++, u.getUsername() + "%");
-            if (u.getNationalID() != null && !u.getNationalID().isEmpty()) ps.setString(index++, u.getNationalID());
-            if (u.getEmail() != null && !u.getEmail().isEmpty()) ps.setString(index++, "%" + u.getEmail() + "%");
-            if (u.getIdRole() != null && u.getIdRole() != -1) ps.setInt(index++, u.getIdRole());
+            if (hasName) ps.setString(index++, u.getName() + "%");
+            if (hasSurname) ps.setString(index++, u.getSurname() + "%");
+            if (hasUsername) ps.setString(index++, u.getUsername() + "%");
+            if (hasNationalID) ps.setString(index++, u.getNationalID());
+            if (hasEmail) ps.setString(index++, "%" + u.getEmail() + "%");
+            if (hasRole) ps.setInt(index++, u.getIdRole());
 
             logger.info("SQL: " + ps);
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    // Map results to new User objects
-                    User user = new User(
-                            rs.getInt("idUser"),
-                            rs.getString("name"),
-                            rs.getString("surname"),
-                            rs.getString("username"),
-                            rs.getString("nationalID"),
-                            rs.getDate("birthdate") != null ? rs.getDate("birthdate").toLocalDate() : null,
-                            rs.getString("password"),
-                            rs.getString("email"),
-                            rs.getInt("idRole")
-                    );
-                    list.add(user);
+                    list.add(mapRow(rs)); // Map results to new User objects
                 }
             }
         } catch (SQLException e) {
@@ -169,6 +175,7 @@ public class UserDAOMySQLImpl {
      * @param u The User object to insert. The ID field will be updated upon successful insertion.
      * @throws DAOException if the user object is null or a database error occurs.
      */
+    @Override
     public void insert(User u) throws DAOException {
         if (u == null) throw new DAOException("User cannot be null");
 
@@ -210,6 +217,7 @@ public class UserDAOMySQLImpl {
      * @param u The User object with updated data (must include a valid idUser).
      * @throws DAOException if the user object is null or a database error occurs.
      */
+    @Override
     public void update(User u) throws DAOException {
         if (u == null) throw new DAOException("User cannot be null");
 
@@ -246,6 +254,7 @@ public class UserDAOMySQLImpl {
      * @param u The User object containing the ID of the record to delete.
      * @throws DAOException if the ID is missing or a database error occurs (e.g., foreign key violation).
      */
+    @Override
     public void delete(User u) throws DAOException {
         if (u == null || u.getIdUser() == -1) throw new DAOException("idUser cannot be null");
 
@@ -261,4 +270,38 @@ public class UserDAOMySQLImpl {
             throw new DAOException("In delete(): " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves several users by ID with a few chunked {@code IN (...)} queries.
+     *
+     * @param ids The user IDs to look up.
+     * @return The found users keyed by ID, in request order.
+     * @throws DAOException if a database error occurs.
+     */
+    @Override
+    public Map<Integer, User> selectByIds(Collection<Integer> ids) throws DAOException {
+        return IdLookup.select("user.selectByIds", "SELECT * FROM users WHERE idUser IN ",
+                ids, this::mapRow, User::getIdUser, logger);
+    }
+
+    /**
+     * Maps the current row of a {@code users} result set to a User object.
+     *
+     * @param rs The result set positioned on a row.
+     * @return The mapped user.
+     * @throws SQLException if a column cannot be read.
+     */
+    private User mapRow(ResultSet rs) throws SQLException {
+        return new User(
+                rs.getInt("idUser"),
+                rs.getString("name"),
+                rs.getString("surname"),
+                rs.getString("username"),
+                rs.getString("nationalID"),
+                rs.getDate("birthdate") != null ? rs.getDate("birthdate").toLocalDate() : null,
+                rs.getString("password"),
+                rs.getString("email"),
+                rs.getInt("idRole")
+        );
+    }
+}
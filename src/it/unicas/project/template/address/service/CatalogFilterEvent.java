@@ -0,0 +1,86 @@
+package it.unicas.project.template.address.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.List;
+
+/**
+ * Java Flight Recorder event emitted for every {@code MaterialCatalogService.filter*} call.
+ * <p>
+ * When the DAO query of a DAO-backed filter fails, a {@code "dao-failed"} event is emitted for the attempt,
+ * followed by the event of the in-memory filtering it falls back to.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Emitted only by {@link MaterialCatalogService}.
+ */
+@Name("it.unicas.library.CatalogFilter")
+@Label("Catalog Filter")
+@Category({"Library", "Search"})
+@Description("A catalog filter applied by MaterialCatalogService")
+final class CatalogFilterEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    @Description("\"dao\" when the filters were pushed down into the DAO, \"dao-failed\" when that query failed, "
+            + "\"memory\" otherwise")
+    String path;
+
+    @Label("Input Size")
+    int inputSize;
+
+    @Label("Result Size")
+    int resultSize;
+
+    @Label("Term Length")
+    @Description("Length of the trimmed search term")
+    int termLength;
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param method The filter method.
+     * @param path {@code "dao"} or {@code "memory"}.
+     * @param inputSize The number of items given to the filter.
+     * @param searchTerm The search term.
+     * @return The started event.
+     */
+    static CatalogFilterEvent start(String method, String path, int inputSize, String searchTerm) {
+        CatalogFilterEvent event = new CatalogFilterEvent();
+        event.method = method;
+        event.path = path;
+        event.inputSize = inputSize;
+        event.termLength = searchTerm == null ? 0 : searchTerm.trim().length();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if it is being recorded.
+     *
+     * @param result The filtered items.
+     * @return {@code result}, for use in a return statement.
+     */
+    <T> List<T> end(List<T> result) {
+        end();
+        if (shouldCommit()) {
+            resultSize = result.size();
+            commit();
+        }
+        return result;
+    }
+
+    /**
+     * Ends the event of a DAO query that failed, and commits it if it is being recorded.
+     */
+    void fail() {
+        path = "dao-failed";
+        end();
+        if (shouldCommit()) commit();
+    }
+}
@@ -5,6 +5,7 @@ import it.unicas.project.template.address.model.MaterialGenre;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -34,16 +35,15 @@ public class EditMaterialService {
         // Delete existing associations (select by material id)
         MaterialGenre deleteCriteria = new MaterialGenre(m.getIdMaterial(), -1);
         List<MaterialGenre> existing = materialGenreDao.select(deleteCriteria);
-        for (MaterialGenre mg : existing) {
-            materialGenreDao.delete(mg);
-        }
+        materialGenreDao.deleteAll(existing);
 
-        // Insert new associations
+        // Insert new associations in a single batch
         if (genreIds != null) {
+            List<MaterialGenre> links = new ArrayList<>();
             for (Integer gid : genreIds) {
-                MaterialGenre mg = new MaterialGenre(m.getIdMaterial(), gid);
-                materialGenreDao.insert(mg);
+                links.add(new MaterialGenre(m.getIdMaterial(), gid));
             }
+            materialGenreDao.insertAll(links);
         }
     }
 }
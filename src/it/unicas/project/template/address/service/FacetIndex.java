@@ -0,0 +1,228 @@
+package it.unicas.project.template.address.service;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.collections.ObservableList;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Bit set index of the facets (type, status, genre, ...) and years of a list of items, for the catalog filters.
+ * <p>
+ * Every item gets its position in the list as ordinal. Each facet keeps one bit set per value, holding the items
+ * with that value, plus one for the items without any value; the years are kept as the ordinals sorted by year. A
+ * filter is then a few bit set operations: for every filtered facet, the union of the selected values and of the
+ * items without a value (the catalog filters always keep those), intersected across facets and with the ordinals
+ * of the year range.
+ * </p>
+ * <p>
+ * The same bit sets give the live count of every value of a facet: the items with that value among those kept by
+ * the filters of the other facets, i.e. how many items selecting the value would add.
+ * </p>
+ * <p>
+ * Like {@link SearchIndex}, the index is a snapshot: it notices the changes of an {@code ObservableList} (see
+ * {@link #isCurrentFor(List)}), and must be rebuilt when items are edited in place.
+ * </p>
+ *
+ * @param <T> The type of the items
+ */
+public class FacetIndex<T> {
+
+    private final List<T> source;
+    private final List<T> items;
+    private final Map<String, Facet> facets = new LinkedHashMap<>();
+    private final IdentityHashMap<T, Integer> ordinals = new IdentityHashMap<>();
+
+    private final int[] yearOrder;   // Ordinals of the items with a year, by year
+    private final int[] years;       // Their years, ascending
+
+    private final InvalidationListener invalidationListener = observable -> invalidate();
+    private volatile boolean stale = false;
+
+    /**
+     * Indexes a list of items.
+     *
+     * @param items The items to index.
+     * @param facetValues For each facet name, the function returning the values of an item. An empty collection
+     *                    (or {@code null}) means the item has no value; {@code null} elements are values that no
+     *                    selection contains.
+     * @param year The function returning the year of an item, or {@code null} if it has none.
+     */
+    FacetIndex(List<T> items, Map<String, Function<T, Collection<String>>> facetValues, Function<T, Integer> year) {
+        this.source = items;
+        this.items = new ArrayList<>(items);
+
+        for (Map.Entry<String, Function<T, Collection<String>>> facet : facetValues.entrySet()) {
+            facets.put(facet.getKey(), new Facet(this.items, facet.getValue()));
+        }
+
+        List<int[]> yearsByOrdinal = new ArrayList<>();
+        for (int ordinal = 0; ordinal < this.items.size(); ordinal++) {
+            T item = this.items.get(ordinal);
+            ordinals.putIfAbsent(item, ordinal);
+            Integer itemYear = year.apply(item);
+            if (itemYear != null) {
+                yearsByOrdinal.add(new int[]{itemYear, ordinal});
+            }
+        }
+        yearsByOrdinal.sort(Comparator.<int[]>comparingInt(y -> y[0]).thenComparingInt(y -> y[1]));
+        yearOrder = new int[yearsByOrdinal.size()];
+        years = new int[yearsByOrdinal.size()];
+        for (int i = 0; i < years.length; i++) {
+            years[i] = yearsByOrdinal.get(i)[0];
+            yearOrder[i] = yearsByOrdinal.get(i)[1];
+        }
+
+        if (items instanceof ObservableList<T> observable) {
+            observable.addListener(new WeakInvalidationListener(invalidationListener));
+        }
+    }
+
+    /**
+     * Returns whether this index still describes a list: it must be the indexed list, with the same size and, for
+     * an {@code ObservableList}, not modified since it was indexed.
+     *
+     * @param list The list about to be filtered.
+     * @return true if the index can be used for {@code list}.
+     */
+    public boolean isCurrentFor(List<T> list) {
+        return !stale && list == source && list.size() == items.size();
+    }
+
+    /**
+     * Marks the index as no longer describing its list.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Returns the items kept by the filters, in list order.
+     *
+     * @param selections For each filtered facet, the selected values (an empty selection keeps only the items
+     *                   without a value); facets not in the map are not filtered.
+     * @param yearFrom Lowest year kept, or {@code null}.
+     * @param yearTo Highest year kept, or {@code null}.
+     * @return The items kept.
+     */
+    public List<T> filter(Map<String, Set<String>> selections, Integer yearFrom, Integer yearTo) {
+        BitSet kept = select(selections, null, yearFrom, yearTo);
+        List<T> result = new ArrayList<>(kept.cardinality());
+        for (int ordinal = kept.nextSetBit(0); ordinal >= 0; ordinal = kept.nextSetBit(ordinal + 1)) {
+            result.add(items.get(ordinal));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the live counts of the values of a facet: for each value, the number of items having it among those
+     * kept by the filters of the other facets and the year range (and among {@code within}, if given).
+     *
+     * @param facet The facet name.
+     * @param selections The current selections, as for {@link #filter}; the selection of {@code facet} is ignored.
+     * @param yearFrom Lowest year kept, or {@code null}.
+     * @param yearTo Highest year kept, or {@code null}.
+     * @param within The items to count among (e.g. the matches of the search), or {@code null} for all.
+     * @return The count of every value of the facet, by value.
+     */
+    public Map<String, Integer> counts(String facet, Map<String, Set<String>> selections, Integer yearFrom,
+                                       Integer yearTo, Collection<T> within) {
+        BitSet kept = select(selections, facet, yearFrom, yearTo);
+        if (within != null) {
+            BitSet withinOrdinals = new BitSet(items.size());
+            for (T item : within) {
+                Integer ordinal = ordinals.get(item);
+                if (ordinal != null) withinOrdinals.set(ordinal);
+            }
+            kept.and(withinOrdinals);
+        }
+
+        Map<String, Integer> counts = new TreeMap<>();
+        Facet values = facets.get(facet);
+        if (values != null) {
+            for (Map.Entry<String, BitSet> value : values.byValue.entrySet()) {
+                BitSet withValue = (BitSet) value.getValue().clone();
+                withValue.and(kept);
+                counts.put(value.getKey(), withValue.cardinality());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the ordinals kept by the filters of every facet but {@code ignoredFacet}, and the year range.
+     */
+    private BitSet select(Map<String, Set<String>> selections, String ignoredFacet, Integer yearFrom, Integer yearTo) {
+        BitSet kept = new BitSet(items.size());
+        kept.set(0, items.size());
+
+        for (Map.Entry<String, Set<String>> selection : selections.entrySet()) {
+            Facet facet = facets.get(selection.getKey());
+            if (facet == null || selection.getKey().equals(ignoredFacet)) continue;
+
+            BitSet selected = (BitSet) facet.noValue.clone();
+            for (String value : selection.getValue()) {
+                BitSet withValue = facet.byValue.get(value);
+                if (withValue != null) selected.or(withValue);
+            }
+            kept.and(selected);
+        }
+
+        if (yearFrom != null || yearTo != null) {
+            int from = yearFrom == null ? 0 : lowerBound(yearFrom);
+            int to = yearTo == null ? years.length : upperBound(yearTo);
+            BitSet inRange = new BitSet(items.size());
+            for (int i = from; i < to; i++) {
+                inRange.set(yearOrder[i]);
+            }
+            kept.and(inRange);
+        }
+        return kept;
+    }
+
+    /** Index of the first year {@code >= year}. */
+    private int lowerBound(int year) {
+        int low = 0, high = years.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (years[middle] < year) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /** Index of the first year {@code > year}. */
+    private int upperBound(int year) {
+        int low = 0, high = years.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (years[middle] <= year) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * The bit sets of one facet.
+     */
+    private final class Facet {
+        private final Map<String, BitSet> byValue = new HashMap<>();
+        private final BitSet noValue = new BitSet();
+
+        private Facet(List<T> items, Function<T, Collection<String>> values) {
+            for (int ordinal = 0; ordinal < items.size(); ordinal++) {
+                Collection<String> itemValues = values.apply(items.get(ordinal));
+                if (itemValues == null || itemValues.isEmpty()) {
+                    noValue.set(ordinal);
+                    continue;
+                }
+                for (String value : itemValues) {
+                    if (value != null) {
+                        byValue.computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package it.unicas.project.template.address.service;
 
-import it.unicas.project.template.address.model.Loan;
-import it.unicas.project.template.address.model.Material;
-import it.unicas.project.template.address.model.User;
+import it.unicas.project.template.address.model.LoanRow;
 
 import java.util.*;
 import java.util.function.Function;
@@ -10,95 +8,56 @@ import java.util.stream.Collectors;
 
 public class LoanCatalogService {
 
-    private final SearchService<Loan> searchService = new SearchService<>();
+    private final SearchService<LoanRow> rowSearchService = new SearchService<>();
 
     /**
-     * Define search fields with priority based on Maps for lookups
-     * Priority: Material Title > User Name > User Surname > Author > Material ISBN
-     *
-     * Note: This requires passing materialMap and userMap to the filter method
+     * Search fields for display rows loaded with {@code LoanDAOMySQLImpl.selectActiveLoanRows()}.
+     * Priority: Material Title > User Name > Author > Material ISBN > Material Type > Due Date
+     * The placeholders shown for missing values ({@link LoanRow#MISSING}, {@link LoanRow#UNKNOWN_TYPE}) are
+     * searched as empty fields.
      */
-    private List<Function<Loan, String>> buildLoanSearchFields(
-            Map<Integer, Material> materialMap,
-            Map<Integer, User> userMap) {
+    private static final List<Function<LoanRow, String>> LOAN_ROW_SEARCH_FIELDS = SearchService.<LoanRow>fieldsBuilder()
+            .addField(row -> searchable(row.getTitle(), LoanRow.MISSING))
+            .addField(LoanRow::getUser)
+            .addField(row -> searchable(row.authorProperty().get(), LoanRow.MISSING))
+            .addField(row -> searchable(row.isbnProperty().get(), LoanRow.MISSING))
+            .addField(row -> searchable(row.materialTypeProperty().get(), LoanRow.UNKNOWN_TYPE))
+            .addField(row -> searchable(row.dueDateProperty().get(), LoanRow.MISSING))
+            .build();
 
-        return SearchService.<Loan>fieldsBuilder()
-                .addField(loan -> {
-                    Material material = materialMap.get(loan.getIdMaterial());
-                    return material != null ? material.getTitle() : "";
-                })
-                .addField(loan -> {
-                    User user = userMap.get(loan.getIdUser());
-                    return user != null ? user.getName() : "";
-                })
-                .addField(loan -> {
-                    User user = userMap.get(loan.getIdUser());
-                    return user != null ? user.getSurname() : "";
-                })
-                .addField(loan -> {
-                    Material material = materialMap.get(loan.getIdMaterial());
-                    return material != null ? material.getAuthor() : "";
-                })
-                .addField(loan -> {
-                    Material material = materialMap.get(loan.getIdMaterial());
-                    return material != null ? material.getISBN() : "";
-                })
-                // NEW: Add material type as searchable field
-                .addField(loan -> {
-                    Material material = materialMap.get(loan.getIdMaterial());
-                    if (material == null || material.getIdMaterialType() == null) return "";
+    /**
+     * Returns the value of a row field as searched: empty in place of its display placeholder.
+     */
+    private static String searchable(String value, String placeholder) {
+        return placeholder.equals(value) ? "" : value;
+    }
 
-                    return switch (material.getIdMaterialType()) {
-                        case 1 -> "Book";
-                        case 2 -> "CD";
-                        case 3 -> "Movie";
-                        case 4 -> "Magazine";
-                        default -> "";
-                    };
-                })
-                // NEW: Add due date as searchable field (format: yyyy-MM-dd)
-                .addField(loan -> {
-                    return loan.getDue_date() != null ?
-                            loan.getDue_date().toLocalDate().toString() : "";
-                })
-                .build();
+    /**
+     * Makes the next searches examine every loan, instead of only the matches of the last search when it refines
+     * it. Must be called after the loans were reloaded or edited in place, see
+     * {@link SearchService#forgetLastSearch()}.
+     */
+    public void forgetLastSearch() {
+        rowSearchService.forgetLastSearch();
     }
 
     /**
-     * Filters and searches loans based on criteria
+     * Filters and searches already joined loan rows (see {@code LoanDAOMySQLImpl.selectActiveLoanRows()}).
      *
-     * @param loans List of all loans
-     * @param materialMap Map of material ID to Material object (for search lookups)
-     * @param userMap Map of user ID to User object (for search lookups)
-     * @param selectedStatuses Filter by loan status (active, returned, overdue, etc.)
-     * @param searchTerm Search term for title, user names, author, ISBN
-     * @return Filtered and sorted list of loans
+     * @param rows List of loan rows
+     * @param selectedStatuses Filter by loan status (only "overdue" is supported, matching delayed rows)
+     * @param searchTerm Search term for title, user name, author, ISBN, material type or due date
+     * @return Filtered list of rows, ordered by search priority
      */
-    public List<Loan> filterLoans(
-            List<Loan> loans,
-            Map<Integer, Material> materialMap,
-            Map<Integer, User> userMap,
-            Set<String> selectedStatuses,
-            String searchTerm
-    ) {
-        // Apply status filter
-        List<Loan> filtered = loans.stream()
-                .filter(loan -> {
-                    // Status filter (overdue)
-                    if (selectedStatuses.contains("overdue")) {
-                        return loan.getDue_date() != null &&
-                                loan.getDue_date().isBefore(java.time.LocalDateTime.now());
-                    }
-                    return true;
-                })
+    public List<LoanRow> filterLoanRows(List<LoanRow> rows, Set<String> selectedStatuses, String searchTerm) {
+        List<LoanRow> filtered = SearchService.streamOf(rows)
+                .filter(row -> !selectedStatuses.contains("overdue") || "Yes".equals(row.delayedProperty().get()))
                 .collect(Collectors.toList());
 
-        // Apply search
         if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-            List<Function<Loan, String>> searchFields = buildLoanSearchFields(materialMap, userMap);
-            filtered = searchService.searchAndSort(filtered, searchTerm, searchFields);
+            filtered = rowSearchService.searchAndSort(filtered, searchTerm, LOAN_ROW_SEARCH_FIELDS);
         }
 
         return filtered;
     }
-}
\ No newline at end of file
+}
@@ -2,24 +2,25 @@ package it.unicas.project.template.address.service;
 
 import it.unicas.project.template.address.model.User;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.UserDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.UserDAO;
 
 /**
  * Service class responsible for handling user login logic.
- * It uses the UserDAOMySQLImpl to retrieve user data, injected via the constructor.
+ * It uses a UserDAO to retrieve user data, injected via the constructor.
  */
 public class LoginService {
 
     // The dependency is now a final field and will be set through the constructor.
-    private final UserDAOMySQLImpl userDAO;
+    private final UserDAO userDAO;
 
     /**
-     * Constructor used for production code, relying on the static getInstance().
+     * Constructor used for production code, relying on the DAO of the selected backend.
      * (We keep this for backward compatibility with your Controller)
      */
     public LoginService() {
-        // Production: Use the singleton instance
-        this(UserDAOMySQLImpl.getInstance());
+        // Production: Use the DAO of the backend selected at startup
+        this(DAOFactory.getUserDAO());
     }
 
     /**
@@ -27,7 +28,7 @@ public class LoginService {
      * This is the key change to make the service testable without Mockito.
      * * @param userDAO The DAO implementation to use (can be a real one or a test stub).
      */
-    public LoginService(UserDAOMySQLImpl userDAO) {
+    public LoginService(UserDAO userDAO) {
         this.userDAO = userDAO;
     }
 
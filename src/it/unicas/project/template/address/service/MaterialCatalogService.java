@@ -1,17 +1,63 @@
 package it.unicas.project.template.address.service;
 
 import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.MaterialCriteria;
+import it.unicas.project.template.address.model.dao.DAO;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.MaterialDAO;
+import it.unicas.project.template.address.model.dao.MaterialGenreDAO;
 import it.unicas.project.template.address.view.UserCatalogController.GroupedMaterial;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class MaterialCatalogService {
 
+    /** Facet names, for the live counts of the filter popups. */
+    public static final String TYPE_FACET = "type";
+    public static final String STATUS_FACET = "status";
+    public static final String GENRE_FACET = "genre";
+
+    private static final Logger logger = Logger.getLogger(MaterialCatalogService.class.getName());
+
+    /**
+     * A copy of the whole catalog, for the in-memory filters of the admin catalog when the DAO cannot filter.
+     *
+     * @param materials The materials.
+     * @param materialGenreMap The genre IDs of each material, by material ID.
+     */
+    public record CatalogCopy(List<Material> materials, Map<Integer, Set<Integer>> materialGenreMap) {
+
+        /**
+         * Reads the catalog copy, e.g. from the DAOs.
+         */
+        @FunctionalInterface
+        public interface Reader {
+            CatalogCopy read() throws DAOException;
+        }
+    }
+
     private final SearchService<Material> materialSearchService = new SearchService<>();
     private final SearchService<GroupedMaterial> groupedSearchService = new SearchService<>();
 
+    // Search indexes of the last catalog lists searched, rebuilt when the lists change. Like the search services,
+    // they remember their last search, so a term that extends it (with the same or narrower filters) only
+    // re-examines its matches
+    private SearchIndex<Material> materialIndex;
+    private SearchIndex<GroupedMaterial> groupedIndex;
+
+    // Facet indexes of the last catalog lists filtered, rebuilt when the lists change (and, for the admin list,
+    // when other lookup maps are passed in)
+    private FacetIndex<Material> materialFacets;
+    private List<Map<Integer, ?>> materialFacetMaps = List.of();
+    private FacetIndex<GroupedMaterial> groupedFacets;
+
+    // Maximum edits per search word tolerated by the user catalog search (0 = exact search only)
+    private volatile int groupedTypoTolerance = 0;
+
     // Search fields for Material
     private static final List<Function<Material, String>> MATERIAL_SEARCH_FIELDS =
             SearchService.<Material>fieldsBuilder()
@@ -33,6 +79,10 @@ public class MaterialCatalogService {
 
     /**
      * Filter individual materials (for Admin view)
+     * <p>
+     * The type, status, genre and year filters are bit set operations on the {@link FacetIndex} of
+     * {@code materials}, built on the first filter and again whenever the list or the lookup maps change.
+     * </p>
      */
     public List<Material> filterMaterials(
             List<Material> materials,
@@ -46,89 +96,26 @@ public class MaterialCatalogService {
             String yearTo,
             String searchTerm
     ) {
+        CatalogFilterEvent event = CatalogFilterEvent.start("filterMaterials", "memory", materials.size(), searchTerm);
 
-        List<Material> filtered = materials.stream()
-                .filter(material -> {
-                    // Type filter
-                    boolean matchesType;
-                    if (selectedTypes.isEmpty()) {
-                        // Empty selection: show only materials with no type
-                        matchesType = material.getIdMaterialType() == null ||
-                                materialTypeMap.get(material.getIdMaterialType()) == null;
-                    } else {
-                        // Check if material has a type and if it's in the selected types
-                        String materialType = materialTypeMap.get(material.getIdMaterialType());
-                        matchesType = selectedTypes.contains(materialType);
-
-                        // If all types are selected, also include materials with no type
-                        if (!matchesType && materialType == null) {
-                            matchesType = true;
-                        }
-                    }
-
-                    // Status filter
-                    boolean matchesStatus;
-                    if (selectedStatuses.isEmpty()) {
-                        // Empty selection: show only materials with no status
-                        matchesStatus = material.getMaterial_status() == null ||
-                                material.getMaterial_status().isEmpty();
-                    } else {
-                        matchesStatus = selectedStatuses.contains(material.getMaterial_status());
-
-                        // If material has no status, include it when all statuses are selected
-                        if (!matchesStatus && (material.getMaterial_status() == null ||
-                                material.getMaterial_status().isEmpty())) {
-                            matchesStatus = true;
-                        }
-                    }
-
-                    // Genre filter
-                    boolean matchesGenre;
-                    Set<Integer> genreIds = materialGenreMap.get(material.getIdMaterial());
-                    boolean hasNoGenre = genreIds == null || genreIds.isEmpty();
-
-                    if (selectedGenres.isEmpty()) {
-                        // Empty selection: show only materials with no genre
-                        matchesGenre = hasNoGenre;
-                    } else {
-                        if (hasNoGenre) {
-                            // Material has no genre: include it (when any genre is selected, we include empty ones)
-                            matchesGenre = true;
-                        } else {
-                            // Check if any of the material's genres are in the selected genres
-                            matchesGenre = genreIds.stream()
-                                    .map(genreMap::get)
-                                    .anyMatch(selectedGenres::contains);
-                        }
-                    }
-
-                    // Year filter
-                    boolean matchesYear = true;
-                    try {
-                        if (!yearFrom.isEmpty()) {
-                            matchesYear = material.getYear() >= Integer.parseInt(yearFrom);
-                        }
-                        if (!yearTo.isEmpty() && matchesYear) {
-                            matchesYear = material.getYear() <= Integer.parseInt(yearTo);
-                        }
-                    } catch (NumberFormatException ignored) {
-                        matchesYear = true;
-                    }
-
-                    return matchesType && matchesStatus && matchesGenre && matchesYear;
-                })
-                .collect(Collectors.toList());
+        Integer[] years = yearBounds(yearFrom, yearTo);
+        List<Material> filtered = materialFacetsFor(materials, materialGenreMap, materialTypeMap, genreMap)
+                .filter(materialSelections(selectedTypes, selectedStatuses, selectedGenres), years[0], years[1]);
 
         // Apply search with prioritized fields
         if (!searchTerm.isEmpty()) {
-            filtered = materialSearchService.searchAndSort(filtered, searchTerm, MATERIAL_SEARCH_FIELDS);
+            filtered = materialIndexFor(materials).searchAndSort(filtered, searchTerm);
         }
 
-        return filtered;
+        return event.end(filtered);
     }
 
     /**
      * Filter grouped materials (for User view)
+     * <p>
+     * The type, genre and year filters are bit set operations on the {@link FacetIndex} of
+     * {@code groupedMaterials}, built on the first filter and again whenever the list changes.
+     * </p>
      */
     public List<GroupedMaterial> filterGroupedMaterials(
             List<GroupedMaterial> groupedMaterials,
@@ -138,69 +125,541 @@ public class MaterialCatalogService {
             String yearTo,
             String searchTerm
     ) {
+        CatalogFilterEvent event = CatalogFilterEvent.start("filterGroupedMaterials", "memory",
+                groupedMaterials.size(), searchTerm);
 
-        List<GroupedMaterial> filtered = groupedMaterials.stream()
-                .filter(gm -> {
-                    // Type filter
-                    boolean matchesType;
-                    boolean hasNoType = gm.getType() == null ||
-                            gm.getType().isEmpty() ||
-                            gm.getType().equals("Unknown");
-
-                    if (selectedTypes.isEmpty()) {
-                        // Empty selection: show only materials with no type
-                        matchesType = hasNoType;
-                    } else {
-                        if (hasNoType) {
-                            // Material has no type: include it (when any type is selected, we include empty ones)
-                            matchesType = true;
-                        } else {
-                            matchesType = selectedTypes.contains(gm.getType());
-                        }
-                    }
-
-                    // Genre filter
-                    boolean matchesGenre;
-                    boolean hasNoGenre = gm.getGenres() == null ||
-                            gm.getGenres().equals("—") ||
-                            gm.getGenres().isEmpty();
-
-                    if (selectedGenres.isEmpty()) {
-                        // Empty selection: show only materials with no genre
-                        matchesGenre = hasNoGenre;
-                    } else {
-                        if (hasNoGenre) {
-                            // Material has no genre: include it (when any genre is selected, we include empty ones)
-                            matchesGenre = true;
-                        } else {
-                            // Check if any genre in the comma-separated list matches
-                            matchesGenre = Arrays.stream(gm.getGenres().split(", "))
-                                    .anyMatch(selectedGenres::contains);
-                        }
-                    }
-
-                    // Year filter
-                    boolean matchesYear = true;
-                    try {
-                        if (!yearFrom.isEmpty()) {
-                            matchesYear = gm.getYear() >= Integer.parseInt(yearFrom);
-                        }
-                        if (!yearTo.isEmpty() && matchesYear) {
-                            matchesYear = gm.getYear() <= Integer.parseInt(yearTo);
-                        }
-                    } catch (NumberFormatException ignored) {
-                        matchesYear = true;
-                    }
-
-                    return matchesType && matchesGenre && matchesYear;
-                })
-                .collect(Collectors.toList());
+        Integer[] years = yearBounds(yearFrom, yearTo);
+        List<GroupedMaterial> filtered = groupedFacetsFor(groupedMaterials)
+                .filter(groupedSelections(selectedTypes, selectedGenres), years[0], years[1]);
 
         // Apply search with prioritized fields
         if (!searchTerm.isEmpty()) {
-            filtered = groupedSearchService.searchAndSort(filtered, searchTerm, GROUPED_SEARCH_FIELDS);
+            filtered = searchGroups(groupedMaterials, filtered, searchTerm);
+        }
+
+        return event.end(filtered);
+    }
+
+    /**
+     * Returns the values of a facet of the admin catalog, i.e. those of at least one material, counted by the DAO.
+     *
+     * @param materialDao The DAO of the catalog.
+     * @param facet {@link #TYPE_FACET}, {@link #STATUS_FACET} or {@link #GENRE_FACET}.
+     * @param materialTypeMap Map of material type ID to type name.
+     * @param genreMap Map of genre ID to genre name.
+     * @return The values of the facet, sorted.
+     * @throws DAOException If the count fails.
+     */
+    public SortedSet<String> materialFacetValues(MaterialDAO materialDao, String facet,
+                                                 Map<Integer, String> materialTypeMap,
+                                                 Map<Integer, String> genreMap) throws DAOException {
+        return new TreeSet<>(countByName(materialDao, facet, new MaterialCriteria(), materialTypeMap, genreMap)
+                .keySet());
+    }
+
+    /**
+     * Returns the live counts of the values of a facet of the admin catalog, for its filter popup: for each value of
+     * the catalog, the number of materials having it among those kept by the other filters and the search.
+     * <p>
+     * Without a search they are counted by the DAO. With a search, the materials kept by the other filters and the
+     * coarse pre-filter of {@link #buildCriteria} are selected, then searched like the rows shown (see
+     * {@link #filterMaterials(DAO, CatalogCopy.Reader, Map, Map, Set, Set, Set, String, String, String)}), and the
+     * matches are counted.
+     * </p>
+     *
+     * @param materialDao The DAO of the catalog.
+     * @param materialGenreDao The DAO of the genres of the materials, to read the genres of the matches.
+     * @param facet {@link #TYPE_FACET}, {@link #STATUS_FACET} or {@link #GENRE_FACET}.
+     * @return The count of every value of the facet, by value, sorted.
+     * @throws DAOException If a count fails.
+     */
+    public SortedMap<String, Integer> countMaterialFacet(
+            MaterialDAO materialDao,
+            MaterialGenreDAO materialGenreDao,
+            String facet,
+            Map<Integer, String> materialTypeMap,
+            Map<Integer, String> genreMap,
+            Set<String> selectedTypes,
+            Set<String> selectedStatuses,
+            Set<String> selectedGenres,
+            String yearFrom,
+            String yearTo,
+            String searchTerm
+    ) throws DAOException {
+        // The facet's own selection does not narrow its counts
+        MaterialCriteria others = buildCriteria(materialTypeMap, genreMap,
+                TYPE_FACET.equals(facet) ? null : selectedTypes,
+                STATUS_FACET.equals(facet) ? null : selectedStatuses,
+                GENRE_FACET.equals(facet) ? null : selectedGenres,
+                yearFrom, yearTo, searchTerm);
+        if (searchTerm.isEmpty()) {
+            return countFacet(materialDao, facet, new MaterialCriteria(), others, materialTypeMap, genreMap);
+        }
+
+        List<Material> matches = materialSearchService.searchAndSort(materialDao.selectByCriteria(others),
+                searchTerm, MATERIAL_SEARCH_FIELDS);
+        SortedMap<String, Integer> counts = new TreeMap<>();
+        for (String value : materialFacetValues(materialDao, facet, materialTypeMap, genreMap)) {
+            counts.put(value, 0);
+        }
+        switch (facet) {
+            case TYPE_FACET -> matches.forEach(m -> mergeNamed(counts, m.getIdMaterialType() == null ? null
+                    : materialTypeMap.get(m.getIdMaterialType()), 1));
+            case STATUS_FACET -> matches.forEach(m -> mergeNamed(counts,
+                    "".equals(m.getMaterial_status()) ? null : m.getMaterial_status(), 1));
+            case GENRE_FACET -> materialGenreDao.selectGenreIds(matches.stream().map(Material::getIdMaterial).toList())
+                    .values().forEach(genreIds -> genreIds.forEach(id -> mergeNamed(counts, genreMap.get(id), 1)));
+            default -> throw new IllegalArgumentException("Unknown facet: " + facet);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the values of a facet of the user catalog, i.e. those of at least one title, counted by the DAO.
+     *
+     * @param materialDao The DAO of the catalog.
+     * @param facet {@link #TYPE_FACET} or {@link #GENRE_FACET}.
+     * @param materialTypeMap Map of material type ID to type name.
+     * @param genreMap Map of genre ID to genre name.
+     * @return The values of the facet, sorted.
+     * @throws DAOException If the count fails.
+     */
+    public SortedSet<String> titleFacetValues(MaterialDAO materialDao, String facet,
+                                              Map<Integer, String> materialTypeMap,
+                                              Map<Integer, String> genreMap) throws DAOException {
+        return new TreeSet<>(countByName(materialDao, facet, buildTitleCriteria(materialTypeMap, genreMap,
+                null, null, "", ""), materialTypeMap, genreMap).keySet());
+    }
+
+    /**
+     * Returns the live counts of the values of a facet of the user catalog without a search, counted by the DAO
+     * over the first copy of each title (see {@link #buildTitleCriteria}): the same counts as
+     * {@link #countGroupedFacet} of the grouped catalog, without reading it.
+     *
+     * @param materialDao The DAO of the catalog.
+     * @param facet {@link #TYPE_FACET} or {@link #GENRE_FACET}.
+     * @return The count of every value of the facet, by value, sorted.
+     * @throws DAOException If a count fails.
+     */
+    public SortedMap<String, Integer> countTitleFacet(
+            MaterialDAO materialDao,
+            String facet,
+            Map<Integer, String> materialTypeMap,
+            Map<Integer, String> genreMap,
+            Set<String> selectedTypes,
+            Set<String> selectedGenres,
+            String yearFrom,
+            String yearTo
+    ) throws DAOException {
+        // The facet's own selection does not narrow its counts
+        MaterialCriteria others = buildTitleCriteria(materialTypeMap, genreMap,
+                TYPE_FACET.equals(facet) ? null : selectedTypes,
+                GENRE_FACET.equals(facet) ? null : selectedGenres,
+                yearFrom, yearTo);
+        return countFacet(materialDao, facet, buildTitleCriteria(materialTypeMap, genreMap, null, null, "", ""),
+                others, materialTypeMap, genreMap);
+    }
+
+    /**
+     * Returns the live counts of the values of a facet of the user catalog, for its filter popup: for each value,
+     * the number of titles having it among those kept by the other filters and the search.
+     *
+     * @param facet {@link #TYPE_FACET} or {@link #GENRE_FACET}.
+     * @return The count of every value of the facet, by value.
+     */
+    public Map<String, Integer> countGroupedFacet(
+            String facet,
+            List<GroupedMaterial> groupedMaterials,
+            Set<String> selectedTypes,
+            Set<String> selectedGenres,
+            String yearFrom,
+            String yearTo,
+            String searchTerm
+    ) {
+        Integer[] years = yearBounds(yearFrom, yearTo);
+        List<GroupedMaterial> matches = searchTerm.isEmpty() ? null
+                : searchGroups(groupedMaterials, groupedMaterials, searchTerm);
+        return groupedFacetsFor(groupedMaterials).counts(facet,
+                groupedSelections(selectedTypes, selectedGenres), years[0], years[1], matches);
+    }
+
+    /**
+     * Ranks materials (for Admin view) by relevance and returns one page of them, see
+     * {@link SearchService#searchRanked}.
+     *
+     * @param materials The materials to search, usually already filtered.
+     * @param searchTerm The search term.
+     * @param offset Number of best matches to skip.
+     * @param limit Maximum number of matches to return.
+     * @return The page of matches, best first.
+     */
+    public SearchPage<Material> rankMaterials(List<Material> materials, String searchTerm, int offset, int limit) {
+        return materialSearchService.searchRanked(materials, searchTerm, MATERIAL_SEARCH_FIELDS, null, offset, limit);
+    }
+
+    /**
+     * Ranks grouped materials (for User view) by relevance and returns one page of them, see
+     * {@link SearchService#searchRanked}. Titles with more copies out on loan or on hold rank slightly higher.
+     *
+     * @param groupedMaterials The grouped materials to search, usually already filtered.
+     * @param searchTerm The search term.
+     * @param offset Number of best matches to skip.
+     * @param limit Maximum number of matches to return.
+     * @return The page of matches, best first.
+     */
+    public SearchPage<GroupedMaterial> rankGroupedMaterials(List<GroupedMaterial> groupedMaterials, String searchTerm,
+                                                            int offset, int limit) {
+        return rankGroupedMaterials(groupedMaterials, searchTerm, MaterialCatalogService::demandOf, offset, limit);
+    }
+
+    /**
+     * Ranks grouped materials like {@link #rankGroupedMaterials(List, String, int, int)}, with the demand of each
+     * title given by the caller, e.g. as read by {@link #demandOf(GroupedMaterial)} when the search was made.
+     *
+     * @param groupedMaterials The grouped materials to search, usually already filtered.
+     * @param searchTerm The search term.
+     * @param demand The demand of a title.
+     * @param offset Number of best matches to skip.
+     * @param limit Maximum number of matches to return.
+     * @return The page of matches, best first.
+     */
+    public SearchPage<GroupedMaterial> rankGroupedMaterials(List<GroupedMaterial> groupedMaterials, String searchTerm,
+                                                            ToDoubleFunction<? super GroupedMaterial> demand,
+                                                            int offset, int limit) {
+        return groupedSearchService.searchRanked(groupedMaterials, searchTerm, GROUPED_SEARCH_FIELDS,
+                demand, offset, limit);
+    }
+
+    /**
+     * Filter individual materials (for Admin view), pushing the filters down into the DAO when it supports it.
+     * <p>
+     * With a {@link MaterialDAO} the type, status, genre and year filters, plus a coarse pre-filter on
+     * the search words, are evaluated by the DAO (in SQL with MySQL, on indexes in memory); the prioritized
+     * search is then applied to the (much smaller) result. With any other DAO, or if the query fails, a copy of the
+     * whole catalog is read from {@code fallback} and the in-memory
+     * {@link #filterMaterials(List, Map, Map, Map, Set, Set, Set, String, String, String)} is used on it. Both paths
+     * return the same materials in the same order.
+     * </p>
+     *
+     * @param materialDao The DAO of the catalog.
+     * @param fallback Reads the catalog copy, only when the DAO cannot filter.
+     * @throws DAOException If the DAO query fails and the catalog copy cannot be read either.
+     */
+    public List<Material> filterMaterials(
+            DAO<Material> materialDao,
+            CatalogCopy.Reader fallback,
+            Map<Integer, String> materialTypeMap,
+            Map<Integer, String> genreMap,
+            Set<String> selectedTypes,
+            Set<String> selectedStatuses,
+            Set<String> selectedGenres,
+            String yearFrom,
+            String yearTo,
+            String searchTerm
+    ) throws DAOException {
+        if (materialDao instanceof MaterialDAO sqlDao) {
+            CatalogFilterEvent event = CatalogFilterEvent.start("filterMaterials", "dao", 0, searchTerm);
+            try {
+                MaterialCriteria criteria = buildCriteria(materialTypeMap, genreMap,
+                        selectedTypes, selectedStatuses, selectedGenres, yearFrom, yearTo, searchTerm);
+                List<Material> filtered = sqlDao.selectByCriteria(criteria);
+
+                // Apply search with prioritized fields (the DAO returns new objects, unknown to the search index,
+                // but already narrowed down by the SQL pre-filter)
+                if (!searchTerm.isEmpty()) {
+                    filtered = materialSearchService.searchAndSort(filtered, searchTerm, MATERIAL_SEARCH_FIELDS);
+                }
+                return event.end(filtered);
+            } catch (DAOException e) {
+                logger.warning("Filtering in the DAO failed, falling back to in-memory filtering: " + e.getMessage());
+                event.fail();
+            }
+        }
+        CatalogCopy copy = fallback.read();
+        return filterMaterials(copy.materials(), copy.materialGenreMap(), materialTypeMap, genreMap,
+                selectedTypes, selectedStatuses, selectedGenres, yearFrom, yearTo, searchTerm);
+    }
+
+    /**
+     * Makes the user catalog search tolerate misspelled words (see {@link SearchIndex#searchFuzzy}): the exact
+     * matches still come first, followed by the matches within {@code maxEdits} edits per word.
+     *
+     * @param maxEdits The maximum number of edits per search word, 0 for the exact search.
+     */
+    public void setGroupedTypoTolerance(int maxEdits) {
+        this.groupedTypoTolerance = Math.max(0, maxEdits);
+    }
+
+    /**
+     * Proposes a corrected user catalog search ("did you mean"), for a search that found nothing.
+     *
+     * @param groupedMaterials The grouped materials of the catalog.
+     * @param searchTerm The search term.
+     * @return The corrected term, or {@code null} if there is nothing to propose.
+     */
+    public String suggestGroupedSearch(List<GroupedMaterial> groupedMaterials, String searchTerm) {
+        return groupedIndexFor(groupedMaterials).suggest(searchTerm);
+    }
+
+    /**
+     * Searches the filtered groups through the index of the catalog list, tolerating typos if enabled.
+     */
+    private List<GroupedMaterial> searchGroups(List<GroupedMaterial> groupedMaterials, List<GroupedMaterial> filtered,
+                                               String searchTerm) {
+        SearchIndex<GroupedMaterial> index = groupedIndexFor(groupedMaterials);
+        int maxEdits = groupedTypoTolerance;
+        return maxEdits > 0 ? index.searchFuzzy(filtered, searchTerm, maxEdits) : index.searchAndSort(filtered, searchTerm);
+    }
+
+    /**
+     * Translates the catalog filter selections into a {@link MaterialCriteria}, with the same semantics as the
+     * in-memory filters: an empty selection keeps only the materials without a value, a non-empty selection
+     * keeps the selected values plus the materials without a value, an unparsable "from" year disables the
+     * year filter and an unparsable "to" year only drops the upper bound (see {@link #yearBounds}).
+     *
+     * @param materialTypeMap Map of material type ID to type name.
+     * @param genreMap Map of genre ID to genre name.
+     * @param selectedTypes Selected type names, or {@code null} to not filter on type.
+     * @param selectedStatuses Selected statuses, or {@code null} to not filter on status.
+     * @param selectedGenres Selected genre names, or {@code null} to not filter on genre.
+     * @param yearFrom Lower year bound as typed (may be empty).
+     * @param yearTo Upper year bound as typed (may be empty).
+     * @param searchTerm Search term; its words become the SQL pre-filter.
+     * @return The equivalent criteria.
+     */
+    public MaterialCriteria buildCriteria(
+            Map<Integer, String> materialTypeMap,
+            Map<Integer, String> genreMap,
+            Set<String> selectedTypes,
+            Set<String> selectedStatuses,
+            Set<String> selectedGenres,
+            String yearFrom,
+            String yearTo,
+            String searchTerm
+    ) {
+        MaterialCriteria criteria = new MaterialCriteria();
+
+        if (selectedTypes != null) {
+            criteria.setTypes(idsOfNames(materialTypeMap, selectedTypes), true);
+        }
+        if (selectedStatuses != null) {
+            criteria.setStatuses(selectedStatuses, true);
+        }
+        if (selectedGenres != null) {
+            criteria.setGenres(idsOfNames(genreMap, selectedGenres), true);
         }
 
-        return filtered;
+        // Same bounds as in memory: an invalid "from" year disables the year filter, an invalid "to" year only
+        // drops the upper bound
+        Integer[] years = yearBounds(yearFrom, yearTo);
+        criteria.setYearRange(years[0], years[1]);
+
+        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+            for (String word : searchTerm.toLowerCase().trim().split("\\s+")) {
+                criteria.addSearchWord(word);
+            }
+        }
+        return criteria;
+    }
+
+    /**
+     * Translates the user catalog filter selections into a {@link MaterialCriteria} keeping one row per title (see
+     * {@link MaterialCriteria#setOnePerTitle}): the filters apply to the first copy of each title, whose type, genres
+     * and year the grouped catalog shows, with the same semantics as {@link #filterGroupedMaterials} without a search.
+     *
+     * @param materialTypeMap Map of material type ID to type name.
+     * @param genreMap Map of genre ID to genre name.
+     * @param selectedTypes Selected type names, or {@code null} to not filter on type.
+     * @param selectedGenres Selected genre names, or {@code null} to not filter on genre.
+     * @param yearFrom Lower year bound as typed (may be empty).
+     * @param yearTo Upper year bound as typed (may be empty).
+     * @return The equivalent criteria.
+     */
+    public MaterialCriteria buildTitleCriteria(
+            Map<Integer, String> materialTypeMap,
+            Map<Integer, String> genreMap,
+            Set<String> selectedTypes,
+            Set<String> selectedGenres,
+            String yearFrom,
+            String yearTo
+    ) {
+        MaterialCriteria criteria = buildCriteria(materialTypeMap, genreMap, selectedTypes, null, selectedGenres,
+                yearFrom, yearTo, "");
+        criteria.setOnePerTitle(true);
+        return criteria;
+    }
+
+    /**
+     * Returns the search index of the admin catalog list, indexing it on the first search and again whenever it has
+     * changed since.
+     */
+    private synchronized SearchIndex<Material> materialIndexFor(List<Material> materials) {
+        if (materialIndex == null || !materialIndex.isCurrentFor(materials)) {
+            materialIndex = materialSearchService.buildIndex(materials, MATERIAL_SEARCH_FIELDS);
+        }
+        return materialIndex;
+    }
+
+    /**
+     * Returns the search index of the user catalog list, indexing it on the first search and again whenever it has
+     * changed since.
+     */
+    private synchronized SearchIndex<GroupedMaterial> groupedIndexFor(List<GroupedMaterial> groupedMaterials) {
+        if (groupedIndex == null || !groupedIndex.isCurrentFor(groupedMaterials)) {
+            groupedIndex = groupedSearchService.buildIndex(groupedMaterials, GROUPED_SEARCH_FIELDS);
+            if (groupedTypoTolerance > 0) {
+                groupedIndex.prepareFuzzySearch();
+            }
+        }
+        return groupedIndex;
+    }
+
+    /**
+     * Returns the facet index of the admin catalog list, indexing it on the first filter and again whenever the list
+     * has changed since or other lookup maps are passed in.
+     */
+    private synchronized FacetIndex<Material> materialFacetsFor(List<Material> materials,
+                                                                Map<Integer, Set<Integer>> materialGenreMap,
+                                                                Map<Integer, String> materialTypeMap,
+                                                                Map<Integer, String> genreMap) {
+        List<Map<Integer, ?>> maps = List.of(materialGenreMap, materialTypeMap, genreMap);
+        boolean sameMaps = maps.size() == materialFacetMaps.size()
+                && maps.get(0) == materialFacetMaps.get(0)
+                && maps.get(1) == materialFacetMaps.get(1)
+                && maps.get(2) == materialFacetMaps.get(2);
+        if (materialFacets == null || !materialFacets.isCurrentFor(materials) || !sameMaps) {
+            Map<String, Function<Material, Collection<String>>> facets = new LinkedHashMap<>();
+            facets.put(TYPE_FACET, m -> valueOrNone(m.getIdMaterialType() == null ? null
+                    : materialTypeMap.get(m.getIdMaterialType())));
+            facets.put(STATUS_FACET, m -> valueOrNone(m.getMaterial_status()));
+            facets.put(GENRE_FACET, m -> {
+                Set<Integer> genreIds = materialGenreMap.get(m.getIdMaterial());
+                // Genre IDs without a name still count as a genre, one that no selection contains
+                return genreIds == null ? List.of() : genreIds.stream().map(genreMap::get).toList();
+            });
+            materialFacets = new FacetIndex<>(materials, facets, Material::getYear);
+            materialFacetMaps = maps;
+        }
+        return materialFacets;
+    }
+
+    /**
+     * Returns the facet index of the user catalog list, indexing it on the first filter and again whenever it has
+     * changed since. Titles typed "Unknown" have no type, and the genres are read from their display string.
+     */
+    private synchronized FacetIndex<GroupedMaterial> groupedFacetsFor(List<GroupedMaterial> groupedMaterials) {
+        if (groupedFacets == null || !groupedFacets.isCurrentFor(groupedMaterials)) {
+            Map<String, Function<GroupedMaterial, Collection<String>>> facets = new LinkedHashMap<>();
+            facets.put(TYPE_FACET, gm -> "Unknown".equals(gm.getType()) ? List.of() : valueOrNone(gm.getType()));
+            facets.put(GENRE_FACET, gm -> "—".equals(gm.getGenres()) || valueOrNone(gm.getGenres()).isEmpty()
+                    ? List.of() : Arrays.asList(gm.getGenres().split(", ")));
+            groupedFacets = new FacetIndex<>(groupedMaterials, facets, GroupedMaterial::getYear);
+        }
+        return groupedFacets;
+    }
+
+    private static Map<String, Set<String>> materialSelections(Set<String> selectedTypes, Set<String> selectedStatuses,
+                                                               Set<String> selectedGenres) {
+        return Map.of(TYPE_FACET, selectedTypes, STATUS_FACET, selectedStatuses, GENRE_FACET, selectedGenres);
+    }
+
+    private static Map<String, Set<String>> groupedSelections(Set<String> selectedTypes, Set<String> selectedGenres) {
+        return Map.of(TYPE_FACET, selectedTypes, GENRE_FACET, selectedGenres);
+    }
+
+    /**
+     * Returns a facet value as a collection: empty for a missing (null or empty) value.
+     */
+    private static Collection<String> valueOrNone(String value) {
+        return value == null || value.isEmpty() ? List.of() : List.of(value);
+    }
+
+    /**
+     * Returns the year range typed in the filters, as {from, to} with {@code null} for no bound. As in the original
+     * checks, an unparsable "from" year disables the year filter, while an unparsable "to" year only drops the
+     * upper bound.
+     */
+    static Integer[] yearBounds(String yearFrom, String yearTo) {
+        Integer from = null;
+        Integer to = null;
+        try {
+            if (!yearFrom.isEmpty()) {
+                from = Integer.parseInt(yearFrom);
+            }
+        } catch (NumberFormatException ignored) {
+            return new Integer[]{null, null};
+        }
+        try {
+            if (!yearTo.isEmpty()) {
+                to = Integer.parseInt(yearTo);
+            }
+        } catch (NumberFormatException ignored) {
+            // Keep the lower bound only
+        }
+        return new Integer[]{from, to};
+    }
+
+    /**
+     * Popularity of a title for ranking: grows slowly with its copies that are not available, so that it mostly
+     * decides between matches of the same field and quality.
+     *
+     * @param gm The title.
+     * @return Its demand, from the current status of its copies.
+     */
+    public static double demandOf(GroupedMaterial gm) {
+        long inUse = gm.getMaterials().stream()
+                .filter(m -> !"available".equalsIgnoreCase(m.getMaterial_status()))
+                .count();
+        return 0.5 * Math.log1p(inUse);
+    }
+
+    /**
+     * Counts the materials matching some criteria by value of a facet, with the DAO: type and genre IDs are
+     * translated into their names, and the materials without a (named) value are left out.
+     */
+    private static Map<String, Integer> countByName(MaterialDAO materialDao, String facet, MaterialCriteria criteria,
+                                                    Map<Integer, String> materialTypeMap,
+                                                    Map<Integer, String> genreMap) throws DAOException {
+        Map<String, Integer> counts = new HashMap<>();
+        switch (facet) {
+            case TYPE_FACET -> materialDao.countByType(criteria).forEach((id, count) ->
+                    mergeNamed(counts, id == null ? null : materialTypeMap.get(id), count));
+            case STATUS_FACET -> materialDao.countByStatus(criteria).forEach((status, count) ->
+                    mergeNamed(counts, status, count));
+            case GENRE_FACET -> materialDao.countByGenre(criteria).forEach((id, count) ->
+                    mergeNamed(counts, id == null ? null : genreMap.get(id), count));
+            default -> throw new IllegalArgumentException("Unknown facet: " + facet);
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the values of a facet among the materials matching some criteria, listing every value of the materials
+     * matching other criteria (the whole catalog) with a count of 0 if none of the first ones has it.
+     */
+    private static SortedMap<String, Integer> countFacet(MaterialDAO materialDao, String facet, MaterialCriteria all,
+                                                         MaterialCriteria criteria,
+                                                         Map<Integer, String> materialTypeMap,
+                                                         Map<Integer, String> genreMap) throws DAOException {
+        SortedMap<String, Integer> counts = new TreeMap<>();
+        for (String value : countByName(materialDao, facet, all, materialTypeMap, genreMap).keySet()) {
+            counts.put(value, 0);
+        }
+        counts.putAll(countByName(materialDao, facet, criteria, materialTypeMap, genreMap));
+        return counts;
+    }
+
+    private static void mergeNamed(Map<String, Integer> counts, String name, int count) {
+        if (name != null) counts.merge(name, count, Integer::sum);
+    }
+
+    /**
+     * Returns the IDs whose name is among the selected names.
+     */
+    private Set<Integer> idsOfNames(Map<Integer, String> namesById, Set<String> selectedNames) {
+        return namesById.entrySet().stream()
+                .filter(e -> selectedNames.contains(e.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
-}
\ No newline at end of file
+}
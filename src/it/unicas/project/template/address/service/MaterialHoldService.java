@@ -4,19 +4,17 @@ import it.unicas.project.template.address.model.Hold;
 import it.unicas.project.template.address.model.Material;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.DAOMySQLSettings;
-import it.unicas.project.template.address.model.dao.mysql.HoldDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.UnitOfWork;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.time.LocalDateTime;
 
 /**
  * Service layer that groups material + hold operations into a single transaction.
  * <p>
  * This class ensures that linked database operations (e.g., updating a material's
- * status and inserting a hold record) are performed atomically using SQL transactions.
+ * status and inserting a hold record) are performed atomically: the DAO calls of one
+ * operation run inside a {@link UnitOfWork}, so they share one connection and one commit.
  * It uses generic DAO<T> interface types for database interaction.
  * </p>
  *
@@ -25,37 +23,47 @@ import java.time.LocalDateTime;
 public class MaterialHoldService {
 
     // --- Dependencies ---
-    // Use the DAO interface type — these getInstance() methods return DAO<T>
-    private final DAO<Material> materialDAO = MaterialDAOMySQLImpl.getInstance();
-    private final DAO<Hold> holdDAO = HoldDAOMySQLImpl.getInstance();
+    // Use the DAO interface type — the DAOs of the backend selected at startup
+    private final DAO<Material> materialDAO = DAOFactory.getMaterialDAO();
+    private final DAO<Hold> holdDAO = DAOFactory.getHoldDAO();
 
     /**
      * Atomically place a hold on the given material for the given user.
      * This method:
      *  - sets material status to "holded" (match your existing status strings)
      *  - inserts a Hold record linking user and material with current timestamp
+     * Both statements run in one {@link UnitOfWork}: if either fails, neither is applied
+     * and the material keeps its previous status.
      */
     public void holdMaterial(int userId, Material material) throws DAOException {
-        Connection conn = null; // should be static in your project
-        try {
-            conn = DAOMySQLSettings.getConnection();
-            conn.setAutoCommit(false);
+        holdMaterial(userId, material, null);
+    }
+
+    /**
+     * Atomically place a hold, as {@link #holdMaterial(int, Material)}, and record it in the
+     * user's hold index once committed.
+     *
+     * @param holds The index of the user's holds shown by the caller, or {@code null}.
+     */
+    public void holdMaterial(int userId, Material material, UserHoldIndex holds) throws DAOException {
+        Hold hold;
+        String previousStatus = material.getMaterial_status();
+        try (UnitOfWork uow = UnitOfWork.begin()) {
             // Update material status
             material.setMaterial_status("holded"); // keep same status string you use elsewhere
             materialDAO.update(material);
 
             // Create & insert Hold
-            Hold hold = new Hold(userId, material.getIdMaterial(), LocalDateTime.now());
+            hold = new Hold(userId, material.getIdMaterial(), LocalDateTime.now());
             holdDAO.insert(hold);
 
-            conn.commit();
+            uow.commit();
 
         } catch (Exception e) {
-            try { if (conn != null) conn.rollback(); } catch (SQLException ignored) {}
+            material.setMaterial_status(previousStatus);
             throw new DAOException("Failed to place hold: " + e.getMessage());
-        } finally {
-            try { if (conn != null) { conn.setAutoCommit(true); conn.close(); } } catch (SQLException ignored) {}
         }
+        if (holds != null) holds.added(hold);
     }
 
     /**
@@ -63,27 +71,30 @@ public class MaterialHoldService {
      * Accepts the found Hold instance and the Material to update.
      */
     public void releaseHold(Hold hold, Material material) throws DAOException {
-        Connection conn = null;
-        try {
-            conn = DAOMySQLSettings.getConnection();
-            conn.setAutoCommit(false);
+        releaseHold(hold, material, null);
+    }
 
+    /**
+     * Atomically release a hold, as {@link #releaseHold(Hold, Material)}, and remove it from the
+     * user's hold index once committed.
+     *
+     * @param holds The index of the user's holds shown by the caller, or {@code null}.
+     */
+    public void releaseHold(Hold hold, Material material, UserHoldIndex holds) throws DAOException {
+        String previousStatus = material.getMaterial_status();
+        try (UnitOfWork uow = UnitOfWork.begin()) {
             // Delete the hold record
             holdDAO.delete(hold);
 
             material.setMaterial_status("available");
             materialDAO.update(material);
 
-            conn.commit();
+            uow.commit();
 
-        } catch (SQLException e) {
-            try { if (conn != null) conn.rollback(); } catch (SQLException ex) {
-                throw new DAOException("Rollback failed");
-            }
-            throw new DAOException("Failed to release hold");
-        } finally {
-            try { if (conn != null) { conn.setAutoCommit(true); conn.close(); } } catch (SQLException ignored) {}
+        } catch (DAOException e) {
+            material.setMaterial_status(previousStatus);
+            throw new DAOException("Failed to release hold: " + e.getMessage());
         }
+        if (holds != null) holds.removed(hold);
     }
 }
-
@@ -4,7 +4,7 @@ import it.unicas.project.template.address.model.Material;
 import it.unicas.project.template.address.model.MaterialGenre;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.MaterialGenreDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
 
 import java.util.List;
 import java.util.logging.Logger;
@@ -23,7 +23,7 @@ public class MaterialService {
     private static final Logger logger = Logger.getLogger(MaterialService.class.getName());
 
     // --- Dependencies ---
-    // Use the DAO interface type, initialized with MySQL implementations.
+    // Use the DAO interface type, initialized with the implementations of the selected backend.
     private final DAO<Material> materialDao;
     private final DAO<MaterialGenre> materialGenreDAO;
 
@@ -35,7 +35,7 @@ public class MaterialService {
     public MaterialService(DAO<Material> materialDao) {
         this.materialDao = materialDao;
         // Initialize other DAOs needed by the service methods
-        this.materialGenreDAO = MaterialGenreDAOMySQLImpl.getInstance();
+        this.materialGenreDAO = DAOFactory.getMaterialGenreDAO();
     }
 
     /**
@@ -1,8 +1,9 @@
 package it.unicas.project.template.address.service;
 
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.LoanDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.HoldDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.HoldDAO;
+import it.unicas.project.template.address.model.dao.LoanDAO;
 import it.unicas.project.template.address.model.OverdueLoan; // For notifying about overdue loans
 import it.unicas.project.template.address.model.ExpiringHoldInfo; // For notifying about holds
 
@@ -21,22 +22,22 @@ import java.util.stream.Collectors;
 public class NotificationsService {
 
     // Instance of the DAO to fetch data
-    private final LoanDAOMySQLImpl loanDAO;
-    private final HoldDAOMySQLImpl holdDAO;
+    private final LoanDAO loanDAO;
+    private final HoldDAO holdDAO;
     // Access Keyword Explanation: {@code private final} - These fields hold the
     // necessary Data Access Objects (DAOs). They are private to enforce encapsulation
     // and final because dependencies should not change after construction.
 
     /**
-     * 1. Production Constructor: Initializes DAOs using the singleton pattern.
+     * 1. Production Constructor: Initializes DAOs from the backend selected in {@link DAOFactory}.
      *
      * Access Keyword Explanation: {@code public} - Standard constructor used
      * when the service is instantiated within the application context.
      */
     public NotificationsService() {
-        // Initialize the DAO instance by retrieving the Singleton instance
-        this.loanDAO = (LoanDAOMySQLImpl) LoanDAOMySQLImpl.getInstance();
-        this.holdDAO = (HoldDAOMySQLImpl) HoldDAOMySQLImpl.getInstance();
+        // Initialize the DAO instances of the selected backend
+        this.loanDAO = DAOFactory.getLoanDAO();
+        this.holdDAO = DAOFactory.getHoldDAO();
     }
 
     /**
@@ -48,7 +49,7 @@ public class NotificationsService {
      * @param loanDAO The mock/real Loan DAO implementation.
      * @param holdDAO The mock/real Hold DAO implementation.
      */
-    public NotificationsService(LoanDAOMySQLImpl loanDAO, HoldDAOMySQLImpl holdDAO) {
+    public NotificationsService(LoanDAO loanDAO, HoldDAO holdDAO) {
         this.loanDAO = loanDAO;
         this.holdDAO = holdDAO;
     }
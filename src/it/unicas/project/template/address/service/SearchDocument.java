@@ -0,0 +1,241 @@
+package it.unicas.project.template.address.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The search words of one item, tokenized once and reused by every search while the item's field values stay the
+ * same.
+ * <p>
+ * Each field keeps its distinct words with the periods removed: a text word matches a search word when its dotless
+ * form starts with the dotless search word, which is both the plain prefix match and the "jk" finds "j.k." one. The
+ * words are kept in the order the previous per-search {@code HashSet}s iterated them, so the greedy distinct-word
+ * matching of {@link #matchesAll} pairs words exactly as before.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Built and cached by {@link SearchService}, also read by
+ * {@link SearchIndex}.
+ */
+final class SearchDocument {
+
+    private static final int MASK_BITS = Long.SIZE;
+
+    /** Highest {@link #matchQuality}: whole words, all first in the field. */
+    static final double MAX_MATCH_QUALITY = 1.5;
+
+    private final String[] values;       // Field values the document was built from
+    final String[][] fieldKeys;          // Dotless distinct words of each field (null for a null field)
+    final String[] allKeys;              // Dotless distinct words of all fields, for cross-field matches
+    private volatile int[][] positions;  // Position in its field of each word of fieldKeys, built for ranking
+
+    /**
+     * Tokenizes the fields of an item.
+     *
+     * @param values The field values, in priority order.
+     */
+    SearchDocument(String[] values) {
+        this.values = values;
+        this.fieldKeys = new String[values.length][];
+
+        Set<String> allWords = new HashSet<>();
+        for (int f = 0; f < values.length; f++) {
+            if (values[f] == null) continue;
+            Set<String> words = SearchService.extractWords(values[f].toLowerCase());
+            fieldKeys[f] = keysOf(words);
+            allWords.addAll(words);
+        }
+        allKeys = keysOf(allWords);
+    }
+
+    /**
+     * Returns whether the document still describes an item, i.e. none of its field values has changed.
+     *
+     * @param item The item.
+     * @param fieldExtractors The functions extracting its fields.
+     * @return true if the document can be reused for the item.
+     */
+    <T> boolean describes(T item, List<Function<T, String>> fieldExtractors) {
+        if (values.length != fieldExtractors.size()) return false;
+        for (int f = 0; f < values.length; f++) {
+            String value = fieldExtractors.get(f).apply(item);
+            // Same string object in the common case (property getters), equal text for computed fields
+            if (value != values[f] && !Objects.equals(value, values[f])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if every search word matches a DISTINCT text word: each search word takes the first free text word
+     * it matches.
+     *
+     * @param textKeys Dotless text words, or {@code null} for a null field.
+     * @param searchKeys Dotless search words.
+     * @return true if all search words matched.
+     */
+    static boolean matchesAll(String[] textKeys, String[] searchKeys) {
+        if (textKeys == null || searchKeys.length > textKeys.length) {
+            return false;
+        }
+        if (textKeys.length > MASK_BITS) {
+            return matchesAllLarge(textKeys, searchKeys);
+        }
+
+        long used = 0; // Bit i set: text word i is already matched
+        for (String searchKey : searchKeys) {
+            int match = -1;
+            for (int i = 0; i < textKeys.length; i++) {
+                if ((used & (1L << i)) == 0 && textKeys[i].startsWith(searchKey)) {
+                    match = i;
+                    break;
+                }
+            }
+            if (match < 0) {
+                return false;
+            }
+            used |= 1L << match;
+        }
+        return true;
+    }
+
+    /**
+     * {@link #matchesAll} for fields with more distinct words than fit in a bit mask.
+     */
+    private static boolean matchesAllLarge(String[] textKeys, String[] searchKeys) {
+        boolean[] used = new boolean[textKeys.length];
+        for (String searchKey : searchKeys) {
+            boolean found = false;
+            for (int i = 0; i < textKeys.length; i++) {
+                if (!used[i] && textKeys[i].startsWith(searchKey)) {
+                    used[i] = true;
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Typo-tolerant {@link #matchesAll}: a search word may also take a text word among its close terms, when no free
+     * text word starts with it. Each search word takes the first free text word it is a prefix of, or else the free
+     * close term nearest to it.
+     *
+     * @param textKeys Dotless text words, or {@code null} for a null field.
+     * @param searchKeys Dotless search words.
+     * @param closeTerms For each search word, the terms within the allowed edit distance, with their distance.
+     * @return The sum of the edit distances of the text words taken, or -1 if some search word matched nothing.
+     */
+    static int fuzzyCost(String[] textKeys, String[] searchKeys, Map<String, Integer>[] closeTerms) {
+        if (textKeys == null || searchKeys.length > textKeys.length) {
+            return -1;
+        }
+        boolean[] used = new boolean[textKeys.length];
+        int cost = 0;
+        for (int w = 0; w < searchKeys.length; w++) {
+            int match = -1;
+            int matchDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < textKeys.length && matchDistance > 0; i++) {
+                if (used[i]) continue;
+                if (textKeys[i].startsWith(searchKeys[w])) {
+                    match = i;
+                    matchDistance = 0;
+                } else {
+                    Integer distance = closeTerms[w].get(textKeys[i]);
+                    if (distance != null && distance < matchDistance) {
+                        match = i;
+                        matchDistance = distance;
+                    }
+                }
+            }
+            if (match < 0) {
+                return -1;
+            }
+            used[match] = true;
+            cost += matchDistance;
+        }
+        return cost;
+    }
+
+    /**
+     * Rates how well search words match a field (or, with {@code field == fieldKeys.length}, all fields), assuming
+     * they match: each search word adds 1 if it is a whole word rather than a prefix, and up to 0.5 the earlier its
+     * word comes in the field (cross-field matches have no position). The words are paired as in {@link #matchesAll}.
+     *
+     * @param field The field the search words matched in.
+     * @param searchKeys Dotless search words.
+     * @return The average rating of the search words, between 0 and 1.5.
+     */
+    double matchQuality(int field, String[] searchKeys) {
+        boolean crossField = field == fieldKeys.length;
+        String[] textKeys = crossField ? allKeys : fieldKeys[field];
+        int[] wordPositions = crossField ? null : positions()[field];
+
+        boolean[] used = new boolean[textKeys.length];
+        double quality = 0;
+        for (String searchKey : searchKeys) {
+            for (int i = 0; i < textKeys.length; i++) {
+                if (!used[i] && textKeys[i].startsWith(searchKey)) {
+                    used[i] = true;
+                    if (textKeys[i].length() == searchKey.length()) quality += 1;
+                    if (wordPositions != null) quality += 0.5 / (1 + wordPositions[i]);
+                    break;
+                }
+            }
+        }
+        return quality / searchKeys.length;
+    }
+
+    /**
+     * Returns the positions of the words of {@link #fieldKeys}, computing them on first use.
+     */
+    private int[][] positions() {
+        int[][] result = positions;
+        if (result == null) {
+            result = new int[values.length][];
+            for (int f = 0; f < values.length; f++) {
+                if (values[f] == null) continue;
+                String text = values[f].toLowerCase();
+
+                // Same tokens as extractWords, in text order
+                Map<String, Integer> firstPosition = new HashMap<>();
+                for (String token : text.split("[\\s,]+")) {
+                    String word = token.replaceAll("^[.\\-]+|[.\\-]+$", "");
+                    if (!word.isEmpty()) firstPosition.putIfAbsent(word, firstPosition.size());
+                }
+                // Same word order as fieldKeys
+                Set<String> words = SearchService.extractWords(text);
+                result[f] = new int[words.size()];
+                int i = 0;
+                for (String word : words) {
+                    result[f][i++] = firstPosition.get(word);
+                }
+            }
+            positions = result;
+        }
+        return result;
+    }
+
+    /**
+     * Removes the periods of a word (so "jk" finds "j.k.").
+     */
+    static String dotless(String word) {
+        return word.replace(".", "");
+    }
+
+    private static String[] keysOf(Set<String> words) {
+        String[] keys = new String[words.size()];
+        int i = 0;
+        for (String word : words) {
+            keys[i++] = dotless(word);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,45 @@
+package it.unicas.project.template.address.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event emitted for every {@link SearchService#searchAndSort} and
+ * {@link SearchIndex#searchAndSort} call.
+ *
+ * Access Keyword Explanation: package-private - Emitted only by the services of this package.
+ */
+@Name("it.unicas.library.Search")
+@Label("Search")
+@Category({"Library", "Search"})
+@Description("A prioritized multi-field search")
+final class SearchEvent extends Event {
+
+    @Label("Input Size")
+    int inputSize;
+
+    @Label("Result Size")
+    int resultSize;
+
+    @Label("Term Length")
+    @Description("Length of the trimmed search term")
+    int termLength;
+
+    @Label("Fields")
+    int fieldCount;
+
+    @Label("Indexed")
+    @Description("Whether the search used a SearchIndex")
+    boolean indexed;
+
+    @Label("Fuzzy")
+    @Description("Whether the search also tolerated typos")
+    boolean fuzzy;
+
+    @Label("Refined")
+    @Description("Whether only the matches of the previous search were examined")
+    boolean refined;
+}
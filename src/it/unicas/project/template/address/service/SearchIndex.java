@@ -0,0 +1,604 @@
+package it.unicas.project.template.address.service;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.collections.ObservableList;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Inverted prefix index over a list of items: the index-backed search mode of {@link SearchService}.
+ * <p>
+ * The dotless words of every field of every item (see {@link SearchDocument}) are stored in a sorted term
+ * dictionary per field, pointing to the (sorted) posting list of the items containing them. A search word then matches the terms in the dictionary range starting with it
+ * (which covers both the plain prefix match and the dotless one, so "jk" finds "j.k."), and only the items present
+ * in the posting lists of every search word are examined. Those are classified by the same distinct-word matching as
+ * {@link SearchService#searchAndSort}, in the same field-priority buckets followed by cross-field matches, so the
+ * results are identical; the work per search grows with the number of matching items, not with the catalog.
+ * </p>
+ * <p>
+ * The index can be searched with the indexed list or any subset of it; items it does not know are matched without
+ * the index. It is a snapshot: when the indexed list is an {@code ObservableList} the index notices changes to the
+ * list (see {@link #isCurrentFor(List)}), but an item edited in place must be reported with {@link #update(Object)}.
+ * </p>
+ * <p>
+ * Like {@link SearchService}, the index remembers its last search: a search refining it only classifies the previous
+ * matches, without looking up any posting list.
+ * </p>
+ * <p>
+ * {@link #searchFuzzy} also tolerates typos, finding the indexed terms close to each search word in a BK-tree of the
+ * term dictionary, and {@link #suggest} proposes a corrected query.
+ * </p>
+ *
+ * @param <T> The type of object being searched
+ */
+public class SearchIndex<T> {
+
+    private final List<T> source;
+    private final int size;
+    private final List<Function<T, String>> fieldExtractors;
+    private final SearchService<T> matcher = new SearchService<>();
+
+    private final List<T> documents;
+    private final IdentityHashMap<T, Integer> documentIds = new IdentityHashMap<>();
+    private final FieldIndex[] fields;
+    private final Set<T> updated = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private final SearchRefinement<T> refinement = new SearchRefinement<>();
+    private volatile TermTree termTree;  // Built on the first typo-tolerant search
+
+    private final InvalidationListener invalidationListener = observable -> invalidate();
+    private volatile boolean stale = false;
+
+    /**
+     * Indexes a list of items. The document ID of an item is its position in the list.
+     *
+     * @param items The items to index.
+     * @param fieldExtractors Ordered list of functions to extract searchable text from each item.
+     */
+    SearchIndex(List<T> items, List<Function<T, String>> fieldExtractors) {
+        this.source = items;
+        this.documents = new ArrayList<>(items);
+        this.size = documents.size();
+        this.fieldExtractors = fieldExtractors;
+
+        List<Map<String, IntList>> postings = new ArrayList<>();
+        for (int f = 0; f < fieldExtractors.size(); f++) {
+            postings.add(new HashMap<>());
+        }
+        for (int id = 0; id < size; id++) {
+            T item = documents.get(id);
+            documentIds.putIfAbsent(item, id);
+            SearchDocument document = matcher.document(item, fieldExtractors);
+            for (int f = 0; f < fieldExtractors.size(); f++) {
+                if (document.fieldKeys[f] == null) continue;
+                for (String key : document.fieldKeys[f]) {
+                    postings.get(f).computeIfAbsent(key, k -> new IntList()).addOnce(id);
+                }
+            }
+        }
+
+        fields = new FieldIndex[fieldExtractors.size()];
+        for (int f = 0; f < fields.length; f++) {
+            fields[f] = new FieldIndex(postings.get(f), size);
+        }
+
+        if (items instanceof ObservableList<T> observable) {
+            observable.addListener(new WeakInvalidationListener(invalidationListener));
+        }
+    }
+
+    /**
+     * Returns whether this index still describes a list: it must be the indexed list, with the same size and, for
+     * an {@code ObservableList}, not modified since it was indexed.
+     *
+     * @param items The list about to be searched.
+     * @return true if the index can be used for {@code items} (or its subsets).
+     */
+    public boolean isCurrentFor(List<T> items) {
+        return !stale && items == source && items.size() == size;
+    }
+
+    /**
+     * Marks the index as no longer describing its list.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Reports an item edited in place: from now on it is matched without the index.
+     *
+     * @param item The edited item.
+     */
+    public void update(T item) {
+        updated.add(item);
+        refinement.forget();
+    }
+
+    /**
+     * Searches and sorts items exactly like {@link SearchService#searchAndSort}, using the index.
+     *
+     * @param items The indexed list, or a subset of it, in the order the results must follow
+     * @param searchTerm The search term
+     * @return Sorted list with matches ordered by field priority
+     */
+    public List<T> searchAndSort(List<T> items, String searchTerm) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+
+        List<T> result = search(items, searchTerm, event);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.inputSize = items.size();
+            event.resultSize = result.size();
+            event.termLength = searchTerm == null ? 0 : searchTerm.trim().length();
+            event.fieldCount = fieldExtractors.size();
+            event.indexed = true;
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Searches like {@link #searchAndSort}, then adds the items that only match when the search words may be
+     * misspelled: a word of 4 to 7 characters may be 1 edit (insertion, deletion or substitution) away from an
+     * indexed word, a longer one 2, up to {@code maxDistance}. The exact and prefix matches come first, in the order of
+     * {@link #searchAndSort}; the typo-tolerant ones follow, fewest edits first, then by field priority and list
+     * order. Only indexed words are corrected: items the index does not describe only match exactly.
+     *
+     * @param items The indexed list, or a subset of it, in the order the results must follow
+     * @param searchTerm The search term
+     * @param maxDistance The maximum number of edits per search word (0 to search exactly)
+     * @return The exact matches followed by the typo-tolerant ones
+     */
+    public List<T> searchFuzzy(List<T> items, String searchTerm, int maxDistance) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+
+        List<T> result = search(items, searchTerm, event);
+        if (searchTerm != null && !searchTerm.trim().isEmpty() && maxDistance > 0) {
+            result.addAll(fuzzyMatches(items, SearchService.searchKeys(searchTerm), maxDistance, result));
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.inputSize = items.size();
+            event.resultSize = result.size();
+            event.termLength = searchTerm == null ? 0 : searchTerm.trim().length();
+            event.fieldCount = fieldExtractors.size();
+            event.indexed = true;
+            event.fuzzy = true;
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Starts building, on the common fork/join pool, the term tree used by {@link #searchFuzzy} and
+     * {@link #suggest}, so that the first of them does not have to build it (which takes a few hundred milliseconds
+     * for a large catalog).
+     */
+    public void prepareFuzzySearch() {
+        if (termTree == null) {
+            ForkJoinPool.commonPool().execute(this::termTree);
+        }
+    }
+
+    /**
+     * Proposes a corrected search term ("did you mean"): every search word that no indexed word starts with is
+     * replaced by the closest indexed word (the most common one among equally close words).
+     *
+     * @param searchTerm The search term
+     * @return The corrected term, or {@code null} if no word needs correcting or some word has no close indexed word
+     */
+    public String suggest(String searchTerm) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return null;
+        }
+        String[] searchKeys = SearchService.searchKeys(searchTerm);
+        String[] words = new String[searchKeys.length];
+        boolean corrected = false;
+        for (int w = 0; w < searchKeys.length; w++) {
+            if (isIndexedPrefix(searchKeys[w])) {
+                words[w] = searchKeys[w];
+            } else {
+                // Even short words get one edit here: a suggestion costs nothing when it is wrong
+                words[w] = termTree().closest(searchKeys[w], Math.max(1, allowedDistance(searchKeys[w], 2)));
+                if (words[w] == null) return null;
+                corrected = true;
+            }
+        }
+        return corrected ? String.join(" ", words) : null;
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * Body of {@link #searchAndSort}, measured there as a {@link SearchEvent}.
+     */
+    private List<T> search(List<T> items, String searchTerm, SearchEvent event) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return new ArrayList<>(items);
+        }
+        String[] searchKeys = SearchService.searchKeys(searchTerm);
+
+        List<T> candidates = refinement.candidates(items, searchKeys, fieldExtractors);
+        event.refined = candidates != items;
+        List<T> result = event.refined
+                ? classifyAll(candidates, unindexed(candidates.size()), searchKeys, null)
+                : searchIndex(items, searchKeys);
+        refinement.remember(items, searchKeys, fieldExtractors, result);
+        return result;
+    }
+
+    /**
+     * Searches the items through the posting lists.
+     */
+    private List<T> searchIndex(List<T> items, String[] searchKeys) {
+        int fieldCount = fields.length;
+
+        // Posting lists of every search word in every field, and the items containing every word in some field
+        int[][][] wordPostings = new int[searchKeys.length][fieldCount][];
+        int[] candidates = null;
+        for (int w = 0; w < searchKeys.length; w++) {
+            for (int f = 0; f < fieldCount; f++) {
+                wordPostings[w][f] = fields[f].postingsWithPrefix(searchKeys[w]);
+            }
+            int[] anyField = union(wordPostings[w], size);
+            candidates = candidates == null ? anyField : intersect(candidates, anyField);
+        }
+
+        // Per field, the items containing every search word there: the only ones worth matching in that field
+        BitSet[] inField = new BitSet[fieldCount];
+        for (int f = 0; f < fieldCount; f++) {
+            int[] everyWord = wordPostings[0][f];
+            for (int w = 1; w < searchKeys.length; w++) everyWord = intersect(everyWord, wordPostings[w][f]);
+            inField[f] = new BitSet(size);
+            for (int id : everyWord) inField[f].set(id);
+        }
+
+        Set<T> edited = snapshotOfUpdated();
+        if (isIndexedList(items, candidates, edited)) {
+            return classifyAll(new IdList(candidates), candidates, searchKeys, inField);
+        }
+
+        // A subset (or a changed list): look the items up by identity, in the order given
+        BitSet isCandidate = new BitSet(size);
+        for (int id : candidates) isCandidate.set(id);
+
+        List<T> visited = new ArrayList<>();
+        IntList visitedIds = new IntList();
+        for (T item : items) {
+            Integer id = documentIds.get(item);
+            if (id == null || edited.contains(item)) {
+                // Not (or no longer) described by the index
+                visited.add(item);
+                visitedIds.add(-1);
+            } else if (isCandidate.get(id)) {
+                visited.add(item);
+                visitedIds.add(id);
+            }
+        }
+        return classifyAll(visited, visitedIds.toArray(), searchKeys, inField);
+    }
+
+    /**
+     * Returns whether {@code items} is the unchanged indexed list, whose candidates can be visited directly: they
+     * are already in list order.
+     */
+    private boolean isIndexedList(List<T> items, int[] candidates, Set<T> edited) {
+        if (items != source || stale || items.size() != size || !edited.isEmpty()) return false;
+        for (int id : candidates) {
+            if (items.get(id) != documents.get(id)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Classifies the items into the field-priority buckets through {@link SearchService#sortIntoBuckets} (in
+     * parallel for large lists). {@code ids} are the document IDs of the items, or -1 for an item matched like
+     * {@link SearchService#classify} (not described by the index, or searched without the posting lists); the others
+     * skip the fields that the posting lists rule out.
+     */
+    private List<T> classifyAll(List<T> items, int[] ids, String[] searchKeys, BitSet[] inField) {
+        return matcher.sortIntoBuckets(items, fields.length + 1, fieldExtractors, (position, document) -> {
+            int id = ids[position];
+            return id < 0 ? SearchService.classify(document, searchKeys) : classify(document, id, searchKeys, inField);
+        });
+    }
+
+    private static int[] unindexed(int count) {
+        int[] ids = new int[count];
+        Arrays.fill(ids, -1);
+        return ids;
+    }
+
+    /**
+     * Same as {@link SearchService#classify}, skipping the fields that the posting lists rule out.
+     */
+    private int classify(SearchDocument document, int id, String[] searchKeys, BitSet[] inField) {
+        for (int f = 0; f < fields.length; f++) {
+            if (inField[f].get(id) && SearchDocument.matchesAll(document.fieldKeys[f], searchKeys)) {
+                return f;
+            }
+        }
+        return SearchDocument.matchesAll(document.allKeys, searchKeys) ? fields.length : -1;
+    }
+
+    /**
+     * Returns the items of {@code items} that are not among the exact matches but match with typos, sorted by
+     * number of edits, then field priority, then list order.
+     */
+    private List<T> fuzzyMatches(List<T> items, String[] searchKeys, int maxDistance, List<T> exactMatches) {
+        TermTree tree = termTree();
+        @SuppressWarnings({"unchecked", "rawtypes"}) // No generic array creation in Java
+        Map<String, Integer>[] closeTerms = new Map[searchKeys.length];
+        boolean anyCloseTerm = false;
+        for (int w = 0; w < searchKeys.length; w++) {
+            closeTerms[w] = tree.within(searchKeys[w], allowedDistance(searchKeys[w], maxDistance));
+            anyCloseTerm |= !closeTerms[w].isEmpty();
+        }
+        if (!anyCloseTerm) {
+            return List.of();
+        }
+
+        // The items containing, for every search word, a word starting with it or close to it
+        int[] candidates = null;
+        for (int w = 0; w < searchKeys.length; w++) {
+            List<int[]> lists = new ArrayList<>();
+            for (FieldIndex field : fields) {
+                lists.add(field.postingsWithPrefix(searchKeys[w]));
+                for (String term : closeTerms[w].keySet()) {
+                    lists.add(field.postingsOf(term));
+                }
+            }
+            int[] anyField = union(lists.toArray(new int[0][]), size);
+            candidates = candidates == null ? anyField : intersect(candidates, anyField);
+        }
+        BitSet isCandidate = new BitSet(size);
+        for (int id : candidates) isCandidate.set(id);
+
+        Set<T> exact = Collections.newSetFromMap(new IdentityHashMap<>(exactMatches.size() * 2));
+        exact.addAll(exactMatches);
+        Set<T> edited = snapshotOfUpdated();
+        List<T> visited = new ArrayList<>();
+        if (isIndexedList(items, candidates, edited)) {
+            for (int id : candidates) {
+                T item = documents.get(id);
+                if (!exact.contains(item)) visited.add(item);
+            }
+        } else {
+            for (T item : items) {
+                if (exact.contains(item)) continue;
+                Integer id = documentIds.get(item);
+                if (id == null || edited.contains(item) || isCandidate.get(id)) {
+                    visited.add(item);
+                }
+            }
+        }
+
+        SearchDocument[] documents = matcher.documents(visited, fieldExtractors);
+        List<FuzzyMatch<T>> matches = new ArrayList<>();
+        for (int i = 0; i < documents.length; i++) {
+            // The field matching with the fewest edits (the first one among equals), else all fields together
+            int bestField = -1;
+            int bestCost = Integer.MAX_VALUE;
+            for (int f = 0; f < fields.length; f++) {
+                int cost = SearchDocument.fuzzyCost(documents[i].fieldKeys[f], searchKeys, closeTerms);
+                if (cost >= 0 && cost < bestCost) {
+                    bestField = f;
+                    bestCost = cost;
+                }
+            }
+            if (bestField < 0) {
+                bestCost = SearchDocument.fuzzyCost(documents[i].allKeys, searchKeys, closeTerms);
+                bestField = fields.length;
+            }
+            if (bestCost >= 0) {
+                matches.add(new FuzzyMatch<>(visited.get(i), bestCost, bestField));
+            }
+        }
+
+        // Stable sort: list order among equal matches
+        matches.sort(Comparator.<FuzzyMatch<T>>comparingInt(m -> m.cost).thenComparingInt(m -> m.field));
+        List<T> result = new ArrayList<>(matches.size());
+        for (FuzzyMatch<T> match : matches) {
+            result.add(match.item);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of edits a search word may be away from an indexed word: none for words of up to 3
+     * characters (too many words are 1 edit away), 1 up to 7 characters, 2 beyond, and never more than
+     * {@code maxDistance}.
+     */
+    private static int allowedDistance(String searchKey, int maxDistance) {
+        int allowed = searchKey.length() <= 3 ? 0 : searchKey.length() <= 7 ? 1 : 2;
+        return Math.min(allowed, maxDistance);
+    }
+
+    private boolean isIndexedPrefix(String searchKey) {
+        for (FieldIndex field : fields) {
+            if (field.postingsWithPrefix(searchKey).length > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the BK-tree of the indexed terms of all fields, building it on first use.
+     */
+    private TermTree termTree() {
+        TermTree tree = termTree;
+        if (tree == null) {
+            synchronized (this) {
+                tree = termTree;
+                if (tree == null) {
+                    Map<String, Integer> frequencies = new HashMap<>();
+                    for (FieldIndex field : fields) {
+                        for (int i = 0; i < field.terms.length; i++) {
+                            frequencies.merge(field.terms[i], field.postings[i].length, Integer::sum);
+                        }
+                    }
+                    // Hash order rather than sorted order, which would build long chains of close terms
+                    tree = new TermTree();
+                    for (Map.Entry<String, Integer> term : frequencies.entrySet()) {
+                        tree.add(term.getKey(), term.getValue());
+                    }
+                    termTree = tree;
+                }
+            }
+        }
+        return tree;
+    }
+
+    private record FuzzyMatch<T>(T item, int cost, int field) {
+    }
+
+    private Set<T> snapshotOfUpdated() {
+        synchronized (updated) {
+            if (updated.isEmpty()) return Collections.emptySet();
+            Set<T> snapshot = Collections.newSetFromMap(new IdentityHashMap<>());
+            snapshot.addAll(updated);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Returns the sorted union of sorted posting lists of IDs below {@code universe}.
+     */
+    private static int[] union(int[][] lists, int universe) {
+        int total = 0;
+        for (int[] list : lists) total += list.length;
+        if (total > universe / 8) {
+            // Dense: merging through a bit set is cheaper than sorting
+            BitSet ids = new BitSet(universe);
+            for (int[] list : lists) {
+                for (int id : list) ids.set(id);
+            }
+            return ids.stream().toArray();
+        }
+        int[] all = new int[total];
+        int n = 0;
+        for (int[] list : lists) {
+            System.arraycopy(list, 0, all, n, list.length);
+            n += list.length;
+        }
+        return sortedDistinct(all);
+    }
+
+    /**
+     * Returns the intersection of two sorted posting lists.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int[] sortedDistinct(int[] values) {
+        Arrays.sort(values);
+        int n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (n == 0 || values[i] != values[n - 1]) values[n++] = values[i];
+        }
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+
+    /**
+     * Sorted term dictionary of one field, with the posting list of each term.
+     */
+    private static final class FieldIndex {
+        private final String[] terms;
+        private final int[][] postings;
+        private final int universe;
+
+        private FieldIndex(Map<String, IntList> postingsByTerm, int universe) {
+            this.universe = universe;
+            terms = postingsByTerm.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            postings = new int[terms.length][];
+            for (int i = 0; i < terms.length; i++) {
+                postings[i] = postingsByTerm.get(terms[i]).toArray();
+            }
+        }
+
+        /**
+         * Returns the sorted items containing {@code term}.
+         */
+        int[] postingsOf(String term) {
+            int i = Arrays.binarySearch(terms, term);
+            return i < 0 ? new int[0] : postings[i];
+        }
+
+        /**
+         * Returns the sorted items containing a term that starts with {@code prefix}.
+         */
+        int[] postingsWithPrefix(String prefix) {
+            int from = Arrays.binarySearch(terms, prefix);
+            if (from < 0) from = -from - 1;
+            int to = from;
+            while (to < terms.length && terms[to].startsWith(prefix)) to++;
+
+            if (to - from == 1) return postings[from];
+            int[][] lists = new int[to - from][];
+            for (int i = from; i < to; i++) lists[i - from] = postings[i];
+            return union(lists, universe);
+        }
+    }
+
+    /**
+     * The indexed items with the given IDs, as a list.
+     */
+    private final class IdList extends AbstractList<T> implements RandomAccess {
+        private final int[] ids;
+
+        private IdList(int[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public T get(int index) {
+            return documents.get(ids[index]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Growable list of item IDs.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addOnce(int value) {
+            if (size > 0 && values[size - 1] == value) return;
+            add(value);
+        }
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
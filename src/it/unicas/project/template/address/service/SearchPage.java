@@ -0,0 +1,60 @@
+package it.unicas.project.template.address.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the results of a ranked search (see {@link SearchService#searchRanked}).
+ *
+ * Access Keyword Explanation: {@code public} - Returned to the controllers, which show the page and use the total
+ * to page through the results.
+ *
+ * @param <T> The type of object searched
+ */
+public final class SearchPage<T> {
+
+    private final List<T> items;
+    private final int total;
+    private final int offset;
+
+    /**
+     * Creates a page.
+     *
+     * @param items The results on the page, best first.
+     * @param total The number of results of the whole search.
+     * @param offset The rank of the first result of the page (0 for the best).
+     */
+    public SearchPage(List<T> items, int total, int offset) {
+        this.items = Collections.unmodifiableList(items);
+        this.total = total;
+        this.offset = offset;
+    }
+
+    /**
+     * @return The results on the page, best first.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The number of results of the whole search, on every page.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The rank of the first result of the page.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return true if there are results after this page.
+     */
+    public boolean hasMore() {
+        return offset + items.size() < total;
+    }
+}
@@ -0,0 +1,102 @@
+package it.unicas.project.template.address.service;
+
+import java.util.*;
+
+/**
+ * The last search of a {@link SearchService} or {@link SearchIndex}, used to narrow the next one down when it only
+ * refines it.
+ * <p>
+ * A search refines the last one when its words are the last search words with the last word possibly extended and
+ * more words possibly appended ("harr", "harry", "harry p"). Each of those makes the distinct-word matching
+ * stricter, so only the last matches can still match. The last matches are only reused if every item now searched
+ * was also searched last time: a widened filter (or a reloaded list) brings in items the last search never looked
+ * at, and then the whole list is searched again.
+ * </p>
+ * <p>
+ * Items edited in place since the last search are not noticed: whoever edits them must call {@link #forget()}.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Kept by the searches of this package only.
+ *
+ * @param <T> The type of object being searched
+ */
+final class SearchRefinement<T> {
+
+    private List<?> lastFields;     // Field extractors of the last search
+    private String[] lastKeys;      // Search words of the last search
+    private Set<T> lastItems;       // Items searched last time (by identity)
+    private Set<T> lastMatches;     // Items that matched last time (by identity)
+
+    /**
+     * Returns the items worth searching for {@code searchKeys}: the last matches among {@code items}, in the
+     * order of {@code items}, if the search refines the last one, or else {@code items} itself.
+     *
+     * @param items The items about to be searched.
+     * @param searchKeys The search words.
+     * @param fieldExtractors The fields searched.
+     * @return {@code items}, or the smaller list of the items that can still match.
+     */
+    synchronized List<T> candidates(List<T> items, String[] searchKeys, List<?> fieldExtractors) {
+        if (lastKeys == null || fieldExtractors != lastFields || !refines(searchKeys, lastKeys)) {
+            return items;
+        }
+        List<T> candidates = new ArrayList<>();
+        for (T item : items) {
+            if (!lastItems.contains(item)) {
+                return items; // Not searched last time: its absence from the last matches means nothing
+            }
+            if (lastMatches.contains(item)) {
+                candidates.add(item);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Remembers a search.
+     *
+     * @param items The items searched (all of them, not only the candidates).
+     * @param searchKeys The search words.
+     * @param fieldExtractors The fields searched.
+     * @param matches Every item of {@code items} that matched.
+     */
+    synchronized void remember(List<T> items, String[] searchKeys, List<?> fieldExtractors, List<T> matches) {
+        lastItems = identitySetOf(items);
+        lastFields = fieldExtractors;
+        lastKeys = searchKeys;
+        lastMatches = identitySetOf(matches);
+    }
+
+    /**
+     * Forgets the last search, so that the next one examines every item.
+     */
+    synchronized void forget() {
+        lastFields = null;
+        lastKeys = null;
+        lastItems = null;
+        lastMatches = null;
+    }
+
+    /**
+     * Returns whether search words are the last ones, with the last word possibly extended and more words
+     * possibly appended.
+     */
+    private static boolean refines(String[] keys, String[] previousKeys) {
+        if (keys.length < previousKeys.length) {
+            return false;
+        }
+        int last = previousKeys.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (!keys[i].equals(previousKeys[i])) {
+                return false;
+            }
+        }
+        return keys[last].startsWith(previousKeys[last]);
+    }
+
+    private static <T> Set<T> identitySetOf(Collection<T> items) {
+        Set<T> set = Collections.newSetFromMap(new IdentityHashMap<>(items.size() * 2));
+        set.addAll(items);
+        return set;
+    }
+}
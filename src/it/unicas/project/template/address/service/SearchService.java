@@ -1,14 +1,55 @@
 package it.unicas.project.template.address.service;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
 
 /**
  * Generic search service that supports prioritized multi-field searching
+ * <p>
+ * The fields of each item are tokenized once into a {@link SearchDocument}, which is reused by later searches until
+ * one of the item's field values changes, so a search only compares prebuilt words.
+ * </p>
+ * <p>
+ * Lists reaching the parallel threshold (see {@link #PARALLEL_THRESHOLD_PROPERTY}) are searched in parallel: the
+ * list is split into ranges classified on the common fork/join pool, and the buckets of the ranges are joined in list
+ * order, so the results are exactly those of the sequential search.
+ * </p>
+ * <p>
+ * When a search refines the previous one (see {@link SearchRefinement}), typically because the user kept typing,
+ * only the previous matches are examined again. Items edited in place must be reported with
+ * {@link #forgetLastSearch()}.
+ * </p>
  * @param <T> The type of object being searched
  */
 public class SearchService<T> {
 
+    /**
+     * System property with the list size from which searches and catalog filters run in parallel (default 50000).
+     */
+    public static final String PARALLEL_THRESHOLD_PROPERTY = "library.search.parallelThreshold";
+
+    private static final int DEFAULT_PARALLEL_THRESHOLD = Integer.getInteger(PARALLEL_THRESHOLD_PROPERTY, 50_000);
+
+    // Tokenized fields of the items searched so far; entries go away with their items
+    private final Map<T, SearchDocument> documentCache = new WeakHashMap<>();
+
+    // Score of a match in a field, per field from that one to the last (a cross-field match gets none); it outweighs the
+    // match quality, so that ranked results keep the field priority of searchAndSort unless popularity says otherwise
+    private static final double FIELD_WEIGHT = 10;
+
+    // Best ranked results first; equal scores keep the order of the list
+    private static final Comparator<Ranked<?>> BEST_FIRST =
+            Comparator.comparingDouble((Ranked<?> r) -> r.score).reversed().thenComparingInt(r -> r.position);
+
+    // The last search, to only re-examine its matches when the next one refines it
+    private final SearchRefinement<T> refinement = new SearchRefinement<>();
+
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
     /**
      * Searches and sorts items based on prioritized fields.
      * Supports cross-field searching (e.g., "Harry Potter J.K. Rowling")
@@ -20,139 +61,372 @@ public class SearchService<T> {
      * @return Sorted list with matches ordered by field priority
      */
     public List<T> searchAndSort(List<T> items, String searchTerm, List<Function<T, String>> fieldExtractors) {
-        if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return new ArrayList<>(items);
+        SearchEvent event = new SearchEvent();
+        event.begin();
+
+        List<T> result = search(items, searchTerm, fieldExtractors, event);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.inputSize = items.size();
+            event.resultSize = result.size();
+            event.termLength = searchTerm == null ? 0 : searchTerm.trim().length();
+            event.fieldCount = fieldExtractors.size();
+            event.commit();
         }
+        return result;
+    }
 
-        String term = searchTerm.toLowerCase().trim();
-        String[] searchWords = term.split("\\s+");
+    /**
+     * Searches items and returns one page of the matches, ranked by relevance.
+     * <p>
+     * Each match scores {@code 10} for every field from the one all search words matched in to the last (none for a
+     * cross-field match), plus the quality of the match (up to 1 per whole word rather than prefix, plus up to 0.5
+     * for a word early in the field, averaged over the search words), plus its popularity if given. Only the best
+     * {@code offset + limit} matches are kept while scanning, so a short query over a large catalog costs no more
+     * than the page it returns. With a blank term every item matches, ranked by popularity alone.
+     * </p>
+     *
+     * @param items List of items to search
+     * @param searchTerm The search term
+     * @param fieldExtractors Ordered list of functions to extract searchable text from each item.
+     *                       Order determines priority (first = highest priority)
+     * @param popularity Score added to each match (e.g. {@code Math.log1p(loans)}), or {@code null}
+     * @param offset Number of best matches to skip
+     * @param limit Maximum number of matches to return
+     * @return The page of matches, best first, with the total number of matches
+     */
+    public SearchPage<T> searchRanked(List<T> items, String searchTerm, List<Function<T, String>> fieldExtractors,
+                                      ToDoubleFunction<? super T> popularity, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative: " + offset + ", " + limit);
+        }
+        SearchEvent event = new SearchEvent();
+        event.begin();
+
+        SearchPage<T> page = rank(items, searchTerm, fieldExtractors, popularity, offset, limit, event);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.inputSize = items.size();
+            event.resultSize = page.getTotal();
+            event.termLength = searchTerm == null ? 0 : searchTerm.trim().length();
+            event.fieldCount = fieldExtractors.size();
+            event.commit();
+        }
+        return page;
+    }
 
-        // Create buckets for each priority level
-        List<List<T>> buckets = new ArrayList<>();
-        for (int i = 0; i < fieldExtractors.size(); i++) {
-            buckets.add(new ArrayList<>());
+    /**
+     * Builds an inverted prefix index over a list of items, for the index-backed search mode: searching the list
+     * (or any subset of it) through the index returns exactly what {@link #searchAndSort} returns, while only the
+     * items containing every search word are examined.
+     *
+     * @param items The items to index.
+     * @param fieldExtractors Ordered list of functions to extract searchable text from each item.
+     * @return The index.
+     */
+    public SearchIndex<T> buildIndex(List<T> items, List<Function<T, String>> fieldExtractors) {
+        return new SearchIndex<>(items, fieldExtractors);
+    }
+
+    /**
+     * Body of {@link #searchAndSort}, measured there as a {@link SearchEvent}.
+     */
+    private List<T> search(List<T> items, String searchTerm, List<Function<T, String>> fieldExtractors,
+                           SearchEvent event) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return new ArrayList<>(items);
         }
 
-        // Track items that didn't match any single field
-        List<T> crossFieldCandidates = new ArrayList<>();
+        String[] searchKeys = searchKeys(searchTerm);
+        List<T> candidates = refinement.candidates(items, searchKeys, fieldExtractors);
+        event.refined = candidates != items;
 
-        // First pass: try to match all words within a single field
-        for (T item : items) {
-            boolean foundInSingleField = false;
+        List<T> result = sortIntoBuckets(candidates, fieldExtractors.size() + 1, fieldExtractors,
+                (position, document) -> classify(document, searchKeys));
+        refinement.remember(items, searchKeys, fieldExtractors, result);
+        return result;
+    }
 
-            for (int i = 0; i < fieldExtractors.size(); i++) {
-                String fieldValue = fieldExtractors.get(i).apply(item);
+    /**
+     * Makes the next search examine every item, instead of only the matches of the last search when it refines
+     * it. Must be called after editing an item in place.
+     */
+    public void forgetLastSearch() {
+        refinement.forget();
+    }
 
-                if (allWordsMatchInField(fieldValue, searchWords)) {
-                    buckets.get(i).add(item);
-                    foundInSingleField = true;
-                    break; // Item goes in highest priority match only
-                }
+    /**
+     * Body of {@link #searchRanked}, measured there as a {@link SearchEvent}.
+     */
+    private SearchPage<T> rank(List<T> items, String searchTerm, List<Function<T, String>> fieldExtractors,
+                               ToDoubleFunction<? super T> popularity, int offset, int limit, SearchEvent event) {
+        int keep = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        boolean blank = searchTerm == null || searchTerm.trim().isEmpty();
+        if (blank && popularity == null) {
+            // All items match with the same score: the page is a slice of the list
+            int from = Math.min(offset, items.size());
+            return new SearchPage<>(new ArrayList<>(items.subList(from, Math.min(keep, items.size()))),
+                    items.size(), offset);
+        }
+
+        String[] searchKeys = blank ? null : searchKeys(searchTerm);
+        List<T> candidates = blank ? items : refinement.candidates(items, searchKeys, fieldExtractors);
+        event.refined = candidates != items;
+        SearchDocument[] documents = blank ? null : documents(candidates, fieldExtractors);
+        List<T> matches = new ArrayList<>();
+
+        // Bounded heap of the best matches so far, worst on top
+        PriorityQueue<Ranked<T>> best = new PriorityQueue<>(Math.max(1, Math.min(keep, 1024)), BEST_FIRST.reversed());
+        for (int i = 0; i < candidates.size(); i++) {
+            T item = candidates.get(i);
+            int bucket = blank ? -1 : classify(documents[i], searchKeys);
+            if (!blank && bucket < 0) continue;
+            matches.add(item);
+
+            double score = popularity == null ? 0 : popularity.applyAsDouble(item);
+            if (!blank) {
+                score += FIELD_WEIGHT * (fieldExtractors.size() - bucket);
+                // The match quality is only worth computing if the match may still make it into the heap
+                boolean full = best.size() >= keep;
+                if (keep == 0 || (full && score + SearchDocument.MAX_MATCH_QUALITY <= best.peek().score)) continue;
+                score += documents[i].matchQuality(bucket, searchKeys);
             }
 
-            if (!foundInSingleField) {
-                crossFieldCandidates.add(item);
+            if (best.size() < keep) {
+                best.add(new Ranked<>(item, score, i));
+            } else if (keep > 0 && score > best.peek().score) {
+                best.poll();
+                best.add(new Ranked<>(item, score, i));
             }
         }
+        if (!blank) {
+            refinement.remember(items, searchKeys, fieldExtractors, matches);
+        }
 
-        // Second pass: check cross-field matches for remaining items
-        List<T> crossFieldMatches = new ArrayList<>();
-        for (T item : crossFieldCandidates) {
-            if (matchesAcrossFields(item, searchWords, fieldExtractors)) {
-                crossFieldMatches.add(item);
-            }
+        List<Ranked<T>> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        List<T> page = new ArrayList<>();
+        for (int i = offset; i < ranked.size(); i++) {
+            page.add(ranked.get(i).item);
+        }
+        return new SearchPage<>(page, matches.size(), offset);
+    }
+
+    /**
+     * A match of a ranked search, with its position among the items searched.
+     */
+    private record Ranked<T>(T item, double score, int position) {
+    }
+
+    /**
+     * Sets the list size from which this service searches in parallel, overriding
+     * {@link #PARALLEL_THRESHOLD_PROPERTY}.
+     *
+     * @param threshold The minimum number of items searched in parallel.
+     */
+    public void setParallelThreshold(int threshold) {
+        this.parallelThreshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Returns a stream over a list, parallel if the list reaches {@link #PARALLEL_THRESHOLD_PROPERTY} items. The
+     * stream is ordered, so collecting it to a list keeps the order of {@code items}; the operations applied to it
+     * must only read shared state.
+     *
+     * @param items The list to stream.
+     * @return A sequential or parallel stream of the list.
+     */
+    public static <E> Stream<E> streamOf(List<E> items) {
+        return items.size() >= DEFAULT_PARALLEL_THRESHOLD ? items.parallelStream() : items.stream();
+    }
+
+    /**
+     * Where an item goes in the results (see {@link #classify}).
+     */
+    @FunctionalInterface
+    interface Classifier {
+        /**
+         * @param position The position of the item in the list being sorted.
+         * @param document The search document of the item.
+         * @return The bucket of the item, or -1 to leave it out.
+         */
+        int bucketOf(int position, SearchDocument document);
+    }
+
+    /**
+     * Sorts items into buckets, keeping their order within each bucket, and returns the buckets joined in order.
+     * Large lists are classified in parallel.
+     *
+     * @param items The items to sort.
+     * @param bucketCount The number of buckets.
+     * @param fieldExtractors The fields of the search documents.
+     * @param classifier Where each item goes.
+     * @return The items of the first bucket, then those of the second, and so on.
+     */
+    List<T> sortIntoBuckets(List<T> items, int bucketCount, List<Function<T, String>> fieldExtractors,
+                            Classifier classifier) {
+        List<List<T>> buckets;
+        if (items.size() >= parallelThreshold && items.size() > 1) {
+            // A few ranges per worker, so that a worker finishing early can steal work
+            int ranges = ForkJoinPool.getCommonPoolParallelism() * 4;
+            int rangeSize = Math.max(1, items.size() / ranges);
+            buckets = ForkJoinPool.commonPool().invoke(
+                    new BucketTask(items, 0, items.size(), rangeSize, bucketCount, fieldExtractors, classifier));
+        } else {
+            buckets = sortRange(items, 0, items.size(), bucketCount, fieldExtractors, classifier);
         }
 
         // Combine: single-field matches first (by priority), then cross-field matches
-        List<T> result = new ArrayList<>();
+        int total = 0;
+        for (List<T> bucket : buckets) total += bucket.size();
+        List<T> result = new ArrayList<>(total);
         for (List<T> bucket : buckets) {
             result.addAll(bucket);
         }
-        result.addAll(crossFieldMatches);
-
         return result;
     }
 
     /**
-     * Checks if all search words match within a single field
+     * Sorts the items in {@code [from, to)} into buckets.
      */
-    private boolean allWordsMatchInField(String fieldValue, String[] searchWords) {
-        if (fieldValue == null) {
-            return false;
+    private List<List<T>> sortRange(List<T> items, int from, int to, int bucketCount,
+                                    List<Function<T, String>> fieldExtractors, Classifier classifier) {
+        // Create buckets for each priority level, plus one for cross-field matches
+        List<List<T>> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>());
         }
 
-        String normalizedText = fieldValue.toLowerCase();
-        Set<String> textWords = extractWords(normalizedText);
-
-        // Each search word must match a DISTINCT word in the field
-        Set<String> matchedWords = new HashSet<>();
+        List<T> range = items.subList(from, to);
+        SearchDocument[] documents = documents(range, fieldExtractors);
+        for (int i = 0; i < documents.length; i++) {
+            int bucket = classifier.bucketOf(from + i, documents[i]);
+            if (bucket >= 0) {
+                buckets.get(bucket).add(range.get(i));
+            }
+        }
+        return buckets;
+    }
 
-        for (String searchWord : searchWords) {
-            boolean found = false;
-            for (String textWord : textWords) {
-                // Skip if this word was already matched
-                if (matchedWords.contains(textWord)) {
-                    continue;
-                }
+    /**
+     * Fork/join task sorting a range of items into buckets: ranges larger than {@code rangeSize} are split in two
+     * halves, whose buckets are joined left before right.
+     */
+    private final class BucketTask extends RecursiveTask<List<List<T>>> {
+        private static final long serialVersionUID = 1L;
+
+        // Never serialized: the task only lives during one search
+        private final transient List<T> items;
+        private final int from;
+        private final int to;
+        private final int rangeSize;
+        private final int bucketCount;
+        private final transient List<Function<T, String>> fieldExtractors;
+        private final transient Classifier classifier;
+
+        private BucketTask(List<T> items, int from, int to, int rangeSize, int bucketCount,
+                           List<Function<T, String>> fieldExtractors, Classifier classifier) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+            this.bucketCount = bucketCount;
+            this.fieldExtractors = fieldExtractors;
+            this.classifier = classifier;
+        }
 
-                if (wordMatches(textWord, searchWord)) {
-                    matchedWords.add(textWord);
-                    found = true;
-                    break;
-                }
+        @Override
+        protected List<List<T>> compute() {
+            if (to - from <= rangeSize) {
+                return sortRange(items, from, to, bucketCount, fieldExtractors, classifier);
             }
-
-            if (!found) {
-                return false;
+            int middle = (from + to) >>> 1;
+            BucketTask left = new BucketTask(items, from, middle, rangeSize, bucketCount, fieldExtractors, classifier);
+            BucketTask right = new BucketTask(items, middle, to, rangeSize, bucketCount, fieldExtractors, classifier);
+            right.fork();
+            List<List<T>> buckets = left.compute();
+            List<List<T>> rightBuckets = right.join();
+            for (int i = 0; i < bucketCount; i++) {
+                buckets.get(i).addAll(rightBuckets.get(i));
             }
+            return buckets;
         }
-
-        return true;
     }
 
     /**
-     * Checks if search words match across multiple fields
+     * Splits a (non-blank) search term into its lowercase search words, without periods.
      */
-    private boolean matchesAcrossFields(T item, String[] searchWords, List<Function<T, String>> fieldExtractors) {
-        // Collect all words from all fields
-        Set<String> allWords = new HashSet<>();
+    static String[] searchKeys(String searchTerm) {
+        String[] words = searchTerm.toLowerCase().trim().split("\\s+");
+        for (int i = 0; i < words.length; i++) {
+            words[i] = SearchDocument.dotless(words[i]);
+        }
+        return words;
+    }
 
-        for (Function<T, String> extractor : fieldExtractors) {
-            String fieldValue = extractor.apply(item);
-            if (fieldValue != null) {
-                allWords.addAll(extractWords(fieldValue.toLowerCase()));
+    /**
+     * Returns where an item goes in the results: the index of the highest priority field in which all search
+     * words match, the number of fields if they only match across fields, or -1 if they do not match.
+     */
+    static int classify(SearchDocument document, String[] searchKeys) {
+        // First try to match all words within a single field
+        for (int f = 0; f < document.fieldKeys.length; f++) {
+            if (SearchDocument.matchesAll(document.fieldKeys[f], searchKeys)) {
+                return f; // Item goes in highest priority match only
             }
         }
+        // Then check cross-field matches
+        return SearchDocument.matchesAll(document.allKeys, searchKeys) ? document.fieldKeys.length : -1;
+    }
 
-        // Check if all search words can be matched to distinct words
-        Set<String> matchedWords = new HashSet<>();
+    /**
+     * Returns the search document of an item, tokenizing its fields only if they changed since the last search.
+     */
+    SearchDocument document(T item, List<Function<T, String>> fieldExtractors) {
+        return documents(Collections.singletonList(item), fieldExtractors)[0];
+    }
 
-        for (String searchWord : searchWords) {
-            boolean found = false;
-            for (String textWord : allWords) {
-                if (matchedWords.contains(textWord)) {
-                    continue;
-                }
+    /**
+     * Returns the search documents of a list of items (see {@link #document}). The cache is only locked to read
+     * and store documents, so that the ranges of a parallel search validate and tokenize their items concurrently.
+     */
+    SearchDocument[] documents(List<T> items, List<Function<T, String>> fieldExtractors) {
+        SearchDocument[] documents = new SearchDocument[items.size()];
+        synchronized (documentCache) {
+            for (int i = 0; i < documents.length; i++) {
+                documents[i] = documentCache.get(items.get(i));
+            }
+        }
 
-                if (wordMatches(textWord, searchWord)) {
-                    matchedWords.add(textWord);
-                    found = true;
-                    break;
+        BitSet tokenized = new BitSet();
+        for (int i = 0; i < documents.length; i++) {
+            T item = items.get(i);
+            if (documents[i] == null || !documents[i].describes(item, fieldExtractors)) {
+                String[] values = new String[fieldExtractors.size()];
+                for (int f = 0; f < values.length; f++) {
+                    values[f] = fieldExtractors.get(f).apply(item);
                 }
+                documents[i] = new SearchDocument(values);
+                tokenized.set(i);
             }
+        }
 
-            if (!found) {
-                return false;
+        if (!tokenized.isEmpty()) {
+            synchronized (documentCache) {
+                for (int i = tokenized.nextSetBit(0); i >= 0; i = tokenized.nextSetBit(i + 1)) {
+                    documentCache.put(items.get(i), documents[i]);
+                }
             }
         }
-
-        return true;
+        return documents;
     }
 
     /**
      * Extracts individual words from text
      */
-    private Set<String> extractWords(String text) {
+    static Set<String> extractWords(String text) {
         Set<String> words = new HashSet<>();
         if (text == null) {
             return words;
@@ -171,22 +445,6 @@ public class SearchService<T> {
         return words;
     }
 
-    /**
-     * Checks if a text word matches a search word
-     * Handles special cases like "J.K." matching "jk" or "j.k"
-     */
-    private boolean wordMatches(String textWord, String searchWord) {
-        if (textWord.startsWith(searchWord)) {
-            return true;
-        }
-
-        // Also check with periods removed (so "jk" finds "j.k.")
-        String textNoPeriods = textWord.replace(".", "");
-        String searchNoPeriods = searchWord.replace(".", "");
-
-        return textNoPeriods.startsWith(searchNoPeriods);
-    }
-
     /**
      * Builder for creating prioritized search field configurations
      */
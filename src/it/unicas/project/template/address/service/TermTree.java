@@ -0,0 +1,175 @@
+package it.unicas.project.template.address.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BK-tree over the distinct terms of a {@link SearchIndex}, finding the terms within a small edit distance of a
+ * (misspelled) search word.
+ * <p>
+ * Each child of a node holds the terms at a given Levenshtein distance from the node's term. By the triangle
+ * inequality, the terms within distance {@code d} of a word can only be under the children whose distance to the
+ * node is within {@code d} of the word's own distance to it, so a lookup only computes the distance to a small part
+ * of the dictionary instead of comparing the word with every term.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Built and queried only by {@link SearchIndex}.
+ */
+final class TermTree {
+
+    private Node root;
+
+    /**
+     * Adds a term, or adds to the frequency of a term already in the tree.
+     *
+     * @param term The term.
+     * @param frequency The number of items containing it.
+     */
+    void add(String term, int frequency) {
+        if (root == null) {
+            root = new Node(term, frequency);
+            return;
+        }
+        Distance distance = new Distance();
+        Node node = root;
+        while (true) {
+            int d = distance.between(term, node.term);
+            if (d == 0) {
+                node.frequency += frequency;
+                return;
+            }
+            Node child = node.child(d);
+            if (child == null) {
+                node.setChild(d, new Node(term, frequency));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Returns the terms within an edit distance of a word.
+     *
+     * @param word The word.
+     * @param maxDistance The maximum edit distance.
+     * @return The terms found, with their distance to {@code word}.
+     */
+    Map<String, Integer> within(String word, int maxDistance) {
+        Map<String, Integer> found = new HashMap<>();
+        for (Match match : matches(word, maxDistance)) {
+            found.put(match.node.term, match.distance);
+        }
+        return found;
+    }
+
+    /**
+     * Returns the closest term to a word within an edit distance, preferring the most frequent one among the
+     * closest (then the first alphabetically).
+     *
+     * @param word The word.
+     * @param maxDistance The maximum edit distance.
+     * @return The closest term, or {@code null} if there is none within {@code maxDistance}.
+     */
+    String closest(String word, int maxDistance) {
+        Node best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Match match : matches(word, maxDistance)) {
+            Node node = match.node;
+            int distance = match.distance;
+            if (best == null || distance < bestDistance
+                    || (distance == bestDistance && (node.frequency > best.frequency
+                    || (node.frequency == best.frequency && node.term.compareTo(best.term) < 0)))) {
+                best = node;
+                bestDistance = distance;
+            }
+        }
+        return best == null ? null : best.term;
+    }
+
+    private List<Match> matches(String word, int maxDistance) {
+        List<Match> found = new ArrayList<>();
+        if (root != null) {
+            collect(root, word, maxDistance, new Distance(), found);
+        }
+        return found;
+    }
+
+    private void collect(Node node, String word, int maxDistance, Distance distance, List<Match> found) {
+        int d = distance.between(word, node.term);
+        if (d <= maxDistance) {
+            found.add(new Match(node, d));
+        }
+        for (int childDistance = Math.max(1, d - maxDistance); childDistance <= d + maxDistance; childDistance++) {
+            Node child = node.child(childDistance);
+            if (child != null) {
+                collect(child, word, maxDistance, distance, found);
+            }
+        }
+    }
+
+    /**
+     * Levenshtein distance: the number of single-character insertions, deletions and substitutions turning one
+     * word into the other.
+     */
+    static int distance(String a, String b) {
+        return new Distance().between(a, b);
+    }
+
+    /**
+     * Levenshtein distance computation reusing its rows, for the many distances of one insertion or lookup.
+     */
+    private static final class Distance {
+        private int[] previous = new int[16];
+        private int[] current = new int[16];
+
+        int between(String a, String b) {
+            int n = b.length();
+            if (previous.length <= n) {
+                previous = new int[n + 1];
+                current = new int[n + 1];
+            }
+            for (int j = 0; j <= n; j++) previous[j] = j;
+
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                char c = a.charAt(i - 1);
+                for (int j = 1; j <= n; j++) {
+                    int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                    current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[n];
+        }
+    }
+
+    private record Match(Node node, int distance) {
+    }
+
+    private static final class Node {
+        private final String term;
+        private int frequency;
+        private Node[] children;  // Indexed by distance to this node's term
+
+        private Node(String term, int frequency) {
+            this.term = term;
+            this.frequency = frequency;
+        }
+
+        Node child(int distance) {
+            return children != null && distance < children.length ? children[distance] : null;
+        }
+
+        void setChild(int distance, Node child) {
+            if (children == null || distance >= children.length) {
+                children = children == null ? new Node[distance + 1] : Arrays.copyOf(children, distance + 1);
+            }
+            children[distance] = child;
+        }
+    }
+}
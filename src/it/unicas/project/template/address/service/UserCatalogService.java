@@ -51,7 +51,7 @@ public class UserCatalogService {
             String searchTerm
     ) {
 
-        List<User> filtered = users.stream()
+        List<User> filtered = SearchService.streamOf(users)
                 .filter(user -> {
                     // Filter by role if specified
                     boolean matchesRole = selectedRoles.isEmpty();
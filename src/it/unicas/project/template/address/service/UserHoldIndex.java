@@ -0,0 +1,127 @@
+package it.unicas.project.template.address.service;
+
+import it.unicas.project.template.address.model.Hold;
+import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.dao.DAO;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The holds of one user, by material ID, for the catalog views.
+ * <p>
+ * The index is read with one query when a screen opens ({@link #load(int)}), then kept up to date by
+ * {@link MaterialHoldService} when it places or releases a hold of the user, so that a view can tell which materials
+ * the user holds (e.g. for every row it renders) without querying the database.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Loaded and read by the controllers; only the service layer updates it.
+ */
+public class UserHoldIndex {
+
+    private final int userId;
+    // Read on the JavaFX thread, while the hold service may update it from a background task
+    private final Map<Integer, Hold> holdsByMaterial = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the index of a user's holds.
+     *
+     * @param userId The user ID.
+     * @param holds The user's current holds.
+     */
+    UserHoldIndex(int userId, Collection<Hold> holds) {
+        this.userId = userId;
+        for (Hold hold : holds) {
+            added(hold);
+        }
+    }
+
+    /**
+     * Reads the holds of a user, with one query.
+     *
+     * Access Keyword Explanation: {@code public static} - Called by the controllers when a screen opens.
+     *
+     * @param userId The user ID.
+     * @return The index of the user's holds.
+     * @throws DAOException If the holds cannot be read.
+     */
+    public static UserHoldIndex load(int userId) throws DAOException {
+        return load(userId, DAOFactory.getHoldDAO());
+    }
+
+    static UserHoldIndex load(int userId, DAO<Hold> holdDAO) throws DAOException {
+        Hold search = new Hold();
+        search.setIdUser(userId);
+        List<Hold> holds = holdDAO.select(search);
+        return new UserHoldIndex(userId, holds);
+    }
+
+    /**
+     * Returns the user whose holds are indexed.
+     *
+     * @return The user ID.
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the user's hold on a material.
+     *
+     * @param idMaterial The material ID.
+     * @return The hold, or {@code null} if the user does not hold the material.
+     */
+    public Hold holdOn(int idMaterial) {
+        return holdsByMaterial.get(idMaterial);
+    }
+
+    /**
+     * Returns the first of some materials (e.g. the copies of a title) that the user holds.
+     *
+     * @param materials The materials.
+     * @return The material held, or {@code null} if the user holds none of them.
+     */
+    public Material heldAmong(Collection<Material> materials) {
+        for (Material material : materials) {
+            if (holdsByMaterial.containsKey(material.getIdMaterial())) {
+                return material;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of holds of the user.
+     *
+     * @return The number of materials held.
+     */
+    public int size() {
+        return holdsByMaterial.size();
+    }
+
+    /**
+     * Records a hold placed, if it belongs to the indexed user.
+     *
+     * @param hold The hold inserted.
+     */
+    void added(Hold hold) {
+        if (hold.getIdUser() == userId) {
+            holdsByMaterial.put(hold.getIdMaterial(), hold);
+        }
+    }
+
+    /**
+     * Records a hold released.
+     *
+     * @param hold The hold deleted.
+     */
+    void removed(Hold hold) {
+        // Only forget the material if the indexed hold is the one released
+        holdsByMaterial.computeIfPresent(hold.getIdMaterial(),
+                (idMaterial, indexed) -> indexed.getIdHold() == hold.getIdHold() ? null : indexed);
+    }
+}
@@ -12,6 +12,7 @@ import it.unicas.project.template.address.model.HoldRow;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -56,7 +57,7 @@ public class UserLandingService {
 
     /**
      * Retrieves all active loans for a specific user and formats them for display.
-     * This involves querying loans, then querying the related material for the title.
+     * This involves querying loans, then querying the related materials (in bulk) for their titles.
      *
      * Access Keyword Explanation: {@code public} - This is a core business method
      * that must be called by the {@code UserLandingController} to populate the UI.
@@ -73,18 +74,13 @@ public class UserLandingService {
         // The Loan object acts as a filter (Loan ID is null, User ID is set, others null).
         List<Loan> loans = loanDao.select(new Loan(null, user.getIdUser(), null, null, null, null));
 
+        // Fetch the Material details (specifically the title) of all loans in one bulk lookup
+        Map<Integer, Material> materials = materialDao.selectByIds(
+                loans.stream().map(Loan::getIdMaterial).collect(Collectors.toList()));
+
         // Map the list of raw Loan objects to presentation-friendly LoanRow objects
         return loans.stream().map(loan -> {
-            Material mat = new Material();
-            mat.setIdMaterial(loan.getIdMaterial());
-
-            // Fetch the Material details (specifically the title) for the current loan.
-            try {
-                mat = materialDao.select(mat).stream().findFirst().orElse(null);
-            } catch (DAOException e) {
-                // If fetching material fails, log the error but allow the mapping to continue with defaults
-                e.printStackTrace();
-            }
+            Material mat = materials.get(loan.getIdMaterial());
 
             // Extract and format data
             String title = (mat != null && mat.getTitle() != null) ? mat.getTitle() : "Unknown";
@@ -124,20 +120,13 @@ public class UserLandingService {
         // Fetch all holds associated with the user ID from the database.
         List<Hold> holds = holdDao.select(new Hold(null, user.getIdUser(), null, null));
 
+        // Fetch the Material details (title) of all holds in one bulk lookup (invalid IDs are ignored)
+        Map<Integer, Material> materials = materialDao.selectByIds(
+                holds.stream().map(Hold::getIdMaterial).collect(Collectors.toList()));
+
         // Map the list of raw Hold objects to presentation-friendly HoldRow objects
         return holds.stream().map(hold -> {
-            Material mat = null;
-            // Ensure material ID is valid before attempting a lookup
-            if (hold.getIdMaterial() != -1) {
-                mat = new Material();
-                mat.setIdMaterial(hold.getIdMaterial());
-                // Fetch the Material details (title)
-                try {
-                    mat = materialDao.select(mat).stream().findFirst().orElse(null);
-                } catch (DAOException e) {
-                    e.printStackTrace();
-                }
-            }
+            Material mat = materials.get(hold.getIdMaterial());
 
             // Extract and format data
             String title = (mat != null && mat.getTitle() != null) ? mat.getTitle() : "Unknown";
@@ -2,8 +2,9 @@ package it.unicas.project.template.address.service;
 
 import it.unicas.project.template.address.model.User;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.LoanDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.UserDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.LoanDAO;
+import it.unicas.project.template.address.model.dao.UserDAO;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
@@ -20,8 +21,8 @@ import java.util.List;
 public class UserService {
 
     // Instance of the DAO for User operations:
-    private UserDAOMySQLImpl userDAO = (UserDAOMySQLImpl) UserDAOMySQLImpl.getInstance();
-    private LoanDAOMySQLImpl loanDAO = (LoanDAOMySQLImpl) LoanDAOMySQLImpl.getInstance();
+    private UserDAO userDAO = DAOFactory.getUserDAO();
+    private LoanDAO loanDAO = DAOFactory.getLoanDAO();
     // Access Keyword Explanation: {@code private} - DAOs are internal dependencies
     // of the service layer and should not be directly accessed from outside the service.
 
@@ -38,9 +39,9 @@ public class UserService {
      * Access Keyword Explanation: {@code public} - This constructor is public to allow
      * external test classes to inject specific DAO implementations (like mocks).
      *
-     * @param dao The specific UserDAOMySQLImpl instance to use.
+     * @param dao The specific UserDAO instance to use.
      */
-    public UserService(it.unicas.project.template.address.model.dao.mysql.UserDAOMySQLImpl dao) {
+    public UserService(UserDAO dao) {
         this.userDAO = dao;
     }
 
@@ -5,10 +5,8 @@ import it.unicas.project.template.address.model.Material;
 import it.unicas.project.template.address.model.User;
 import it.unicas.project.template.address.model.Hold;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.LoanDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.UserDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.HoldDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.UnitOfWork;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -16,6 +14,8 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 import javafx.scene.paint.Color;
 
+import java.util.stream.Stream;
+
 /**
  * Controller class for adding a new loan in the library system.
  * <p>
@@ -90,17 +90,13 @@ public class AddLoanController {
      */
     private void loadAvailableMaterials() {
         materialList.clear();
-        try {
-            var results = MaterialDAOMySQLImpl.getInstance().select(null);
-            if (results != null) {
-                for (Material m : results) {
+        // Stream the catalog so that only the materials shown in the table are kept in memory
+        try (Stream<Material> results = DAOFactory.getMaterialDAO().selectStream(null)) {
+            results
                     // Only include materials that are available or on hold
-                    if ("available".equalsIgnoreCase(m.getMaterial_status()) ||
-                            "holded".equalsIgnoreCase(m.getMaterial_status())) {
-                        materialList.add(m);
-                    }
-                }
-            }
+                    .filter(m -> "available".equalsIgnoreCase(m.getMaterial_status()) ||
+                            "holded".equalsIgnoreCase(m.getMaterial_status()))
+                    .forEach(materialList::add);
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Database Error", "Error retrieving materials: " + e.getMessage());
             e.printStackTrace();
@@ -151,24 +147,21 @@ public class AddLoanController {
         String searchText = searchMaterialField.getText().trim().toLowerCase();
         materialList.clear();
 
-        try {
-            var results = MaterialDAOMySQLImpl.getInstance().select(null);
-            if (results != null) {
-                for (Material m : results) {
-                    if (!"available".equalsIgnoreCase(m.getMaterial_status()) &&
-                            !"holded".equalsIgnoreCase(m.getMaterial_status())) continue;
-
-                    boolean matches = searchText.isEmpty();
-
-                    if (!matches) {
-                        if (!matches && matchesWords(m.getTitle(), searchText)) matches = true;
-                        if (!matches && matchesWords(m.getAuthor(), searchText)) matches = true;
-                        if (!matches && m.getISBN() != null && m.getISBN().toLowerCase().startsWith(searchText)) matches = true;
-                    }
+        try (Stream<Material> results = DAOFactory.getMaterialDAO().selectStream(null)) {
+            results.forEach(m -> {
+                if (!"available".equalsIgnoreCase(m.getMaterial_status()) &&
+                        !"holded".equalsIgnoreCase(m.getMaterial_status())) return;
 
-                    if (matches) materialList.add(m);
+                boolean matches = searchText.isEmpty();
+
+                if (!matches) {
+                    if (!matches && matchesWords(m.getTitle(), searchText)) matches = true;
+                    if (!matches && matchesWords(m.getAuthor(), searchText)) matches = true;
+                    if (!matches && m.getISBN() != null && m.getISBN().toLowerCase().startsWith(searchText)) matches = true;
                 }
-            }
+
+                if (matches) materialList.add(m);
+            });
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Database Error", "Error retrieving materials: " + e.getMessage());
             e.printStackTrace();
@@ -202,7 +195,7 @@ public class AddLoanController {
             // 1 Validate user exists
             User userFilter = new User();
             userFilter.setNationalID(userID);
-            var users = UserDAOMySQLImpl.getInstance().select(userFilter);
+            var users = DAOFactory.getUserDAO().select(userFilter);
             if (users.isEmpty()) {
                 showAlert(Alert.AlertType.ERROR, "Error", "User ID not found.");
                 return;
@@ -211,7 +204,7 @@ public class AddLoanController {
             // 2 Validate material exists
             Material materialFilter = new Material();
             materialFilter.setIdMaterial(selectedMaterial.getIdMaterial());
-            var materials = MaterialDAOMySQLImpl.getInstance().select(materialFilter);
+            var materials = DAOFactory.getMaterialDAO().select(materialFilter);
             if (materials.isEmpty()) {
                 showAlert(Alert.AlertType.ERROR, "Error", "Material not found.");
                 return;
@@ -220,13 +213,13 @@ public class AddLoanController {
             Material materialToUpdate = materials.get(0);
 
             // 3 Handle material on hold
+            Hold userHold = null;
             if ("holded".equalsIgnoreCase(materialToUpdate.getMaterial_status())) {
                 Hold holdFilter = new Hold();
                 holdFilter.setIdMaterial(materialToUpdate.getIdMaterial());
-                var holds = HoldDAOMySQLImpl.getInstance().select(holdFilter);
+                var holds = DAOFactory.getHoldDAO().select(holdFilter);
 
                 // Check if hold belongs to current user
-                Hold userHold = null;
                 for (Hold h : holds) {
                     if (h.getIdUser() == users.get(0).getIdUser()) {
                         userHold = h;
@@ -241,26 +234,35 @@ public class AddLoanController {
                     return; // Block the loan
                 }
 
-                // Remove the hold for the user
-                HoldDAOMySQLImpl.getInstance().delete(userHold);
-
             } else if (!"available".equalsIgnoreCase(materialToUpdate.getMaterial_status())) {
                 showAlert(Alert.AlertType.ERROR, "Error", "Selected material is not available.");
                 return;
             }
 
-            // 4 Create loan
-            Loan newLoan = new Loan();
-            newLoan.setIdUser(users.get(0).getIdUser());
-            newLoan.setIdMaterial(materialToUpdate.getIdMaterial());
-            newLoan.setStart_date(java.time.LocalDateTime.now());
-            newLoan.setDue_date(java.time.LocalDateTime.now().plusMonths(1));
-            newLoan.setReturn_date(null);
-            LoanDAOMySQLImpl.getInstance().insert(newLoan);
-
-            // 5 Update material status
-            materialToUpdate.setMaterial_status("loaned");
-            MaterialDAOMySQLImpl.getInstance().update(materialToUpdate);
+            // 4-5 Remove the user's hold, create the loan and mark the material as loaned in one transaction
+            String previousStatus = materialToUpdate.getMaterial_status();
+            try (UnitOfWork uow = UnitOfWork.begin()) {
+                if (userHold != null) {
+                    DAOFactory.getHoldDAO().delete(userHold);
+                }
+
+                Loan newLoan = new Loan();
+                newLoan.setIdUser(users.get(0).getIdUser());
+                newLoan.setIdMaterial(materialToUpdate.getIdMaterial());
+                newLoan.setStart_date(java.time.LocalDateTime.now());
+                newLoan.setDue_date(java.time.LocalDateTime.now().plusMonths(1));
+                newLoan.setReturn_date(null);
+                DAOFactory.getLoanDAO().insert(newLoan);
+
+                materialToUpdate.setMaterial_status("loaned");
+                DAOFactory.getMaterialDAO().update(materialToUpdate);
+
+                uow.commit();
+            } catch (DAOException | RuntimeException e) {
+                // Rolled back: the material keeps the status it has in the database
+                materialToUpdate.setMaterial_status(previousStatus);
+                throw e;
+            }
 
             // 6 Refresh table
             handleSearch();
@@ -6,11 +6,9 @@ import it.unicas.project.template.address.model.MaterialGenre;
 import it.unicas.project.template.address.model.MaterialType;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.MaterialTypeDAO;
 import it.unicas.project.template.address.model.dao.GenreDAO;
-import it.unicas.project.template.address.model.dao.mysql.GenreDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialGenreDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialTypeDAOMySQLImpl;
 import it.unicas.project.template.address.service.MaterialService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -54,11 +52,11 @@ public class AddMaterialController {
 
     private Stage dialogStage;
 
-    private final DAO<Material> materialDAO = MaterialDAOMySQLImpl.getInstance();
+    private final DAO<Material> materialDAO = DAOFactory.getMaterialDAO();
     private final MaterialService materialService = new MaterialService(materialDAO);
-    private final MaterialTypeDAOMySQLImpl materialTypeDAO = MaterialTypeDAOMySQLImpl.getInstance();
-    private final GenreDAO genreDAO = GenreDAOMySQLImpl.getInstance();
-    private final DAO<MaterialGenre> materialGenreDAO = MaterialGenreDAOMySQLImpl.getInstance();
+    private final MaterialTypeDAO materialTypeDAO = DAOFactory.getMaterialTypeDAO();
+    private final GenreDAO genreDAO = DAOFactory.getGenreDAO();
+    private final DAO<MaterialGenre> materialGenreDAO = DAOFactory.getMaterialGenreDAO();
 
     private List<Genre> allGenres = new ArrayList<>();
     private Set<Genre> selectedGenres = new HashSet<>();
@@ -335,12 +333,13 @@ public class AddMaterialController {
             materialService.save(m);
             int newId = m.getIdMaterial();
 
-            // Save selected genres
+            // Save selected genres in a single batch
             if (!selectedGenres.isEmpty()) {
+                List<MaterialGenre> links = new ArrayList<>();
                 for (Genre g : selectedGenres) {
-                    MaterialGenre mg = new MaterialGenre(newId, g.getIdGenre());
-                    materialGenreDAO.insert(mg);
+                    links.add(new MaterialGenre(newId, g.getIdGenre()));
                 }
+                materialGenreDAO.insertAll(links);
             }
 
             show(Alert.AlertType.INFORMATION, "Material saved successfully");
@@ -3,20 +3,18 @@ package it.unicas.project.template.address.view;
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.Genre;
 import it.unicas.project.template.address.model.Material;
-import it.unicas.project.template.address.model.MaterialGenre;
+import it.unicas.project.template.address.model.MaterialCriteria;
 import it.unicas.project.template.address.model.MaterialType;
-import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.MaterialDAO;
+import it.unicas.project.template.address.model.dao.MaterialGenreDAO;
+import it.unicas.project.template.address.model.dao.MaterialTypeDAO;
 import it.unicas.project.template.address.model.dao.GenreDAO;
-import it.unicas.project.template.address.model.dao.mysql.GenreDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialGenreDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialTypeDAOMySQLImpl;
 
 import it.unicas.project.template.address.service.MaterialCatalogService;
-import javafx.application.Platform;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Bounds;
@@ -34,14 +32,16 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Controller for Material Catalog - ADMIN VIEW ONLY
- * Allows full CRUD operations on materials
+ * Allows full CRUD operations on materials. Loads and filters run in the background (see {@link BackgroundTasks}).
+ * Without a search, the table pages through the matching rows in the DAO (see {@link PagedList}) instead of
+ * holding them all, and shows its first rows right away. The catalog itself is never held in memory: the genres
+ * are read with the rows that show them, and the filter options and their counts are counted by the DAO
  */
 public class AdminMaterialCatalogController {
 
@@ -58,7 +58,7 @@ public class AdminMaterialCatalogController {
     @FXML private TableColumn<Material, Integer> yearColumn;
     @FXML private TableColumn<Material, String> isbnColumn;
     @FXML private TableColumn<Material, Integer> typeColumn;
-    @FXML private TableColumn<Material, Integer> genreColumn;
+    @FXML private TableColumn<Material, Set<Integer>> genreColumn;
     @FXML private TableColumn<Material, String> statusColumn;
 
     @FXML private Button addButton;
@@ -68,16 +68,22 @@ public class AdminMaterialCatalogController {
 
     private MainApp mainApp;
 
-    private DAO<Material> materialDAO;
-    private MaterialTypeDAOMySQLImpl materialTypeDAO;
+    private MaterialDAO materialDAO;
+    private MaterialTypeDAO materialTypeDAO;
     private GenreDAO genreDAO;
-    private DAO<MaterialGenre> materialGenreDAO;
+    private MaterialGenreDAO materialGenreDAO;
 
-    private ObservableList<Material> materialList;
-    private ObservableList<Material> filteredList;
+    // Whether the table pages through the whole catalog, unfiltered
+    private boolean showingAll;
     private Map<Integer, String> materialTypeMap;
     private Map<Integer, String> genreMap;
-    private Map<Integer, Set<Integer>> materialGenreMap;
+    // Genre IDs of the rows read, dropped with the rows (e.g. when their page leaves the cache)
+    private final Map<Material, Set<Integer>> rowGenres = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // Filter options: the values of at least one material
+    private SortedSet<String> materialTypeOptions = new TreeSet<>();
+    private SortedSet<String> statusOptions = new TreeSet<>();
+    private SortedSet<String> genreOptions = new TreeSet<>();
 
     // Filter selections
     private Set<String> selectedMaterialTypes = new HashSet<>();
@@ -91,54 +97,51 @@ public class AdminMaterialCatalogController {
 
     private final MaterialCatalogService catalogService = new MaterialCatalogService();
 
-    // Debounce mechanism for search
-    private ScheduledExecutorService searchScheduler = Executors.newSingleThreadScheduledExecutor();
-    private java.util.concurrent.Future<?> filterTask;
+    // Debounced filters, catalog loads and facet counts, off the JavaFX thread: only the latest of each is shown
+    private final BackgroundTasks filterTasks = new BackgroundTasks();
+    private final BackgroundTasks loadTasks = new BackgroundTasks();
+    private final BackgroundTasks facetTasks = new BackgroundTasks();
+
+    /**
+     * Lookup maps and filter options read from the database in the background, swapped in as a whole once loaded
+     */
+    private record Catalog(Map<Integer, String> materialTypeMap, Map<Integer, String> genreMap,
+                           SortedSet<String> materialTypeOptions, SortedSet<String> statusOptions,
+                           SortedSet<String> genreOptions) {
+    }
 
     /**
      * Initialize the controller
      */
     @FXML
     public void initialize() {
-        materialDAO = MaterialDAOMySQLImpl.getInstance();
-        materialTypeDAO = MaterialTypeDAOMySQLImpl.getInstance();
-        genreDAO = GenreDAOMySQLImpl.getInstance();
-        materialGenreDAO = MaterialGenreDAOMySQLImpl.getInstance();
+        materialDAO = DAOFactory.getMaterialDAO();
+        materialTypeDAO = DAOFactory.getMaterialTypeDAO();
+        genreDAO = DAOFactory.getGenreDAO();
+        materialGenreDAO = DAOFactory.getMaterialGenreDAO();
 
-        materialList = FXCollections.observableArrayList();
-        filteredList = FXCollections.observableArrayList();
         materialTypeMap = new HashMap<>();
         genreMap = new HashMap<>();
-        materialGenreMap = new HashMap<>();
 
-        loadMaterialTypes();
-        loadGenres();
-        loadMaterialGenreRelationships();
         setupTableColumns();
-        loadAllMaterials();
+        // The first page is shown as soon as it is read, while the lookup maps and filter options load
+        showAll();
+        loadAllMaterials(false);
 
         // Initialize filter buttons
         setupFilterButtons();
 
-        // FIXED: Add debounced listeners for real-time search (300ms delay)
+        // Debounced listeners for real-time search (the delay adapts to the filter latency)
         searchField.textProperty().addListener((obs, oldVal, newVal) -> scheduleFilter());
         yearFromField.textProperty().addListener((obs, oldVal, newVal) -> scheduleFilter());
         yearToField.textProperty().addListener((obs, oldVal, newVal) -> scheduleFilter());
     }
 
     /**
-     * Schedule filter execution after 300ms delay
+     * Schedule filter execution once the input has settled, superseding any filter still pending or running
      */
     private void scheduleFilter() {
-        // Cancel previous filter task if still pending
-        if (filterTask != null && !filterTask.isDone()) {
-            filterTask.cancel(false);
-        }
-
-        // Schedule new filter after 300ms delay
-        filterTask = searchScheduler.schedule(() -> {
-            Platform.runLater(this::handleFilter);
-        }, 300, TimeUnit.MILLISECONDS);
+        filterTasks.debounce(filterQuery(), this::showFilterResult, this::showFilterError);
     }
 
     /**
@@ -170,12 +173,9 @@ public class AdminMaterialCatalogController {
             return;
         }
 
-        Set<String> allTypes = materialList.stream()
-                .map(m -> getMaterialTypeName(m.getIdMaterialType()))
-                .collect(Collectors.toCollection(TreeSet::new));
-
-        materialTypePopup = createFilterPopup(materialTypeFilterButton, "Material Types",
-                allTypes, selectedMaterialTypes);
+        facetTasks.submit(facetQuery(MaterialCatalogService.TYPE_FACET), counts -> materialTypePopup =
+                createFilterPopup(materialTypeFilterButton, "Material Types",
+                        materialTypeOptions, selectedMaterialTypes, counts), this::showFacetError);
     }
 
     /**
@@ -187,13 +187,9 @@ public class AdminMaterialCatalogController {
             return;
         }
 
-        Set<String> allStatuses = materialList.stream()
-                .map(Material::getMaterial_status)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toCollection(TreeSet::new));
-
-        statusPopup = createFilterPopup(statusFilterButton, "Statuses",
-                allStatuses, selectedStatuses);
+        facetTasks.submit(facetQuery(MaterialCatalogService.STATUS_FACET), counts -> statusPopup =
+                createFilterPopup(statusFilterButton, "Statuses",
+                        statusOptions, selectedStatuses, counts), this::showFacetError);
     }
 
     /**
@@ -205,20 +201,38 @@ public class AdminMaterialCatalogController {
             return;
         }
 
-        Set<String> allGenres = materialGenreMap.values().stream()
-                .flatMap(Set::stream)
-                .map(this::getGenreName)
-                .collect(Collectors.toCollection(TreeSet::new));
+        facetTasks.submit(facetQuery(MaterialCatalogService.GENRE_FACET), counts -> genrePopup =
+                createFilterPopup(genreFilterButton, "Genres",
+                        genreOptions, selectedGenres, counts), this::showFacetError);
+    }
 
-        genrePopup = createFilterPopup(genreFilterButton, "Genres",
-                allGenres, selectedGenres);
+    /**
+     * Read the filter inputs on the JavaFX thread, and return the query of the live counts of a facet: how many
+     * materials each value would show with the other filters and the search as they are
+     */
+    private Callable<Map<String, Integer>> facetQuery(String facet) {
+        Map<Integer, String> types = materialTypeMap;
+        Map<Integer, String> genres = genreMap;
+        Set<String> typeSelection = new HashSet<>(selectedMaterialTypes);
+        Set<String> statusSelection = new HashSet<>(selectedStatuses);
+        Set<String> genreSelection = new HashSet<>(selectedGenres);
+        String yearFrom = yearFromField.getText().trim();
+        String yearTo = yearToField.getText().trim();
+        String searchTerm = searchField.getText().trim();
+        return () -> catalogService.countMaterialFacet(materialDAO, materialGenreDAO, facet, types, genres,
+                typeSelection, statusSelection, genreSelection, yearFrom, yearTo, searchTerm);
+    }
+
+    private void showFacetError(Exception e) {
+        showError("Filter Error", "Failed to count the filter options: " + e.getMessage());
     }
 
     /**
-     * Create filter popup with checkboxes
+     * Create filter popup with checkboxes, each labelled with its live count (e.g. "fantasy (124)")
      */
     private Popup createFilterPopup(ComboBox<String> sourceButton, String label,
-                                    Set<String> allOptions, Set<String> selectedOptions) {
+                                    Set<String> allOptions, Set<String> selectedOptions,
+                                    Map<String, Integer> counts) {
         Popup popup = new Popup();
         popup.setAutoHide(true);
 
@@ -251,7 +265,8 @@ public class AdminMaterialCatalogController {
         Map<String, CheckBox> checkBoxMap = new HashMap<>();
 
         for (String option : allOptions) {
-            CheckBox cb = new CheckBox(option);
+            Integer count = counts.get(option);
+            CheckBox cb = new CheckBox(count == null ? option : option + " (" + count + ")");
             cb.setSelected(selectedOptions.contains(option));
             cb.setStyle(
                     "-fx-padding: 3; " +
@@ -330,49 +345,32 @@ public class AdminMaterialCatalogController {
     }
 
     /**
-     * Load material types from database and populate cache
-     */
-    private void loadMaterialTypes() {
-        List<MaterialType> types = materialTypeDAO.selectAll();
-        materialTypeMap.clear();
-
-        for (MaterialType type : types) {
-            materialTypeMap.put(type.getIdMaterialType(), type.getMaterial_type());
-        }
-    }
-
-    /**
-     * Load genres from database and populate cache
+     * Load material types from database
      */
-    private void loadGenres() {
-        List<Genre> genres = genreDAO.selectAll();
-        genreMap.clear();
+    private Map<Integer, String> loadMaterialTypes() {
+        Map<Integer, String> types = new HashMap<>();
 
-        for (Genre genre : genres) {
-            genreMap.put(genre.getIdGenre(), genre.getGenre());
+        for (MaterialType type : materialTypeDAO.selectAll()) {
+            types.put(type.getIdMaterialType(), type.getMaterial_type());
         }
+        return types;
     }
 
     /**
-     * Load material-genre relationships
+     * Load genres from database
      */
-    private void loadMaterialGenreRelationships() {
-        try {
-            List<MaterialGenre> relationships = materialGenreDAO.select(null);
-            materialGenreMap.clear();
+    private Map<Integer, String> loadGenres() {
+        Map<Integer, String> genres = new HashMap<>();
 
-            for (MaterialGenre mg : relationships) {
-                materialGenreMap
-                        .computeIfAbsent(mg.getIdMaterial(), k -> new HashSet<>())
-                        .add(mg.getIdGenre());
-            }
-        } catch (DAOException e) {
-            showError("Error loading genre relationships", e.getMessage());
+        for (Genre genre : genreDAO.selectAll()) {
+            genres.put(genre.getIdGenre(), genre.getGenre());
         }
+        return genres;
     }
 
     /**
-     * Setup table columns with property bindings
+     * Setup table columns with property bindings.
+     * The rows of a paged list read as null while their page loads: every cell shows nothing for them.
      */
     private void setupTableColumns() {
         titleColumn.setCellValueFactory(new PropertyValueFactory<>("title"));
@@ -393,17 +391,17 @@ public class AdminMaterialCatalogController {
             }
         });
 
-        // Genre column
-        genreColumn.setCellValueFactory(new PropertyValueFactory<>("idMaterial"));
-        genreColumn.setCellFactory(column -> new TableCell<Material, Integer>() {
+        // Genre column: the genre IDs read with the row
+        genreColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(
+                cell.getValue() == null ? null : rowGenres.getOrDefault(cell.getValue(), Set.of())));
+        genreColumn.setCellFactory(column -> new TableCell<Material, Set<Integer>>() {
             @Override
-            protected void updateItem(Integer materialId, boolean empty) {
-                super.updateItem(materialId, empty);
-                if (empty || materialId == null) {
+            protected void updateItem(Set<Integer> genreIds, boolean empty) {
+                super.updateItem(genreIds, empty);
+                if (empty || genreIds == null) {
                     setText(null);
                 } else {
-                    Set<Integer> genreIds = materialGenreMap.get(materialId);
-                    if (genreIds != null && !genreIds.isEmpty()) {
+                    if (!genreIds.isEmpty()) {
                         String genres = genreIds.stream()
                                 .map(id -> getGenreName(id))
                                 .sorted()
@@ -437,42 +435,182 @@ public class AdminMaterialCatalogController {
             }
         });
 
-        materialTable.setItems(filteredList);
+        // Paged rows come in the order of the query (or of relevance): sorting them would read every page
+        materialTable.setSortPolicy(table -> !(table.getItems() instanceof PagedList));
     }
 
     /**
-     * Load all materials from database
+     * Load the lookup maps and the filter options from database in the background, then show them
+     *
+     * @param reload Whether the rows shown are read again (keeping the filters, plus the options that are new),
+     *               instead of showing every material
      */
-    private void loadAllMaterials() {
-        try {
-            List<Material> materials = materialDAO.select(null);
-            materialList.clear();
-            materialList.addAll(materials);
+    private void loadAllMaterials(boolean reload) {
+        loadTasks.submit(this::readCatalog, catalog -> {
+            showCatalog(catalog, reload);
+            if (reload) {
+                reloadRows();
+            }
+        }, e -> showError("Error loading materials", e.getMessage()));
+    }
 
-            // Initialize filters with all options selected
-            selectedMaterialTypes.clear();
-            selectedMaterialTypes.addAll(materialList.stream()
-                    .map(m -> getMaterialTypeName(m.getIdMaterialType()))
-                    .collect(Collectors.toSet()));
+    /**
+     * Read the lookup maps and the values of the filters from database. Runs off the JavaFX thread
+     */
+    private Catalog readCatalog() throws DAOException {
+        Map<Integer, String> types = loadMaterialTypes();
+        Map<Integer, String> genres = loadGenres();
+        return new Catalog(types, genres,
+                catalogService.materialFacetValues(materialDAO, MaterialCatalogService.TYPE_FACET, types, genres),
+                catalogService.materialFacetValues(materialDAO, MaterialCatalogService.STATUS_FACET, types, genres),
+                catalogService.materialFacetValues(materialDAO, MaterialCatalogService.GENRE_FACET, types, genres));
+    }
 
+    /**
+     * Show loaded lookup maps and filter options
+     *
+     * @param keepFilters Whether to keep the current filter selections (selecting the options that are new) instead
+     *                    of selecting every option, dropping the filters still running on the previous catalog
+     */
+    private void showCatalog(Catalog catalog, boolean keepFilters) {
+        materialTypeMap = catalog.materialTypeMap();
+        genreMap = catalog.genreMap();
+
+        if (keepFilters) {
+            reselect(selectedMaterialTypes, materialTypeOptions, catalog.materialTypeOptions());
+            reselect(selectedStatuses, statusOptions, catalog.statusOptions());
+            reselect(selectedGenres, genreOptions, catalog.genreOptions());
+        } else {
+            filterTasks.cancel();
+            selectedMaterialTypes.clear();
+            selectedMaterialTypes.addAll(catalog.materialTypeOptions());
             selectedStatuses.clear();
-            selectedStatuses.addAll(materialList.stream()
-                    .map(Material::getMaterial_status)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet()));
-
+            selectedStatuses.addAll(catalog.statusOptions());
             selectedGenres.clear();
-            selectedGenres.addAll(materialGenreMap.values().stream()
-                    .flatMap(Set::stream)
-                    .map(this::getGenreName)
-                    .collect(Collectors.toSet()));
-
-            filteredList.clear();
-            filteredList.addAll(materials);
-            updateResultCount();
-        } catch (DAOException e) {
-            showError("Error loading materials", e.getMessage());
+            selectedGenres.addAll(catalog.genreOptions());
+        }
+        materialTypeOptions = catalog.materialTypeOptions();
+        statusOptions = catalog.statusOptions();
+        genreOptions = catalog.genreOptions();
+
+        // Rows paged in before the lookup maps were loaded show their type and genre names now
+        materialTable.refresh();
+        if (!keepFilters) {
+            showAll();
+        }
+    }
+
+    /**
+     * Keep the selected options that still exist, and select the options that are new
+     */
+    private static void reselect(Set<String> selected, Set<String> oldOptions, Set<String> newOptions) {
+        selected.retainAll(newOptions);
+        for (String option : newOptions) {
+            if (!oldOptions.contains(option)) selected.add(option);
+        }
+    }
+
+    /**
+     * Read the rows shown again, e.g. after a material was added or edited: they are counted (or searched) again,
+     * keeping the scroll position
+     */
+    private void reloadRows() {
+        if (materialTable.getItems() instanceof PagedList<Material> paged) {
+            paged.reload();
+        }
+    }
+
+    /**
+     * Show every material, paging through the catalog in the DAO (unless already shown)
+     */
+    private void showAll() {
+        if (showingAll) return;
+        filterTasks.submit(() -> PagedList.open(catalogPages(MaterialCriteria::new)), rows -> {
+            showFilterResult(rows);
+            showingAll = true;
+        }, this::showFilterError);
+    }
+
+    /**
+     * Pages of the materials matching some criteria, ordered by title (then ID), read with their genres
+     */
+    private PagedList.PageSource<Material> catalogPages(Supplier<MaterialCriteria> criteria) {
+        return new PagedList.PageSource<>() {
+            @Override
+            public int count() throws DAOException {
+                return materialDAO.countByCriteria(criteria.get());
+            }
+
+            @Override
+            public List<Material> page(int offset, int limit) throws DAOException {
+                MaterialCriteria page = criteria.get();
+                page.setPage(offset, limit);
+                return withGenres(materialDAO.selectByCriteria(page));
+            }
+        };
+    }
+
+    /**
+     * Pages of the matches of a search, best first: the matches are found and ranked once, when the list is counted
+     * (see {@link MaterialCatalogService#rankMaterials}), and only their IDs are kept; each page then reads its rows
+     * by ID, in that order
+     */
+    private PagedList.PageSource<Material> searchPages(MatchQuery matches, String searchTerm) {
+        return new PagedList.PageSource<>() {
+            private volatile List<Integer> rankedIds = List.of();
+
+            @Override
+            public int count() throws DAOException {
+                List<Material> found = matches.find();
+                rankedIds = catalogService.rankMaterials(found, searchTerm, 0, found.size()).getItems().stream()
+                        .map(Material::getIdMaterial)
+                        .toList();
+                return rankedIds.size();
+            }
+
+            @Override
+            public List<Material> page(int offset, int limit) throws DAOException {
+                List<Integer> ids = rankedIds;
+                ids = ids.subList(Math.min(offset, ids.size()), Math.min(offset + limit, ids.size()));
+                Map<Integer, Material> byId = materialDAO.selectByIds(ids);
+                return withGenres(ids.stream().map(byId::get).filter(Objects::nonNull).toList());
+            }
+
+            @Override
+            public void removed(Material row) {
+                rankedIds = rankedIds.stream().filter(id -> !id.equals(row.getIdMaterial())).toList();
+            }
+        };
+    }
+
+    /**
+     * The matches of a search, found in the background
+     */
+    @FunctionalInterface
+    private interface MatchQuery {
+        List<Material> find() throws DAOException;
+    }
+
+    /**
+     * Read a copy of the whole catalog, for the in-memory search when the DAO cannot filter. Runs off the JavaFX
+     * thread
+     */
+    private MaterialCatalogService.CatalogCopy readCatalogCopy() throws DAOException {
+        List<Material> materials = materialDAO.selectAll();
+        return new MaterialCatalogService.CatalogCopy(materials, materialGenreDAO.selectGenreIds(
+                materials.stream().map(Material::getIdMaterial).toList()));
+    }
+
+    /**
+     * Read the genres of some rows with one query, before they are shown. Runs off the JavaFX thread
+     */
+    private List<Material> withGenres(List<Material> rows) throws DAOException {
+        Map<Integer, Set<Integer>> genres = materialGenreDAO.selectGenreIds(
+                rows.stream().map(Material::getIdMaterial).toList());
+        for (Material row : rows) {
+            rowGenres.put(row, genres.getOrDefault(row.getIdMaterial(), Set.of()));
         }
+        return rows;
     }
 
     /**
@@ -486,21 +624,13 @@ public class AdminMaterialCatalogController {
 
         // Reset filters to select all
         selectedMaterialTypes.clear();
-        selectedMaterialTypes.addAll(materialList.stream()
-                .map(m -> getMaterialTypeName(m.getIdMaterialType()))
-                .collect(Collectors.toSet()));
+        selectedMaterialTypes.addAll(materialTypeOptions);
 
         selectedStatuses.clear();
-        selectedStatuses.addAll(materialList.stream()
-                .map(Material::getMaterial_status)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet()));
+        selectedStatuses.addAll(statusOptions);
 
         selectedGenres.clear();
-        selectedGenres.addAll(materialGenreMap.values().stream()
-                .flatMap(Set::stream)
-                .map(this::getGenreName)
-                .collect(Collectors.toSet()));
+        selectedGenres.addAll(genreOptions);
 
         // Reset button texts
         if (materialTypeFilterButton != null) {
@@ -516,37 +646,58 @@ public class AdminMaterialCatalogController {
             genreFilterButton.setStyle("");
         }
 
-        filteredList.clear();
-        filteredList.addAll(materialList);
-        updateResultCount();
+        filterTasks.cancel();
+        showAll();
     }
 
     /**
      * Enhanced filter with improved search algorithm and genre support
-     * Now works with cached data (materialList) instead of hitting DB
+     * Filters are pushed down into SQL, and the matching rows are paged instead of read at once (a search ranks them
+     * by relevance)
      */
     @FXML
     private void handleFilter() {
-        try {
-            List<Material> result = catalogService.filterMaterials(
-                    materialList,  // Uses cached data
-                    materialGenreMap,
-                    materialTypeMap,
-                    genreMap,
-                    selectedMaterialTypes,
-                    selectedStatuses,
-                    selectedGenres,
-                    yearFromField.getText().trim(),
-                    yearToField.getText().trim(),
-                    searchField.getText().trim()
-            );
+        filterTasks.submit(filterQuery(), this::showFilterResult, this::showFilterError);
+    }
 
-            filteredList.setAll(result);
-            updateResultCount();
-        } catch (Exception e) {
-            showError("Filter Error", "Failed to filter materials: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Read the search and filter inputs on the JavaFX thread, and return the query applying them in the background
+     */
+    private Callable<PagedList<Material>> filterQuery() {
+        Map<Integer, String> types = materialTypeMap;
+        Map<Integer, String> genres = genreMap;
+        Set<String> typeSelection = new HashSet<>(selectedMaterialTypes);
+        Set<String> statusSelection = new HashSet<>(selectedStatuses);
+        Set<String> genreSelection = new HashSet<>(selectedGenres);
+        String yearFrom = yearFromField.getText().trim();
+        String yearTo = yearToField.getText().trim();
+        String searchTerm = searchField.getText().trim();
+
+        // Filters are evaluated by the database (a search falls back to a copy of the catalog if it cannot)
+        if (searchTerm.isEmpty()) {
+            Supplier<MaterialCriteria> criteria = () -> catalogService.buildCriteria(types, genres,
+                    typeSelection, statusSelection, genreSelection, yearFrom, yearTo, searchTerm);
+            return () -> PagedList.open(catalogPages(criteria));
+        }
+        MatchQuery matches = () -> catalogService.filterMaterials(materialDAO, this::readCatalogCopy, types, genres,
+                typeSelection, statusSelection, genreSelection, yearFrom, yearTo, searchTerm);
+        return () -> PagedList.open(searchPages(matches, searchTerm));
+    }
+
+    private void showFilterResult(PagedList<Material> result) {
+        if (materialTable.getItems() instanceof PagedList<Material> shown && shown != result) {
+            shown.cancel();
         }
+        showingAll = false;
+        // The count changes when the rows are counted again (e.g. after a delete)
+        result.addListener((ListChangeListener<Material>) change -> updateResultCount());
+        materialTable.setItems(result);
+        updateResultCount();
+    }
+
+    private void showFilterError(Exception e) {
+        showError("Filter Error", "Failed to filter materials: " + e.getMessage());
+        e.printStackTrace();
     }
 
     /**
@@ -620,9 +771,9 @@ public class AdminMaterialCatalogController {
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
                 materialDAO.delete(selected);
-                materialList.remove(selected);
-                filteredList.remove(selected);
-                updateResultCount();
+                if (materialTable.getItems() instanceof PagedList<Material> paged) {
+                    paged.rowRemoved(materialTable.getSelectionModel().getSelectedIndex());
+                }
                 showInfo("Success", "Material deleted successfully");
             } catch (DAOException e) {
                 showError("Delete Error", "Failed to delete material: " + e.getMessage());
@@ -643,7 +794,7 @@ public class AdminMaterialCatalogController {
      * Updates the label showing the count of filtered materials.
      */
     private void updateResultCount() {
-        resultCountLabel.setText(String.format("Total: %d materials", filteredList.size()));
+        resultCountLabel.setText(String.format("Total: %d materials", materialTable.getItems().size()));
     }
 
     private String getMaterialTypeName(Integer typeId) {
@@ -686,13 +837,11 @@ public class AdminMaterialCatalogController {
     }
 
     /**
-     * Reloads all material-related data (relationships and all materials) from the database
-     * and re-applies the current filter settings.
+     * Reloads the lookup maps and filter options from the database, and reads the rows shown again with the
+     * current filter settings.
      */
     public void refresh() {
-        loadMaterialGenreRelationships();
-        loadAllMaterials();
-        handleFilter();
+        loadAllMaterials(true);
     }
 
     public void setMainApp(MainApp mainApp) {
@@ -0,0 +1,149 @@
+package it.unicas.project.template.address.view;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs the queries of a view (filters, searches, DAO loads) off the JavaFX application thread, on virtual threads,
+ * and hands their results back to it.
+ * <p>
+ * Each instance is one stream of queries where only the latest one matters: submitting a query supersedes the
+ * previous ones. A superseded query that has not started yet (still waiting out its debounce delay, or queued) never
+ * runs; one already running completes, but its result is dropped instead of being published. Running queries are not
+ * interrupted: interrupting a virtual thread blocked on a socket closes the socket, and with it a pooled database
+ * connection.
+ * </p>
+ * <p>
+ * {@link #debounce} waits for the input to settle before querying. The delay adapts to how long the queries of this
+ * instance take: about twice their average latency, between {@value #DEFAULT_MIN_DEBOUNCE_MILLIS} and
+ * {@value #DEFAULT_MAX_DEBOUNCE_MILLIS} ms (see {@link #MIN_DEBOUNCE_PROPERTY} and {@link #MAX_DEBOUNCE_PROPERTY}).
+ * Fast filters thus follow the typing closely, while slow ones wait long enough not to pile up stale work.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Used by the controllers of this package only.
+ */
+final class BackgroundTasks {
+
+    /** System property overriding the shortest debounce delay, in milliseconds. */
+    static final String MIN_DEBOUNCE_PROPERTY = "library.debounce.minMillis";
+    /** System property overriding the longest debounce delay, in milliseconds. */
+    static final String MAX_DEBOUNCE_PROPERTY = "library.debounce.maxMillis";
+
+    static final int DEFAULT_MIN_DEBOUNCE_MILLIS = 50;
+    static final int DEFAULT_MAX_DEBOUNCE_MILLIS = 500;
+    // Delay before the first latency has been measured: the fixed delay the views used to have
+    private static final long INITIAL_DEBOUNCE_MILLIS = 300;
+    // Weight of the latest latency in the running average
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    private static final ExecutorService WORKERS =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("background-task-", 0).factory());
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread timer = new Thread(task, "background-task-timer");
+        timer.setDaemon(true);
+        return timer;
+    });
+
+    private final long minDebounceMillis = Integer.getInteger(MIN_DEBOUNCE_PROPERTY, DEFAULT_MIN_DEBOUNCE_MILLIS);
+    private final long maxDebounceMillis = Math.max(minDebounceMillis,
+            Integer.getInteger(MAX_DEBOUNCE_PROPERTY, DEFAULT_MAX_DEBOUNCE_MILLIS));
+
+    private final AtomicLong latest = new AtomicLong();
+    private Future<?> pending;                      // Debounce delay of the latest query, if still running
+    private volatile double averageMillis = -1;     // Running average of the query latency, -1 until measured
+
+    /**
+     * Runs a query once the input has settled, superseding the previous queries.
+     *
+     * @param query The query, run on a virtual thread. It must not touch the scene graph: read the inputs before,
+     *              on the JavaFX thread, and capture them.
+     * @param onResult Receives the result on the JavaFX thread, unless a newer query was submitted meanwhile.
+     * @param onFailure Receives the exception thrown by the query on the JavaFX thread, on the same condition.
+     * @param <R> The type of the result
+     */
+    <R> void debounce(Callable<R> query, Consumer<R> onResult, Consumer<Exception> onFailure) {
+        schedule(debounceMillis(), query, onResult, onFailure);
+    }
+
+    /**
+     * Runs a query right away, superseding the previous queries (a reload, an explicit search...).
+     *
+     * @param query The query, run on a virtual thread.
+     * @param onResult Receives the result on the JavaFX thread, unless a newer query was submitted meanwhile.
+     * @param onFailure Receives the exception thrown by the query on the JavaFX thread, on the same condition.
+     * @param <R> The type of the result
+     */
+    <R> void submit(Callable<R> query, Consumer<R> onResult, Consumer<Exception> onFailure) {
+        schedule(0, query, onResult, onFailure);
+    }
+
+    /**
+     * Drops every query submitted so far: none of their results will be published.
+     */
+    synchronized void cancel() {
+        latest.incrementAndGet();
+        if (pending != null) pending.cancel(false);
+    }
+
+    /**
+     * Returns the current debounce delay: about twice the average query latency, within the configured bounds.
+     *
+     * @return The delay in milliseconds.
+     */
+    long debounceMillis() {
+        double average = averageMillis;
+        long delay = average < 0 ? INITIAL_DEBOUNCE_MILLIS : Math.round(2 * average);
+        return Math.min(maxDebounceMillis, Math.max(minDebounceMillis, delay));
+    }
+
+    private synchronized <R> void schedule(long delayMillis, Callable<R> query, Consumer<R> onResult,
+                                           Consumer<Exception> onFailure) {
+        long ticket = latest.incrementAndGet();
+        if (pending != null) pending.cancel(false);
+
+        Runnable run = () -> execute(ticket, query, onResult, onFailure);
+        if (delayMillis > 0) {
+            pending = TIMER.schedule(() -> {
+                if (isLatest(ticket)) WORKERS.execute(run);
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            pending = null;
+            WORKERS.execute(run);
+        }
+    }
+
+    private <R> void execute(long ticket, Callable<R> query, Consumer<R> onResult, Consumer<Exception> onFailure) {
+        if (!isLatest(ticket)) return; // Superseded while queued
+
+        long start = System.nanoTime();
+        try {
+            R result = query.call();
+            recordLatency(System.nanoTime() - start);
+            Platform.runLater(() -> {
+                if (isLatest(ticket)) onResult.accept(result);
+            });
+        } catch (Exception e) {
+            Platform.runLater(() -> {
+                if (isLatest(ticket)) onFailure.accept(e);
+            });
+        }
+    }
+
+    private boolean isLatest(long ticket) {
+        return latest.get() == ticket;
+    }
+
+    private void recordLatency(long nanos) {
+        double millis = nanos / 1e6;
+        double average = averageMillis;
+        averageMillis = average < 0 ? millis : average + LATENCY_SMOOTHING * (millis - average);
+    }
+}
@@ -0,0 +1,268 @@
+package it.unicas.project.template.address.view;
+
+import it.unicas.project.template.address.diagnostics.Diagnostics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in watchdog of the JavaFX application thread: reports the call sites that block the UI.
+ * <p>
+ * When the application is started with {@code -Dlibrary.fx.watchdog=true}, {@link FxTaskMonitor} keeps probing the
+ * JavaFX thread and samples its stack for as long as a probe is held up. Every stall longer than
+ * {@code -Dlibrary.fx.watchdog.thresholdMillis} milliseconds (default 200) is attributed to a call site: the
+ * handler running (the outermost application method above the JavaFX dispatch frames, e.g.
+ * {@code UserCatalogController$3.updateItem}) and the innermost application line outside the DAOs, where the
+ * thread was found most often. Samples inside JDBC (the MySQL DAOs, {@code java.sql} or the driver) are marked, with
+ * the DAO method that the call site blocked in.
+ * </p>
+ * <p>
+ * Stalls are aggregated by call site, ranked by the time they blocked the UI, and written to
+ * {@code -Dlibrary.fx.watchdog.report} (default {@code fx-stall-report.txt}) every few seconds while stalls occur,
+ * and when the application exits; {@link #exportReport(Path)} writes the report anywhere else.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Diagnostics code may read or export the report; the stalls are
+ * recorded by {@link FxTaskMonitor} inside this package.
+ */
+public final class FxStallWatchdog {
+
+    /** System property turning the watchdog on when set to {@code true}. */
+    public static final String WATCHDOG_PROPERTY = "library.fx.watchdog";
+
+    /** System property with the shortest stall reported, in milliseconds. */
+    public static final String THRESHOLD_PROPERTY = "library.fx.watchdog.thresholdMillis";
+
+    /** System property with the path of the report file. */
+    public static final String REPORT_PROPERTY = "library.fx.watchdog.report";
+
+    private static final Logger logger = Logger.getLogger(FxStallWatchdog.class.getName());
+
+    private static final boolean ENABLED = Boolean.getBoolean(WATCHDOG_PROPERTY);
+    private static final long THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong(THRESHOLD_PROPERTY, 200));
+    private static final Path REPORT = Path.of(System.getProperty(REPORT_PROPERTY, "fx-stall-report.txt"));
+
+    private static final int STACK_DEPTH = 24;
+
+    private static final String[] JDBC_PACKAGES = {Diagnostics.DAO_PACKAGE + "mysql.", "java.sql.", "com.mysql."};
+
+    private static final Map<String, CallSite> CALL_SITES = new HashMap<>();
+
+    // Written while stalls occur, and on exit
+    private static final Diagnostics.ReportFile REPORT_FILE = ENABLED
+            ? new Diagnostics.ReportFile("JavaFX stall report", REPORT, FxStallWatchdog::report, () -> { })
+            : null;
+
+    static {
+        if (ENABLED) {
+            logger.info("JavaFX stall watchdog on: stalls longer than " + TimeUnit.NANOSECONDS.toMillis(THRESHOLD_NANOS)
+                    + " ms are reported to " + REPORT.toAbsolutePath());
+        }
+    }
+
+    private FxStallWatchdog() {
+    }
+
+    /**
+     * Returns whether the watchdog is on.
+     *
+     * Access Keyword Explanation: {@code public static} - Read by {@link FxTaskMonitor} and by diagnostics code.
+     *
+     * @return true if the application was started with {@value #WATCHDOG_PROPERTY}{@code =true}.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Records a stall of the JavaFX thread, if it lasted longer than the threshold.
+     *
+     * @param stallNanos How long the JavaFX thread was blocked.
+     * @param samples Its stacks, sampled at regular intervals during the stall.
+     */
+    static void record(long stallNanos, List<StackTraceElement[]> samples) {
+        if (!ENABLED || stallNanos < THRESHOLD_NANOS || samples.isEmpty()) return;
+
+        // Attribute the stall to the call site the thread was found at most often
+        Map<String, List<StackTraceElement[]>> samplesBySite = new LinkedHashMap<>();
+        for (StackTraceElement[] stack : samples) {
+            samplesBySite.computeIfAbsent(keyOf(stack), key -> new ArrayList<>()).add(stack);
+        }
+        List<StackTraceElement[]> siteSamples = samplesBySite.values().stream()
+                .max(Comparator.comparingInt(List::size))
+                .orElseThrow();
+
+        synchronized (FxStallWatchdog.class) {
+            StackTraceElement[] first = siteSamples.get(0);
+            CallSite site = CALL_SITES.computeIfAbsent(keyOf(first), key -> {
+                logger.warning("JavaFX thread blocked for " + Diagnostics.millis(stallNanos) + " in " + key);
+                return new CallSite(FxTaskMonitor.taskOf(first), siteOf(first), FxTaskMonitor.format(first, STACK_DEPTH));
+            });
+            site.record(stallNanos, siteSamples, samples.size());
+        }
+        REPORT_FILE.writeIfDue();
+    }
+
+    /**
+     * Returns the report of the stalls recorded so far, by call site, costliest first.
+     *
+     * Access Keyword Explanation: {@code public static} - May be shown or exported by diagnostics code.
+     *
+     * @return The report, as text.
+     */
+    public static synchronized String report() {
+        List<CallSite> ranked = new ArrayList<>(CALL_SITES.values());
+        ranked.sort(Comparator.comparingDouble(CallSite::blockedNanos).reversed());
+
+        StringBuilder text = new StringBuilder();
+        text.append("JavaFX thread stalls - ").append(LocalDateTime.now()).append('\n');
+        text.append("Stalls longer than ").append(TimeUnit.NANOSECONDS.toMillis(THRESHOLD_NANOS))
+                .append(" ms, by call site, ranked by the time they blocked the UI.\n");
+        if (ranked.isEmpty()) text.append("No stall.\n");
+        for (int i = 0; i < ranked.size(); i++) {
+            text.append('\n');
+            ranked.get(i).describe(i + 1, text);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the report to the report file.
+     * <p>
+     * Called automatically while stalls occur and when the JVM exits.
+     * </p>
+     *
+     * Access Keyword Explanation: {@code public static} - May be triggered by diagnostics code.
+     */
+    public static void writeReport() {
+        if (ENABLED) REPORT_FILE.write();
+    }
+
+    /**
+     * Writes the report to a file.
+     *
+     * Access Keyword Explanation: {@code public static} - Lets diagnostics code export the report.
+     *
+     * @param target The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void exportReport(Path target) throws IOException {
+        Files.writeString(target, report(), StandardCharsets.UTF_8);
+    }
+
+    // --- Internal helpers ---
+
+    private static String keyOf(StackTraceElement[] stack) {
+        return FxTaskMonitor.taskOf(stack) + " at " + siteOf(stack);
+    }
+
+    /**
+     * Returns the innermost application frame outside the DAOs, e.g.
+     * {@code view.UserCatalogController$3.updateButtonState(UserCatalogController.java:470)}.
+     */
+    private static String siteOf(StackTraceElement[] stack) {
+        int index = siteIndex(stack);
+        return index < 0 ? "(outside the application)" : stack[index].toString().substring(Diagnostics.APP_PACKAGE.length());
+    }
+
+    private static int siteIndex(StackTraceElement[] stack) {
+        for (int i = 0; i < stack.length; i++) {
+            String className = stack[i].getClassName();
+            if (className.startsWith(Diagnostics.APP_PACKAGE) && !className.startsWith(Diagnostics.DAO_PACKAGE)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean inJdbc(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            for (String prefix : JDBC_PACKAGES) {
+                if (frame.getClassName().startsWith(prefix)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the DAO method called by the call site, e.g. {@code HoldDAOMySQLImpl.select}, or {@code null} if the
+     * thread was not in a DAO.
+     */
+    private static String daoCallOf(StackTraceElement[] stack) {
+        int index = siteIndex(stack);
+        if (index <= 0 || !stack[index - 1].getClassName().startsWith(Diagnostics.DAO_PACKAGE)) return null;
+        return Diagnostics.methodOf(stack[index - 1].getClassName(), stack[index - 1].getMethodName());
+    }
+
+    /**
+     * The stalls attributed to one call site.
+     */
+    private static final class CallSite {
+        private final String task;
+        private final String site;
+        private final String sampleStack;
+        private final Set<String> daoCalls = new TreeSet<>();
+        private int stalls;
+        private long totalNanos;
+        private long maxNanos;
+        private double blockedNanos;    // Share of the stalls spent at this site, by sample count
+        private double jdbcNanos;       // Share of the stalls spent in JDBC at this site
+
+        private CallSite(String task, String site, String sampleStack) {
+            this.task = task;
+            this.site = site;
+            this.sampleStack = sampleStack;
+        }
+
+        void record(long stallNanos, List<StackTraceElement[]> siteSamples, int sampleCount) {
+            stalls++;
+            totalNanos += stallNanos;
+            maxNanos = Math.max(maxNanos, stallNanos);
+            blockedNanos += (double) stallNanos * siteSamples.size() / sampleCount;
+
+            int jdbcSamples = 0;
+            for (StackTraceElement[] stack : siteSamples) {
+                if (inJdbc(stack)) {
+                    jdbcSamples++;
+                    String daoCall = daoCallOf(stack);
+                    if (daoCall != null) daoCalls.add(daoCall);
+                }
+            }
+            jdbcNanos += (double) stallNanos * jdbcSamples / sampleCount;
+        }
+
+        double blockedNanos() {
+            return blockedNanos;
+        }
+
+        void describe(int rank, StringBuilder text) {
+            text.append(rank).append(". ").append(task).append(" - ").append(stalls).append(" stall(s), ")
+                    .append(Diagnostics.millis(totalNanos)).append(" total, ")
+                    .append(Diagnostics.millis(maxNanos)).append(" max, ")
+                    .append(Diagnostics.millis((long) blockedNanos)).append(" at this site\n");
+            text.append("   at ").append(site).append('\n');
+            if (jdbcNanos > 0) {
+                text.append("   BLOCKING JDBC ON THE JAVAFX THREAD: ").append(Diagnostics.millis((long) jdbcNanos));
+                if (!daoCalls.isEmpty()) text.append(" in ").append(String.join(", ", daoCalls));
+                text.append('\n');
+            }
+            text.append("   sample stack:\n");
+            for (String line : sampleStack.split("\n")) {
+                text.append("      ").append(line).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package it.unicas.project.template.address.view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for every task that keeps the JavaFX application thread busy for longer than
+ * a frame. The event's own stack trace would be the monitor's, so the JavaFX thread's stack is recorded as text.
+ *
+ * Access Keyword Explanation: package-private - Emitted only by {@link FxTaskMonitor}.
+ */
+@Name("it.unicas.library.FxTask")
+@Label("JavaFX Task Longer Than A Frame")
+@Category({"Library", "JavaFX"})
+@Description("The JavaFX application thread was busy with one task for longer than a frame")
+@StackTrace(false)
+final class FxTaskEvent extends Event {
+
+    @Label("Task")
+    @Description("Outermost application method on the JavaFX thread, or its top frame when outside the application")
+    String task;
+
+    @Label("JavaFX Thread Stack")
+    @Description("Top frames of the JavaFX thread, sampled once the task had exceeded a frame")
+    String stack;
+}
@@ -0,0 +1,130 @@
+package it.unicas.project.template.address.view;
+
+import it.unicas.project.template.address.diagnostics.Diagnostics;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports every JavaFX application thread task longer than a frame as an {@link FxTaskEvent}.
+ * <p>
+ * A daemon thread posts a tiny probe to the JavaFX thread every few milliseconds and waits for it to run. When the
+ * probe is held up for more than a frame (1/60 s), the JavaFX thread is busy with a long task: an event handler, a
+ * layout pulse, a DAO call... Its stack is sampled at that point to name the task, and the event lasts until the
+ * probe finally runs. The monitor only probes while a Flight Recorder recording has the event enabled, or while the
+ * {@link FxStallWatchdog} is on; otherwise it just checks again every second.
+ * </p>
+ * <p>
+ * For the watchdog, the stack keeps being sampled every {@value #SAMPLE_INTERVAL_MILLIS} ms until the probe runs,
+ * so that a long stall is attributed to where the JavaFX thread actually spent it.
+ * </p>
+ *
+ * Access Keyword Explanation: {@code public} - Started by {@code MainApp}.
+ */
+public final class FxTaskMonitor {
+
+    private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private static final long PROBE_INTERVAL_MILLIS = 10;
+    private static final long IDLE_CHECK_MILLIS = 1000;
+    private static final long SAMPLE_INTERVAL_MILLIS = 20;
+    private static final int MAX_SAMPLES = 500;
+    private static final int STACK_DEPTH = 16;
+
+    private static Thread monitor;
+    private static volatile Thread fxThread;
+
+    private FxTaskMonitor() {
+    }
+
+    /**
+     * Starts the monitor, once.
+     *
+     * Access Keyword Explanation: {@code public static} - Called by {@code MainApp.start()}.
+     */
+    public static synchronized void start() {
+        if (monitor != null) return;
+        monitor = new Thread(FxTaskMonitor::run, "fx-task-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    private static void run() {
+        try {
+            while (true) {
+                FxTaskEvent event = new FxTaskEvent();
+                boolean watched = FxStallWatchdog.isEnabled();
+                if (!event.isEnabled() && !watched) {
+                    Thread.sleep(IDLE_CHECK_MILLIS);
+                    continue;
+                }
+
+                CountDownLatch probe = new CountDownLatch(1);
+                long posted = System.nanoTime();
+                event.begin();
+                Platform.runLater(() -> {
+                    fxThread = Thread.currentThread();
+                    probe.countDown();
+                });
+                if (!probe.await(FRAME_NANOS, TimeUnit.NANOSECONDS)) {
+                    List<StackTraceElement[]> samples = new ArrayList<>();
+                    samples.add(sample());
+                    if (watched) {
+                        while (!probe.await(SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                            if (samples.size() < MAX_SAMPLES) samples.add(sample());
+                        }
+                    } else {
+                        probe.await();
+                    }
+                    long stalled = System.nanoTime() - posted;
+                    event.end();
+                    if (event.shouldCommit()) {
+                        StackTraceElement[] stack = samples.get(0);
+                        event.task = taskOf(stack);
+                        event.stack = format(stack, STACK_DEPTH);
+                        event.commit();
+                    }
+                    FxStallWatchdog.record(stalled, samples);
+                }
+                Thread.sleep(PROBE_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            // The JavaFX toolkit has exited: nothing left to monitor
+        }
+    }
+
+    private static StackTraceElement[] sample() {
+        Thread busy = fxThread;
+        return busy != null ? busy.getStackTrace() : new StackTraceElement[0];
+    }
+
+    /**
+     * Returns the outermost application frame above the JavaFX dispatch frames, or the top frame when the JavaFX
+     * thread is not running application code (layout, CSS, rendering).
+     */
+    static String taskOf(StackTraceElement[] stack) {
+        String task = null;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (task != null && Diagnostics.isDispatch(className)) break;
+            if (className.startsWith(Diagnostics.APP_PACKAGE)) {
+                task = Diagnostics.methodOf(className, frame.getMethodName());
+            }
+        }
+        if (task != null) return task;
+        return stack.length > 0 ? stack[0].getClassName() + "." + stack[0].getMethodName() : "unknown";
+    }
+
+    static String format(StackTraceElement[] stack, int depth) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < Math.min(depth, stack.length); i++) {
+            text.append(stack[i]).append('\n');
+        }
+        if (stack.length > depth) text.append("... ").append(stack.length - depth).append(" more");
+        return text.toString();
+    }
+}
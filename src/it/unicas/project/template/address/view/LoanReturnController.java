@@ -4,13 +4,10 @@ import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.Loan;
 import it.unicas.project.template.address.model.LoanRow;
 import it.unicas.project.template.address.model.Material;
-import it.unicas.project.template.address.model.User;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.LoanDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.UserDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.UnitOfWork;
 import it.unicas.project.template.address.service.LoanCatalogService;
-import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -25,13 +22,12 @@ import javafx.stage.Stage;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 
 /**
  * Controller class for loading, searching, and returning loans.
  * Handles user interactions, table display, real-time search, and loan return logic.
+ * Loans are loaded and searched in the background (see {@link BackgroundTasks}).
  */
 public class LoanReturnController {
 
@@ -53,14 +49,13 @@ public class LoanReturnController {
     private MainApp mainApp;
     private LoanCatalogService loanCatalogService = new LoanCatalogService();
 
-    // Cache for loaded data to avoid repeated DB calls
-    private List<Loan> cachedLoans = new ArrayList<>();
-    private Map<Integer, Material> cachedMaterials = new HashMap<>();
-    private Map<Integer, User> cachedUsers = new HashMap<>();
+    // Cache of the active loan rows to avoid repeated DB calls while searching. Replaced as a whole by every load
+    // (never modified), so that the background searches can read it
+    private List<LoanRow> cachedRows = List.of();
 
-    // Debounce mechanism for search
-    private ScheduledExecutorService searchScheduler = Executors.newSingleThreadScheduledExecutor();
-    private java.util.concurrent.Future<?> searchTask;
+    // Debounced searches and loan loads, off the JavaFX thread: only the latest of each is shown
+    private final BackgroundTasks searchTasks = new BackgroundTasks();
+    private final BackgroundTasks loadTasks = new BackgroundTasks();
 
     /**
      * Initializes the controller.
@@ -100,18 +95,9 @@ public class LoanReturnController {
         // Return loan button
         returnLoanButton.setOnAction(e -> handleReturnLoan());
 
-        // FIXED: Debounced search listener (waits 300ms after typing stops)
-        searchField.textProperty().addListener((obs, oldText, newText) -> {
-            // Cancel previous search task if still pending
-            if (searchTask != null && !searchTask.isDone()) {
-                searchTask.cancel(false);
-            }
-
-            // Schedule new search after 300ms delay
-            searchTask = searchScheduler.schedule(() -> {
-                Platform.runLater(this::handleSearch);
-            }, 300, TimeUnit.MILLISECONDS);
-        });
+        // Debounced search listener (waits for typing to stop; the delay adapts to the search latency)
+        searchField.textProperty().addListener((obs, oldText, newText) ->
+                searchTasks.debounce(searchQuery(), loanRows::setAll, this::showSearchError));
 
         // Configure search button as Clear
         searchButton.setText("Clear");
@@ -138,95 +124,42 @@ public class LoanReturnController {
     }
 
     /**
-     * Loads all active loans into the table and caches data.
+     * Loads all active loans into the table and caches them, in the background.
+     * <p>
+     * The loans are joined with their materials and users and sorted by due date in a single query.
+     * </p>
      */
     private void loadAllLoans() {
-        loanRows.clear();
-        cachedLoans.clear();
-        cachedMaterials.clear();
-        cachedUsers.clear();
-
-        try {
-            // Load all loans once
-            List<Loan> allLoans = LoanDAOMySQLImpl.getInstance().select(null);
-
-            for (Loan loan : allLoans) {
-                if (loan.getReturn_date() == null) {
-                    cachedLoans.add(loan);
-
-                    // Cache material if not already cached
-                    if (!cachedMaterials.containsKey(loan.getIdMaterial())) {
-                        Material m = new Material();
-                        m.setIdMaterial(loan.getIdMaterial());
-                        Material found = MaterialDAOMySQLImpl.getInstance().select(m)
-                                .stream().findFirst().orElse(null);
-                        if (found != null) {
-                            cachedMaterials.put(loan.getIdMaterial(), found);
-                        }
-                    }
-
-                    // Cache user if not already cached
-                    if (!cachedUsers.containsKey(loan.getIdUser())) {
-                        User u = new User();
-                        u.setIdUser(loan.getIdUser());
-                        User found = UserDAOMySQLImpl.getInstance().select(u)
-                                .stream().findFirst().orElse(null);
-                        if (found != null) {
-                            cachedUsers.put(loan.getIdUser(), found);
-                        }
-                    }
-
-                    LoanRow row = buildLoanRowFromCache(loan);
-                    if (row != null) loanRows.add(row);
-                }
-            }
-
-            loanRows.sort(Comparator.comparing(LoanRow::getDueDateAsLocalDate));
-
-        } catch (DAOException e) {
+        loadTasks.submit(() -> DAOFactory.getLoanDAO().selectActiveLoanRows(), rows -> {
+            searchTasks.cancel(); // Searches of the previous loans are stale
+            loanCatalogService.forgetLastSearch();
+            cachedRows = rows;
+            loanRows.setAll(cachedRows);
+        }, e -> {
             e.printStackTrace();
             showError("Database Error", "Failed to load loans: " + e.getMessage());
-        }
+        });
     }
 
     /**
-     * Builds a LoanRow using cached data.
+     * Handles searching loans based on user input, in the background.
+     * Supports searching by user name, surname, material title, or delayed loans keywords.
      */
-    private LoanRow buildLoanRowFromCache(Loan loan) {
-        Material m = cachedMaterials.get(loan.getIdMaterial());
-        User u = cachedUsers.get(loan.getIdUser());
-
-        if (m == null || u == null) return null;
-
-        String materialType = switch (m.getIdMaterialType() != null ? m.getIdMaterialType() : 0) {
-            case 1 -> "Book";
-            case 2 -> "CD";
-            case 3 -> "Movie";
-            case 4 -> "Magazine";
-            default -> "Unknown";
-        };
-
-        String title = m.getTitle() != null ? m.getTitle() : "—";
-        String author = m.getAuthor() != null ? m.getAuthor() : "—";
-        String isbn = m.getISBN() != null ? m.getISBN() : "—";
-        String userName = (u.getName() != null ? u.getName() : "") + " " + (u.getSurname() != null ? u.getSurname() : "");
-        String due = loan.getDue_date() != null ? loan.getDue_date().toLocalDate().toString() : "—";
-        boolean delayed = loan.getDue_date() != null && loan.getDue_date().isBefore(LocalDateTime.now());
-
-        return new LoanRow(loan.getIdLoan(), materialType, title, author, isbn, userName, due, delayed ? "Yes" : "No");
+    @FXML
+    private void handleSearch() {
+        searchTasks.submit(searchQuery(), loanRows::setAll, this::showSearchError);
     }
 
     /**
-     * Handles searching loans based on user input.
-     * Supports searching by user name, surname, material title, or delayed loans keywords.
+     * Reads the search text on the JavaFX thread and returns the query searching the cached loans with it.
+     *
+     * @return The search query, returning the matching loans sorted by due date.
      */
-    @FXML
-    private void handleSearch() {
+    private Callable<List<LoanRow>> searchQuery() {
         String text = searchField.getText().trim();
+        List<LoanRow> rows = cachedRows;
 
-        loanRows.clear();
-
-        try {
+        return () -> {
             // Determine status filter
             Set<String> statusFilter = new HashSet<>();
             if (text.equalsIgnoreCase("delayed") || text.equalsIgnoreCase("delay") ||
@@ -237,28 +170,16 @@ public class LoanReturnController {
 
             // Use cached data for filtering
             String searchTerm = statusFilter.contains("overdue") ? "" : text;
-            List<Loan> filteredLoans = loanCatalogService.filterLoans(
-                    cachedLoans,
-                    cachedMaterials,
-                    cachedUsers,
-                    statusFilter,
-                    searchTerm
-            );
-
-            // Build rows from filtered loans
-            for (Loan loan : filteredLoans) {
-                LoanRow row = buildLoanRowFromCache(loan);
-                if (row != null) {
-                    loanRows.add(row);
-                }
-            }
+            List<LoanRow> result = new ArrayList<>(loanCatalogService.filterLoanRows(rows, statusFilter, searchTerm));
 
-            loanRows.sort(Comparator.comparing(LoanRow::getDueDateAsLocalDate));
+            result.sort(Comparator.comparing(LoanRow::getDueDateAsLocalDate));
+            return result;
+        };
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("Search Error", "Failed to search loans: " + e.getMessage());
-        }
+    private void showSearchError(Exception e) {
+        e.printStackTrace();
+        showError("Search Error", "Failed to search loans: " + e.getMessage());
     }
 
     /**
@@ -323,7 +244,7 @@ public class LoanReturnController {
                 Loan filtro = new Loan();
                 filtro.setIdLoan(selected.getIdLoan());
 
-                List<Loan> loans = LoanDAOMySQLImpl.getInstance().select(filtro);
+                List<Loan> loans = DAOFactory.getLoanDAO().select(filtro);
 
                 if (loans.isEmpty()) {
                     showError("Error", "Loan not found in database.");
@@ -332,17 +253,25 @@ public class LoanReturnController {
 
                 Loan loanReal = loans.get(0);
 
-                // Update return date
-                loanReal.setReturn_date(LocalDateTime.now());
-                LoanDAOMySQLImpl.getInstance().update(loanReal);
+                // Set the return date and free the material in one transaction
+                LocalDateTime previousReturnDate = loanReal.getReturn_date();
+                try (UnitOfWork uow = UnitOfWork.begin()) {
+                    loanReal.setReturn_date(LocalDateTime.now());
+                    DAOFactory.getLoanDAO().update(loanReal);
+
+                    Material material = new Material();
+                    material.setIdMaterial(loanReal.getIdMaterial());
+                    material = DAOFactory.getMaterialDAO().select(material).get(0);
 
-                // Mark material as available
-                Material material = new Material();
-                material.setIdMaterial(loanReal.getIdMaterial());
-                material = MaterialDAOMySQLImpl.getInstance().select(material).get(0);
+                    material.setMaterial_status("available");
+                    DAOFactory.getMaterialDAO().update(material);
 
-                material.setMaterial_status("available");
-                MaterialDAOMySQLImpl.getInstance().update(material);
+                    uow.commit();
+                } catch (DAOException | RuntimeException e) {
+                    // Rolled back: the loan is still open in the database
+                    loanReal.setReturn_date(previousReturnDate);
+                    throw e;
+                }
 
                 // Refresh table and cache
                 loadAllLoans();
@@ -376,7 +305,7 @@ public class LoanReturnController {
             // Obtener Loan real desde la BD
             Loan filtro = new Loan();
             filtro.setIdLoan(selected.getIdLoan());
-            List<Loan> loans = LoanDAOMySQLImpl.getInstance().select(filtro);
+            List<Loan> loans = DAOFactory.getLoanDAO().select(filtro);
             if (loans.isEmpty()) {
                 Alert error = new Alert(Alert.AlertType.ERROR, "Loan not found in database.");
                 error.showAndWait();
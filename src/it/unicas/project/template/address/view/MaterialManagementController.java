@@ -2,14 +2,10 @@ package it.unicas.project.template.address.view;
 
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.MaterialInventory;
-import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
 
 import it.unicas.project.template.address.service.SearchService;
-import javafx.application.Platform;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import java.util.function.Function;
 import java.util.List;
 import javafx.beans.binding.Bindings;
@@ -35,7 +31,8 @@ import java.io.IOException;
  * Controller for the Material Management View (Admin view).
  * <p>This view displays the centralized inventory of all materials, grouping them by title/author/ISBN,
  * and showing total quantity, and breakdown of availability (available, loaned, on hold).
- * It supports search, clearing the search, adding new materials, and viewing/editing material groups.</p>
+ * It supports search, clearing the search, adding new materials, and viewing/editing material groups.
+ * The inventory is loaded and searched in the background (see {@link BackgroundTasks}).</p>
  */
 public class MaterialManagementController {
 
@@ -61,9 +58,10 @@ public class MaterialManagementController {
     // --- Data Management ---
 
     /**
-     * Observable list holding all material inventory records fetched from the database.
+     * All material inventory records fetched from the database. Replaced as a whole by every load (never
+     * modified), so that the background searches can read it.
      */
-    private ObservableList<MaterialInventory> allMaterialList = FXCollections.observableArrayList();
+    private List<MaterialInventory> allMaterialList = List.of();
     /**
      * Observable list bound to the TableView, containing the filtered search results.
      */
@@ -75,13 +73,13 @@ public class MaterialManagementController {
      */
     private final SearchService<MaterialInventory> searchService = new SearchService<>();
     /**
-     * Scheduler used to debounce search input, preventing excessive database/filter operations.
+     * Debounced searches, run off the JavaFX thread, preventing excessive filter operations.
      */
-    private ScheduledExecutorService searchScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final BackgroundTasks searchTasks = new BackgroundTasks();
     /**
-     * Represents the pending or executing search task.
+     * Inventory loads, run off the JavaFX thread.
      */
-    private java.util.concurrent.Future<?> searchTask;
+    private final BackgroundTasks loadTasks = new BackgroundTasks();
     /**
      * List of functions defining the fields to be searched, in order of priority.
      */
@@ -130,59 +128,56 @@ public class MaterialManagementController {
     }
 
     /**
-     * Loads the Material Inventory data from the database into the {@code allMaterialList}
-     * and initializes the {@code filteredList}.
+     * Loads the Material Inventory data from the database in the background, then stores it in the
+     * {@code allMaterialList} and initializes the {@code filteredList}.
      */
     public void loadMaterialData() {
-        allMaterialList.clear();
-        filteredList.clear();
-        try {
-            List<MaterialInventory> materialsFromDB = ((MaterialDAOMySQLImpl) MaterialDAOMySQLImpl.getInstance()).selectAllInventory();
-            allMaterialList.addAll(materialsFromDB);
-            filteredList.addAll(materialsFromDB);
-        } catch (DAOException e) {
+        loadTasks.submit(() -> DAOFactory.getMaterialDAO().selectAllInventory(), materialsFromDB -> {
+            searchTasks.cancel(); // Searches of the previous inventory are stale
+            allMaterialList = materialsFromDB;
+            filteredList.setAll(materialsFromDB);
+        }, e -> {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Database Error");
             alert.setHeaderText("Failed to Load Materials");
             alert.setContentText("Could not load material data from the database: " + e.getMessage());
             alert.showAndWait();
-        }
+        });
     }
 
     /**
-     * Schedule search execution after 300ms delay to debounce user input.
+     * Schedule search execution once the input has settled (the delay adapts to the search latency).
      * This prevents unnecessary, frequent filter recalculations during fast typing.
      */
     private void scheduleSearch() {
-        // Cancel previous search task if still pending
-        if (searchTask != null && !searchTask.isDone()) {
-            searchTask.cancel(false);
-        }
-
-        // Schedule new search after 300ms delay
-        searchTask = searchScheduler.schedule(() -> {
-            Platform.runLater(this::performSearch);
-        }, 300, TimeUnit.MILLISECONDS);
+        searchTasks.debounce(searchQuery(), filteredList::setAll, e -> {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Search Error");
+            alert.setHeaderText("Search Failed");
+            alert.setContentText("Could not search the materials: " + e.getMessage());
+            alert.showAndWait();
+        });
     }
 
     /**
-     * Perform the actual search using SearchService
+     * Reads the search text on the JavaFX thread and returns the search using SearchService, run in the background.
      */
-    private void performSearch() {
+    private Callable<List<MaterialInventory>> searchQuery() {
         String query = searchField.getText().trim();
+        List<MaterialInventory> materials = allMaterialList;
 
-        if (query.isEmpty()) {
-            // Show all materials if search is empty
-            filteredList.setAll(allMaterialList);
-        } else {
+        return () -> {
+            if (query.isEmpty()) {
+                // Show all materials if search is empty
+                return materials;
+            }
             // Use SearchService for prioritized field search
-            List<MaterialInventory> results = searchService.searchAndSort(
-                    allMaterialList,
+            return searchService.searchAndSort(
+                    materials,
                     query,
                     searchFields
             );
-            filteredList.setAll(results);
-        }
+        };
     }
 
     /**
@@ -191,6 +186,7 @@ public class MaterialManagementController {
     @FXML
     private void handleClear() {
         searchField.clear();
+        searchTasks.cancel();
         filteredList.setAll(allMaterialList);
     }
 
@@ -2,7 +2,8 @@ package it.unicas.project.template.address.view;
 
 import it.unicas.project.template.address.model.*;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.*;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.UnitOfWork;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -10,6 +11,7 @@ import javafx.scene.control.*;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import java.time.LocalDateTime;
+import java.util.stream.Stream;
 
 
 /**
@@ -83,13 +85,13 @@ public class ModifyLoanController {
             // Cargar usuario
             User u = new User();
             u.setIdUser(loan.getIdUser());
-            u = UserDAOMySQLImpl.getInstance().select(u).get(0);
+            u = DAOFactory.getUserDAO().select(u).get(0);
             nationalIDField.setText(u.getNationalID());
 
             // Cargar material original
             originalMaterial = new Material();
             originalMaterial.setIdMaterial(loan.getIdMaterial());
-            originalMaterial = MaterialDAOMySQLImpl.getInstance().select(originalMaterial).get(0);
+            originalMaterial = DAOFactory.getMaterialDAO().select(originalMaterial).get(0);
 
             // Cargar materiales en la tabla
             loadMaterials();
@@ -124,15 +126,14 @@ public class ModifyLoanController {
      */
     private void loadMaterials() {
         materialList.clear();
-        try {
-            for (Material m : MaterialDAOMySQLImpl.getInstance().select(null)) {
-                // Añadir solo available y holded, y el material original aunque esté loaned
-                if ("available".equalsIgnoreCase(m.getMaterial_status())
-                        || "holded".equalsIgnoreCase(m.getMaterial_status())
-                        || (originalMaterial != null && m.getIdMaterial().equals(originalMaterial.getIdMaterial()))) {
-                    materialList.add(m);
-                }
-            }
+        // Stream the catalog so that only the materials shown in the table are kept in memory
+        try (Stream<Material> materials = DAOFactory.getMaterialDAO().selectStream(null)) {
+            materials
+                    // Añadir solo available y holded, y el material original aunque esté loaned
+                    .filter(m -> "available".equalsIgnoreCase(m.getMaterial_status())
+                            || "holded".equalsIgnoreCase(m.getMaterial_status())
+                            || (originalMaterial != null && m.getIdMaterial().equals(originalMaterial.getIdMaterial())))
+                    .forEach(materialList::add);
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Database Error", e.getMessage());
         }
@@ -159,22 +160,18 @@ public class ModifyLoanController {
         String text = searchMaterialField.getText().toLowerCase();
         materialList.clear();
 
-        try {
-            for (Material m : MaterialDAOMySQLImpl.getInstance().select(null)) {
-                // Skip materials that are not available, holded, or the original material
-                if (!"available".equalsIgnoreCase(m.getMaterial_status())
-                        && !"holded".equalsIgnoreCase(m.getMaterial_status())
-                        && (originalMaterial == null || !m.getIdMaterial().equals(originalMaterial.getIdMaterial())))
-                    continue;
-
-                // Apply search filter (empty text means show all relevant)
-                if (text.isEmpty()
-                        || m.getTitle().toLowerCase().contains(text)
-                        || m.getAuthor().toLowerCase().contains(text)
-                        || (m.getISBN() != null && m.getISBN().toLowerCase().startsWith(text))) {
-                    materialList.add(m);
-                }
-            }
+        try (Stream<Material> materials = DAOFactory.getMaterialDAO().selectStream(null)) {
+            materials
+                    // Skip materials that are not available, holded, or the original material
+                    .filter(m -> "available".equalsIgnoreCase(m.getMaterial_status())
+                            || "holded".equalsIgnoreCase(m.getMaterial_status())
+                            || (originalMaterial != null && m.getIdMaterial().equals(originalMaterial.getIdMaterial())))
+                    // Apply search filter (empty text means show all relevant)
+                    .filter(m -> text.isEmpty()
+                            || m.getTitle().toLowerCase().contains(text)
+                            || m.getAuthor().toLowerCase().contains(text)
+                            || (m.getISBN() != null && m.getISBN().toLowerCase().startsWith(text)))
+                    .forEach(materialList::add);
             selectOriginalMaterial(); // mantener la selección al buscar
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Database Error", e.getMessage());
@@ -212,7 +209,7 @@ public class ModifyLoanController {
             if (!newNationalID.isEmpty()) {
                 User u = new User();
                 u.setNationalID(newNationalID);
-                var users = UserDAOMySQLImpl.getInstance().select(u);
+                var users = DAOFactory.getUserDAO().select(u);
                 if (users.isEmpty()) {
                     showAlert(Alert.AlertType.ERROR, "Error", "User not found");
                     return;
@@ -221,19 +218,20 @@ public class ModifyLoanController {
             }
 
             // ========================= MATERIAL =========================
-            if (!selectedMaterial.getIdMaterial().equals(loanToModify.getIdMaterial())) {
+            boolean materialChanged = !selectedMaterial.getIdMaterial().equals(loanToModify.getIdMaterial());
+            Hold userHold = null;
+            if (materialChanged) {
 
                 // 1. Verificar si el nuevo material está en hold
                 if ("holded".equalsIgnoreCase(selectedMaterial.getMaterial_status())) {
                     Hold holdFilter = new Hold();
                     holdFilter.setIdMaterial(selectedMaterial.getIdMaterial());
-                    var holds = HoldDAOMySQLImpl.getInstance().select(holdFilter);
+                    var holds = DAOFactory.getHoldDAO().select(holdFilter);
 
                     // Obtener el ID del usuario (nuevo o actual)
                     Integer userId = (newUser != null) ? newUser.getIdUser() : loanToModify.getIdUser();
 
                     // Verificar si el hold pertenece al usuario
-                    Hold userHold = null;
                     for (Hold h : holds) {
                         if (h.getIdUser() == userId) {
                             userHold = h;
@@ -247,41 +245,60 @@ public class ModifyLoanController {
                                 "Material \"" + selectedMaterial.getTitle() + "\" is on hold for another user.");
                         return;
                     }
-
-                    // Eliminar el hold del usuario actual
-                    HoldDAOMySQLImpl.getInstance().delete(userHold);
                 } else if (!"available".equalsIgnoreCase(selectedMaterial.getMaterial_status())) {
                     showAlert(Alert.AlertType.ERROR, "Error", "Selected material is not available.");
                     return;
                 }
+            }
 
-                // 2. Liberar material antiguo
-                Material oldMaterial = new Material();
-                oldMaterial.setIdMaterial(loanToModify.getIdMaterial());
-                oldMaterial = MaterialDAOMySQLImpl.getInstance().select(oldMaterial).get(0);
-                if ("loaned".equalsIgnoreCase(oldMaterial.getMaterial_status())) {
-                    oldMaterial.setMaterial_status("available");
-                    MaterialDAOMySQLImpl.getInstance().update(oldMaterial);
-                }
+            // ========================= WRITES (one transaction) =========================
+            // Snapshot of the objects changed below, restored if the transaction is rolled back
+            String previousStatus = selectedMaterial.getMaterial_status();
+            Integer previousMaterialId = loanToModify.getIdMaterial();
+            Integer previousUserId = loanToModify.getIdUser();
+            try (UnitOfWork uow = UnitOfWork.begin()) {
+                if (materialChanged) {
+                    // Eliminar el hold del usuario actual
+                    if (userHold != null) {
+                        DAOFactory.getHoldDAO().delete(userHold);
+                    }
 
-                // 3. Marcar nuevo material como loaned
-                selectedMaterial.setMaterial_status("loaned");
-                MaterialDAOMySQLImpl.getInstance().update(selectedMaterial);
+                    // 2. Liberar material antiguo
+                    Material oldMaterial = new Material();
+                    oldMaterial.setIdMaterial(loanToModify.getIdMaterial());
+                    oldMaterial = DAOFactory.getMaterialDAO().select(oldMaterial).get(0);
+                    if ("loaned".equalsIgnoreCase(oldMaterial.getMaterial_status())) {
+                        oldMaterial.setMaterial_status("available");
+                        DAOFactory.getMaterialDAO().update(oldMaterial);
+                    }
 
-                loanToModify.setIdMaterial(selectedMaterial.getIdMaterial());
-            }
+                    // 3. Marcar nuevo material como loaned
+                    selectedMaterial.setMaterial_status("loaned");
+                    DAOFactory.getMaterialDAO().update(selectedMaterial);
 
-            // ========================= UPDATE USUARIO =========================
-            if (newUser != null) {
-                loanToModify.setIdUser(newUser.getIdUser());
-            }
+                    loanToModify.setIdMaterial(selectedMaterial.getIdMaterial());
+                }
+
+                // ========================= UPDATE USUARIO =========================
+                if (newUser != null) {
+                    loanToModify.setIdUser(newUser.getIdUser());
+                }
 
-            // ========================= KEEP DATES =========================
-            loanToModify.setStart_date(originalStartDate);
-            loanToModify.setDue_date(originalDueDate);
+                // ========================= KEEP DATES =========================
+                loanToModify.setStart_date(originalStartDate);
+                loanToModify.setDue_date(originalDueDate);
 
-            // Actualizar préstamo
-            LoanDAOMySQLImpl.getInstance().update(loanToModify);
+                // Actualizar préstamo
+                DAOFactory.getLoanDAO().update(loanToModify);
+
+                uow.commit();
+            } catch (DAOException | RuntimeException e) {
+                // Rolled back: the dialog stays open on the loan and material as they are in the database
+                selectedMaterial.setMaterial_status(previousStatus);
+                loanToModify.setIdMaterial(previousMaterialId);
+                loanToModify.setIdUser(previousUserId);
+                throw e;
+            }
 
             showAlert(Alert.AlertType.INFORMATION, "Success", "Loan modified successfully");
             dialogStage.close();
@@ -6,11 +6,9 @@ import it.unicas.project.template.address.model.MaterialGenre;
 import it.unicas.project.template.address.model.MaterialType;
 import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.MaterialTypeDAO;
 import it.unicas.project.template.address.model.dao.GenreDAO;
-import it.unicas.project.template.address.model.dao.mysql.GenreDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialGenreDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialTypeDAOMySQLImpl;
 import it.unicas.project.template.address.service.MaterialService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -41,10 +39,10 @@ public class MonoMaterialEditController {
     @FXML private ListView<Genre> genreSearchResultsList;
     @FXML private FlowPane selectedGenresPane;
 
-    private final DAO<Material> materialDAO = MaterialDAOMySQLImpl.getInstance();
-    private final MaterialTypeDAOMySQLImpl materialTypeDAO = MaterialTypeDAOMySQLImpl.getInstance();
-    private final GenreDAO genreDAO = GenreDAOMySQLImpl.getInstance();
-    private final DAO<MaterialGenre> materialGenreDAO = MaterialGenreDAOMySQLImpl.getInstance();
+    private final DAO<Material> materialDAO = DAOFactory.getMaterialDAO();
+    private final MaterialTypeDAO materialTypeDAO = DAOFactory.getMaterialTypeDAO();
+    private final GenreDAO genreDAO = DAOFactory.getGenreDAO();
+    private final DAO<MaterialGenre> materialGenreDAO = DAOFactory.getMaterialGenreDAO();
 
 
     private List<Genre> allGenres = new ArrayList<>();
@@ -327,16 +325,15 @@ public class MonoMaterialEditController {
             // Delete existing genre associations
             MaterialGenre deleteCriteria = new MaterialGenre(currentMaterial.getIdMaterial(), -1);
             List<MaterialGenre> existingGenres = materialGenreDAO.select(deleteCriteria);
-            for (MaterialGenre mg : existingGenres) {
-                materialGenreDAO.delete(mg);
-            }
+            materialGenreDAO.deleteAll(existingGenres);
 
-            // Insert new genre associations
+            // Insert new genre associations in a single batch
             if (!selectedGenres.isEmpty()) {
+                List<MaterialGenre> links = new ArrayList<>();
                 for (Genre g : selectedGenres) {
-                    MaterialGenre mg = new MaterialGenre(currentMaterial.getIdMaterial(), g.getIdGenre());
-                    materialGenreDAO.insert(mg);
+                    links.add(new MaterialGenre(currentMaterial.getIdMaterial(), g.getIdGenre()));
                 }
+                materialGenreDAO.insertAll(links);
             }
 
             showAlert(Alert.AlertType.INFORMATION, "Material updated successfully");
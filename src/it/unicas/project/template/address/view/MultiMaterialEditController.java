@@ -6,10 +6,8 @@ import it.unicas.project.template.address.model.MaterialInventory;
 import it.unicas.project.template.address.model.MaterialType;
 import it.unicas.project.template.address.model.MaterialGenre;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialTypeDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.GenreDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialGenreDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.MaterialGenreDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -22,6 +20,7 @@ import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -65,10 +64,10 @@ public class MultiMaterialEditController {
     @FXML
     private void initialize() {
         // Load material types for local lookup (improves performance over repeated DB calls)
-        materialTypes.addAll(MaterialTypeDAOMySQLImpl.getInstance().selectAll());
+        materialTypes.addAll(DAOFactory.getMaterialTypeDAO().selectAll());
 
         // --- Genre Initialization Logic ---
-        allGenres.addAll(GenreDAOMySQLImpl.getInstance().selectAll());
+        allGenres.addAll(DAOFactory.getGenreDAO().selectAll());
         genreSearchResultsList.setItems(filteredGenres);
 
         // Listener for dynamic genre filtering
@@ -154,7 +153,7 @@ public class MultiMaterialEditController {
         try {
             // Create a MaterialGenre pattern to search for associations by Material ID
             MaterialGenre searchPattern = new MaterialGenre(representativeId, -1);
-            List<MaterialGenre> materialGenres = ((MaterialGenreDAOMySQLImpl) MaterialGenreDAOMySQLImpl.getInstance()).select(searchPattern);
+            List<MaterialGenre> materialGenres = DAOFactory.getMaterialGenreDAO().select(searchPattern);
 
             for (MaterialGenre mg : materialGenres) {
                 allGenres.stream()
@@ -236,7 +235,7 @@ public class MultiMaterialEditController {
 
             try {
                 // 1. Update the Material Group metadata (DAO implements logic to update all items in the group)
-                ((MaterialDAOMySQLImpl) MaterialDAOMySQLImpl.getInstance()).updateMaterialGroup(updatedMaterial, selectedMaterialInventory);
+                DAOFactory.getMaterialDAO().updateMaterialGroup(updatedMaterial, selectedMaterialInventory);
 
                 // 2. Update Genres for the representative material ID
                 updateMaterialGenres(selectedMaterialInventory.getIdMaterial());
@@ -265,16 +264,17 @@ public class MultiMaterialEditController {
      * @throws DAOException If a database error occurs during deletion or insertion.
      */
     private void updateMaterialGenres(Integer materialId) throws DAOException {
-        MaterialGenreDAOMySQLImpl mgDAO = (MaterialGenreDAOMySQLImpl) MaterialGenreDAOMySQLImpl.getInstance();
+        MaterialGenreDAO mgDAO = DAOFactory.getMaterialGenreDAO();
 
         // Delete all old genres for the representative material ID
         mgDAO.deleteAllByMaterialId(materialId);
 
-        // Insert new selected genres
+        // Insert new selected genres in a single batch
+        List<MaterialGenre> links = new ArrayList<>();
         for (Integer genreId : selectedGenreIds) {
-            MaterialGenre newMg = new MaterialGenre(materialId, genreId);
-            mgDAO.insert(newMg);
+            links.add(new MaterialGenre(materialId, genreId));
         }
+        mgDAO.insertAll(links);
     }
 
     /**
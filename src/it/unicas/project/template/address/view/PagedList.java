@@ -0,0 +1,321 @@
+package it.unicas.project.template.address.view;
+
+import it.unicas.project.template.address.model.dao.DAOException;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Read-only list of the rows of a query, fetched page by page as a table shows them, for tables too large to be
+ * loaded before drawing their first row.
+ * <p>
+ * The list has the size of the whole result, but only holds a few pages of it: the ones the table read most
+ * recently ({@value #DEFAULT_CACHED_PAGES} pages of {@value #DEFAULT_PAGE_SIZE} rows by default, see
+ * {@link #CACHED_PAGES_PROPERTY} and {@link #PAGE_SIZE_PROPERTY}). Memory thus depends on the viewport, not on the
+ * number of rows. A row whose page is not loaded reads as {@code null}: its page is queried on a virtual thread, and
+ * the rows are reported as updated once it is back, so the table redraws them. The pages next to the one read are
+ * prefetched the same way, so that scrolling finds them loaded. A page that the table has scrolled away from before
+ * its query started is not queried at all.
+ * </p>
+ * <p>
+ * Like the other JavaFX lists, it must only be read on the JavaFX thread (except by {@link #open}, before it is shown).
+ * The list cannot be sorted: the rows come in the order of the query. Its changes are reported as narrowly as they
+ * are known (rows updated, removed or added at the end), so that the table keeps its scroll position and selection.
+ * The cells must show nothing for a {@code null} row.
+ * </p>
+ *
+ * Access Keyword Explanation: package-private - Used by the controllers of this package only.
+ *
+ * @param <T> The type of the rows
+ */
+final class PagedList<T> extends ObservableListBase<T> {
+
+    /** System property overriding the number of rows per page. */
+    static final String PAGE_SIZE_PROPERTY = "library.catalog.pageSize";
+    /** System property overriding the number of pages kept in memory. */
+    static final String CACHED_PAGES_PROPERTY = "library.catalog.cachedPages";
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int DEFAULT_CACHED_PAGES = 8;
+    // Pages prefetched on each side of the one read
+    private static final int PREFETCH_PAGES = 1;
+
+    private static final Logger logger = Logger.getLogger(PagedList.class.getName());
+
+    private static final ExecutorService LOADERS =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("page-loader-", 0).factory());
+
+    /**
+     * The query behind a paged list.
+     *
+     * @param <T> The type of the rows
+     */
+    interface PageSource<T> {
+
+        /**
+         * Counts the rows of the query.
+         *
+         * @return The number of rows.
+         * @throws DAOException If the query fails.
+         */
+        int count() throws DAOException;
+
+        /**
+         * Reads one page of rows, always in the same order.
+         *
+         * @param offset The number of rows to skip.
+         * @param limit The maximum number of rows to return.
+         * @return The rows.
+         * @throws DAOException If the query fails.
+         */
+        List<T> page(int offset, int limit) throws DAOException;
+
+        /**
+         * Forgets a row the caller has deleted, for a query that holds its rows in memory (a query of the database
+         * finds it gone anyway).
+         *
+         * @param row The row deleted.
+         */
+        default void removed(T row) {
+        }
+    }
+
+    private final PageSource<T> source;
+    private final int pageSize;
+    private final Map<Integer, List<T>> pages;              // Pages loaded, least recently read first
+    private final Set<Integer> loading = new HashSet<>();   // Pages being queried
+    private int size;
+    private long generation;                                // Incremented to drop the pages being queried
+    private volatile int readPage;                          // Page of the row the table read last
+
+    private PagedList(PageSource<T> source, int pageSize, int size, List<T> firstPage) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.size = size;
+        int cachedPages = Math.max(2 * PREFETCH_PAGES + 2,
+                Integer.getInteger(CACHED_PAGES_PROPERTY, DEFAULT_CACHED_PAGES));
+        this.pages = new LinkedHashMap<>(cachedPages * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > cachedPages;
+            }
+        };
+        pages.put(0, firstPage);
+    }
+
+    /**
+     * Counts the rows of a query and reads its first page. Blocks: call it off the JavaFX thread.
+     *
+     * @param source The query.
+     * @param <T> The type of the rows
+     * @return The list of the rows of the query.
+     * @throws DAOException If the query fails.
+     */
+    static <T> PagedList<T> open(PageSource<T> source) throws DAOException {
+        int pageSize = Math.max(1, Integer.getInteger(PAGE_SIZE_PROPERTY, DEFAULT_PAGE_SIZE));
+        int size = source.count();
+        List<T> firstPage = size == 0 ? List.of() : source.page(0, pageSize);
+        return new PagedList<>(source, pageSize, size, firstPage);
+    }
+
+    /**
+     * Returns the query of a list held in memory, e.g. the filtered catalog groups: the table still only reads the
+     * rows it shows, instead of copying the whole list into an observable one on the JavaFX thread.
+     *
+     * @param rows The rows, never modified.
+     * @param <T> The type of the rows
+     * @return The query reading slices of the list.
+     */
+    static <T> PageSource<T> slices(List<T> rows) {
+        return new PageSource<>() {
+            @Override
+            public int count() {
+                return rows.size();
+            }
+
+            @Override
+            public List<T> page(int offset, int limit) {
+                return rows.subList(Math.min(offset, rows.size()), Math.min(offset + limit, rows.size()));
+            }
+        };
+    }
+
+    /**
+     * Returns a row, or {@code null} while its page is being loaded.
+     *
+     * @param index The row index.
+     * @return The row, or {@code null}.
+     */
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / pageSize;
+        readPage = page;
+        List<T> rows = pages.get(page);
+        for (int neighbour = page - PREFETCH_PAGES; neighbour <= page + PREFETCH_PAGES; neighbour++) {
+            request(neighbour);
+        }
+        int offset = index - page * pageSize;
+        return rows != null && offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts the rows again and drops the pages loaded, e.g. after rows were added or edited; the rows shown are read
+     * again. A change in the count is reported at the end of the list.
+     */
+    void reload() {
+        long reloaded = drop();
+        LOADERS.execute(() -> {
+            try {
+                int count = source.count();
+                Platform.runLater(() -> resized(reloaded, count));
+            } catch (DAOException e) {
+                logger.warning("Could not count the rows again: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Removes a row the caller has deleted from the query's results: the following rows move up, and their pages
+     * are read again.
+     *
+     * @param index The index of the row deleted.
+     */
+    void rowRemoved(int index) {
+        Objects.checkIndex(index, size);
+        T removed = get(index);
+        if (removed != null) source.removed(removed);
+        int page = index / pageSize;
+        pages.keySet().removeIf(loaded -> loaded >= page);
+        loading.clear();
+        generation++;
+        size--;
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+    }
+
+    /**
+     * Reports a row changed in place (e.g. the status of a copy), so that the table redraws it if it is shown.
+     *
+     * @param row The row changed.
+     */
+    void rowChanged(T row) {
+        for (Map.Entry<Integer, List<T>> page : pages.entrySet()) {
+            List<T> rows = page.getValue();
+            for (int offset = 0; offset < rows.size(); offset++) {
+                if (rows.get(offset) == row) {
+                    int index = page.getKey() * pageSize + offset;
+                    updated(index, index + 1);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a row of the pages loaded matching a condition, e.g. the row holding an object that changed.
+     *
+     * @param condition The condition.
+     * @return The first loaded row matching it, or {@code null} if none does.
+     */
+    T findLoaded(Predicate<? super T> condition) {
+        for (List<T> rows : pages.values()) {
+            for (T row : rows) {
+                if (row != null && condition.test(row)) return row;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops loading pages, once the list is no longer shown.
+     */
+    void cancel() {
+        drop();
+    }
+
+    private long drop() {
+        pages.clear();
+        loading.clear();
+        return ++generation;
+    }
+
+    private void request(int page) {
+        if (page < 0 || page * pageSize >= size || pages.containsKey(page) || !loading.add(page)) return;
+        long requested = generation;
+        LOADERS.execute(() -> load(page, requested));
+    }
+
+    /**
+     * Queries a page, on a virtual thread, unless the table has scrolled away from it meanwhile.
+     */
+    private void load(int page, long requested) {
+        if (Math.abs(page - readPage) > PREFETCH_PAGES + 1) {
+            Platform.runLater(() -> failed(page, requested));
+            return;
+        }
+        try {
+            List<T> rows = source.page(page * pageSize, pageSize);
+            Platform.runLater(() -> loaded(page, requested, rows));
+        } catch (DAOException e) {
+            logger.warning("Could not load rows " + page * pageSize + " to " + ((page + 1) * pageSize - 1)
+                    + ": " + e.getMessage());
+            Platform.runLater(() -> failed(page, requested));
+        }
+    }
+
+    private void loaded(int page, long requested, List<T> rows) {
+        if (requested != generation) return;
+        loading.remove(page);
+        pages.put(page, rows);
+        updated(page * pageSize, Math.min(size, (page + 1) * pageSize));
+    }
+
+    private void failed(int page, long requested) {
+        // Read again the next time the table shows one of its rows
+        if (requested == generation) loading.remove(page);
+    }
+
+    private void resized(long reloaded, int count) {
+        if (reloaded != generation) return;
+        int previous = size;
+        size = count;
+        beginChange();
+        if (count < previous) nextRemove(count, Collections.<T>nCopies(previous - count, null));
+        if (count > previous) nextAdd(previous, count);
+        // Only the rows around the last one read can be on screen
+        int from = Math.max(0, readPage - PREFETCH_PAGES) * pageSize;
+        nextUpdates(from, Math.min(Math.min(previous, count), (readPage + PREFETCH_PAGES + 1) * pageSize));
+        endChange();
+    }
+
+    private void updated(int from, int to) {
+        if (from >= to) return;
+        beginChange();
+        nextUpdates(from, to);
+        endChange();
+    }
+
+    private void nextUpdates(int from, int to) {
+        for (int index = from; index < to; index++) {
+            nextUpdate(index);
+        }
+    }
+}
@@ -2,17 +2,18 @@ package it.unicas.project.template.address.view;
 
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.*;
-import it.unicas.project.template.address.model.dao.DAO;
 import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.DAOFactory;
+import it.unicas.project.template.address.model.dao.MaterialDAO;
+import it.unicas.project.template.address.model.dao.MaterialGenreDAO;
+import it.unicas.project.template.address.model.dao.MaterialTypeDAO;
 import it.unicas.project.template.address.model.dao.GenreDAO;
-import it.unicas.project.template.address.model.dao.mysql.*;
 import it.unicas.project.template.address.service.MaterialCatalogService;
 import it.unicas.project.template.address.service.MaterialHoldService;
 import it.unicas.project.template.address.service.SearchService;
+import it.unicas.project.template.address.service.UserHoldIndex;
 import java.util.function.Function;
-import javafx.application.Platform;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -23,15 +24,19 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Popup;
 
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Controller for Material Catalog - USER VIEW.
  * Manages the display, searching, filtering, and holding actions for the material catalog
- * available to a logged-in user. Utilizes debouncing for search inputs to optimize performance.
+ * available to a logged-in user. Utilizes debouncing for search inputs to optimize performance, and runs the
+ * catalog loads and the filters in the background (see {@link BackgroundTasks}) so the view stays responsive.
+ * Without a search, the table pages through the titles in the DAO (see {@link PagedList}), one row per title with
+ * the copies of the titles shown; the grouped catalog is only read, and searched in memory, once the user searches.
  */
 public class UserCatalogController {
 
@@ -54,21 +59,25 @@ public class UserCatalogController {
     private User currentUser;
 
     // DAO dependencies
-    private DAO<Material> materialDAO;
-    private MaterialTypeDAOMySQLImpl materialTypeDAO;
+    private MaterialDAO materialDAO;
+    private MaterialTypeDAO materialTypeDAO;
     private GenreDAO genreDAO;
-    private DAO<MaterialGenre> materialGenreDAO;
-    private DAO<Hold> holdDAO;
+    private MaterialGenreDAO materialGenreDAO;
 
-    // Observable lists used by the UI
-    private ObservableList<Material> allMaterials;
-    private ObservableList<GroupedMaterial> groupedMaterialList;
-    private ObservableList<GroupedMaterial> filteredList;
+    // Grouped catalog of the searches, replaced by every load; null until the first load
+    private SearchCatalog searchCatalog;
 
-    // Lookup maps for types/genres and relationships
+    // Lookup maps for types/genres
     private Map<Integer, String> materialTypeMap;
     private Map<Integer, String> genreMap;
-    private Map<Integer, Set<Integer>> materialGenreMap;
+
+    // Filter options: the values of at least one title
+    private SortedSet<String> materialTypeOptions = new TreeSet<>();
+    private SortedSet<String> genreOptions = new TreeSet<>();
+
+    // Holds of the current user by material, read with the catalog and kept up to date by the hold service;
+    // null until the first load
+    private UserHoldIndex userHolds;
 
     // Filter selections
     private Set<String> selectedMaterialTypes = new HashSet<>();
@@ -79,10 +88,96 @@ public class UserCatalogController {
     private Popup genrePopup;
 
     private final MaterialHoldService holdService = new MaterialHoldService();
-    // FIXED: Debounce mechanism for search
-    private ScheduledExecutorService searchScheduler = Executors.newSingleThreadScheduledExecutor();
-    private java.util.concurrent.Future<?> filterTask;
+    // Debounced filters, catalog loads and facet counts, off the JavaFX thread: only the latest of each is shown
+    private final BackgroundTasks filterTasks = new BackgroundTasks();
+    private final BackgroundTasks loadTasks = new BackgroundTasks();
+    private final BackgroundTasks facetTasks = new BackgroundTasks();
     private final MaterialCatalogService catalogService = new MaterialCatalogService();
+
+    /**
+     * Catalog read from the database in the background, swapped in as a whole once loaded.
+     */
+    private record Catalog(Map<Integer, String> materialTypeMap, Map<Integer, String> genreMap,
+                           SortedSet<String> materialTypeOptions, SortedSet<String> genreOptions,
+                           UserHoldIndex holds, SearchCatalog searchCatalog, PagedList<GroupedMaterial> rows) {
+    }
+
+    /**
+     * The grouped catalog searched in memory, read on the first search after a load: the search ranks every title,
+     * and tolerating typos needs the words of all of them.
+     */
+    private final class SearchCatalog {
+        private final Map<Integer, String> types;
+        private final Map<Integer, String> genres;
+        // Read once, then never modified, so that the background filters can read it while the JavaFX thread goes on
+        private List<GroupedMaterial> groups;
+        // Group of every copy, by material ID, to patch the group of a copy whose status changed
+        private Map<Integer, GroupedMaterial> groupsByMaterial = Map.of();
+
+        SearchCatalog(Map<Integer, String> types, Map<Integer, String> genres) {
+            this.types = types;
+            this.genres = genres;
+        }
+
+        /**
+         * Returns the grouped catalog, reading it on the first call. Blocks: call it off the JavaFX thread.
+         *
+         * @return The groups, ordered by title.
+         * @throws DAOException If the database cannot be read.
+         */
+        synchronized List<GroupedMaterial> groups() throws DAOException {
+            if (groups == null) {
+                read();
+            }
+            return groups;
+        }
+
+        /**
+         * Returns the group of a copy, if the catalog was read.
+         *
+         * @param materialId The ID of the copy.
+         * @return The group, or {@code null}.
+         */
+        synchronized GroupedMaterial groupOf(Integer materialId) {
+            return groupsByMaterial.get(materialId);
+        }
+
+        /**
+         * Reads all materials from the database, and groups them by common metadata, ordered by title.
+         */
+        private void read() throws DAOException {
+            Map<Integer, Set<Integer>> relationships = loadMaterialGenreRelationships();
+
+            // Stream the catalog (ordered by title) and group it row by row, without an intermediate full list
+            Map<String, List<Material>> grouped = new LinkedHashMap<>();
+            int[] copies = {0};
+            try (Stream<Material> rows = materialDAO.selectStream(null)) {
+                rows.forEach(material -> {
+                    copies[0]++;
+                    grouped.computeIfAbsent(generateGroupKey(material), k -> new ArrayList<>()).add(material);
+                });
+            }
+
+            List<GroupedMaterial> list = new ArrayList<>(grouped.size());
+            Map<Integer, GroupedMaterial> byMaterial = new HashMap<>(copies[0] * 4 / 3 + 1);
+            for (List<Material> group : grouped.values()) {
+                GroupedMaterial gm = groupOfCopies(group.get(0), group, types, genres, relationships);
+                list.add(gm);
+                for (Material copy : group) {
+                    byMaterial.put(copy.getIdMaterial(), gm);
+                }
+            }
+            groups = Collections.unmodifiableList(list);
+            groupsByMaterial = byMaterial;
+        }
+    }
+
+    /**
+     * Result of a background filter: the groups shown, and a corrected search when none matched.
+     */
+    private record FilterResult(PagedList<GroupedMaterial> rows, String suggestion) {
+    }
+
     /**
      * Inner class to represent materials grouped by common metadata (title, author, year, ISBN).
      * Used for the catalog view where items are displayed by type/group rather than individual copies.
@@ -127,6 +222,22 @@ public class UserCatalogController {
                     .anyMatch(m -> "available".equalsIgnoreCase(m.getMaterial_status()));
         }
 
+        /**
+         * Applies the new status of one of the copies, given as the copy itself or as another object with the same ID,
+         * then recalculates the availability.
+         *
+         * @param changed The copy, with its new status.
+         */
+        public void copyChanged(Material changed) {
+            for (Material copy : materials) {
+                // IDs are boxed: compare their values, not their references
+                if (Objects.equals(copy.getIdMaterial(), changed.getIdMaterial()) && copy != changed) {
+                    copy.setMaterial_status(changed.getMaterial_status());
+                }
+            }
+            updateAvailability();
+        }
+
         // Getters for TableColumn binding
         public String getTitle() { return title; }
         public String getAuthor() { return author; }
@@ -140,51 +251,37 @@ public class UserCatalogController {
 
     /**
      * Initialize the controller. This method is automatically called after the FXML file has been loaded.
-     * Sets up DAO instances, loads initial data (types, genres, relationships), configures table columns,
-     * sets up filter buttons, and adds debounced listeners for search inputs.
+     * Sets up DAO instances, configures table columns, sets up filter buttons, and adds debounced listeners for
+     * search inputs. The catalog itself is loaded once the user is known (see {@link #setCurrentUser(User)}).
      */
     @FXML
     public void initialize() {
-        materialDAO = MaterialDAOMySQLImpl.getInstance();
-        materialTypeDAO = MaterialTypeDAOMySQLImpl.getInstance();
-        genreDAO = GenreDAOMySQLImpl.getInstance();
-        materialGenreDAO = MaterialGenreDAOMySQLImpl.getInstance();
-        holdDAO = HoldDAOMySQLImpl.getInstance();
-
-        allMaterials = FXCollections.observableArrayList();
-        groupedMaterialList = FXCollections.observableArrayList();
-        filteredList = FXCollections.observableArrayList();
+        materialDAO = DAOFactory.getMaterialDAO();
+        materialTypeDAO = DAOFactory.getMaterialTypeDAO();
+        genreDAO = DAOFactory.getGenreDAO();
+        materialGenreDAO = DAOFactory.getMaterialGenreDAO();
+
         materialTypeMap = new HashMap<>();
         genreMap = new HashMap<>();
-        materialGenreMap = new HashMap<>();
 
-        loadMaterialTypes();
-        loadGenres();
-        loadMaterialGenreRelationships();
         setupTableColumns();
         setupFilterButtons();
 
-        // FIXED: Add debounced listeners for real-time search (300ms delay)
+        // Patrons misspell titles and names: tolerate up to 2 edits per search word
+        catalogService.setGroupedTypoTolerance(2);
+
+        // Debounced listeners for real-time search (the delay adapts to the filter latency)
         searchField.textProperty().addListener((obs, oldVal, newVal) -> scheduleFilter());
         yearFromField.textProperty().addListener((obs, oldVal, newVal) -> scheduleFilter());
         yearToField.textProperty().addListener((obs, oldVal, newVal) -> scheduleFilter());
     }
 
     /**
-     * FIXED: Schedule filter execution after 300ms delay.
-     * Cancels any pending filter task and schedules a new one, ensuring filters are not applied
-     * too frequently during rapid typing.
+     * Schedules the filter once the input has settled, superseding any filter still pending or running, so that
+     * filters are not applied too frequently during rapid typing.
      */
     private void scheduleFilter() {
-        // Cancel previous filter task if still pending
-        if (filterTask != null && !filterTask.isDone()) {
-            filterTask.cancel(false);
-        }
-
-        // Schedule new filter after 300ms delay
-        filterTask = searchScheduler.schedule(() -> {
-            Platform.runLater(this::handleFilter);
-        }, 300, TimeUnit.MILLISECONDS);
+        filterTasks.debounce(filterQuery(), this::showFilterResult, this::showFilterError);
     }
 
     /**
@@ -211,13 +308,10 @@ public class UserCatalogController {
             return;
         }
 
-        // Collect all unique material types present in the grouped list
-        Set<String> allTypes = groupedMaterialList.stream()
-                .map(GroupedMaterial::getType)
-                .collect(Collectors.toCollection(TreeSet::new));
-
-        materialTypePopup = createFilterPopup(materialTypeFilterButton, "Material Types",
-                allTypes, selectedMaterialTypes);
+        Set<String> allTypes = materialTypeOptions;
+        facetTasks.submit(facetQuery(MaterialCatalogService.TYPE_FACET), counts -> materialTypePopup =
+                createFilterPopup(materialTypeFilterButton, "Material Types",
+                        allTypes, selectedMaterialTypes, counts), this::showFacetError);
     }
 
     /**
@@ -229,15 +323,39 @@ public class UserCatalogController {
             return;
         }
 
-        // Collect all unique genres present in the grouped list
-        Set<String> allGenres = groupedMaterialList.stream()
-                .map(GroupedMaterial::getGenres)
-                .filter(g -> g != null && !g.equals("—"))
-                .flatMap(g -> Arrays.stream(g.split(", ")))
-                .collect(Collectors.toCollection(TreeSet::new));
+        Set<String> allGenres = genreOptions;
+        facetTasks.submit(facetQuery(MaterialCatalogService.GENRE_FACET), counts -> genrePopup =
+                createFilterPopup(genreFilterButton, "Genres",
+                        allGenres, selectedGenres, counts), this::showFacetError);
+    }
+
+    /**
+     * Reads the filter inputs, here on the JavaFX thread, and returns the query of the live counts of a facet in the
+     * background: the number of titles each value would show with the other filters and the search as they are.
+     * Without a search they are counted by the DAO, else on the grouped catalog searched.
+     *
+     * @param facet The facet name, see {@link MaterialCatalogService#TYPE_FACET}.
+     * @return The query of the count of every value, by value.
+     */
+    private Callable<Map<String, Integer>> facetQuery(String facet) {
+        SearchCatalog search = searchCatalog;
+        Map<Integer, String> typeMap = materialTypeMap;
+        Map<Integer, String> genreNames = genreMap;
+        Set<String> types = new HashSet<>(selectedMaterialTypes);
+        Set<String> genres = new HashSet<>(selectedGenres);
+        String yearFrom = yearFromField.getText().trim();
+        String yearTo = yearToField.getText().trim();
+        String searchTerm = searchField.getText().trim();
+        if (searchTerm.isEmpty() || search == null) {
+            return () -> catalogService.countTitleFacet(materialDAO, facet, typeMap, genreNames,
+                    types, genres, yearFrom, yearTo);
+        }
+        return () -> catalogService.countGroupedFacet(facet, search.groups(), types, genres,
+                yearFrom, yearTo, searchTerm);
+    }
 
-        genrePopup = createFilterPopup(genreFilterButton, "Genres",
-                allGenres, selectedGenres);
+    private void showFacetError(Exception e) {
+        showError("Filter Error", "Failed to count the filter options: " + e.getMessage());
     }
 
     /**
@@ -247,10 +365,12 @@ public class UserCatalogController {
      * @param label The category label (e.g., "Material Types").
      * @param allOptions The set of all possible filter options.
      * @param selectedOptions The set holding the currently selected options.
+     * @param counts The live count of each option, shown next to it (e.g., "fantasy (124)").
      * @return The created {@code Popup} instance.
      */
     private Popup createFilterPopup(ComboBox<String> sourceButton, String label,
-                                    Set<String> allOptions, Set<String> selectedOptions) {
+                                    Set<String> allOptions, Set<String> selectedOptions,
+                                    Map<String, Integer> counts) {
         Popup popup = new Popup();
         popup.setAutoHide(true);
 
@@ -276,7 +396,8 @@ public class UserCatalogController {
         Map<String, CheckBox> checkBoxMap = new HashMap<>();
 
         for (String option : allOptions) {
-            CheckBox cb = new CheckBox(option);
+            Integer count = counts.get(option);
+            CheckBox cb = new CheckBox(count == null ? option : option + " (" + count + ")");
             cb.setSelected(selectedOptions.contains(option));
             cb.setStyle("-fx-padding: 3;");
 
@@ -350,42 +471,45 @@ public class UserCatalogController {
     }
 
     /**
-     * Loads material types from the database into {@code materialTypeMap}.
+     * Loads material types from the database.
+     *
+     * @return The material type names by ID.
      */
-    private void loadMaterialTypes() {
-        List<MaterialType> types = materialTypeDAO.selectAll();
-        materialTypeMap.clear();
-        for (MaterialType type : types) {
-            materialTypeMap.put(type.getIdMaterialType(), type.getMaterial_type());
+    private Map<Integer, String> loadMaterialTypes() {
+        Map<Integer, String> types = new HashMap<>();
+        for (MaterialType type : materialTypeDAO.selectAll()) {
+            types.put(type.getIdMaterialType(), type.getMaterial_type());
         }
+        return types;
     }
 
     /**
-     * Loads genres from the database into {@code genreMap}.
+     * Loads genres from the database.
+     *
+     * @return The genre names by ID.
      */
-    private void loadGenres() {
-        List<Genre> genres = genreDAO.selectAll();
-        genreMap.clear();
-        for (Genre genre : genres) {
-            genreMap.put(genre.getIdGenre(), genre.getGenre());
+    private Map<Integer, String> loadGenres() {
+        Map<Integer, String> genres = new HashMap<>();
+        for (Genre genre : genreDAO.selectAll()) {
+            genres.put(genre.getIdGenre(), genre.getGenre());
         }
+        return genres;
     }
 
     /**
-     * Loads all material-genre relationships from the database into {@code materialGenreMap}.
+     * Loads all material-genre relationships from the database.
+     *
+     * @return The genre IDs of every material, by material ID.
+     * @throws DAOException If the relationships cannot be read.
      */
-    private void loadMaterialGenreRelationships() {
-        try {
-            List<MaterialGenre> relationships = materialGenreDAO.select(null);
-            materialGenreMap.clear();
-            for (MaterialGenre mg : relationships) {
-                materialGenreMap
-                        .computeIfAbsent(mg.getIdMaterial(), k -> new HashSet<>())
-                        .add(mg.getIdGenre());
-            }
-        } catch (DAOException e) {
-            showError("Error loading genre relationships", e.getMessage());
+    private Map<Integer, Set<Integer>> loadMaterialGenreRelationships() throws DAOException {
+        Map<Integer, Set<Integer>> relationships = new HashMap<>();
+        for (MaterialGenre mg : materialGenreDAO.select(null)) {
+            relationships
+                    .computeIfAbsent(mg.getIdMaterial(), k -> new HashSet<>())
+                    .add(mg.getIdGenre());
         }
+        return relationships;
     }
 
     /**
@@ -409,17 +533,20 @@ public class UserCatalogController {
                 holdButton.setMaxWidth(100);
                 holdButton.setOnAction(event -> {
                     GroupedMaterial item = getTableView().getItems().get(getIndex());
-                    handleHoldToggle(item);
+                    if (item != null) {
+                        handleHoldToggle(item);
+                    }
                 });
             }
 
             @Override
             protected void updateItem(Void item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty) {
+                // A null group is a row whose page is still loading
+                GroupedMaterial material = empty ? null : getTableView().getItems().get(getIndex());
+                if (material == null) {
                     setGraphic(null);
                 } else {
-                    GroupedMaterial material = getTableView().getItems().get(getIndex());
                     updateButtonState(material);
                     setGraphic(holdButton);
                     setAlignment(Pos.CENTER);
@@ -427,24 +554,8 @@ public class UserCatalogController {
             }
 
             private void updateButtonState(GroupedMaterial material) {
-                // Check if current user has a hold on any copy
-                boolean currentUserHasHold = false;
-                try {
-                    for (Material m : material.getMaterials()) {
-                        if ("holded".equalsIgnoreCase(m.getMaterial_status())) {
-                            Hold searchHold = new Hold();
-                            searchHold.setIdUser(currentUser.getIdUser());
-                            searchHold.setIdMaterial(m.getIdMaterial());
-                            List<Hold> holds = holdDAO.select(searchHold);
-                            if (!holds.isEmpty()) {
-                                currentUserHasHold = true;
-                                break;
-                            }
-                        }
-                    }
-                } catch (DAOException e) {
-                    e.printStackTrace();
-                }
+                // Check if current user has a hold on any copy (in memory: rendering never queries the database)
+                boolean currentUserHasHold = userHolds != null && userHolds.heldAmong(material.getMaterials()) != null;
 
                 if (currentUserHasHold) {
                     holdButton.setText("Holded");
@@ -465,7 +576,8 @@ public class UserCatalogController {
             }
         });
 
-        materialTable.setItems(filteredList);
+        // Paged rows come in the order of the catalog or of the search: sorting them would read every page
+        materialTable.setSortPolicy(table -> !(table.getItems() instanceof PagedList));
     }
 
     /**
@@ -479,115 +591,164 @@ public class UserCatalogController {
             return;
         }
 
-        try {
-            boolean userHasHold = false;
-            Hold userHold = null;
-            Material heldMaterial = null;
-
-            // Check if the user already has a hold on any copy in the group
-            for (Material material : groupedMaterial.getMaterials()) {
-                if ("holded".equalsIgnoreCase(material.getMaterial_status())) {
-                    Hold searchHold = new Hold();
-                    searchHold.setIdUser(currentUser.getIdUser());
-                    searchHold.setIdMaterial(material.getIdMaterial());
-                    List<Hold> holds = holdDAO.select(searchHold);
-                    if (!holds.isEmpty()) {
-                        userHasHold = true;
-                        userHold = holds.get(0);
-                        heldMaterial = material;
-                        break;
-                    }
-                }
+        // Check if the user already has a hold on any copy in the group
+        Material heldMaterial = userHolds != null ? userHolds.heldAmong(groupedMaterial.getMaterials()) : null;
+
+        if (heldMaterial != null) {
+            // Release the existing hold
+            try {
+                holdService.releaseHold(userHolds.holdOn(heldMaterial.getIdMaterial()), heldMaterial, userHolds);
+                materialChanged(heldMaterial);
+            } catch (DAOException e) {
+                showError("Error", "Could not release hold: " + e.getMessage());
+                e.printStackTrace();
             }
-
-            if (userHasHold) {
-                // Release the existing hold
+        } else if (groupedMaterial.hasAvailable()) {
+            // Place a new hold on an available copy
+            Material availableMaterial = groupedMaterial.getMaterials().stream()
+                    .filter(m -> "available".equalsIgnoreCase(m.getMaterial_status()))
+                    .findFirst()
+                    .orElse(null);
+
+            if (availableMaterial != null) {
                 try {
-                    holdService.releaseHold(userHold, heldMaterial);
-                    refresh();
+                    holdService.holdMaterial(currentUser.getIdUser(), availableMaterial, userHolds);
+                    materialChanged(availableMaterial);
                 } catch (DAOException e) {
-                    showError("Error", "Could not release hold: " + e.getMessage());
+                    showError("Error", "Could not place hold: " + e.getMessage());
                     e.printStackTrace();
                 }
-            } else if (groupedMaterial.hasAvailable()) {
-                // Place a new hold on an available copy
-                Material availableMaterial = groupedMaterial.getMaterials().stream()
-                        .filter(m -> "available".equalsIgnoreCase(m.getMaterial_status()))
-                        .findFirst()
-                        .orElse(null);
-
-                if (availableMaterial != null) {
-                    try {
-                        holdService.holdMaterial(currentUser.getIdUser(), availableMaterial);
-                        refresh();
-                    } catch (DAOException e) {
-                        showError("Error", "Could not place hold: " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                }
-            } else {
-                showInfo("Notice", "No copies available to hold.");
             }
-        } catch (DAOException e) {
-            showError("Error", "Failed to process hold: " + e.getMessage());
-            e.printStackTrace();
+        } else {
+            showInfo("Notice", "No copies available to hold.");
         }
     }
 
     /**
-     * Load all materials from the database, groups them by common metadata, and populates the
-     * {@code groupedMaterialList}. Initializes filter sets based on the loaded data.
+     * Loads the catalog and the current user's holds in the background (see {@link #readCatalog(User)}), then shows
+     * them in place of the previous ones and initializes the filter sets based on the loaded data.
+     *
+     * @param reapplyFilters Whether to reapply the current search and filters to the loaded catalog, instead of
+     *                       showing every group.
      */
-    private void loadAllMaterials() {
-        try {
-            List<Material> materials = materialDAO.select(null);
-            allMaterials.clear();
-            allMaterials.addAll(materials);
+    private void loadAllMaterials(boolean reapplyFilters) {
+        User user = currentUser;
+        loadTasks.submit(() -> readCatalog(user), catalog -> {
+            showCatalog(catalog);
+            if (reapplyFilters) {
+                handleFilter();
+            }
+        }, e -> showError("Error loading materials", e.getMessage()));
+    }
+
+    /**
+     * Reads the lookup maps and the filter options from the database, and opens the pages of every title. Also
+     * reads the holds of the user, once, so that the action cells can tell which groups they hold. Runs off the
+     * JavaFX thread.
+     *
+     * @param user The logged-in user, or {@code null}.
+     * @return The catalog read.
+     * @throws DAOException If the database cannot be read.
+     */
+    private Catalog readCatalog(User user) throws DAOException {
+        Map<Integer, String> types = loadMaterialTypes();
+        Map<Integer, String> genres = loadGenres();
+        SortedSet<String> typeOptions = catalogService.titleFacetValues(materialDAO,
+                MaterialCatalogService.TYPE_FACET, types, genres);
+        SortedSet<String> genreOptions = catalogService.titleFacetValues(materialDAO,
+                MaterialCatalogService.GENRE_FACET, types, genres);
+
+        UserHoldIndex holds = user != null ? UserHoldIndex.load(user.getIdUser()) : null;
+        PagedList<GroupedMaterial> rows = PagedList.open(titlePages(() -> catalogService.buildTitleCriteria(
+                types, genres, null, null, "", ""), types, genres));
+        return new Catalog(types, genres, typeOptions, genreOptions, holds, new SearchCatalog(types, genres), rows);
+    }
 
-            // Group materials
-            Map<String, List<Material>> grouped = new HashMap<>();
-            for (Material material : materials) {
-                String key = generateGroupKey(material);
-                grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(material);
+    /**
+     * Returns the pages of the titles matching some criteria, ordered by title: each page reads the first copy of
+     * its titles, then their other copies and their genres, with one query each.
+     *
+     * @param criteria The criteria, built by {@link MaterialCatalogService#buildTitleCriteria}.
+     * @param types The material type names by ID.
+     * @param genres The genre names by ID.
+     * @return The pages of the titles.
+     */
+    private PagedList.PageSource<GroupedMaterial> titlePages(Supplier<MaterialCriteria> criteria,
+                                                             Map<Integer, String> types, Map<Integer, String> genres) {
+        return new PagedList.PageSource<>() {
+            @Override
+            public int count() throws DAOException {
+                return materialDAO.countByCriteria(criteria.get());
             }
 
-            groupedMaterialList.clear();
-            for (List<Material> group : grouped.values()) {
-                Material first = group.get(0);
-                String type = getMaterialTypeName(first.getIdMaterialType());
-                String genres = getGenresForMaterial(first.getIdMaterial());
-
-                GroupedMaterial gm = new GroupedMaterial(
-                        first.getTitle(),
-                        first.getAuthor(),
-                        first.getYear(),
-                        first.getISBN(),
-                        type,
-                        genres,
-                        group
-                );
-                groupedMaterialList.add(gm);
+            @Override
+            public List<GroupedMaterial> page(int offset, int limit) throws DAOException {
+                MaterialCriteria page = criteria.get();
+                page.setPage(offset, limit);
+                List<Material> firstCopies = materialDAO.selectByCriteria(page);
+
+                List<Integer> ids = firstCopies.stream().map(Material::getIdMaterial).toList();
+                Map<Integer, List<Material>> copies = materialDAO.selectCopies(ids);
+                Map<Integer, Set<Integer>> relationships = materialGenreDAO.selectGenreIds(ids);
+
+                List<GroupedMaterial> groups = new ArrayList<>(firstCopies.size());
+                for (Material first : firstCopies) {
+                    groups.add(groupOfCopies(first, copies.getOrDefault(first.getIdMaterial(), List.of(first)),
+                            types, genres, relationships));
+                }
+                return groups;
             }
+        };
+    }
 
-            // Initialize filters based on current data
-            selectedMaterialTypes.clear();
-            selectedMaterialTypes.addAll(groupedMaterialList.stream()
-                    .map(GroupedMaterial::getType)
-                    .collect(Collectors.toSet()));
-
-            selectedGenres.clear();
-            selectedGenres.addAll(groupedMaterialList.stream()
-                    .map(GroupedMaterial::getGenres)
-                    .filter(g -> g != null && !g.equals("—"))
-                    .flatMap(g -> Arrays.stream(g.split(", ")))
-                    .collect(Collectors.toSet()));
-
-            filteredList.clear();
-            filteredList.addAll(groupedMaterialList);
-            updateResultCount();
-        } catch (DAOException e) {
-            showError("Error loading materials", e.getMessage());
-        }
+    /**
+     * Builds the group of the copies of a title, described by its first copy.
+     *
+     * @param first The first copy of the title.
+     * @param copies Every copy of the title.
+     * @param types The material type names by ID.
+     * @param genres The genre names by ID.
+     * @param relationships The genre IDs of the materials, by material ID.
+     * @return The group.
+     */
+    private static GroupedMaterial groupOfCopies(Material first, List<Material> copies, Map<Integer, String> types,
+                                                 Map<Integer, String> genres,
+                                                 Map<Integer, Set<Integer>> relationships) {
+        return new GroupedMaterial(
+                first.getTitle(),
+                first.getAuthor(),
+                first.getYear(),
+                first.getISBN(),
+                getMaterialTypeName(types, first.getIdMaterialType()),
+                getGenresForMaterial(relationships, genres, first.getIdMaterial()),
+                copies
+        );
+    }
+
+    /**
+     * Shows a loaded catalog, with every filter option selected. Filters still running on the previous catalog
+     * are dropped.
+     *
+     * @param catalog The catalog read by {@link #readCatalog(User)}.
+     */
+    private void showCatalog(Catalog catalog) {
+        filterTasks.cancel();
+
+        materialTypeMap = catalog.materialTypeMap();
+        genreMap = catalog.genreMap();
+        materialTypeOptions = catalog.materialTypeOptions();
+        genreOptions = catalog.genreOptions();
+        searchCatalog = catalog.searchCatalog();
+        userHolds = catalog.holds();
+
+        // Initialize filters based on current data
+        selectedMaterialTypes.clear();
+        selectedMaterialTypes.addAll(materialTypeOptions);
+
+        selectedGenres.clear();
+        selectedGenres.addAll(genreOptions);
+
+        showRows(catalog.rows());
     }
 
     /**
@@ -610,10 +771,13 @@ public class UserCatalogController {
     /**
      * Builds a comma-separated genre string for a material based on its associated genre IDs.
      *
+     * @param materialGenreMap The genre IDs of every material.
+     * @param genreMap The genre names by ID.
      * @param materialId The ID of the material.
      * @return A sorted, comma-separated string of genre names, or "—" if none are found.
      */
-    private String getGenresForMaterial(Integer materialId) {
+    private static String getGenresForMaterial(Map<Integer, Set<Integer>> materialGenreMap,
+                                               Map<Integer, String> genreMap, Integer materialId) {
         Set<Integer> genreIds = materialGenreMap.get(materialId);
         if (genreIds != null && !genreIds.isEmpty()) {
             return genreIds.stream()
@@ -634,18 +798,12 @@ public class UserCatalogController {
         yearFromField.clear();
         yearToField.clear();
 
-        // Reset filter selections to include all loaded items
+        // Reset filter selections to include all loaded options
         selectedMaterialTypes.clear();
-        selectedMaterialTypes.addAll(groupedMaterialList.stream()
-                .map(GroupedMaterial::getType)
-                .collect(Collectors.toSet()));
+        selectedMaterialTypes.addAll(materialTypeOptions);
 
         selectedGenres.clear();
-        selectedGenres.addAll(groupedMaterialList.stream()
-                .map(GroupedMaterial::getGenres)
-                .filter(g -> g != null && !g.equals("—"))
-                .flatMap(g -> Arrays.stream(g.split(", ")))
-                .collect(Collectors.toSet()));
+        selectedGenres.addAll(genreOptions);
 
         if (materialTypeFilterButton != null) {
             materialTypeFilterButton.setValue("All Types");
@@ -656,34 +814,136 @@ public class UserCatalogController {
             genreFilterButton.setStyle("");
         }
 
-        filteredList.clear();
-        filteredList.addAll(groupedMaterialList);
-        updateResultCount();
+        Map<Integer, String> types = materialTypeMap;
+        Map<Integer, String> genres = genreMap;
+        filterTasks.submit(() -> new FilterResult(PagedList.open(titlePages(() -> catalogService.buildTitleCriteria(
+                        types, genres, null, null, "", ""), types, genres)), null),
+                this::showFilterResult, this::showFilterError);
     }
 
     /**
-     * Applies the combined search and filter criteria to the list of grouped materials.
+     * Applies the combined search and filter criteria to the list of grouped materials, in the background.
      */
     @FXML
     private void handleFilter() {
-        try {
-            // Use the service layer to perform the filtering logic
-            List<GroupedMaterial> result = catalogService.filterGroupedMaterials(
-                    groupedMaterialList,
-                    selectedMaterialTypes,
-                    selectedGenres,
-                    yearFromField.getText().trim(),
-                    yearToField.getText().trim(),
-                    searchField.getText().trim()
-            );
-
-            filteredList.setAll(result);
-            updateResultCount();
-        } catch (Exception e) {
-            showError("Filter Error", "Failed to filter materials: " + e.getMessage());
-            e.printStackTrace();
+        filterTasks.submit(filterQuery(), this::showFilterResult, this::showFilterError);
+    }
+
+    /**
+     * Reads the search and filter inputs, here on the JavaFX thread, and returns the query filtering the catalog
+     * with them in the background.
+     *
+     * @return The filter query.
+     */
+    private Callable<FilterResult> filterQuery() {
+        SearchCatalog search = searchCatalog;
+        Map<Integer, String> typeMap = materialTypeMap;
+        Map<Integer, String> genreNames = genreMap;
+        Set<String> types = new HashSet<>(selectedMaterialTypes);
+        Set<String> genres = new HashSet<>(selectedGenres);
+        String yearFrom = yearFromField.getText().trim();
+        String yearTo = yearToField.getText().trim();
+        String searchTerm = searchField.getText().trim();
+
+        if (searchTerm.isEmpty() || search == null) {
+            // Filters are evaluated by the database, on the first copy of each title
+            Supplier<MaterialCriteria> criteria = () -> catalogService.buildTitleCriteria(typeMap, genreNames,
+                    types, genres, yearFrom, yearTo);
+            return () -> new FilterResult(PagedList.open(titlePages(criteria, typeMap, genreNames)), null);
+        }
+        return () -> {
+            // Use the service layer to perform the filtering logic. The groups are cached with the type, genres
+            // and year of their representative copy, so the facet index answers without querying the database
+            List<GroupedMaterial> groups = search.groups();
+            List<GroupedMaterial> filtered = catalogService.filterGroupedMaterials(
+                    groups, types, genres, yearFrom, yearTo, "");
+            List<GroupedMaterial> found = catalogService.filterGroupedMaterials(
+                    groups, types, genres, yearFrom, yearTo, searchTerm);
+
+            // Nothing found: propose a corrected search
+            String suggestion = found.isEmpty() ? catalogService.suggestGroupedSearch(groups, searchTerm) : null;
+            return new FilterResult(PagedList.open(searchPages(filtered, found, searchTerm)), suggestion);
+        };
+    }
+
+    /**
+     * Returns the pages of the groups found by a search, best first: the exact matches ranked by relevance and demand
+     * (see {@link MaterialCatalogService#rankGroupedMaterials}), each page only keeping the best ones up to its end,
+     * followed by the matches found by tolerating typos, if any.
+     * <p>
+     * The demand of each match is read once, when searching: the pages are ranked as they are loaded, so a status
+     * patched in the meantime (see {@link #materialChanged(Material)}) must not move a group between the pages
+     * already shown and the next ones.
+     * </p>
+     *
+     * @param filtered The groups matching the filters.
+     * @param found The groups found by the search among them, exact matches first.
+     * @param searchTerm The search term.
+     * @return The pages of the groups found.
+     */
+    private PagedList.PageSource<GroupedMaterial> searchPages(List<GroupedMaterial> filtered,
+                                                              List<GroupedMaterial> found, String searchTerm) {
+        Map<GroupedMaterial, Double> demand = new IdentityHashMap<>();
+        for (GroupedMaterial group : found) {
+            demand.put(group, MaterialCatalogService.demandOf(group));
+        }
+        ToDoubleFunction<GroupedMaterial> demandWhenSearched = group -> demand.getOrDefault(group, 0.0);
+
+        int exact = catalogService.rankGroupedMaterials(filtered, searchTerm, demandWhenSearched, 0, 0).getTotal();
+        return new PagedList.PageSource<>() {
+            @Override
+            public int count() {
+                return found.size();
+            }
+
+            @Override
+            public List<GroupedMaterial> page(int offset, int limit) {
+                List<GroupedMaterial> page = new ArrayList<>();
+                if (offset < exact) {
+                    page.addAll(catalogService.rankGroupedMaterials(filtered, searchTerm, demandWhenSearched,
+                            offset, Math.min(limit, exact - offset)).getItems());
+                }
+                int from = Math.max(offset, exact);
+                int to = Math.min(offset + limit, found.size());
+                if (from < to) {
+                    page.addAll(found.subList(from, to));
+                }
+                return page;
+            }
+        };
+    }
+
+    /**
+     * Shows the result of the latest filter.
+     *
+     * @param result The groups found, and the corrected search if none were.
+     */
+    private void showFilterResult(FilterResult result) {
+        showRows(result.rows());
+        if (result.suggestion() != null) {
+            resultCountLabel.setText(String.format("Total: 0 materials. Did you mean \"%s\"?", result.suggestion()));
+        }
+    }
+
+    /**
+     * Shows some groups in the table, in place of the previous ones.
+     *
+     * @param rows The groups, read as the table shows them.
+     */
+    private void showRows(PagedList<GroupedMaterial> rows) {
+        if (materialTable.getItems() instanceof PagedList<GroupedMaterial> shown && shown != rows) {
+            shown.cancel();
         }
+        rows.addListener((ListChangeListener<GroupedMaterial>) change -> updateResultCount());
+        materialTable.setItems(rows);
+        updateResultCount();
+    }
+
+    private void showFilterError(Exception e) {
+        showError("Filter Error", "Failed to filter materials: " + e.getMessage());
+        e.printStackTrace();
     }
+
     /**
      * Navigates back to the user landing view using the main application reference.
      */
@@ -700,16 +960,17 @@ public class UserCatalogController {
      * Updates the label that reports the number of visible materials in the table.
      */
     private void updateResultCount() {
-        resultCountLabel.setText(String.format("Total: %d materials", filteredList.size()));
+        resultCountLabel.setText(String.format("Total: %d materials", materialTable.getItems().size()));
     }
 
     /**
      * Lookup human-friendly material type name by ID.
      *
+     * @param materialTypeMap The material type names by ID.
      * @param typeId The ID of the material type.
      * @return The material type name, or "Unknown" if not found.
      */
-    private String getMaterialTypeName(Integer typeId) {
+    private static String getMaterialTypeName(Map<Integer, String> materialTypeMap, Integer typeId) {
         if (typeId == null) return "Unknown";
         return materialTypeMap.getOrDefault(typeId, "Unknown");
     }
@@ -737,13 +998,44 @@ public class UserCatalogController {
     }
 
     /**
-     * Refreshes lookup relationships and the material list, then reapplies filters.
-     * Called after actions that modify material status (like placing a hold).
+     * Applies a change of status of one copy (hold placed or released, loaned, returned) to the catalog shown,
+     * without reloading it: the copy's group is patched in place, its availability recomputed, and only its row
+     * is refreshed, so the scroll position and the selection are kept.
+     * <p>
+     * The status is not part of the search or of the group filters, so the current results stay valid. It does
+     * count in the demand of the title, which ranks the search results, but they keep the order of their search
+     * until the next one (see {@link #searchPages}): re-ranking would move rows under the user, or across pages.
+     * </p>
+     *
+     * Access Keyword Explanation: {@code public} - Other screens changing the status of a copy may forward it here.
+     *
+     * @param changed The copy, with its new status.
+     */
+    public void materialChanged(Material changed) {
+        // The grouped catalog of the searches, if read
+        GroupedMaterial group = searchCatalog != null ? searchCatalog.groupOf(changed.getIdMaterial()) : null;
+        if (group != null) {
+            group.copyChanged(changed);
+        }
+
+        // The row of the copy, if its page is loaded: only that row is redrawn, if it is shown
+        if (materialTable.getItems() instanceof PagedList<GroupedMaterial> rows) {
+            GroupedMaterial shown = rows.findLoaded(row -> row.getMaterials().stream()
+                    .anyMatch(copy -> Objects.equals(copy.getIdMaterial(), changed.getIdMaterial())));
+            if (shown != null) {
+                shown.copyChanged(changed);
+                rows.rowChanged(shown);
+            }
+        }
+    }
+
+    /**
+     * Reloads lookup relationships, the material list and the user's holds, then reapplies filters.
+     * Only needed on an explicit refresh: status changes made from this screen are applied as deltas (see
+     * {@link #materialChanged(Material)}).
      */
     public void refresh() {
-        loadMaterialGenreRelationships();
-        loadAllMaterials();
-        handleFilter();
+        loadAllMaterials(true);
     }
 
     /**
@@ -762,8 +1054,8 @@ public class UserCatalogController {
      */
     public void setCurrentUser(User user) {
         this.currentUser = user;
-        if (allMaterials.isEmpty()) {
-            loadAllMaterials();
+        if (searchCatalog == null) {
+            loadAllMaterials(false);
         }
     }
 }
\ No newline at end of file
@@ -3,13 +3,12 @@ package it.unicas.project.template.address.view;
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.*;
 import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.HoldDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.LoanDAOMySQLImpl;
-import it.unicas.project.template.address.model.dao.mysql.MaterialDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import it.unicas.project.template.address.service.NotificationsService;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javafx.event.ActionEvent;
@@ -191,18 +190,19 @@ public class    UserLandingController {
 
         try {
             // ----- Load Loans -----
-            List<Loan> userLoans = LoanDAOMySQLImpl.getInstance()
+            List<Loan> userLoans = DAOFactory.getLoanDAO()
                     .select(new Loan(null, currentUser.getIdUser(), null, null, null, null))
                     .stream().collect(Collectors.toList());
 
+            // Fetch the materials of all loans at once to get their titles
+            Map<Integer, Material> loanMaterials = DAOFactory.getMaterialDAO()
+                    .selectByIds(userLoans.stream().map(Loan::getIdMaterial).toList());
+
             loanList.clear();
 
             for (Loan loan : userLoans) {
 
-                // Fetch the material to get its title
-                Material mat = new Material();
-                mat.setIdMaterial(loan.getIdMaterial());
-                mat = MaterialDAOMySQLImpl.getInstance().select(mat).stream().findFirst().orElse(null);
+                Material mat = loanMaterials.get(loan.getIdMaterial());
 
                 String title = (mat != null && mat.getTitle() != null) ? mat.getTitle() : "Unknown";
 
@@ -226,19 +226,16 @@ public class    UserLandingController {
             }
 
             // ----- Load Holds -----
-            List<Hold> userHolds = HoldDAOMySQLImpl.getInstance()
+            List<Hold> userHolds = DAOFactory.getHoldDAO()
                     .select(new Hold(null, currentUser.getIdUser(), null, null))
                     .stream().collect(Collectors.toList());
 
+            Map<Integer, Material> holdMaterials = DAOFactory.getMaterialDAO()
+                    .selectByIds(userHolds.stream().map(Hold::getIdMaterial).toList());
+
             holdList.clear();
             for (Hold hold : userHolds) {
-                Material mat = null;
-
-                if (hold.getIdMaterial() != -1) {
-                    mat = new Material();
-                    mat.setIdMaterial(hold.getIdMaterial());
-                    mat = MaterialDAOMySQLImpl.getInstance().select(mat).stream().findFirst().orElse(null);
-                }
+                Material mat = holdMaterials.get(hold.getIdMaterial());
 
                 String title = (mat != null && mat.getTitle() != null) ? mat.getTitle() : "Unknown";
                 String maxDate = (hold.getHold_date() != null)
@@ -301,7 +298,7 @@ public class    UserLandingController {
             // Retrieve the real hold using the ID
             Hold filter = new Hold();
             filter.setIdHold(selected.getIdHold());
-            var holds = HoldDAOMySQLImpl.getInstance().select(filter);
+            var holds = DAOFactory.getHoldDAO().select(filter);
 
             if (holds == null || holds.isEmpty()) {
                 Alert err = new Alert(Alert.AlertType.ERROR);
@@ -321,19 +318,19 @@ public class    UserLandingController {
             if (matId != null && matId != -1) {
                 Material mFilter = new Material();
                 mFilter.setIdMaterial(matId);
-                var mats = MaterialDAOMySQLImpl.getInstance().select(mFilter);
+                var mats = DAOFactory.getMaterialDAO().select(mFilter);
 
                 if (mats != null && !mats.isEmpty()) {
                     Material mat = mats.get(0);
                     // Assume status should be reset to "available" if the hold is removed
                     mat.setMaterial_status("available");
-                    MaterialDAOMySQLImpl.getInstance().update(mat);
+                    DAOFactory.getMaterialDAO().update(mat);
                     materialUpdated = true;
                 }
             }
 
             // Delete hold
-            HoldDAOMySQLImpl.getInstance().delete(realHold);
+            DAOFactory.getHoldDAO().delete(realHold);
 
             // And update notifications
             if (currentUser != null) {
@@ -2,11 +2,9 @@ package it.unicas.project.template.address.view;
 
 import it.unicas.project.template.address.MainApp;
 import it.unicas.project.template.address.model.User;
-import it.unicas.project.template.address.model.dao.DAOException;
-import it.unicas.project.template.address.model.dao.mysql.UserDAOMySQLImpl;
+import it.unicas.project.template.address.model.dao.DAOFactory;
 import it.unicas.project.template.address.service.UserCatalogService;
 import java.util.Collections;
-import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.SortedList;
@@ -26,15 +24,13 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.Future; // Explicitly importing Future for clarity
+import java.util.concurrent.Callable;
 
 /**
  * Controller for User Management view.
  * This class handles the display, searching, registration, and editing of user data
- * within an administrative interface. It implements a debouncing mechanism to optimize search performance.
+ * within an administrative interface. It implements a debouncing mechanism to optimize search performance, and
+ * loads and searches the users in the background (see {@link BackgroundTasks}).
  */
 public class UserManagementController {
 
@@ -57,9 +53,9 @@ public class UserManagementController {
     // Service for user catalog operations
     private UserCatalogService userCatalogService = new UserCatalogService();
 
-    // Debounce mechanism for search
-    private ScheduledExecutorService searchScheduler = Executors.newSingleThreadScheduledExecutor();
-    private java.util.concurrent.Future<?> searchTask;
+    // Debounced searches and user loads, off the JavaFX thread: only the latest of each is shown
+    private final BackgroundTasks searchTasks = new BackgroundTasks();
+    private final BackgroundTasks loadTasks = new BackgroundTasks();
 
 
 
@@ -111,86 +107,90 @@ public class UserManagementController {
     }
 
     /**
-     * Implements the debouncing mechanism by canceling any pending search task
-     * and scheduling a new search execution after a 300ms delay. The actual search
-     * execution is run on the JavaFX application thread via {@code Platform.runLater()}.
+     * Implements the debouncing mechanism: the search runs in the background once the input has settled (the delay
+     * adapts to the search latency), superseding any search still pending or running.
      */
     private void scheduleSearch() {
-        // Cancel previous search task if still pending
-        if (searchTask != null && !searchTask.isDone()) {
-            searchTask.cancel(false);
-        }
-
-        // Schedule new search after 300ms delay
-        searchTask = searchScheduler.schedule(() -> {
-            Platform.runLater(this::handleSearch);
-        }, 300, TimeUnit.MILLISECONDS);
+        String query = searchField.getText().trim();
+        searchTasks.debounce(searchQuery(query), users -> showSearchResult(query, users), this::showSearchError);
     }
 
     /**
-     * Loads all user data from the database into the {@code userList} and caches it
+     * Loads all user data from the database in the background, then shows it in the {@code userList} and caches it
      * in {@code cachedAllUsers}. This method is called upon initialization and after
      * a user registration or edit action.
      */
     public void loadInitialUserData() {
-        userList.clear();
-        cachedAllUsers = null; // Clear cache to force reload
-
-        try {
-            List<User> usersFromDB = UserDAOMySQLImpl.getInstance().select(null);
+        loadTasks.submit(() -> DAOFactory.getUserDAO().select(null), usersFromDB -> {
+            searchTasks.cancel(); // Searches of the previous users are stale
             cachedAllUsers = usersFromDB; // Cache the results
-            userList.addAll(usersFromDB);
+            userList.setAll(usersFromDB);
             System.out.println("Successfully loaded " + userList.size() + " users from the database.");
-
-        } catch (DAOException e) {
+        }, e -> {
             System.err.println("Database Error: Could not load users: " + e.getMessage());
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Database Connection Error");
             alert.setHeaderText("Failed to Load Users");
             alert.setContentText("An error occurred while fetching user data from the database.\nDetails: " + e.getMessage());
             alert.showAndWait();
-        }
+        });
     }
 
     /**
-     * Handles search execution using the cached user data.
+     * Handles search execution using the cached user data, in the background.
      * Filters the cached list based on the current text in the search field and updates the table.
      */
     @FXML
     private void handleSearch() {
         String query = searchField.getText().trim();
-        userList.clear();
+        searchTasks.submit(searchQuery(query), users -> showSearchResult(query, users), this::showSearchError);
+    }
 
-        try {
-            // If cache is empty, reload from database (safety net)
-            if (cachedAllUsers == null) {
-                cachedAllUsers = UserDAOMySQLImpl.getInstance().select(null);
-            }
+    /**
+     * Returns the query searching the cached users with the search text read on the JavaFX thread.
+     *
+     * @param query The trimmed search text.
+     * @return The search query.
+     */
+    private Callable<List<User>> searchQuery(String query) {
+        List<User> cachedUsers = cachedAllUsers;
+
+        return () -> {
+            // If cache is empty, load from database (safety net)
+            List<User> users = cachedUsers != null ? cachedUsers : DAOFactory.getUserDAO().select(null);
 
             if (query.isEmpty()) {
                 // If search is empty, show all users from cache
-                userList.addAll(cachedAllUsers);
-            } else {
-                // Use UserCatalogService to search cached data (performs client-side filtering)
-                List<User> searchResults = userCatalogService.filterUsers(
-                        cachedAllUsers,           // Use cached data
-                        Collections.emptyMap(),   // No role map needed for basic user search
-                        Collections.emptySet(),   // No role filter needed for basic user search
-                        query
-                );
-                userList.addAll(searchResults);
+                return users;
             }
+            // Use UserCatalogService to search cached data (performs client-side filtering)
+            return userCatalogService.filterUsers(
+                    users,                    // Use cached data
+                    Collections.emptyMap(),   // No role map needed for basic user search
+                    Collections.emptySet(),   // No role filter needed for basic user search
+                    query
+            );
+        };
+    }
 
-            System.out.println("Search executed. Found " + userList.size() + " matches for query: " + query);
+    /**
+     * Shows the users found by a search.
+     *
+     * @param query The search text the users were searched with (the field may have changed since).
+     * @param searchResults The users found.
+     */
+    private void showSearchResult(String query, List<User> searchResults) {
+        userList.setAll(searchResults);
+        System.out.println("Search executed. Found " + userList.size() + " matches for query: " + query);
+    }
 
-        } catch (DAOException e) {
-            System.err.println("Database Error: Could not perform search: " + e.getMessage());
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Database Error");
-            alert.setHeaderText("Search Failed");
-            alert.setContentText("An error occurred while searching.\nDetails: " + e.getMessage());
-            alert.showAndWait();
-        }
+    private void showSearchError(Exception e) {
+        System.err.println("Database Error: Could not perform search: " + e.getMessage());
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Database Error");
+        alert.setHeaderText("Search Failed");
+        alert.setContentText("An error occurred while searching.\nDetails: " + e.getMessage());
+        alert.showAndWait();
     }
 
     /**
@@ -1,10 +1,21 @@
 package it.unicas.project.template.address.service;
 
+import it.unicas.project.template.address.model.Genre;
 import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.MaterialCriteria;
+import it.unicas.project.template.address.model.MaterialGenre;
+import it.unicas.project.template.address.model.MaterialType;
+import it.unicas.project.template.address.model.dao.DAO;
+import it.unicas.project.template.address.model.dao.DAOException;
+import it.unicas.project.template.address.model.dao.memory.MemoryDatabase;
+import it.unicas.project.template.address.view.UserCatalogController.GroupedMaterial;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -153,4 +164,441 @@ class MaterialCatalogServiceTest {
         assertEquals(1, result.size());
         assertEquals("Java Programming", result.get(0).getTitle());
     }
-}
\ No newline at end of file
+
+    @Test
+    void criteria_translates_names_to_ids() {
+        // Los nombres seleccionados se traducen a IDs; un año "hasta" inválido solo quita el límite superior
+        MaterialCriteria criteria = service.buildCriteria(
+                typeMap,
+                genreMap,
+                Set.of("DVD"),
+                Set.of("Available"),
+                Set.of("Programming"),
+                "2016",
+                "abc",
+                "Java  Smith"
+        );
+
+        assertEquals(Set.of(2), criteria.getTypeIds());
+        assertTrue(criteria.isIncludeWithoutType());
+        assertEquals(Set.of("Available"), criteria.getStatuses());
+        assertEquals(Set.of(1), criteria.getGenreIds());
+        assertEquals(2016, criteria.getYearFrom());
+        assertNull(criteria.getYearTo());
+        assertEquals(List.of("java", "smith"), criteria.getSearchWords());
+        assertFalse(criteria.isPaged());
+
+        // Un año "desde" inválido desactiva el filtro de año, como en memoria
+        MaterialCriteria invalidFrom = service.buildCriteria(typeMap, genreMap, Set.of("DVD"), null,
+                Set.of("Programming"), "abc", "2020", "");
+        assertNull(invalidFrom.getYearFrom());
+        assertNull(invalidFrom.getYearTo());
+    }
+
+    @Test
+    void non_sql_dao_falls_back_to_memory() throws DAOException {
+        // Con un DAO que no es un MaterialDAO se usa el filtrado en memoria, con el mismo resultado
+        DAO<Material> memoryDao = new DAO<>() {
+            @Override
+            public List<Material> select(Material a) { return materials; }
+            @Override
+            public void update(Material a) {}
+            @Override
+            public void insert(Material a) {}
+            @Override
+            public void delete(Material a) {}
+            @Override
+            public List<Material> selectAll() { return materials; }
+        };
+
+        List<Material> result = service.filterMaterials(
+                memoryDao,
+                () -> new MaterialCatalogService.CatalogCopy(materials, materialGenreMap),
+                typeMap,
+                genreMap,
+                Set.of("Book", "DVD"),
+                Set.of("Available", "On Loan"),
+                Set.of("Databases"),
+                "",
+                "",
+                ""
+        );
+
+        assertEquals(1, result.size());
+        assertEquals("Database Systems", result.get(0).getTitle());
+    }
+
+    @Test
+    void memory_backend_filters_like_in_memory_path() throws DAOException {
+        // El backend en memoria evalúa los criterios con sus índices y devuelve lo mismo que el filtrado en memoria
+        MemoryDatabase db = new MemoryDatabase();
+        db.addMaterialType(new MaterialType(1, "Book"));
+        db.addMaterialType(new MaterialType(2, "DVD"));
+        db.getGenreDAO().insert(new Genre(0, "Programming"));
+        db.getGenreDAO().insert(new Genre(0, "Databases"));
+
+        List<Material> stored = new ArrayList<>();
+        for (Material m : materials) {
+            Material copy = new Material(-1, m.getTitle(), m.getAuthor(), m.getYear(), m.getISBN(),
+                    m.getIdMaterialType(), m.getMaterial_status());
+            db.getMaterialDAO().insert(copy);
+            stored.add(copy);
+        }
+        db.getMaterialGenreDAO().insert(new MaterialGenre(stored.get(0).getIdMaterial(), 1));
+        db.getMaterialGenreDAO().insert(new MaterialGenre(stored.get(1).getIdMaterial(), 2));
+
+        Map<Integer, Set<Integer>> storedGenres = Map.of(
+                stored.get(0).getIdMaterial(), Set.of(1),
+                stored.get(1).getIdMaterial(), Set.of(2)
+        );
+
+        MaterialCatalogService.CatalogCopy.Reader unused = () -> fail("The DAO filters without the catalog copy");
+        List<Material> viaDao = service.filterMaterials(db.getMaterialDAO(), unused, typeMap, genreMap,
+                Set.of("Book", "DVD"), Set.of("Available", "On Loan"), Set.of("Databases"), "", "", "");
+        List<Material> inMemory = service.filterMaterials(db.getMaterialDAO().selectAll(),
+                storedGenres, typeMap, genreMap,
+                Set.of("Book", "DVD"), Set.of("Available", "On Loan"), Set.of("Databases"), "", "", "");
+
+        assertEquals(1, viaDao.size());
+        assertEquals("Database Systems", viaDao.get(0).getTitle());
+        assertEquals(inMemory.stream().map(Material::getIdMaterial).toList(),
+                viaDao.stream().map(Material::getIdMaterial).toList());
+
+        // Una búsqueda clasifica los candidatos del DAO y encuentra lo mismo que la búsqueda en memoria
+        Set<String> allTypes = Set.of("Book", "DVD");
+        Set<String> allStatuses = Set.of("Available", "On Loan");
+        Set<String> allGenres = Set.of("Programming", "Databases");
+        List<Material> candidates = service.filterMaterials(db.getMaterialDAO(), unused, typeMap, genreMap,
+                allTypes, allStatuses, allGenres, "", "", "systems");
+        SearchPage<Material> ranked = service.rankMaterials(candidates, "systems", 0, 10);
+        List<Material> searched = service.filterMaterials(db.getMaterialDAO().selectAll(),
+                storedGenres, typeMap, genreMap, allTypes, allStatuses, allGenres, "", "", "systems");
+
+        assertEquals(1, ranked.getTotal());
+        assertEquals(searched.stream().map(Material::getIdMaterial).toList(),
+                ranked.getItems().stream().map(Material::getIdMaterial).toList());
+    }
+
+    @Test
+    void memory_backend_rolls_back_failed_transaction() throws DAOException {
+        // Un cambio dentro de una transacción deshecha no queda guardado
+        MemoryDatabase db = new MemoryDatabase();
+        db.addMaterialType(new MaterialType(1, "Book"));
+        Material m = new Material(-1, "Java Programming", "Smith", 2020, "", 1, "available");
+        db.getMaterialDAO().insert(m);
+
+        db.beginTransaction();
+        m.setMaterial_status("holded");
+        db.getMaterialDAO().update(m);
+        db.rollbackTransaction();
+
+        assertEquals("available", db.getMaterialDAO().selectAll().get(0).getMaterial_status());
+    }
+
+    @Test
+    void indexed_search_matches_linear_search() {
+        // La búsqueda con índice devuelve exactamente lo mismo que la búsqueda lineal, también sobre subconjuntos
+        List<Material> catalog = new ArrayList<>();
+        String[][] rows = {
+                {"Harry Potter", "J.K. Rowling"}, {"The Hall", "Harold Harris"}, {"Rowling, a biography", "Smith"},
+                {"J.R.R. Tolkien letters", "Tolkien"}, {"Potter's field", "Harry Hall"}, {"-Dune-", "Herbert"}
+        };
+        for (int i = 0; i < rows.length; i++) {
+            Material m = new Material(i + 1, rows[i][0], rows[i][1], 2000 + i, "978-" + i, 1, i % 2 == 0 ? "available" : "loaned");
+            catalog.add(m);
+        }
+        List<Function<Material, String>> fields = SearchService.<Material>fieldsBuilder()
+                .addField(Material::getTitle)
+                .addField(Material::getAuthor)
+                .addField(Material::getISBN)
+                .addField(Material::getMaterial_status)
+                .build();
+        SearchService<Material> linear = new SearchService<>();
+        SearchIndex<Material> index = linear.buildIndex(catalog, fields);
+        List<Material> subset = List.of(catalog.get(4), catalog.get(0), catalog.get(1));
+
+        for (String term : List.of("harry", "ha harry", "jk", "j.k", "rowling j", "hall", "978", "loaned", "dune",
+                "potter harry hall", "zz", "...")) {
+            assertEquals(linear.searchAndSort(catalog, term, fields), index.searchAndSort(catalog, term), term);
+            assertEquals(linear.searchAndSort(subset, term, fields), index.searchAndSort(subset, term), term);
+        }
+    }
+
+    @Test
+    void parallel_search_keeps_sequential_order() {
+        // La búsqueda en paralelo devuelve los mismos resultados, en el mismo orden, que la secuencial
+        List<Material> catalog = new ArrayList<>();
+        String[] titles = {"Harry Potter", "The Hall", "Potter's field", "Harold and Maude", "Dune", "Hall of fame"};
+        for (int i = 0; i < 600; i++) {
+            catalog.add(new Material(i + 1, titles[i % titles.length] + " " + i, i % 7 == 0 ? "Harry Hall" : "Smith",
+                    2000 + i % 20, "978-" + i, 1, i % 2 == 0 ? "available" : "loaned"));
+        }
+        List<Function<Material, String>> fields = SearchService.<Material>fieldsBuilder()
+                .addField(Material::getTitle)
+                .addField(Material::getAuthor)
+                .addField(Material::getISBN)
+                .addField(Material::getMaterial_status)
+                .build();
+        SearchService<Material> sequential = new SearchService<>();
+        SearchService<Material> parallel = new SearchService<>();
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel.setParallelThreshold(1);
+
+        for (String term : List.of("harry", "hall", "potter hall", "978-1", "loaned", "smith dune", "zz")) {
+            assertEquals(sequential.searchAndSort(catalog, term, fields), parallel.searchAndSort(catalog, term, fields), term);
+        }
+    }
+
+    @Test
+    void refined_search_matches_full_search() {
+        // Al seguir escribiendo solo se vuelven a examinar los resultados anteriores, con el mismo resultado
+        List<Material> catalog = new ArrayList<>();
+        String[][] rows = {
+                {"Harry Potter", "J.K. Rowling"}, {"The Hall", "Harry Harris"}, {"Harold and Maude", "Higgins"},
+                {"Potter's field", "Harry Hall"}, {"Hall of fame", "Potts"}
+        };
+        for (int i = 0; i < rows.length; i++) {
+            catalog.add(new Material(i + 1, rows[i][0], rows[i][1], 2000 + i, "978-" + i, 1, "available"));
+        }
+        List<Function<Material, String>> fields = SearchService.<Material>fieldsBuilder()
+                .addField(Material::getTitle)
+                .addField(Material::getAuthor)
+                .build();
+        SearchService<Material> typing = new SearchService<>();
+        List<Material> narrowed = List.of(catalog.get(0), catalog.get(3), catalog.get(4));
+
+        for (String term : List.of("h", "ha", "har", "harr", "harry", "harry p", "harry po")) {
+            assertEquals(new SearchService<Material>().searchAndSort(catalog, term, fields),
+                    typing.searchAndSort(catalog, term, fields), term);
+        }
+        // Un filtro más estricto reutiliza los resultados; uno más amplio vuelve a buscar en toda la lista
+        assertEquals(List.of(catalog.get(0), catalog.get(3)), typing.searchAndSort(narrowed, "harry pot", fields));
+        assertEquals(new SearchService<Material>().searchAndSort(catalog, "harry pott", fields),
+                typing.searchAndSort(catalog, "harry pott", fields));
+
+        // Una edición en el sitio se notifica con forgetLastSearch()
+        typing.searchAndSort(catalog, "maud", fields);
+        catalog.get(4).setTitle("Maude's Hall");
+        typing.forgetLastSearch();
+        assertEquals(List.of(catalog.get(2), catalog.get(4)), typing.searchAndSort(catalog, "maude", fields));
+    }
+
+    @Test
+    void ranked_search_pages_through_the_best_matches() {
+        // La búsqueda con ranking devuelve primero las coincidencias exactas y tempranas, página a página
+        List<Material> catalog = new ArrayList<>();
+        String[] titles = {"Potterhead guide", "Harry Potter", "Life of Harry", "The Potter", "Potter"};
+        for (int i = 0; i < titles.length; i++) {
+            catalog.add(new Material(i + 1, titles[i], "Author " + i, 2000 + i, "978-" + i, 1, "available"));
+        }
+
+        SearchPage<Material> all = service.rankMaterials(catalog, "potter", 0, 10);
+        assertEquals(4, all.getTotal());
+        assertEquals(List.of(catalog.get(4), catalog.get(1), catalog.get(3), catalog.get(0)), all.getItems());
+        assertFalse(all.hasMore());
+
+        SearchPage<Material> first = service.rankMaterials(catalog, "potter", 0, 2);
+        SearchPage<Material> second = service.rankMaterials(catalog, "potter", 2, 2);
+        assertEquals(all.getItems().subList(0, 2), first.getItems());
+        assertEquals(all.getItems().subList(2, 4), second.getItems());
+        assertTrue(first.hasMore());
+        assertEquals(4, second.getTotal());
+
+        // Sin término, la página es un trozo de la lista
+        assertEquals(catalog.subList(1, 3), service.rankMaterials(catalog, "", 1, 2).getItems());
+    }
+
+    @Test
+    void ranked_grouped_search_prefers_titles_in_demand() {
+        // A igualdad de coincidencia, sube el título con más copias prestadas o reservadas
+        Material loaned = new Material(3, "Dune", "Herbert", 1965, "", 1, "loaned");
+        Material available = new Material(4, "Dune", "Herbert", 1965, "", 1, "available");
+        GroupedMaterial quiet = new GroupedMaterial("Dune", "Herbert", 1965, "", "Book", "", List.of(available));
+        GroupedMaterial popular = new GroupedMaterial("Dune", "Herbert", 1965, "", "Book", "", List.of(loaned));
+
+        assertEquals(List.of(popular, quiet),
+                service.rankGroupedMaterials(List.of(quiet, popular), "dune", 0, 10).getItems());
+    }
+
+    @Test
+    void group_applies_status_of_copy_with_large_id() {
+        // Un ID mayor que 127 no está en la caché de Integer: la copia se reconoce por el valor de su ID
+        Material copy = new Material(1000, "Dune", "Herbert", 1965, "", 1, "available");
+        Material other = new Material(1001, "Dune", "Herbert", 1965, "", 1, "available");
+        GroupedMaterial dune = new GroupedMaterial("Dune", "Herbert", 1965, "", "Book", "", List.of(copy, other));
+
+        dune.copyChanged(new Material(1000, "Dune", "Herbert", 1965, "", 1, "loaned"));
+        assertEquals("loaned", copy.getMaterial_status());
+        assertEquals("available", other.getMaterial_status());
+        assertTrue(dune.hasAvailable());
+
+        dune.copyChanged(new Material(1001, "Dune", "Herbert", 1965, "", 1, "held"));
+        assertFalse(dune.hasAvailable());
+    }
+
+    @Test
+    void typo_tolerant_search_and_suggestion() {
+        // Con tolerancia a errores, "rowlng" encuentra a Rowling, detrás de las coincidencias exactas
+        GroupedMaterial potter = new GroupedMaterial("Harry Potter", "J.K. Rowling", 1997, "", "Book", "Fantasy",
+                List.of(materials.get(0)));
+        GroupedMaterial rowl = new GroupedMaterial("Rowlng Stones", "Smith", 2001, "", "Book", "Fantasy",
+                List.of(materials.get(1)));
+        GroupedMaterial mistborn = new GroupedMaterial("Mistborn", "Brandon Sanderson", 2006, "", "Book", "Fantasy",
+                List.of(materials.get(1)));
+        List<GroupedMaterial> catalog = List.of(potter, rowl, mistborn);
+
+        assertEquals(List.of(rowl), service.filterGroupedMaterials(catalog, Set.of("Book"), Set.of("Fantasy"),
+                "", "", "rowlng"));
+
+        service.setGroupedTypoTolerance(2);
+        assertEquals(List.of(rowl, potter), service.filterGroupedMaterials(catalog, Set.of("Book"), Set.of("Fantasy"),
+                "", "", "rowlng"));
+        assertEquals(List.of(mistborn), service.filterGroupedMaterials(catalog, Set.of("Book"), Set.of("Fantasy"),
+                "", "", "sandersen"));
+        // Las palabras cortas no se corrigen
+        assertTrue(service.filterGroupedMaterials(catalog, Set.of("Book"), Set.of("Fantasy"), "", "", "hxr").isEmpty());
+
+        // "¿Quisiste decir...?" cuando no hay resultados
+        assertEquals("harry potter", service.suggestGroupedSearch(catalog, "hary pottr"));
+        assertNull(service.suggestGroupedSearch(catalog, "harry"));
+        assertNull(service.suggestGroupedSearch(catalog, "qqqqqqq"));
+    }
+
+    @Test
+    void facet_counts_follow_the_other_filters() {
+        // Cada opción del filtro muestra cuántos títulos añadiría con los demás filtros y la búsqueda actuales
+        GroupedMaterial hobbit = new GroupedMaterial("The Hobbit", "Tolkien", 1937, "", "Book", "Fantasy, Adventure",
+                List.of(materials.get(0)));
+        GroupedMaterial dune = new GroupedMaterial("Dune", "Herbert", 1965, "", "Book", "Sci-Fi",
+                List.of(materials.get(1)));
+        GroupedMaterial willow = new GroupedMaterial("Willow", "Howard", 1988, "", "DVD", "Fantasy",
+                List.of(materials.get(1)));
+        GroupedMaterial atlas = new GroupedMaterial("Atlas", "Unknown", 2001, "", "Unknown", "—",
+                List.of(materials.get(0)));
+        List<GroupedMaterial> catalog = List.of(hobbit, dune, willow, atlas);
+        Set<String> allTypes = Set.of("Book", "DVD");
+        Set<String> allGenres = Set.of("Fantasy", "Adventure", "Sci-Fi");
+
+        assertEquals(List.of(hobbit, willow, atlas),
+                service.filterGroupedMaterials(catalog, allTypes, Set.of("Fantasy"), "", "", ""));
+        // Sin selección, solo quedan los títulos sin valor
+        assertEquals(List.of(atlas), service.filterGroupedMaterials(catalog, Set.of(), allGenres, "", "", ""));
+        // Un año final inválido solo ignora el límite superior
+        assertEquals(List.of(willow, atlas),
+                service.filterGroupedMaterials(catalog, allTypes, allGenres, "1980", "abc", ""));
+
+        assertEquals(Map.of("Fantasy", 2, "Adventure", 1, "Sci-Fi", 1), service.countGroupedFacet(
+                MaterialCatalogService.GENRE_FACET, catalog, allTypes, Set.of("Fantasy"), "", "", ""));
+        assertEquals(Map.of("Fantasy", 1, "Adventure", 0, "Sci-Fi", 0), service.countGroupedFacet(
+                MaterialCatalogService.GENRE_FACET, catalog, Set.of("DVD"), allGenres, "", "", ""));
+        assertEquals(Map.of("Book", 1, "DVD", 1), service.countGroupedFacet(
+                MaterialCatalogService.TYPE_FACET, catalog, allTypes, Set.of("Fantasy"), "", "", ""));
+        assertEquals(Map.of("Book", 0, "DVD", 1), service.countGroupedFacet(
+                MaterialCatalogService.TYPE_FACET, catalog, allTypes, allGenres, "", "", "willow"));
+    }
+
+    @Test
+    void dao_facet_counts_follow_the_other_filters() throws DAOException {
+        // En el catálogo del administrador, las opciones y sus cuentas se calculan en el DAO
+        MemoryDatabase db = new MemoryDatabase();
+        db.addMaterialType(new MaterialType(1, "Book"));
+        db.addMaterialType(new MaterialType(2, "DVD"));
+        db.getGenreDAO().insert(new Genre(0, "Programming"));
+        db.getGenreDAO().insert(new Genre(0, "Databases"));
+        for (Material m : materials) {
+            Material copy = new Material(-1, m.getTitle(), m.getAuthor(), m.getYear(), m.getISBN(),
+                    m.getIdMaterialType(), m.getMaterial_status());
+            db.getMaterialDAO().insert(copy);
+            if (m.getIdMaterial() == 1) db.getMaterialGenreDAO().insert(new MaterialGenre(copy.getIdMaterial(), 1));
+        }
+
+        assertEquals(Set.of("Available", "On Loan"), service.materialFacetValues(db.getMaterialDAO(),
+                MaterialCatalogService.STATUS_FACET, typeMap, genreMap));
+        assertEquals(Set.of("Programming"), service.materialFacetValues(db.getMaterialDAO(),
+                MaterialCatalogService.GENRE_FACET, typeMap, genreMap));
+
+        // La selección del propio filtro no cuenta; los demás filtros y el año sí
+        assertEquals(Map.of("Available", 1, "On Loan", 0), service.countMaterialFacet(db.getMaterialDAO(),
+                db.getMaterialGenreDAO(), MaterialCatalogService.STATUS_FACET, typeMap, genreMap,
+                Set.of("Book", "DVD"), Set.of(), Set.of("Programming", "Databases"), "2018", "", ""));
+        assertEquals(Map.of("Book", 0, "DVD", 1), service.countMaterialFacet(db.getMaterialDAO(),
+                db.getMaterialGenreDAO(), MaterialCatalogService.TYPE_FACET, typeMap, genreMap,
+                Set.of(), Set.of("Available", "On Loan"), Set.of(), "", "", ""));
+        assertEquals(Map.of("Programming", 0), service.countMaterialFacet(db.getMaterialDAO(),
+                db.getMaterialGenreDAO(), MaterialCatalogService.GENRE_FACET, typeMap, genreMap,
+                Set.of("Book", "DVD"), Set.of("Available", "On Loan"), Set.of(), "", "", "database"));
+
+        // Con una búsqueda se cuentan los resultados mostrados, no los del prefiltro LIKE ("ystems" no empieza
+        // ninguna palabra)
+        assertEquals(Map.of("Book", 0, "DVD", 0), service.countMaterialFacet(db.getMaterialDAO(),
+                db.getMaterialGenreDAO(), MaterialCatalogService.TYPE_FACET, typeMap, genreMap,
+                Set.of(), Set.of("Available", "On Loan"), Set.of(), "", "", "ystems"));
+        assertEquals(Map.of("Programming", 1), service.countMaterialFacet(db.getMaterialDAO(),
+                db.getMaterialGenreDAO(), MaterialCatalogService.GENRE_FACET, typeMap, genreMap,
+                Set.of("Book", "DVD"), Set.of("Available", "On Loan"), Set.of(), "", "", "java"));
+
+        Map<Integer, Set<Integer>> genres = db.getMaterialGenreDAO().selectGenreIds(
+                db.getMaterialDAO().selectAll().stream().map(Material::getIdMaterial).toList());
+        assertEquals(List.of(Set.of(1)), List.copyOf(genres.values()));
+    }
+
+    @Test
+    void dao_pages_one_row_per_title() throws DAOException {
+        // El catálogo del usuario pagina en el DAO la primera copia de cada título, y lee sus copias aparte
+        MemoryDatabase db = new MemoryDatabase();
+        db.addMaterialType(new MaterialType(1, "Book"));
+        db.addMaterialType(new MaterialType(2, "DVD"));
+        db.getGenreDAO().insert(new Genre(0, "Programming"));
+        db.getGenreDAO().insert(new Genre(0, "Databases"));
+        Material first = new Material(-1, "Java Programming", "Smith", 2020, "", 1, "Loaned");
+        Material second = new Material(-1, "Java Programming", "Smith", 2020, " ", 1, "Available");
+        Material otherCase = new Material(-1, "java programming", "Smith", 2020, "", 2, "Available");
+        Material dvd = new Material(-1, "Database Systems", "Brown", 2015, "123", 2, "Available");
+        for (Material m : List.of(first, second, otherCase, dvd)) {
+            db.getMaterialDAO().insert(m);
+        }
+        db.getMaterialGenreDAO().insert(new MaterialGenre(first.getIdMaterial(), 1));
+        // Solo cuentan los géneros de la primera copia
+        db.getMaterialGenreDAO().insert(new MaterialGenre(second.getIdMaterial(), 2));
+
+        MaterialCriteria all = service.buildTitleCriteria(typeMap, genreMap, null, null, "", "");
+        assertEquals(3, db.getMaterialDAO().countByCriteria(all));
+        all.setPage(0, 2);
+        List<Material> page = db.getMaterialDAO().selectByCriteria(all);
+        assertEquals(List.of(dvd.getIdMaterial(), first.getIdMaterial()),
+                page.stream().map(Material::getIdMaterial).toList());
+
+        Map<Integer, List<Material>> copies = db.getMaterialDAO().selectCopies(
+                page.stream().map(Material::getIdMaterial).toList());
+        assertEquals(List.of(first.getIdMaterial(), second.getIdMaterial()),
+                copies.get(first.getIdMaterial()).stream().map(Material::getIdMaterial).toList());
+        assertEquals(1, copies.get(dvd.getIdMaterial()).size());
+
+        // Los filtros se aplican a la primera copia, como en el catálogo agrupado (más los títulos sin género)
+        assertEquals(2, db.getMaterialDAO().countByCriteria(service.buildTitleCriteria(typeMap, genreMap,
+                Set.of("Book", "DVD"), Set.of("Databases"), "", "")));
+        assertEquals(Set.of("Programming"), service.titleFacetValues(db.getMaterialDAO(),
+                MaterialCatalogService.GENRE_FACET, typeMap, genreMap));
+        assertEquals(Map.of("Book", 1, "DVD", 1), service.countTitleFacet(db.getMaterialDAO(),
+                MaterialCatalogService.TYPE_FACET, typeMap, genreMap,
+                Set.of("Book"), Set.of("Programming", "Databases"), "2016", ""));
+    }
+
+    @Test
+    void grouped_search_index_follows_list_changes() {
+        // El índice de búsqueda se reconstruye cuando cambia la lista del catálogo
+        ObservableList<GroupedMaterial> grouped = FXCollections.observableArrayList(
+                new GroupedMaterial("Java Programming", "Smith", 2020, "", "Book", "Programming", List.of(materials.get(0))));
+
+        List<GroupedMaterial> first = service.filterGroupedMaterials(grouped, Set.of("Book"), Set.of("Programming"),
+                "", "", "database");
+        assertTrue(first.isEmpty());
+
+        grouped.add(new GroupedMaterial("Database Systems", "Brown", 2015, "", "Book", "Programming",
+                List.of(materials.get(1))));
+        List<GroupedMaterial> second = service.filterGroupedMaterials(grouped, Set.of("Book"), Set.of("Programming"),
+                "", "", "database");
+        assertEquals(1, second.size());
+        assertEquals("Database Systems", second.get(0).getTitle());
+    }
+}
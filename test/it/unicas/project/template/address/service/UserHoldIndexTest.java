@@ -0,0 +1,115 @@
+package it.unicas.project.template.address.service;
+
+import it.unicas.project.template.address.model.Hold;
+import it.unicas.project.template.address.model.Material;
+import it.unicas.project.template.address.model.dao.DAO;
+import it.unicas.project.template.address.model.dao.DAOException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UserHoldIndex class.
+ * Validates that the index is read with a single query and that it follows
+ * the holds placed and released afterwards, using an inline DAO stub.
+ */
+public class UserHoldIndexTest {
+
+    private List<Hold> holds;
+    private int selects;
+    private DAO<Hold> holdDao;
+
+    /**
+     * Initializes the holds of two users and an inline DAO counting its queries.
+     */
+    @BeforeEach
+    public void setUp() {
+        holds = new ArrayList<>();
+        holds.add(new Hold(1, 1, 10, LocalDateTime.now()));
+        holds.add(new Hold(2, 1, 11, LocalDateTime.now()));
+        holds.add(new Hold(3, 2, 12, LocalDateTime.now()));
+        selects = 0;
+
+        holdDao = new DAO<>() {
+            @Override
+            public void insert(Hold entity) {}
+
+            @Override
+            public void delete(Hold a) {}
+
+            @Override
+            public void update(Hold entity) {}
+
+            @Override
+            public List<Hold> selectAll() throws DAOException {
+                return select(null);
+            }
+
+            /**
+             * Returns the holds of the user of the template, counting the queries.
+             */
+            @Override
+            public List<Hold> select(Hold filter) {
+                selects++;
+                List<Hold> result = new ArrayList<>();
+                for (Hold h : holds) {
+                    if (filter == null || filter.getIdUser() == -1 || filter.getIdUser() == h.getIdUser()) {
+                        result.add(h);
+                    }
+                }
+                return result;
+            }
+        };
+    }
+
+    private static Material material(int id) {
+        Material m = new Material();
+        m.setIdMaterial(id);
+        return m;
+    }
+
+    /**
+     * Tests that the holds of a user are read with one query and looked up in memory.
+     */
+    @Test
+    public void load_reads_the_user_holds_once() throws DAOException {
+        UserHoldIndex index = UserHoldIndex.load(1, holdDao);
+
+        assertEquals(1, selects);
+        assertEquals(2, index.size());
+        assertEquals(1, index.holdOn(10).getIdHold());
+        assertNull(index.holdOn(12), "Holds of other users are not indexed");
+
+        Material copy = material(11);
+        assertSame(copy, index.heldAmong(List.of(material(12), copy)));
+        assertNull(index.heldAmong(List.of(material(12), material(13))));
+        assertEquals(1, selects, "Lookups must not query the database");
+    }
+
+    /**
+     * Tests that the index follows the holds placed and released by the hold service.
+     */
+    @Test
+    public void index_follows_placed_and_released_holds() throws DAOException {
+        UserHoldIndex index = UserHoldIndex.load(1, holdDao);
+
+        Hold placed = new Hold(4, 1, 13, LocalDateTime.now());
+        index.added(placed);
+        index.added(new Hold(5, 2, 14, LocalDateTime.now()));
+        assertSame(placed, index.holdOn(13));
+        assertNull(index.holdOn(14), "Holds of other users are ignored");
+
+        // A stale hold with another ID does not remove the current one
+        index.removed(new Hold(99, 1, 10, null));
+        assertNotNull(index.holdOn(10));
+
+        index.removed(index.holdOn(10));
+        assertNull(index.holdOn(10));
+        assertEquals(2, index.size());
+    }
+}
@@ -13,7 +13,10 @@ import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,7 +39,8 @@ public class UserLandingServiceTest {
      * Initializes sample in-memory data and DAOs before each test.
      * <p>
      * Creates a sample user, sample materials, a loan, and a hold.
-     * Sets up inline DAO implementations that simulate filtering by user ID or material ID.
+     * Sets up inline DAO implementations that simulate filtering by user ID or material ID,
+     * and a bulk lookup of materials by ID.
      * </p>
      */
     @BeforeEach
@@ -143,6 +147,16 @@ public class UserLandingServiceTest {
                 }
                 return result;
             }
+            @Override
+            public Map<Integer, Material> selectByIds(Collection<Integer> ids) {
+                Map<Integer, Material> result = new LinkedHashMap<>();
+                for (Material m : materials) {
+                    if (ids.contains(m.getIdMaterial())) {
+                        result.put(m.getIdMaterial(), m);
+                    }
+                }
+                return result;
+            }
         };
 
         service = new UserLandingService(loanDao, holdDao, materialDao);